@@ -1,9 +1,18 @@
 package com.miniSpring.aop;
 
-import com.miniSpring.aop.aspectj.AspectJExpressionPointcutAdvisor;
+import com.miniSpring.aop.framework.DefaultAdvisorChainFactory;
+import com.miniSpring.beans.BeansException;
+import com.miniSpring.aop.framework.FusedInterceptorChain;
+import com.miniSpring.aop.framework.FusedInterceptorChainFactory;
+import org.aopalliance.intercept.MethodInterceptor;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * AdvisedSupport 是 AOP 代理配置的核心承载类，
@@ -24,8 +33,16 @@ public class AdvisedSupport {
      */
     private TargetSource targetSource;
 
-    // 改成存 Advisor 列表，而非 MethodInterceptor 列表
-    private List<AspectJExpressionPointcutAdvisor> advisors = new ArrayList<AspectJExpressionPointcutAdvisor>();
+    // 改成存 Advisor 列表，而非 MethodInterceptor 列表；任何 PointcutAdvisor 都可以参与
+    // 列表不可变，变化时整体替换，只能通过 addAdvisor/setAdvisors 修改，保证每次修改都会使拦截器链缓存失效
+    private volatile List<PointcutAdvisor> advisors = Collections.emptyList();
+
+    /**
+     * 当前这一代 Advisor 配置对应的拦截器链缓存。
+     * Advisor 变化时整体替换为新的空缓存而不是清空：
+     * 变化前开始计算的线程只会把旧结果写入已被丢弃的旧缓存，不会把旧链重新装回当前缓存。
+     */
+    private volatile ChainCache chainCache = new ChainCache(0);
 
     /**
      * 方法匹配器，判断某个方法是否需要被增强
@@ -37,6 +54,48 @@ public class AdvisedSupport {
      */
     private boolean proxyTargetClass = false;
 
+    /*
+    JDK 动态代理在拦截器链末端调用目标方法的方式：
+    默认true代表用缓存的 MethodHandle 调用，false代表用 Method.invoke 反射调用。
+     */
+    private boolean methodHandleInvocation = true;
+
+    public boolean isMethodHandleInvocation() {
+        return methodHandleInvocation;
+    }
+
+    public void setMethodHandleInvocation(boolean methodHandleInvocation) {
+        this.methodHandleInvocation = methodHandleInvocation;
+    }
+
+    /*
+    是否为每个被增强方法生成融合拦截器链类（前置/后置通知内联为直接调用）：
+    默认false代表使用通用的拦截器链，true时生成失败的方法仍退回通用拦截器链。
+     */
+    private boolean fuseInterceptorChains = false;
+
+    public boolean isFuseInterceptorChains() {
+        return fuseInterceptorChains;
+    }
+
+    public void setFuseInterceptorChains(boolean fuseInterceptorChains) {
+        this.fuseInterceptorChains = fuseInterceptorChains;
+    }
+
+    /*
+    基于接口的代理的实现方式：
+    默认false代表用 java.lang.reflect.Proxy，true代表为每组接口生成代理类，方法直接分派（生成失败时仍退回JDK动态代理）。
+     */
+    private boolean generatedInterfaceProxy = false;
+
+    public boolean isGeneratedInterfaceProxy() {
+        return generatedInterfaceProxy;
+    }
+
+    public void setGeneratedInterfaceProxy(boolean generatedInterfaceProxy) {
+        this.generatedInterfaceProxy = generatedInterfaceProxy;
+    }
+
     public boolean isProxyTargetClass() {
         return proxyTargetClass;
     }
@@ -56,14 +115,20 @@ public class AdvisedSupport {
 
     public void setTargetSource(TargetSource targetSource) {
         this.targetSource = targetSource;
+        // 拦截器链对 TargetSource 做过校验（见 DetachedInvocationInterceptor），更换后需要重新计算
+        adviceChanged();
     }
 
-    public List<AspectJExpressionPointcutAdvisor> getAdvisors() {
+    /**
+     * 返回当前 Advisor 列表的只读视图，修改请使用 addAdvisor/setAdvisors
+     */
+    public List<PointcutAdvisor> getAdvisors() {
         return advisors;
     }
 
-    public void setAdvisors(List<AspectJExpressionPointcutAdvisor> advisors) {
-        this.advisors = advisors;
+    public synchronized void setAdvisors(List<PointcutAdvisor> advisors) {
+        this.advisors = Collections.unmodifiableList(new ArrayList<>(advisors));
+        adviceChanged();
     }
 
     public MethodMatcher getMethodMatcher() {
@@ -79,8 +144,98 @@ public class AdvisedSupport {
     /**
      * 方便向拦截器链添加一个advisor
      */
-    public void addAdvisor(AspectJExpressionPointcutAdvisor advisor) {
-        this.advisors.add(advisor);
+    public synchronized void addAdvisor(PointcutAdvisor advisor) {
+        List<PointcutAdvisor> newAdvisors = new ArrayList<>(this.advisors);
+        newAdvisors.add(advisor);
+        this.advisors = Collections.unmodifiableList(newAdvisors);
+        adviceChanged();
+    }
+
+    // ========== 拦截器链缓存 ==========
+
+    /**
+     * 获取方法的拦截器链，首次调用时计算并缓存。
+     * 返回的数组由所有调用共享，调用方不能修改。
+     */
+    public MethodInterceptor[] getInterceptors(Method method) {
+        return getInterceptors(chainCache, method);
+    }
+
+    private MethodInterceptor[] getInterceptors(ChainCache cache, Method method) {
+        MethodInterceptor[] interceptors = cache.interceptors.get(method);
+        if (null == interceptors) {
+            interceptors = DefaultAdvisorChainFactory.getInterceptors(advisors, method, targetSource.getTargetClass());
+            checkTargetSourceSupports(method, interceptors);
+            cache.interceptors.put(method, interceptors);
+        }
+        return interceptors;
+    }
+
+    /**
+     * 非静态的目标对象在代理调用返回时就被归还，不能交给会在其他线程中继续执行调用的拦截器
+     */
+    private void checkTargetSourceSupports(Method method, MethodInterceptor[] interceptors) {
+        if (targetSource.isStatic()) {
+            return;
+        }
+        for (MethodInterceptor interceptor : interceptors) {
+            if (interceptor instanceof DetachedInvocationInterceptor) {
+                throw new BeansException(interceptor.getClass().getSimpleName() + " on method " + method
+                        + " requires a static TargetSource, but the proxy uses " + targetSource.getClass().getName());
+            }
+        }
+    }
+
+    /**
+     * 获取方法的融合拦截器链，首次调用时生成并缓存；
+     * 未开启 fuseInterceptorChains、拦截器链为空或无法生成时返回 null，调用方使用 getInterceptors 的结果。
+     */
+    public FusedInterceptorChain getFusedInterceptorChain(Method method) {
+        if (!fuseInterceptorChains) {
+            return null;
+        }
+        // 融合链和它所依据的拦截器链取自同一代缓存
+        ChainCache cache = chainCache;
+        Optional<FusedInterceptorChain> fusedChain = cache.fusedChains.get(method);
+        if (null == fusedChain) {
+            fusedChain = Optional.ofNullable(FusedInterceptorChainFactory.create(method, getInterceptors(cache, method)));
+            cache.fusedChains.put(method, fusedChain);
+        }
+        return fusedChain.orElse(null);
+    }
+
+    /**
+     * Advisor 发生变化，之前计算的拦截器链全部失效
+     */
+    protected synchronized void adviceChanged() {
+        chainCache = new ChainCache(chainCache.generation + 1);
+    }
+
+    /**
+     * 当前 Advisor 配置的代数，每次 Advisor 变化加一。
+     * 持有拦截器链副本的调用方（如 CGLIB 代理的回调）据此判断副本是否需要重新获取：
+     * 先读取代数、再获取拦截器链，保证旧链不会被标记为新的代数。
+     */
+    public long getAdviceGeneration() {
+        return chainCache.generation;
+    }
+
+    /**
+     * 一代 Advisor 配置的拦截器链缓存
+     */
+    private static final class ChainCache {
+
+        final long generation;
+
+        // 方法 -> 拦截器链，每个方法只做一次匹配、排序和适配
+        final Map<Method, MethodInterceptor[]> interceptors = new ConcurrentHashMap<>();
+
+        // 方法 -> 融合拦截器链（仅在 fuseInterceptorChains 开启时使用）
+        final Map<Method, Optional<FusedInterceptorChain>> fusedChains = new ConcurrentHashMap<>();
+
+        ChainCache(long generation) {
+            this.generation = generation;
+        }
     }
 }
 
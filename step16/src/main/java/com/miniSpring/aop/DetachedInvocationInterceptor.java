@@ -0,0 +1,13 @@
+package com.miniSpring.aop;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+/**
+ * 在其他线程中、可能在代理调用返回之后才继续执行调用的拦截器（异步执行、对冲请求等）。
+ *
+ * 非静态的 TargetSource（对象池、原型等）在代理调用返回时就归还了目标对象，
+ * 这类拦截器继续执行时可能与其他调用同时使用同一个非线程安全的目标对象。
+ * 因此 AdvisedSupport 计算拦截器链时，若 TargetSource 不是静态的且链中包含此类拦截器，直接抛出 BeansException。
+ */
+public interface DetachedInvocationInterceptor extends MethodInterceptor {
+}
@@ -1,45 +1,33 @@
 package com.miniSpring.aop;
 
-import com.miniSpring.util.ClassUtils;
-
 /**
- * 封装被代理的目标对象，提供目标实例和类型信息
+ * 目标对象来源：代理每次调用都向它获取目标对象，调用结束后归还。
+ *
+ * 单例 Bean 使用 SingletonTargetSource，每次返回同一个对象；
+ * 非线程安全的 Bean 可以使用对象池（PoolingTargetSource）或按线程隔离（ThreadLocalTargetSource）的实现。
  */
-public class TargetSource {
-
-    private final Object target;
-
-    public TargetSource(Object target) {
-        this.target = target;
-    }
+public interface TargetSource {
 
     /**
-     * 获取目标对象的实际类型（类）
+     * 获取目标对象的实际类型（类），代理按此类型生成
      * 例如：UserService.class
      */
-    public Class<?> getTargetType() {
-        return this.target.getClass();
-    }
+    Class<?> getTargetClass();
 
     /**
-     * 获取目标对象实现的所有接口
-     * 例如：[IUserService.class]
+     * 是否每次都返回同一个目标对象。
+     * 静态的目标不需要归还，代理可以跳过 releaseTarget 并直接调用目标对象
      */
-    public Class<?>[] getTargetInterfaces() {
-        return getTargetType().getInterfaces();
-    }
+    boolean isStatic();
 
     /**
-     * 获取目标对象实例
+     * 获取本次调用使用的目标对象
      */
-    public Object getTarget() {
-        return this.target;
-    }
+    Object getTarget();
 
-    public Class<?> getTargetClass() {
-        Class<?> clazz = this.target.getClass();
-        clazz = ClassUtils.isCglibProxyClass(clazz) ? clazz.getSuperclass() : clazz;
-        return clazz;
-    }
+    /**
+     * 本次调用结束，归还 getTarget 获取的目标对象
+     */
+    void releaseTarget(Object target);
 
-}
\ No newline at end of file
+}
@@ -43,4 +43,8 @@ public class MethodAfterAdviceInterceptor implements MethodInterceptor {
                 methodInvocation.getThis(), returnValue);
         return returnValue;
     }
+
+    public MethodAfterAdvice getAdvice() {
+        return advice;
+    }
 }
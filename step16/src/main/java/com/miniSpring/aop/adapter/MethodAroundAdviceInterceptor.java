@@ -34,4 +34,8 @@ public class MethodAroundAdviceInterceptor implements MethodInterceptor {
                 methodInvocation
         );
     }
+
+    public MethodAroundAdvice getAdvice() {
+        return advice;
+    }
 }
@@ -0,0 +1,36 @@
+package com.miniSpring.aop.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 请求合并注解，用于被大量线程同时调用的查询方法。
+ *
+ *  - 单飞模式（不设置 batchMethod）：参数相同的并发调用共享同一次执行，
+ *    第一个调用执行方法，其余调用等待并得到同一个结果（或同一个异常）
+ *  - 批量模式（设置 batchMethod）：被标注的方法只能有一个参数（查询键），
+ *    在 windowMillis 时间内、最多 maxBatchSize 个并发调用的键合并为一次对批量方法的调用，结果再分发给各个调用方。
+ *    批量方法声明在同一个类上，参数为 List（或 Collection）类型的键列表，
+ *    返回 Map（键 -> 结果）或与键列表顺序一致的 List
+ *
+ * 合并后的调用方共享同一个返回对象，返回值应当不可变。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Collapse {
+
+    /**
+     * 批量方法名称，为空时使用单飞模式
+     */
+    String batchMethod() default "";
+
+    /**
+     * 批量模式下等待更多调用加入的最长时间（毫秒），默认 10
+     */
+    long windowMillis() default 10;
+
+    /**
+     * 批量模式下一批最多的键数量，达到后立即执行，默认 100
+     */
+    int maxBatchSize() default 100;
+}
@@ -0,0 +1,78 @@
+package com.miniSpring.aop.annotation;
+
+import com.miniSpring.aop.ClassFilter;
+import com.miniSpring.aop.MethodMatcher;
+import com.miniSpring.aop.Pointcut;
+import com.miniSpring.aop.PointcutAdvisor;
+import com.miniSpring.aop.interceptor.RequestCollapsingInterceptor;
+import com.miniSpring.core.Ordered;
+import com.miniSpring.core.annotation.AnnotationUtils;
+import org.aopalliance.aop.Advice;
+
+import java.lang.reflect.Method;
+
+/**
+ * 匹配 @Collapse 方法的通知器，声明为 Bean 后由 DefaultAdvisorAutoProxyCreator 自动应用：
+ * <pre>
+ * &lt;bean class="com.miniSpring.aop.annotation.CollapseAnnotationAdvisor"/&gt;
+ * </pre>
+ * 合并统计通过 getInterceptor() 获取。
+ */
+public class CollapseAnnotationAdvisor implements PointcutAdvisor, Ordered {
+
+    private final RequestCollapsingInterceptor interceptor = new RequestCollapsingInterceptor();
+
+    private final Pointcut pointcut = new CollapseAnnotationPointcut();
+
+    private int order = Integer.MAX_VALUE; // 默认优先级最低
+
+    @Override
+    public Pointcut getPointcut() {
+        return pointcut;
+    }
+
+    @Override
+    public Advice getAdvice() {
+        return interceptor;
+    }
+
+    public RequestCollapsingInterceptor getInterceptor() {
+        return interceptor;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    public void setOrder(int order) {
+        this.order = order;
+    }
+
+    /**
+     * 匹配声明了 @Collapse 的方法，以及有这类方法的类
+     */
+    private static final class CollapseAnnotationPointcut implements Pointcut, ClassFilter, MethodMatcher {
+
+        @Override
+        public ClassFilter getClassFilter() {
+            return this;
+        }
+
+        @Override
+        public MethodMatcher getMethodMatcher() {
+            return this;
+        }
+
+        @Override
+        public boolean matches(Class<?> clazz) {
+            return AnnotationUtils.hasAnnotatedMethod(clazz, Collapse.class);
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return null != AnnotationUtils.findAnnotation(method, targetClass, Collapse.class);
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.miniSpring.aop.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 对冲请求注解，用于降低幂等方法（通常是调用下游服务的查询）的长尾延迟。
+ *
+ * 方法调用超过自身近期耗时的 percentile 分位数仍未返回时，再并发发起一次相同的调用，
+ * 取先成功返回的结果，取消（中断）另一次调用。对冲次数不超过调用总数的 maxHedgePercent%。
+ * 近期样本少于 minSamples 时不对冲，直接在调用方线程执行并记录耗时。
+ *
+ * 方法会被执行两次，只能用于幂等、无副作用的方法。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Hedged {
+
+    /**
+     * 触发对冲的耗时分位数，默认 95（即 p95）
+     */
+    double percentile() default 95;
+
+    /**
+     * 对冲次数占调用次数的上限（百分比），默认 10
+     */
+    int maxHedgePercent() default 10;
+
+    /**
+     * 对冲等待时间的下限（毫秒），避免极快的方法频繁对冲，默认 1
+     */
+    long minDelayMillis() default 1;
+
+    /**
+     * 开始对冲前需要的近期样本数量，默认 20
+     */
+    int minSamples() default 20;
+}
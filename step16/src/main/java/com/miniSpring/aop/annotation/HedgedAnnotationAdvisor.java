@@ -0,0 +1,100 @@
+package com.miniSpring.aop.annotation;
+
+import com.miniSpring.aop.ClassFilter;
+import com.miniSpring.aop.MethodMatcher;
+import com.miniSpring.aop.Pointcut;
+import com.miniSpring.aop.PointcutAdvisor;
+import com.miniSpring.aop.interceptor.HedgingInterceptor;
+import com.miniSpring.beans.factory.DisposableBean;
+import com.miniSpring.core.Ordered;
+import com.miniSpring.core.annotation.AnnotationUtils;
+import com.miniSpring.scheduling.AsyncTaskExecutor;
+import org.aopalliance.aop.Advice;
+
+import java.lang.reflect.Method;
+
+/**
+ * 匹配 @Hedged 方法的通知器，声明为 Bean 后由 DefaultAdvisorAutoProxyCreator 自动应用：
+ * <pre>
+ * &lt;bean class="com.miniSpring.aop.annotation.HedgedAnnotationAdvisor"&gt;
+ *     &lt;property name="executor" ref="asyncExecutor"/&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ * executor 可省略，此时使用内部创建的执行器，容器关闭时随通知器一起关闭。
+ * 对冲统计通过 getInterceptor() 获取。
+ */
+public class HedgedAnnotationAdvisor implements PointcutAdvisor, Ordered, DisposableBean {
+
+    private final HedgingInterceptor interceptor = new HedgingInterceptor();
+
+    private final Pointcut pointcut = new HedgedAnnotationPointcut();
+
+    private int order = Integer.MAX_VALUE; // 默认优先级最低，紧贴目标方法
+
+    @Override
+    public Pointcut getPointcut() {
+        return pointcut;
+    }
+
+    @Override
+    public Advice getAdvice() {
+        return interceptor;
+    }
+
+    public HedgingInterceptor getInterceptor() {
+        return interceptor;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    public void setOrder(int order) {
+        this.order = order;
+    }
+
+    public AsyncTaskExecutor getExecutor() {
+        return interceptor.getConfiguredExecutor();
+    }
+
+    public void setExecutor(AsyncTaskExecutor executor) {
+        interceptor.setExecutor(executor);
+    }
+
+    public void setHistogramWindowMillis(long histogramWindowMillis) {
+        interceptor.setHistogramWindowMillis(histogramWindowMillis);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        interceptor.shutdown();
+    }
+
+    /**
+     * 匹配声明了 @Hedged 的方法，以及有这类方法的类
+     */
+    private static final class HedgedAnnotationPointcut implements Pointcut, ClassFilter, MethodMatcher {
+
+        @Override
+        public ClassFilter getClassFilter() {
+            return this;
+        }
+
+        @Override
+        public MethodMatcher getMethodMatcher() {
+            return this;
+        }
+
+        @Override
+        public boolean matches(Class<?> clazz) {
+            return AnnotationUtils.hasAnnotatedMethod(clazz, Hedged.class);
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return null != AnnotationUtils.findAnnotation(method, targetClass, Hedged.class);
+        }
+    }
+
+}
@@ -7,9 +7,14 @@ import org.aspectj.weaver.tools.PointcutExpression;
 import org.aspectj.weaver.tools.PointcutParser;
 import org.aspectj.weaver.tools.PointcutPrimitive;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * AspectJExpressionPointcut 是一个基于 AspectJ 表达式的切点实现类，
@@ -22,6 +27,12 @@ import java.util.Set;
  *
  * 在 AOP 中，Pointcut 用来定位切入点，Advice 用来定义切面逻辑，
  * 而这个类就是负责“用表达式匹配目标方法”的那部分。
+ *
+ * 解析和匹配的开销较大，这里做了两层缓存：
+ *  - 每个类加载器共享一个 PointcutParser，相同（表达式, 类加载器）只解析一次，存活的切点实例共享同一个解析结果；
+ *    缓存对类加载器、解析器和解析结果都只持有弱引用，不再被使用的类加载器可以卸载；
+ *  - 解析结果上按类缓存匹配结果（ClassValue，挂在被匹配的类自身上，随类卸载），方法匹配前先用声明类做一次快速排除。
+ * 解析器内部的 AspectJ World 不是线程安全的：命中缓存不加锁，解析和未命中时的匹配在解析器上串行执行。
  */
 public class AspectJExpressionPointcut implements Pointcut, ClassFilter, MethodMatcher {
 
@@ -39,10 +50,16 @@ public class AspectJExpressionPointcut implements Pointcut, ClassFilter, MethodM
     }
 
     /**
-     * AspectJ 解析后的切点表达式对象。
-     * 由 AspectJ 的 PointcutParser 生成，用来执行实际的匹配判断。
+     * 类加载器 -> 该类加载器的解析器及其解析结果。
+     * 解析器的 AspectJ World 会持有已解析的类型，进而持有类加载器，因此值也用弱引用：
+     * 解析器只由它的解析结果持有，解析结果只由切点实例持有，切点全部回收后三者和类加载器都可以被回收。
      */
-    private final PointcutExpression pointcutExpression;
+    private static final Map<ClassLoader, WeakReference<SharedParser>> parserCache = new WeakHashMap<>();
+
+    /**
+     * 共享的解析结果，持有 AspectJ 切点表达式对象及其匹配结果缓存
+     */
+    private final ParsedExpression parsedExpression;
 
     /**
      * 构造方法：传入 AspectJ 表达式并进行解析
@@ -50,14 +67,31 @@ public class AspectJExpressionPointcut implements Pointcut, ClassFilter, MethodM
      * @param expression 切点表达式（如 execution(* com.example..*(..))）
      */
     public AspectJExpressionPointcut(String expression) {
-        // 创建一个 PointcutParser，指定支持的切点类型和类加载器
-        PointcutParser pointcutParser =
-                PointcutParser.getPointcutParserSupportingSpecifiedPrimitivesAndUsingSpecifiedClassLoaderForResolution(
-                        SUPPORTED_PRIMITIVES, this.getClass().getClassLoader()
-                );
-
-        // 解析传入的切点表达式
-        this.pointcutExpression = pointcutParser.parsePointcutExpression(expression);
+        this(expression, AspectJExpressionPointcut.class.getClassLoader());
+    }
+
+    /**
+     * 构造方法：使用指定的类加载器解析表达式中的类型
+     */
+    public AspectJExpressionPointcut(String expression, ClassLoader classLoader) {
+        ClassLoader resolutionClassLoader = null != classLoader ? classLoader : AspectJExpressionPointcut.class.getClassLoader();
+        this.parsedExpression = obtainParsedExpression(expression, resolutionClassLoader);
+    }
+
+    /**
+     * 获取（或解析）表达式在指定类加载器下的解析结果，只在创建切点时调用
+     */
+    private static ParsedExpression obtainParsedExpression(String expression, ClassLoader classLoader) {
+        SharedParser parser;
+        synchronized (parserCache) {
+            WeakReference<SharedParser> reference = parserCache.get(classLoader);
+            parser = null != reference ? reference.get() : null;
+            if (null == parser) {
+                parser = new SharedParser(classLoader);
+                parserCache.put(classLoader, new WeakReference<>(parser));
+            }
+        }
+        return parser.obtain(expression);
     }
 
     /**
@@ -68,7 +102,7 @@ public class AspectJExpressionPointcut implements Pointcut, ClassFilter, MethodM
      */
     @Override
     public boolean matches(Class<?> clazz) {
-        return pointcutExpression.couldMatchJoinPointsInType(clazz);
+        return parsedExpression.couldMatchJoinPointsInType(clazz);
     }
 
     /**
@@ -80,9 +114,7 @@ public class AspectJExpressionPointcut implements Pointcut, ClassFilter, MethodM
      */
     @Override
     public boolean matches(Method method, Class<?> targetClass) {
-        // matchesMethodExecution() 用于方法执行匹配
-        // alwaysMatches() 表示是否肯定匹配
-        return pointcutExpression.matchesMethodExecution(method).alwaysMatches();
+        return parsedExpression.matchesMethodExecution(method);
     }
 
     /**
@@ -103,6 +135,105 @@ public class AspectJExpressionPointcut implements Pointcut, ClassFilter, MethodM
         return this;
     }
 
+    /**
+     * 一个类加载器共享的 PointcutParser 及其解析结果。
+     * 同一个解析器的 AspectJ World 不是线程安全的，解析和所有解析结果的未命中匹配都在本对象上加锁。
+     */
+    private static final class SharedParser {
 
-}
+        private final PointcutParser pointcutParser;
+
+        // 表达式 -> 解析结果，只持有弱引用，由本对象加锁保护
+        private final Map<String, WeakReference<ParsedExpression>> expressions = new HashMap<>();
 
+        private SharedParser(ClassLoader classLoader) {
+            this.pointcutParser = PointcutParser.getPointcutParserSupportingSpecifiedPrimitivesAndUsingSpecifiedClassLoaderForResolution(
+                    SUPPORTED_PRIMITIVES, classLoader
+            );
+        }
+
+        synchronized ParsedExpression obtain(String expression) {
+            WeakReference<ParsedExpression> reference = expressions.get(expression);
+            ParsedExpression parsed = null != reference ? reference.get() : null;
+            if (null == parsed) {
+                // 顺便清理已被回收的解析结果
+                expressions.values().removeIf(ref -> null == ref.get());
+                // 解析传入的切点表达式
+                parsed = new ParsedExpression(this, pointcutParser.parsePointcutExpression(expression));
+                expressions.put(expression, new WeakReference<>(parsed));
+            }
+            return parsed;
+        }
+    }
+
+    /**
+     * 解析后的表达式及其匹配结果缓存，由相同表达式的所有切点实例共享
+     */
+    private static final class ParsedExpression {
+
+        // 解析器同时是未命中时的锁，解析结果存活期间解析器也保持存活
+        private final SharedParser parser;
+
+        private final PointcutExpression pointcutExpression;
+
+        // 类 -> 该类的匹配结果；每个类的结果数量以其方法数为上限，随类卸载一起回收
+        private final ClassValue<ClassMatches> classMatches = new ClassValue<ClassMatches>() {
+            @Override
+            protected ClassMatches computeValue(Class<?> type) {
+                return new ClassMatches();
+            }
+        };
+
+        private ParsedExpression(SharedParser parser, PointcutExpression pointcutExpression) {
+            this.parser = parser;
+            this.pointcutExpression = pointcutExpression;
+        }
+
+        // 命中缓存不加锁；未命中时在解析器上串行调用 AspectJ（并行预实例化时多个线程会同时匹配）
+        boolean couldMatchJoinPointsInType(Class<?> clazz) {
+            ClassMatches matches = classMatches.get(clazz);
+            Boolean matched = matches.typeMatch;
+            if (null == matched) {
+                synchronized (parser) {
+                    matched = matches.typeMatch;
+                    if (null == matched) {
+                        matched = pointcutExpression.couldMatchJoinPointsInType(clazz);
+                        matches.typeMatch = matched;
+                    }
+                }
+            }
+            return matched;
+        }
+
+        boolean matchesMethodExecution(Method method) {
+            Map<Method, Boolean> methodMatches = classMatches.get(method.getDeclaringClass()).methodMatches;
+            Boolean matched = methodMatches.get(method);
+            if (null == matched) {
+                // 快速排除：声明该方法的类型中不可能有匹配的连接点时，无需计算 ShadowMatch
+                if (!couldMatchJoinPointsInType(method.getDeclaringClass())) {
+                    matched = false;
+                } else {
+                    synchronized (parser) {
+                        matched = methodMatches.get(method);
+                        if (null == matched) {
+                            // matchesMethodExecution() 用于方法执行匹配，alwaysMatches() 表示是否肯定匹配
+                            matched = pointcutExpression.matchesMethodExecution(method).alwaysMatches();
+                        }
+                    }
+                }
+                methodMatches.put(method, matched);
+            }
+            return matched;
+        }
+    }
+
+    /**
+     * 某个类在一个解析结果下的匹配结果：类本身是否可能匹配，以及该类声明的方法是否匹配（ShadowMatch 的结论）
+     */
+    private static final class ClassMatches {
+
+        volatile Boolean typeMatch;
+
+        final Map<Method, Boolean> methodMatches = new ConcurrentHashMap<>();
+    }
+}
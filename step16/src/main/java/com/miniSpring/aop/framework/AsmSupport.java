@@ -0,0 +1,74 @@
+package com.miniSpring.aop.framework;
+
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.MethodType;
+
+/**
+ * 生成字节码时共用的 ASM 指令片段：常量、装箱/拆箱、按类型加载局部变量和返回
+ */
+final class AsmSupport {
+
+    private AsmSupport() {
+    }
+
+    static void pushInt(MethodVisitor mv, int value) {
+        if (value <= 5) {
+            mv.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.BIPUSH, value);
+        } else {
+            mv.visitIntInsn(Opcodes.SIPUSH, value);
+        }
+    }
+
+    /**
+     * 栈顶的 Object 转为 type：引用类型做 checkcast，基本类型先转为包装类型再拆箱
+     */
+    static void unbox(MethodVisitor mv, Class<?> type) {
+        if (!type.isPrimitive()) {
+            mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+            return;
+        }
+        Type wrapper = Type.getType(wrapperOf(type));
+        mv.visitTypeInsn(Opcodes.CHECKCAST, wrapper.getInternalName());
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapper.getInternalName(), type.getName() + "Value",
+                "()" + Type.getDescriptor(type), false);
+    }
+
+    /**
+     * 栈顶的 type 类型值转为 Object：基本类型装箱，void 压入 null
+     */
+    static void box(MethodVisitor mv, Class<?> type) {
+        if (type == void.class) {
+            mv.visitInsn(Opcodes.ACONST_NULL);
+        } else if (type.isPrimitive()) {
+            Type wrapper = Type.getType(wrapperOf(type));
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, wrapper.getInternalName(), "valueOf",
+                    "(" + Type.getDescriptor(type) + ")" + wrapper.getDescriptor(), false);
+        }
+    }
+
+    /**
+     * 按类型加载局部变量 slot，返回下一个局部变量的 slot（long/double 占两个）
+     */
+    static int load(MethodVisitor mv, Class<?> type, int slot) {
+        Type asmType = Type.getType(type);
+        mv.visitVarInsn(asmType.getOpcode(Opcodes.ILOAD), slot);
+        return slot + asmType.getSize();
+    }
+
+    /**
+     * 按返回类型生成返回指令
+     */
+    static void returnValue(MethodVisitor mv, Class<?> type) {
+        mv.visitInsn(Type.getType(type).getOpcode(Opcodes.IRETURN));
+    }
+
+    private static Class<?> wrapperOf(Class<?> primitive) {
+        return MethodType.methodType(primitive).wrap().returnType();
+    }
+
+}
@@ -1,22 +1,57 @@
 package com.miniSpring.aop.framework;
 
-import com.miniSpring.aop.*;
-import com.miniSpring.aop.adapter.MethodAfterAdviceInterceptor;
-import com.miniSpring.aop.adapter.MethodAroundAdviceInterceptor;
-import com.miniSpring.aop.adapter.MethodBeforeAdviceInterceptor;
-import com.miniSpring.core.Ordered;
+import com.miniSpring.aop.AdvisedSupport;
+import com.miniSpring.aop.TargetSource;
+import com.miniSpring.beans.BeansException;
+import com.miniSpring.util.ObjectInstantiator;
+import net.sf.cglib.proxy.Callback;
+import net.sf.cglib.proxy.CallbackFilter;
+import net.sf.cglib.proxy.Dispatcher;
 import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.Factory;
 import net.sf.cglib.proxy.MethodInterceptor;
 import net.sf.cglib.proxy.MethodProxy;
-import org.aopalliance.aop.Advice;
 
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * 基于 CGLIB 子类的 AOP 代理实现。
+ *
+ * 代理类生成后按（目标类, 接口, 被增强方法集合）缓存，相同结构的 Bean 复用同一个代理类，
+ * 之后只创建实例：优先跳过构造函数创建（见 ObjectInstantiator），再通过 Factory.setCallbacks 绑定回调。
+ * 生成时用 CallbackFilter 为方法分配回调：
+ *  - 未被增强的方法（以及 Object 的方法）交给 Dispatcher，直接调用目标对象，不经过拦截器链；
+ *  - 每个被增强的方法有自己的回调下标，回调中持有该方法预先计算好的拦截器链（开启融合时为生成的融合链）；
+ *  - 泛型桥接方法（参数类型被擦除）按其桥接的实际方法分配回调，通过泛型接口调用时同样经过拦截器链。
+ *
+ * 回调持有的拦截器链随 Advisor 配置的代数失效：创建代理后修改 Advisor，被增强方法下一次调用时重新获取拦截器链，
+ * 与 JDK 动态代理的行为一致。但哪些方法经过拦截器链在生成代理时确定，
+ * 创建时没有被增强的方法之后仍直接调用目标对象，需要增强它们时应重新创建代理。
+ */
 public class Cglib2AopProxy implements AopProxy {
 
+    // 下标 0 固定为直接调用目标对象的 Dispatcher，被增强的方法从下标 1 开始
+    private static final int TARGET_DISPATCHER_INDEX = 0;
+
+    /**
+     * 代理类缓存：目标类 -> (代理结构 -> 已生成的代理类)。
+     * 用 ClassValue 挂在目标类自身上，不持有目标类的强引用，目标类及其类加载器（代理类也定义在其中）可以一起卸载。
+     */
+    private static final ClassValue<Map<ProxyClassKey, Class<?>>> proxyClassCache = new ClassValue<Map<ProxyClassKey, Class<?>>>() {
+        @Override
+        protected Map<ProxyClassKey, Class<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    // 按线程复用的调用对象，稳定状态下一次代理调用不创建任何对象
+    private static final ThreadLocal<CglibMethodInvocation> reusableInvocation =
+            ThreadLocal.withInitial(CglibMethodInvocation::new);
+
     private final AdvisedSupport advised;
 
     public Cglib2AopProxy(AdvisedSupport advised) {
@@ -25,109 +60,380 @@ public class Cglib2AopProxy implements AopProxy {
 
     @Override
     public Object getProxy() {
+        TargetSource targetSource = advised.getTargetSource();
+        Class<?> targetClass = targetSource.getTargetClass();
+        Class<?>[] interfaces = targetClass.getInterfaces();
+        boolean staticTarget = targetSource.isStatic();
+
+        // 1. 找出所有被增强的方法，按签名排序，排序后的位置决定回调下标
+        Map<String, Method> advisedMethods = findAdvisedMethods(targetClass, interfaces);
+        List<String> advisedSignatures = new ArrayList<>(advisedMethods.keySet());
+
+        // 2. 为每个方法准备回调：下标 0 直接调用目标，其余每个增强方法一个拦截器链回调
+        //    非静态的目标对象（对象池等）调用后需要归还，下标 0 改用能在调用结束时归还的拦截器
+        Callback[] callbacks = new Callback[advisedSignatures.size() + 1];
+        callbacks[TARGET_DISPATCHER_INDEX] = staticTarget ? new TargetDispatcher(advised) : new DynamicTargetInterceptor(advised);
+        for (int i = 0; i < advisedSignatures.size(); i++) {
+            callbacks[i + 1] = new AdvisedMethodInterceptor(advised, advisedMethods.get(advisedSignatures.get(i)));
+        }
+
+        // 3. 获取（或生成）代理类，再创建实例并绑定本次的回调
+        ProxyClassKey key = new ProxyClassKey(targetClass, interfaces, advisedSignatures, staticTarget);
+        Class<?> proxyClass = proxyClassCache.get(targetClass).computeIfAbsent(key, k -> createProxyClass(targetClass, interfaces, advisedSignatures, staticTarget));
+        return createProxyInstance(proxyClass, callbacks);
+    }
+
+    /**
+     * 只生成代理类、不创建实例：回调类型固定为 [Dispatcher 或 MethodInterceptor, MethodInterceptor...]，回调实例在创建代理实例时绑定
+     */
+    private static Class<?> createProxyClass(Class<?> targetClass, Class<?>[] interfaces, List<String> advisedSignatures, boolean staticTarget) {
+        Class<?>[] callbackTypes = new Class<?>[advisedSignatures.size() + 1];
+        Arrays.fill(callbackTypes, MethodInterceptor.class);
+        callbackTypes[TARGET_DISPATCHER_INDEX] = staticTarget ? Dispatcher.class : MethodInterceptor.class;
+
         Enhancer enhancer = new Enhancer();
-        enhancer.setSuperclass(advised.getTargetSource().getTarget().getClass());
-        enhancer.setInterfaces(advised.getTargetSource().getTargetInterfaces());
-        // 传入当前 Cglib2AopProxy 实例，供内部类调用 adaptAdviceToInterceptor
-        enhancer.setCallback(new DynamicAdvisedInterceptor(advised, this));
-        return enhancer.create();
+        enhancer.setSuperclass(targetClass);
+        enhancer.setInterfaces(interfaces);
+        // 代理类由 proxyClassCache 缓存，不需要 CGLIB 再按 CallbackFilter 做一层缓存
+        enhancer.setUseCache(false);
+        enhancer.setCallbackFilter(new AdvisedMethodFilter(advisedSignatures));
+        enhancer.setCallbackTypes(callbackTypes);
+        return enhancer.createClass();
+    }
+
+    /**
+     * 创建代理实例：优先跳过构造函数（目标对象已经构造过，代理实例不需要再执行一遍构造逻辑，
+     * 目标类也不必有无参构造函数）；当前 JVM 不支持时退回执行无参构造函数。
+     */
+    private static Object createProxyInstance(Class<?> proxyClass, Callback[] callbacks) {
+        Object proxy = ObjectInstantiator.newInstance(proxyClass);
+        if (null != proxy) {
+            ((Factory) proxy).setCallbacks(callbacks);
+            return proxy;
+        }
+
+        // 回调通过线程变量传给代理类构造函数中的 CGLIB$BIND_CALLBACKS
+        Enhancer.registerCallbacks(proxyClass, callbacks);
+        try {
+            return proxyClass.getDeclaredConstructor().newInstance();
+        } catch (NoSuchMethodException e) {
+            throw new BeansException("Cannot create CGLIB proxy for " + proxyClass.getSuperclass().getName()
+                    + ": constructor bypass is unavailable and no no-arg constructor is declared", e);
+        } catch (InvocationTargetException e) {
+            throw new BeansException("Constructor of " + proxyClass.getSuperclass().getName() + " threw exception", e.getTargetException());
+        } catch (ReflectiveOperationException e) {
+            throw new BeansException("Failed to instantiate CGLIB proxy for " + proxyClass.getSuperclass().getName(), e);
+        } finally {
+            Enhancer.registerCallbacks(proxyClass, null);
+        }
     }
 
     /**
-     * 将 Advice 转换成 MethodInterceptor 列表
+     * 找出代理类中会被拦截、且拦截器链不为空的方法：签名 -> 方法（按签名排序）
      */
-    public List<org.aopalliance.intercept.MethodInterceptor> adaptAdviceToInterceptor(Advice advice) {
-        List<org.aopalliance.intercept.MethodInterceptor> interceptors = new ArrayList<>();
-
-        if (advice instanceof MethodAroundAdvice) {
-            interceptors.add(new MethodAroundAdviceInterceptor((MethodAroundAdvice) advice));
-        } else if (advice instanceof MethodBeforeAdvice) {
-            interceptors.add(new MethodBeforeAdviceInterceptor((MethodBeforeAdvice) advice));
-        } else if (advice instanceof MethodAfterAdvice) {
-            interceptors.add(new MethodAfterAdviceInterceptor((MethodAfterAdvice) advice));
-        } else if (advice instanceof org.aopalliance.intercept.MethodInterceptor) {
-            interceptors.add((org.aopalliance.intercept.MethodInterceptor) advice);
-        } else {
-            throw new IllegalArgumentException("Unsupported advice type: " + advice.getClass());
-        }
-
-        return interceptors;
+    private Map<String, Method> findAdvisedMethods(Class<?> targetClass, Class<?>[] interfaces) {
+        Map<String, Method> candidates = new LinkedHashMap<>();
+        for (Class<?> clazz = targetClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                int modifiers = method.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers) || Modifier.isFinal(modifiers)) continue;
+                // 桥接方法不单独分配回调，路由时归到它桥接的实际方法（见 AdvisedMethodFilter）
+                if (method.isBridge()) continue;
+                // 子类中的方法优先，父类中被覆盖的同签名方法忽略
+                candidates.putIfAbsent(signatureOf(method), method);
+            }
+        }
+        for (Class<?> anInterface : interfaces) {
+            for (Method method : anInterface.getMethods()) {
+                if (Modifier.isStatic(method.getModifiers())) continue;
+                candidates.putIfAbsent(signatureOf(method), method);
+            }
+        }
+
+        Map<String, Method> advisedMethods = new TreeMap<>();
+        for (Map.Entry<String, Method> entry : candidates.entrySet()) {
+            if (advised.getInterceptors(entry.getValue()).length > 0) {
+                advisedMethods.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return advisedMethods;
     }
 
     /**
-     * CGLIB 的 MethodInterceptor
-     * 负责拦截目标对象的方法调用，执行拦截器链或直接调用目标方法
+     * 方法签名：方法名 + 参数类型，不含返回类型。
+     * 只有协变返回类型产生的桥接方法（参数类型相同）会与实际方法对应到同一签名；
+     * 泛型产生的桥接方法参数类型被擦除，签名不同，需要先用 findBridgedMethod 找到实际方法。
      */
-    private static class DynamicAdvisedInterceptor implements MethodInterceptor {
+    private static String signatureOf(Method method) {
+        StringBuilder signature = new StringBuilder(method.getName()).append('(');
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            signature.append(parameterType.getName()).append(';');
+        }
+        return signature.append(')').toString();
+    }
+
+    /**
+     * 按方法签名分配回调下标：被增强的方法使用各自的拦截器链回调，其余方法直接调用目标对象
+     */
+    private static class AdvisedMethodFilter implements CallbackFilter {
+
+        private final Map<String, Integer> callbackIndexes = new HashMap<>();
+
+        AdvisedMethodFilter(List<String> advisedSignatures) {
+            for (int i = 0; i < advisedSignatures.size(); i++) {
+                callbackIndexes.put(advisedSignatures.get(i), i + 1);
+            }
+        }
+
+        @Override
+        public int accept(Method method) {
+            // Object 类方法直接调用，不做增强
+            if (Object.class.equals(method.getDeclaringClass())) {
+                return TARGET_DISPATCHER_INDEX;
+            }
+            if (method.isBridge()) {
+                method = findBridgedMethod(method);
+            }
+            return callbackIndexes.getOrDefault(signatureOf(method), TARGET_DISPATCHER_INDEX);
+        }
+    }
+
+    /**
+     * 找到桥接方法所桥接的实际方法：声明类层次中同名、参数个数相同、参数和返回类型都可以赋值给桥接方法的非桥接方法。
+     * 候选不唯一或找不到时返回桥接方法本身。
+     */
+    private static Method findBridgedMethod(Method bridge) {
+        Method bridged = null;
+        for (Class<?> clazz = bridge.getDeclaringClass(); clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Method candidate : clazz.getDeclaredMethods()) {
+                if (candidate.isBridge() || !candidate.getName().equals(bridge.getName())
+                        || candidate.getParameterCount() != bridge.getParameterCount()
+                        || !bridge.getReturnType().isAssignableFrom(candidate.getReturnType())
+                        || !isParameterAssignable(bridge.getParameterTypes(), candidate.getParameterTypes())) {
+                    continue;
+                }
+                if (null != bridged && !signatureOf(bridged).equals(signatureOf(candidate))) {
+                    return bridge;
+                }
+                if (null == bridged) {
+                    bridged = candidate;
+                }
+            }
+        }
+        return null != bridged ? bridged : bridge;
+    }
+
+    private static boolean isParameterAssignable(Class<?>[] bridgeTypes, Class<?>[] candidateTypes) {
+        for (int i = 0; i < bridgeTypes.length; i++) {
+            if (!bridgeTypes[i].isAssignableFrom(candidateTypes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 未被增强的方法：每次调用取出目标对象，由 CGLIB 直接在目标对象上调用原方法
+     */
+    private static class TargetDispatcher implements Dispatcher {
 
         private final AdvisedSupport advised;
-        private final Cglib2AopProxy proxyInstance;
 
-        public DynamicAdvisedInterceptor(AdvisedSupport advised, Cglib2AopProxy proxyInstance) {
+        TargetDispatcher(AdvisedSupport advised) {
+            this.advised = advised;
+        }
+
+        @Override
+        public Object loadObject() {
+            return advised.getTargetSource().getTarget();
+        }
+    }
+
+    /**
+     * 非静态目标对象下未被增强的方法：每次调用获取目标对象，直接调用原方法，结束后归还
+     */
+    private static class DynamicTargetInterceptor implements MethodInterceptor {
+
+        private final AdvisedSupport advised;
+
+        DynamicTargetInterceptor(AdvisedSupport advised) {
             this.advised = advised;
-            this.proxyInstance = proxyInstance;
         }
 
         @Override
         public Object intercept(Object proxy, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
-            // 1. Object 类方法直接调用，不做增强
-            if (Object.class.equals(method.getDeclaringClass())) {
-                return method.invoke(advised.getTargetSource().getTarget(), args);
+            TargetSource targetSource = advised.getTargetSource();
+            Object target = targetSource.getTarget();
+            try {
+                return methodProxy.invoke(target, args);
+            } finally {
+                targetSource.releaseTarget(target);
             }
+        }
+    }
 
-            // 2. 获取匹配的 Advisor
-            List<PointcutAdvisor> eligibleAdvisors = new ArrayList<>();
-            for (PointcutAdvisor advisor : advised.getAdvisors()) {
-                if (advisor.getPointcut().getMethodMatcher()
-                        .matches(method, advised.getTargetSource().getTarget().getClass())) {
-                    eligibleAdvisors.add(advisor);
-                }
+    /**
+     * 被增强方法的回调，持有该方法的拦截器链（开启融合时为生成的融合链）。
+     * 负责执行拦截器链，最终通过 MethodProxy 调用目标方法；
+     * Advisor 配置的代数变化后，下一次调用时重新获取拦截器链。
+     */
+    private static class AdvisedMethodInterceptor implements MethodInterceptor {
+
+        private final AdvisedSupport advised;
+
+        // 用于获取拦截器链的方法，也是拦截器看到的方法（桥接方法调用时为它桥接的实际方法）
+        private final Method method;
+
+        private volatile ChainState state;
+
+        AdvisedMethodInterceptor(AdvisedSupport advised, Method method) {
+            this.advised = advised;
+            this.method = method;
+            this.state = resolveState();
+        }
+
+        private ChainState resolveState() {
+            // 先读代数再取链：并发修改 Advisor 时，宁可多重新获取一次，也不会把旧链标记为新的代数
+            long generation = advised.getAdviceGeneration();
+            FusedInterceptorChain fusedChain = advised.getFusedInterceptorChain(method);
+            return new ChainState(generation, fusedChain, null != fusedChain ? null : advised.getInterceptors(method));
+        }
+
+        @Override
+        public Object intercept(Object proxy, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
+            ChainState chain = state;
+            if (chain.generation != advised.getAdviceGeneration()) {
+                chain = resolveState();
+                state = chain;
             }
 
-            // 3. 对 Advisors 按 Order 排序
-            eligibleAdvisors.sort(Comparator.comparingInt(advisor -> ((Ordered) advisor).getOrder()));
+            TargetSource targetSource = advised.getTargetSource();
+            Object target = targetSource.getTarget();
+            try {
+                if (null != chain.fusedChain) {
+                    return chain.fusedChain.invoke(target, args);
+                }
 
+                // 取出本线程复用的 CglibMethodInvocation；嵌套调用代理时已被占用，新建一个
+                CglibMethodInvocation invocation = reusableInvocation.get();
+                if (invocation.isInUse()) {
+                    return new CglibMethodInvocation(target, this.method, args, methodProxy, chain.interceptors).proceed();
+                }
 
-            // 4. 转换 Advisors → MethodInterceptors（通过外部 proxyInstance 调用）
-            List<org.aopalliance.intercept.MethodInterceptor> interceptorChain = new ArrayList<>();
-            for (Advisor advisor : eligibleAdvisors) {
-                interceptorChain.addAll(proxyInstance.adaptAdviceToInterceptor(advisor.getAdvice()));
+                // 执行拦截器链
+                invocation.init(target, this.method, args, methodProxy, chain.interceptors);
+                try {
+                    return invocation.proceed();
+                } finally {
+                    invocation.release();
+                }
+            } finally {
+                if (!targetSource.isStatic()) {
+                    targetSource.releaseTarget(target);
+                }
             }
+        }
+    }
+
+    /**
+     * 某一代 Advisor 配置下方法的拦截器链，fusedChain 与 interceptors 二者只有一个不为 null
+     */
+    private static final class ChainState {
+
+        private final long generation;
+
+        private final FusedInterceptorChain fusedChain;
 
-            // 5. 执行拦截器链，传入自定义 CglibMethodInvocation
-            CglibMethodInvocation invocation = new CglibMethodInvocation(
-                    advised.getTargetSource().getTarget(),
-                    method,
-                    args,
-                    methodProxy,
-                    interceptorChain
-            );
-            return invocation.proceed();
+        private final org.aopalliance.intercept.MethodInterceptor[] interceptors;
+
+        ChainState(long generation, FusedInterceptorChain fusedChain, org.aopalliance.intercept.MethodInterceptor[] interceptors) {
+            this.generation = generation;
+            this.fusedChain = fusedChain;
+            this.interceptors = interceptors;
+        }
+    }
+
+    /**
+     * 代理类缓存的键：目标类 + 接口 + 被增强方法的签名列表（有序，决定回调下标）+ 目标对象是否静态（决定下标 0 的回调类型）
+     */
+    private static final class ProxyClassKey {
+
+        private final Class<?> targetClass;
+
+        private final List<Class<?>> interfaces;
+
+        private final List<String> advisedSignatures;
+
+        private final boolean staticTarget;
+
+        private final int hashCode;
+
+        ProxyClassKey(Class<?> targetClass, Class<?>[] interfaces, List<String> advisedSignatures, boolean staticTarget) {
+            this.targetClass = targetClass;
+            this.interfaces = Arrays.asList(interfaces);
+            this.advisedSignatures = advisedSignatures;
+            this.staticTarget = staticTarget;
+            this.hashCode = Objects.hash(targetClass, this.interfaces, advisedSignatures, staticTarget);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ProxyClassKey)) return false;
+            ProxyClassKey that = (ProxyClassKey) o;
+            return targetClass == that.targetClass
+                    && staticTarget == that.staticTarget
+                    && interfaces.equals(that.interfaces)
+                    && advisedSignatures.equals(that.advisedSignatures);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
         }
     }
 
     /**
      * CglibMethodInvocation 继承 ReflectiveMethodInvocation，复用拦截器链调用逻辑，
-     * 并重写 proceed() 用 CGLIB 的 methodProxy 调用目标方法
+     * 并重写 invokeJoinpoint() 用 CGLIB 的 methodProxy 调用目标方法
      */
     private static class CglibMethodInvocation extends ReflectiveMethodInvocation {
 
-        private final MethodProxy methodProxy;
+        private MethodProxy methodProxy;
+
+        CglibMethodInvocation() {
+        }
 
         public CglibMethodInvocation(Object target, Method method, Object[] arguments,
-                                     MethodProxy methodProxy, List<org.aopalliance.intercept.MethodInterceptor> interceptors) {
+                                     MethodProxy methodProxy, org.aopalliance.intercept.MethodInterceptor[] interceptors) {
             super(target, method, arguments, interceptors);
             this.methodProxy = methodProxy;
         }
 
+        void init(Object target, Method method, Object[] arguments,
+                  MethodProxy methodProxy, org.aopalliance.intercept.MethodInterceptor[] interceptors) {
+            init(target, method, arguments, interceptors, null);
+            this.methodProxy = methodProxy;
+        }
+
         @Override
-        public Object proceed() throws Throwable {
-            if (currentInterceptorIndex == methodInterceptorList.size() - 1) {
-                return methodProxy.invoke(target, arguments);
-            }
-            currentInterceptorIndex++;
-            org.aopalliance.intercept.MethodInterceptor interceptor = methodInterceptorList.get(currentInterceptorIndex);
-            return interceptor.invoke(this);
+        protected void release() {
+            super.release();
+            this.methodProxy = null;
+        }
+
+        @Override
+        public ReflectiveMethodInvocation invocableClone() {
+            checkNotReleased();
+            CglibMethodInvocation clone = new CglibMethodInvocation(target, method,
+                    null != arguments ? arguments.clone() : null, methodProxy, interceptors);
+            clone.currentInterceptorIndex = this.currentInterceptorIndex;
+            return clone;
+        }
+
+        @Override
+        protected Object invokeJoinpoint() throws Throwable {
+            return methodProxy.invoke(target, arguments);
         }
     }
 }
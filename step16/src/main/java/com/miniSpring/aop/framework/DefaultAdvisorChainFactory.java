@@ -0,0 +1,78 @@
+package com.miniSpring.aop.framework;
+
+import com.miniSpring.aop.*;
+import com.miniSpring.aop.adapter.MethodAfterAdviceInterceptor;
+import com.miniSpring.aop.adapter.MethodAroundAdviceInterceptor;
+import com.miniSpring.aop.adapter.MethodBeforeAdviceInterceptor;
+import com.miniSpring.core.Ordered;
+import org.aopalliance.aop.Advice;
+import org.aopalliance.intercept.MethodInterceptor;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 拦截器链工厂：为某个方法计算出最终要执行的拦截器数组。
+ *
+ * 计算过程包括：按方法匹配器筛选 Advisor、按 Order 排序、把 Advice 适配成 MethodInterceptor。
+ * 这一过程原先在 JDK / CGLIB 代理的每次调用中重复执行，现在统一放在这里，
+ * 由 AdvisedSupport 按方法缓存计算结果。
+ */
+public final class DefaultAdvisorChainFactory {
+
+    private static final MethodInterceptor[] EMPTY_CHAIN = new MethodInterceptor[0];
+
+    private DefaultAdvisorChainFactory() {
+    }
+
+    /**
+     * 计算 method 在 targetClass 上的拦截器链
+     */
+    public static MethodInterceptor[] getInterceptors(List<? extends PointcutAdvisor> advisors, Method method, Class<?> targetClass) {
+        // 1. 获取匹配的 Advisor
+        List<PointcutAdvisor> eligibleAdvisors = new ArrayList<>();
+        for (PointcutAdvisor advisor : advisors) {
+            if (advisor.getPointcut().getMethodMatcher().matches(method, targetClass)) {
+                eligibleAdvisors.add(advisor);
+            }
+        }
+        if (eligibleAdvisors.isEmpty()) {
+            return EMPTY_CHAIN;
+        }
+
+        // 2. 对 Advisors 按 Order 排序，未实现 Ordered 的优先级最低
+        eligibleAdvisors.sort(Comparator.comparingInt(DefaultAdvisorChainFactory::getOrder));
+
+        // 3. 转换 Advisors → MethodInterceptors
+        List<MethodInterceptor> interceptorChain = new ArrayList<>(eligibleAdvisors.size());
+        for (Advisor advisor : eligibleAdvisors) {
+            interceptorChain.add(adaptAdviceToInterceptor(advisor.getAdvice()));
+        }
+        return interceptorChain.toArray(EMPTY_CHAIN);
+    }
+
+    /**
+     * 把 Advice 转换成 MethodInterceptor
+     * 模拟 Spring 的 AdvisorAdapterRegistry
+     */
+    public static MethodInterceptor adaptAdviceToInterceptor(Advice advice) {
+        if (advice instanceof MethodAroundAdvice) {
+            return new MethodAroundAdviceInterceptor((MethodAroundAdvice) advice);
+        } else if (advice instanceof MethodBeforeAdvice) {
+            return new MethodBeforeAdviceInterceptor((MethodBeforeAdvice) advice);
+        } else if (advice instanceof MethodAfterAdvice) {
+            return new MethodAfterAdviceInterceptor((MethodAfterAdvice) advice);
+        } else if (advice instanceof MethodInterceptor) {
+            // 仅对已经实现了 MethodInterceptor 的 Advice 支持直接加入
+            return (MethodInterceptor) advice;
+        }
+        throw new IllegalArgumentException("Unsupported advice type: " + advice.getClass());
+    }
+
+    private static int getOrder(Advisor advisor) {
+        return advisor instanceof Ordered ? ((Ordered) advisor).getOrder() : Integer.MAX_VALUE;
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.miniSpring.aop.framework;
+
+import java.lang.reflect.Method;
+
+/**
+ * 融合后的拦截器链：由 FusedInterceptorChainFactory 为某个被增强方法生成的专用子类。
+ *
+ * 生成的子类把前置通知、目标方法调用、后置通知写成直线代码，
+ * 只有环绕通知（以及其他普通 MethodInterceptor）需要通过 FusedMethodInvocation 间接继续后面的链。
+ * 链被切分为若干段（stage），每段从链中的某个下标开始，到下一个环绕通知为止。
+ */
+public abstract class FusedInterceptorChain {
+
+    protected final Method method;
+
+    protected FusedInterceptorChain(Method method) {
+        this.method = method;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * 从链头开始执行：依次执行通知并最终调用目标方法
+     */
+    public abstract Object invoke(Object target, Object[] args) throws Throwable;
+
+    /**
+     * 从链中下标为 stage 的位置继续执行，供环绕通知的 proceed() 使用
+     */
+    public abstract Object invokeStage(int stage, Object target, Object[] args) throws Throwable;
+
+}
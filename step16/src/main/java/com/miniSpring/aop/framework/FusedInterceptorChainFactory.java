@@ -0,0 +1,402 @@
+package com.miniSpring.aop.framework;
+
+import com.miniSpring.aop.MethodAfterAdvice;
+import com.miniSpring.aop.MethodAroundAdvice;
+import com.miniSpring.aop.MethodBeforeAdvice;
+import com.miniSpring.aop.adapter.MethodAfterAdviceInterceptor;
+import com.miniSpring.aop.adapter.MethodAroundAdviceInterceptor;
+import com.miniSpring.aop.adapter.MethodBeforeAdviceInterceptor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 使用 ASM（cglib 自带的依赖）为被增强方法生成 FusedInterceptorChain 子类。
+ *
+ * 以链 [前置 B, 后置 A, 环绕 R, 前置 C] 为例，生成的代码大致为：
+ * <pre>
+ * Object stage0(target, args) { b.before(..); rv = r.around(.., new FusedMethodInvocation(this, 3, ..)); a.after(.., rv); return rv; }
+ * Object stage3(target, args) { c.before(..); rv = ((Target) target).method((T0) args[0], ...); return rv; }
+ * </pre>
+ * 每个通知保存在各自类型的字段中，调用点对 JIT 是单态的；目标方法是 public 时直接调用，否则通过 MethodHandle 调用。
+ * 生成的类按（方法, 链的形状）缓存在方法所在类加载器对应的 GeneratedClassLoader 中，
+ * 无法生成（如类加载器不可见）时返回 null，由调用方退回普通拦截器链。
+ */
+public final class FusedInterceptorChainFactory {
+
+    private static final int BEFORE = 0;
+    private static final int AFTER = 1;
+    private static final int AROUND = 2;
+    private static final int INTERCEPTOR = 3;
+
+    private static final String CHAIN_INTERNAL_NAME = Type.getInternalName(FusedInterceptorChain.class);
+    private static final String INVOCATION_INTERNAL_NAME = Type.getInternalName(FusedMethodInvocation.class);
+    private static final String OBJECT_DESCRIPTOR = Type.getDescriptor(Object.class);
+    private static final String ARGS_DESCRIPTOR = Type.getDescriptor(Object[].class);
+    private static final String METHOD_DESCRIPTOR = Type.getDescriptor(Method.class);
+    private static final String HANDLE_DESCRIPTOR = Type.getDescriptor(MethodHandle.class);
+    private static final String STAGE_DESCRIPTOR = "(" + OBJECT_DESCRIPTOR + ARGS_DESCRIPTOR + ")" + OBJECT_DESCRIPTOR;
+
+    private static final AtomicInteger classCounter = new AtomicInteger();
+
+    private FusedInterceptorChainFactory() {
+    }
+
+    /**
+     * 为 method 的拦截器链生成融合链实例，无法生成时返回 null
+     */
+    public static FusedInterceptorChain create(Method method, MethodInterceptor[] interceptors) {
+        if (interceptors.length == 0 || Modifier.isStatic(method.getModifiers())) {
+            return null;
+        }
+
+        // 1. 把拦截器拆回原始通知，确定每个元素的类型
+        int[] kinds = new int[interceptors.length];
+        Object[] elements = new Object[interceptors.length];
+        for (int i = 0; i < interceptors.length; i++) {
+            MethodInterceptor interceptor = interceptors[i];
+            // 只识别框架自带的适配器本身，子类可能覆盖了 invoke，按普通拦截器处理
+            if (interceptor.getClass() == MethodBeforeAdviceInterceptor.class) {
+                kinds[i] = BEFORE;
+                elements[i] = ((MethodBeforeAdviceInterceptor) interceptor).getAdvice();
+            } else if (interceptor.getClass() == MethodAfterAdviceInterceptor.class) {
+                kinds[i] = AFTER;
+                elements[i] = ((MethodAfterAdviceInterceptor) interceptor).getAdvice();
+            } else if (interceptor.getClass() == MethodAroundAdviceInterceptor.class) {
+                kinds[i] = AROUND;
+                elements[i] = ((MethodAroundAdviceInterceptor) interceptor).getAdvice();
+            } else {
+                kinds[i] = INTERCEPTOR;
+                elements[i] = interceptor;
+            }
+        }
+
+        // 2. 获取（或生成）该形状的融合链类，并用本次的通知实例化
+        GeneratedClassLoader classLoader = GeneratedClassLoader.forType(method.getDeclaringClass());
+        if (null == classLoader) {
+            return null;
+        }
+        Optional<Constructor<?>> constructor = classLoader.generatedClass(new ChainShape(method, kinds),
+                shape -> generate(classLoader, (ChainShape) shape));
+        if (!constructor.isPresent()) {
+            return null;
+        }
+        try {
+            return (FusedInterceptorChain) constructor.get().newInstance(method, elements, MethodHandleInvoker.forMethod(method));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to instantiate fused interceptor chain for method [" + method + "]", e);
+        }
+    }
+
+    /**
+     * 生成融合链类，无法生成时返回 Optional.empty() 并同样缓存，避免重复尝试
+     */
+    private static Optional<Constructor<?>> generate(GeneratedClassLoader classLoader, ChainShape shape) {
+        Method method = shape.method;
+
+        String className = "com/miniSpring/aop/framework/FusedInterceptorChain$$Generated$$" + classCounter.incrementAndGet();
+        byte[] bytecode = generateClass(className, method, shape.kinds, isDirectlyInvocable(method, classLoader));
+        try {
+            Class<?> chainClass = classLoader.define(className.replace('/', '.'), bytecode);
+            return Optional.of(chainClass.getConstructor(Method.class, Object[].class, MethodHandle.class));
+        } catch (LinkageError | NoSuchMethodException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 目标方法及其涉及的类型都是 public 且对生成类可见时，生成直接调用，否则通过 MethodHandle 调用
+     */
+    private static boolean isDirectlyInvocable(Method method, GeneratedClassLoader classLoader) {
+        if (!Modifier.isPublic(method.getModifiers())) return false;
+        List<Class<?>> types = new ArrayList<>(Arrays.asList(method.getParameterTypes()));
+        types.add(method.getDeclaringClass());
+        types.add(method.getReturnType());
+        for (Class<?> type : types) {
+            if (!classLoader.isAccessible(type)) return false;
+        }
+        return true;
+    }
+
+    private static byte[] generateClass(String className, Method method, int[] kinds, boolean directInvocation) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                // 生成的代码不存在需要合并不同引用类型的分支，避免 ASM 通过自身的类加载器加载业务类
+                return "java/lang/Object";
+            }
+        };
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, className, null, CHAIN_INTERNAL_NAME, null);
+
+        // 字段：每个通知一个类型化字段，外加目标方法句柄
+        for (int i = 0; i < kinds.length; i++) {
+            cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "e" + i, Type.getDescriptor(elementType(kinds[i])), null, null).visitEnd();
+        }
+        cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "targetHandle", HANDLE_DESCRIPTOR, null, null).visitEnd();
+
+        generateConstructor(cw, className, kinds);
+
+        // 链按环绕通知切分成若干段，每段的起始下标即 stage 编号
+        List<Integer> stages = new ArrayList<>();
+        stages.add(0);
+        for (int i = 0; i < kinds.length; i++) {
+            if (isIndirection(kinds[i])) stages.add(i + 1);
+        }
+        for (int stage : stages) {
+            generateStage(cw, className, method, kinds, stage, directInvocation);
+        }
+
+        // invoke(target, args) -> stage0
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "invoke", STAGE_DESCRIPTOR, null, new String[]{"java/lang/Throwable"});
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitVarInsn(Opcodes.ALOAD, 2);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, className, "stage0", STAGE_DESCRIPTOR, false);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        generateInvokeStage(cw, className, stages);
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void generateConstructor(ClassWriter cw, String className, int[] kinds) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>",
+                "(" + METHOD_DESCRIPTOR + ARGS_DESCRIPTOR + HANDLE_DESCRIPTOR + ")V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, CHAIN_INTERNAL_NAME, "<init>", "(" + METHOD_DESCRIPTOR + ")V", false);
+        for (int i = 0; i < kinds.length; i++) {
+            Class<?> type = elementType(kinds[i]);
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitVarInsn(Opcodes.ALOAD, 2);
+            AsmSupport.pushInt(mv, i);
+            mv.visitInsn(Opcodes.AALOAD);
+            mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+            mv.visitFieldInsn(Opcodes.PUTFIELD, className, "e" + i, Type.getDescriptor(type));
+        }
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ALOAD, 3);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, className, "targetHandle", HANDLE_DESCRIPTOR);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * 生成从 stage 开始的一段：前置通知直接调用，后置通知在返回前逆序调用，
+     * 遇到环绕通知时把后续链包装成 FusedMethodInvocation 交给它，否则直接调用目标方法。
+     * 局部变量：0 this, 1 target, 2 args, 3 返回值
+     */
+    private static void generateStage(ClassWriter cw, String className, Method method, int[] kinds, int stage, boolean directInvocation) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PRIVATE, "stage" + stage, STAGE_DESCRIPTOR, null, new String[]{"java/lang/Throwable"});
+        mv.visitCode();
+
+        Deque<Integer> afterAdvices = new ArrayDeque<>();
+        boolean indirection = false;
+        for (int i = stage; i < kinds.length && !indirection; i++) {
+            switch (kinds[i]) {
+                case BEFORE:
+                    // e_i.before(method, args, target)
+                    loadElement(mv, className, i, kinds[i]);
+                    loadMethod(mv, className);
+                    mv.visitVarInsn(Opcodes.ALOAD, 2);
+                    mv.visitVarInsn(Opcodes.ALOAD, 1);
+                    mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(MethodBeforeAdvice.class), "before",
+                            "(" + METHOD_DESCRIPTOR + ARGS_DESCRIPTOR + OBJECT_DESCRIPTOR + ")V", true);
+                    break;
+                case AFTER:
+                    afterAdvices.push(i);
+                    break;
+                case AROUND:
+                    // rv = e_i.around(method, args, target, new FusedMethodInvocation(this, i + 1, target, args))
+                    loadElement(mv, className, i, kinds[i]);
+                    loadMethod(mv, className);
+                    mv.visitVarInsn(Opcodes.ALOAD, 2);
+                    mv.visitVarInsn(Opcodes.ALOAD, 1);
+                    newContinuation(mv, i + 1);
+                    mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(MethodAroundAdvice.class), "around",
+                            "(" + METHOD_DESCRIPTOR + ARGS_DESCRIPTOR + OBJECT_DESCRIPTOR + Type.getDescriptor(MethodInvocation.class) + ")" + OBJECT_DESCRIPTOR, true);
+                    indirection = true;
+                    break;
+                default:
+                    // rv = e_i.invoke(new FusedMethodInvocation(this, i + 1, target, args))
+                    loadElement(mv, className, i, kinds[i]);
+                    newContinuation(mv, i + 1);
+                    mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(MethodInterceptor.class), "invoke",
+                            "(" + Type.getDescriptor(MethodInvocation.class) + ")" + OBJECT_DESCRIPTOR, true);
+                    indirection = true;
+                    break;
+            }
+        }
+        if (!indirection) {
+            invokeTarget(mv, className, method, directInvocation);
+        }
+        mv.visitVarInsn(Opcodes.ASTORE, 3);
+
+        // 后置通知：内层先执行，e_i.after(method, args, target, rv)
+        for (int i : afterAdvices) {
+            loadElement(mv, className, i, AFTER);
+            loadMethod(mv, className);
+            mv.visitVarInsn(Opcodes.ALOAD, 2);
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitVarInsn(Opcodes.ALOAD, 3);
+            mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(MethodAfterAdvice.class), "after",
+                    "(" + METHOD_DESCRIPTOR + ARGS_DESCRIPTOR + OBJECT_DESCRIPTOR + OBJECT_DESCRIPTOR + ")V", true);
+        }
+
+        mv.visitVarInsn(Opcodes.ALOAD, 3);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * 调用目标方法，结果（装箱后）留在操作数栈上
+     */
+    private static void invokeTarget(MethodVisitor mv, String className, Method method, boolean directInvocation) {
+        if (!directInvocation) {
+            // MethodHandleInvoker.invoke(targetHandle, target, args)
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, className, "targetHandle", HANDLE_DESCRIPTOR);
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitVarInsn(Opcodes.ALOAD, 2);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(MethodHandleInvoker.class), "invoke",
+                    "(" + HANDLE_DESCRIPTOR + OBJECT_DESCRIPTOR + ARGS_DESCRIPTOR + ")" + OBJECT_DESCRIPTOR, false);
+            return;
+        }
+
+        // ((Declaring) target).method((P0) args[0], (P1) args[1], ...)
+        Class<?> declaringClass = method.getDeclaringClass();
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(declaringClass));
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            mv.visitVarInsn(Opcodes.ALOAD, 2);
+            AsmSupport.pushInt(mv, i);
+            mv.visitInsn(Opcodes.AALOAD);
+            AsmSupport.unbox(mv, parameterTypes[i]);
+        }
+        boolean isInterface = declaringClass.isInterface();
+        mv.visitMethodInsn(isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL, Type.getInternalName(declaringClass),
+                method.getName(), Type.getMethodDescriptor(method), isInterface);
+        AsmSupport.box(mv, method.getReturnType());
+    }
+
+    /**
+     * invokeStage(stage, target, args)：按 stage 编号跳转到对应的段
+     * 局部变量：0 this, 1 stage, 2 target, 3 args
+     */
+    private static void generateInvokeStage(ClassWriter cw, String className, List<Integer> stages) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "invokeStage", "(I" + OBJECT_DESCRIPTOR + ARGS_DESCRIPTOR + ")" + OBJECT_DESCRIPTOR,
+                null, new String[]{"java/lang/Throwable"});
+        mv.visitCode();
+        int[] keys = new int[stages.size()];
+        Label[] labels = new Label[stages.size()];
+        for (int i = 0; i < stages.size(); i++) {
+            keys[i] = stages.get(i);
+            labels[i] = new Label();
+        }
+        Label unknownStage = new Label();
+        mv.visitVarInsn(Opcodes.ILOAD, 1);
+        mv.visitLookupSwitchInsn(unknownStage, keys, labels);
+        for (int i = 0; i < stages.size(); i++) {
+            mv.visitLabel(labels[i]);
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitVarInsn(Opcodes.ALOAD, 2);
+            mv.visitVarInsn(Opcodes.ALOAD, 3);
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, className, "stage" + keys[i], STAGE_DESCRIPTOR, false);
+            mv.visitInsn(Opcodes.ARETURN);
+        }
+        mv.visitLabel(unknownStage);
+        mv.visitTypeInsn(Opcodes.NEW, "java/lang/IllegalArgumentException");
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/IllegalArgumentException", "<init>", "()V", false);
+        mv.visitInsn(Opcodes.ATHROW);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void newContinuation(MethodVisitor mv, int nextStage) {
+        mv.visitTypeInsn(Opcodes.NEW, INVOCATION_INTERNAL_NAME);
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        AsmSupport.pushInt(mv, nextStage);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitVarInsn(Opcodes.ALOAD, 2);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, INVOCATION_INTERNAL_NAME, "<init>",
+                "(" + Type.getDescriptor(FusedInterceptorChain.class) + "I" + OBJECT_DESCRIPTOR + ARGS_DESCRIPTOR + ")V", false);
+    }
+
+    private static void loadElement(MethodVisitor mv, String className, int index, int kind) {
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, className, "e" + index, Type.getDescriptor(elementType(kind)));
+    }
+
+    private static void loadMethod(MethodVisitor mv, String className) {
+        // 生成类与父类不在同一个运行时包中，protected 字段通过子类自身引用访问
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, className, "method", METHOD_DESCRIPTOR);
+    }
+
+    private static Class<?> elementType(int kind) {
+        switch (kind) {
+            case BEFORE:
+                return MethodBeforeAdvice.class;
+            case AFTER:
+                return MethodAfterAdvice.class;
+            case AROUND:
+                return MethodAroundAdvice.class;
+            default:
+                return MethodInterceptor.class;
+        }
+    }
+
+    private static boolean isIndirection(int kind) {
+        return kind == AROUND || kind == INTERCEPTOR;
+    }
+
+    /**
+     * 生成类的缓存键：方法 + 链中每个元素的类型
+     */
+    private static final class ChainShape {
+
+        private final Method method;
+
+        private final int[] kinds;
+
+        ChainShape(Method method, int[] kinds) {
+            this.method = method;
+            this.kinds = kinds;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ChainShape)) return false;
+            ChainShape that = (ChainShape) o;
+            return method.equals(that.method) && Arrays.equals(kinds, that.kinds);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * method.hashCode() + Arrays.hashCode(kinds);
+        }
+    }
+
+}
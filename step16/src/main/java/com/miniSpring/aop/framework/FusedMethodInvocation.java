@@ -0,0 +1,53 @@
+package com.miniSpring.aop.framework;
+
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+
+/**
+ * 融合拦截器链中交给环绕通知的 MethodInvocation：proceed() 从链中指定位置继续执行。
+ * 对象不可变，可以在调用返回后（或在其他线程中）继续 proceed。
+ */
+public final class FusedMethodInvocation implements MethodInvocation {
+
+    private final FusedInterceptorChain chain;
+
+    private final int stage;
+
+    private final Object target;
+
+    private final Object[] arguments;
+
+    public FusedMethodInvocation(FusedInterceptorChain chain, int stage, Object target, Object[] arguments) {
+        this.chain = chain;
+        this.stage = stage;
+        this.target = target;
+        this.arguments = arguments;
+    }
+
+    @Override
+    public Object proceed() throws Throwable {
+        return chain.invokeStage(stage, target, arguments);
+    }
+
+    @Override
+    public Method getMethod() {
+        return chain.getMethod();
+    }
+
+    @Override
+    public Object[] getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public Object getThis() {
+        return target;
+    }
+
+    @Override
+    public AccessibleObject getStaticPart() {
+        return chain.getMethod();
+    }
+}
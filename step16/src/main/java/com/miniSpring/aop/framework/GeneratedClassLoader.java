@@ -0,0 +1,94 @@
+package com.miniSpring.aop.framework;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 定义框架运行时生成类（融合拦截器链、接口代理）的类加载器。
+ *
+ * 每个业务类加载器对应一个子加载器，生成类既能看到业务类型，也能通过父加载器看到框架类；
+ * 父加载器看不到框架类（或看到的是另一份框架类）时不创建，由调用方退回不生成类的实现。
+ *
+ * 子加载器不阻止业务类加载器被卸载：全局表以业务类加载器为弱键，值也只弱引用子加载器（子加载器的 parent 就是键，强引用值会让键永远可达）。
+ * 生成类缓存在各自的子加载器中，子加载器由生成类的实例（代理、融合链）保持可达，
+ * 这些实例都不再使用后，子加载器、生成类连同业务类加载器可以一起被回收，之后需要时重新生成。
+ */
+final class GeneratedClassLoader extends ClassLoader {
+
+    // 业务类加载器 -> 子加载器，两端都是弱引用
+    private static final Map<ClassLoader, WeakReference<GeneratedClassLoader>> classLoaders =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    // 本加载器中的生成类：缓存键 -> 生成类的构造函数，无法生成时缓存 Optional.empty()
+    private final Map<Object, Optional<Constructor<?>>> generatedClasses = new ConcurrentHashMap<>();
+
+    private GeneratedClassLoader(ClassLoader parent) {
+        super(parent);
+    }
+
+    /**
+     * 获取 type 所在类加载器对应的子加载器，框架类不可见时返回 null
+     */
+    static GeneratedClassLoader forType(Class<?> type) {
+        ClassLoader parent = type.getClassLoader();
+        if (null == parent) {
+            parent = GeneratedClassLoader.class.getClassLoader();
+        }
+        GeneratedClassLoader classLoader = get(parent);
+        if (null != classLoader) {
+            return classLoader;
+        }
+        try {
+            if (Class.forName(GeneratedClassLoader.class.getName(), false, parent) != GeneratedClassLoader.class) {
+                return null;
+            }
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        synchronized (classLoaders) {
+            classLoader = get(parent);
+            if (null == classLoader) {
+                classLoader = new GeneratedClassLoader(parent);
+                classLoaders.put(parent, new WeakReference<>(classLoader));
+            }
+            return classLoader;
+        }
+    }
+
+    private static GeneratedClassLoader get(ClassLoader parent) {
+        WeakReference<GeneratedClassLoader> reference = classLoaders.get(parent);
+        return null != reference ? reference.get() : null;
+    }
+
+    /**
+     * 获取（或生成）本加载器中 key 对应的生成类构造函数
+     */
+    Optional<Constructor<?>> generatedClass(Object key, Function<Object, Optional<Constructor<?>>> generator) {
+        return generatedClasses.computeIfAbsent(key, generator);
+    }
+
+    /**
+     * 判断 type 能否被生成类直接引用：public 且从本加载器解析到的是同一个类
+     */
+    boolean isAccessible(Class<?> type) {
+        while (type.isArray()) type = type.getComponentType();
+        if (type.isPrimitive()) return true;
+        if (!java.lang.reflect.Modifier.isPublic(type.getModifiers())) return false;
+        try {
+            return Class.forName(type.getName(), false, this) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    Class<?> define(String name, byte[] bytecode) {
+        return defineClass(name, bytecode, 0, bytecode.length);
+    }
+
+}
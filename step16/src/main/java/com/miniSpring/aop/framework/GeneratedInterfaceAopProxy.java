@@ -0,0 +1,410 @@
+package com.miniSpring.aop.framework;
+
+import com.miniSpring.aop.AdvisedSupport;
+import com.miniSpring.aop.TargetSource;
+import com.miniSpring.beans.BeansException;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于生成字节码的接口代理，替代 java.lang.reflect.Proxy。
+ *
+ * 为每组（接口, 被增强方法集合）生成一个实现这些接口的代理类，每个接口方法一个直接的分派桩：
+ *  - 未被增强的方法直接在目标对象上调用，参数和返回值不装箱，也不经过 InvocationHandler；
+ *  - 被增强的方法把参数装箱后按下标调用 invoke(methodIndex, args)，拦截器链在创建代理时已按下标准备好；
+ *  - equals/hashCode/toString 与 JdkDynamicAopProxy 一致，直接委托给目标对象。
+ *
+ * 与 JDK 代理相同，未声明的受检异常包装为 UndeclaredThrowableException。
+ * 接口或方法中的类型对生成类不可见、多个接口中同签名方法的声明不一致、TargetSource 不是静态的时，退回 JdkDynamicAopProxy。
+ * 与 Cglib2AopProxy 相同，被增强方法持有的拦截器链随 Advisor 配置的代数失效，创建代理后修改 Advisor，
+ * 下一次调用时重新获取拦截器链（或融合链）；但哪些方法经过分派入口在生成代理时确定，
+ * 创建时没有被增强的方法之后仍直接调用目标对象，需要增强它们时应重新创建代理。
+ */
+public class GeneratedInterfaceAopProxy implements AopProxy {
+
+    private static final String TARGET_SOURCE_INTERNAL_NAME = Type.getInternalName(TargetSource.class);
+    private static final String DISPATCHER_INTERNAL_NAME = Type.getInternalName(GeneratedInterfaceAopProxy.class);
+    private static final String OBJECT_INTERNAL_NAME = Type.getInternalName(Object.class);
+    private static final String GET_TARGET_DESCRIPTOR = "()" + Type.getDescriptor(Object.class);
+    private static final String DISPATCH_DESCRIPTOR = "(I" + Type.getDescriptor(Object[].class) + ")" + Type.getDescriptor(Object.class);
+
+    private static final AtomicInteger classCounter = new AtomicInteger();
+
+    // 按线程复用的调用对象，稳定状态下一次代理调用不创建 MethodInvocation
+    private static final ThreadLocal<ReflectiveMethodInvocation> reusableInvocation =
+            ThreadLocal.withInitial(ReflectiveMethodInvocation::new);
+
+    private final AdvisedSupport advised;
+
+    // 以下数组按被增强方法的下标存放，与生成类中分派桩传入的 methodIndex 对应
+    private Method[] advisedMethods;
+
+    private MethodHandle[] targetHandles;
+
+    // 每个被增强方法当前使用的拦截器链，元素不可变，Advisor 代数变化后整体替换
+    private ChainState[] chainStates;
+
+    public GeneratedInterfaceAopProxy(AdvisedSupport advised) {
+        this.advised = advised;
+    }
+
+    @Override
+    public Object getProxy() {
+        Class<?> targetClass = advised.getTargetSource().getTargetClass();
+        Class<?>[] interfaces = targetClass.getInterfaces();
+        if (interfaces.length == 0) {
+            throw new BeansException("目标类 " + targetClass.getName() + " 未实现任何接口，无法使用JDK动态代理");
+        }
+
+        // 1. 收集接口方法（签名 -> 方法），签名冲突无法用一个分派桩表示时退回 JDK 代理；
+        //    直接调用的分派桩不归还目标对象，非静态的 TargetSource 同样交给 JDK 代理
+        Map<String, Method> methods = advised.getTargetSource().isStatic() ? collectInterfaceMethods(interfaces) : null;
+        if (null == methods) {
+            return new JdkDynamicAopProxy(advised).getProxy();
+        }
+
+        // 2. 找出被增强的方法，按出现顺序分配下标，并预先准备拦截器链和目标调用方式
+        List<String> advisedSignatures = new ArrayList<>();
+        List<Method> advisedMethodList = new ArrayList<>();
+        for (Map.Entry<String, Method> entry : methods.entrySet()) {
+            if (advised.getInterceptors(entry.getValue()).length > 0) {
+                advisedSignatures.add(entry.getKey());
+                advisedMethodList.add(entry.getValue());
+            }
+        }
+        int size = advisedMethodList.size();
+        advisedMethods = advisedMethodList.toArray(new Method[0]);
+        targetHandles = new MethodHandle[size];
+        chainStates = new ChainState[size];
+        for (int i = 0; i < size; i++) {
+            Method method = advisedMethods[i];
+            targetHandles[i] = advised.isMethodHandleInvocation() ? MethodHandleInvoker.forMethod(method) : null;
+            chainStates[i] = resolveChainState(method);
+        }
+
+        // 3. 获取（或生成）代理类并创建实例，代理类缓存在定义它的 GeneratedClassLoader 中
+        GeneratedClassLoader classLoader = selectClassLoader(interfaces, methods.values());
+        if (null == classLoader) {
+            return new JdkDynamicAopProxy(advised).getProxy();
+        }
+        Optional<Constructor<?>> constructor = classLoader.generatedClass(new ProxyClassKey(interfaces, advisedSignatures),
+                key -> generateProxyClass(classLoader, interfaces, methods.values(), new HashSet<>(advisedMethodList)));
+        if (!constructor.isPresent()) {
+            return new JdkDynamicAopProxy(advised).getProxy();
+        }
+        try {
+            return constructor.get().newInstance(advised.getTargetSource(), this);
+        } catch (ReflectiveOperationException e) {
+            throw new BeansException("Failed to instantiate generated proxy for " + targetClass.getName(), e);
+        }
+    }
+
+    /**
+     * 被增强方法的分派入口，由生成的代理类调用，不应在其他地方使用
+     * @param methodIndex 被增强方法的下标
+     * @param args 装箱后的参数，无参方法为 null（与 JDK 代理一致）
+     */
+    public Object invoke(int methodIndex, Object[] args) throws Throwable {
+        Method method = advisedMethods[methodIndex];
+        ChainState chain = chainStates[methodIndex];
+        if (chain.generation != advised.getAdviceGeneration()) {
+            // ChainState 的字段都是 final，其他线程读到替换前的元素也只是多重新获取一次
+            chain = resolveChainState(method);
+            chainStates[methodIndex] = chain;
+        }
+
+        Object target = advised.getTargetSource().getTarget();
+        try {
+            if (null != chain.fusedChain) {
+                return chain.fusedChain.invoke(target, args);
+            }
+
+            // 取出本线程复用的方法调用器；嵌套调用代理时已被占用，新建一个
+            ReflectiveMethodInvocation invocation = reusableInvocation.get();
+            if (invocation.isInUse()) {
+                return new ReflectiveMethodInvocation(target, method, args, chain.interceptors, targetHandles[methodIndex]).proceed();
+            }
+            invocation.init(target, method, args, chain.interceptors, targetHandles[methodIndex]);
+            try {
+                return invocation.proceed();
+            } finally {
+                invocation.release();
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // 与 JDK 代理一致：方法未声明的受检异常包装为 UndeclaredThrowableException
+            for (Class<?> exceptionType : method.getExceptionTypes()) {
+                if (exceptionType.isInstance(e)) {
+                    throw e;
+                }
+            }
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    private ChainState resolveChainState(Method method) {
+        // 先读代数再取链：并发修改 Advisor 时，宁可多重新获取一次，也不会把旧链标记为新的代数
+        long generation = advised.getAdviceGeneration();
+        FusedInterceptorChain fusedChain = advised.getFusedInterceptorChain(method);
+        return new ChainState(generation, fusedChain, null != fusedChain ? null : advised.getInterceptors(method));
+    }
+
+    /**
+     * 收集所有接口方法：签名（方法名 + 参数描述符）-> 方法。
+     * 不同接口中的同签名方法返回类型或声明的异常不一致时返回 null
+     */
+    private static Map<String, Method> collectInterfaceMethods(Class<?>[] interfaces) {
+        Map<String, Method> methods = new LinkedHashMap<>();
+        for (Class<?> anInterface : interfaces) {
+            for (Method method : anInterface.getMethods()) {
+                if (Modifier.isStatic(method.getModifiers()) || isObjectMethod(method)) continue;
+                String signature = method.getName() + Type.getMethodDescriptor(Type.VOID_TYPE, Type.getArgumentTypes(method));
+                Method existing = methods.putIfAbsent(signature, method);
+                if (null != existing && (existing.getReturnType() != method.getReturnType()
+                        || !Arrays.equals(existing.getExceptionTypes(), method.getExceptionTypes()))) {
+                    return null;
+                }
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * 接口中重新声明的 equals/hashCode/toString 由代理类统一委托给目标对象
+     */
+    private static boolean isObjectMethod(Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 选择一个能看到所有接口及方法签名中类型的类加载器，没有时返回 null
+     */
+    private static GeneratedClassLoader selectClassLoader(Class<?>[] interfaces, Collection<Method> methods) {
+        for (Class<?> anInterface : interfaces) {
+            GeneratedClassLoader candidate = GeneratedClassLoader.forType(anInterface);
+            if (null != candidate && isAccessible(candidate, interfaces, methods)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static Optional<Constructor<?>> generateProxyClass(GeneratedClassLoader classLoader, Class<?>[] interfaces,
+                                                               Collection<Method> methods, Set<Method> advisedMethods) {
+        String className = "com/miniSpring/aop/framework/$GeneratedProxy" + classCounter.incrementAndGet();
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        String[] interfaceNames = new String[interfaces.length];
+        for (int i = 0; i < interfaces.length; i++) {
+            interfaceNames[i] = Type.getInternalName(interfaces[i]);
+        }
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, className, null, OBJECT_INTERNAL_NAME, interfaceNames);
+        cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "targetSource", Type.getDescriptor(TargetSource.class), null, null).visitEnd();
+        cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "dispatcher", Type.getDescriptor(GeneratedInterfaceAopProxy.class), null, null).visitEnd();
+
+        generateConstructor(cw, className);
+        int methodIndex = 0;
+        for (Method method : methods) {
+            if (advisedMethods.contains(method)) {
+                generateAdvisedStub(cw, className, method, methodIndex++);
+            } else {
+                generateDirectStub(cw, className, method);
+            }
+        }
+        generateObjectMethod(cw, className, "equals", boolean.class, Object.class);
+        generateObjectMethod(cw, className, "hashCode", int.class);
+        generateObjectMethod(cw, className, "toString", String.class);
+        cw.visitEnd();
+
+        try {
+            Class<?> proxyClass = classLoader.define(className.replace('/', '.'), cw.toByteArray());
+            return Optional.of(proxyClass.getConstructor(TargetSource.class, GeneratedInterfaceAopProxy.class));
+        } catch (LinkageError | NoSuchMethodException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static boolean isAccessible(GeneratedClassLoader classLoader, Class<?>[] interfaces, Collection<Method> methods) {
+        for (Class<?> anInterface : interfaces) {
+            if (!classLoader.isAccessible(anInterface)) return false;
+        }
+        for (Method method : methods) {
+            if (!classLoader.isAccessible(method.getDeclaringClass()) || !classLoader.isAccessible(method.getReturnType())) return false;
+            for (Class<?> parameterType : method.getParameterTypes()) {
+                if (!classLoader.isAccessible(parameterType)) return false;
+            }
+        }
+        return true;
+    }
+
+    private static void generateConstructor(ClassWriter cw, String className) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>",
+                "(" + Type.getDescriptor(TargetSource.class) + Type.getDescriptor(GeneratedInterfaceAopProxy.class) + ")V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT_INTERNAL_NAME, "<init>", "()V", false);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, className, "targetSource", Type.getDescriptor(TargetSource.class));
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ALOAD, 2);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, className, "dispatcher", Type.getDescriptor(GeneratedInterfaceAopProxy.class));
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * 未被增强的方法：return ((Interface) targetSource.getTarget()).method(arg0, arg1, ...);
+     */
+    private static void generateDirectStub(ClassWriter cw, String className, Method method) {
+        MethodVisitor mv = visitStub(cw, method);
+        mv.visitCode();
+        loadTarget(mv, className);
+        Class<?> declaringClass = method.getDeclaringClass();
+        mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(declaringClass));
+        int slot = 1;
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            slot = AsmSupport.load(mv, parameterType, slot);
+        }
+        mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(declaringClass), method.getName(), Type.getMethodDescriptor(method), true);
+        AsmSupport.returnValue(mv, method.getReturnType());
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * 被增强的方法：return (R) dispatcher.invoke(methodIndex, new Object[]{arg0, arg1, ...});
+     */
+    private static void generateAdvisedStub(ClassWriter cw, String className, Method method, int methodIndex) {
+        MethodVisitor mv = visitStub(cw, method);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, className, "dispatcher", Type.getDescriptor(GeneratedInterfaceAopProxy.class));
+        AsmSupport.pushInt(mv, methodIndex);
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (parameterTypes.length == 0) {
+            mv.visitInsn(Opcodes.ACONST_NULL);
+        } else {
+            AsmSupport.pushInt(mv, parameterTypes.length);
+            mv.visitTypeInsn(Opcodes.ANEWARRAY, OBJECT_INTERNAL_NAME);
+            int slot = 1;
+            for (int i = 0; i < parameterTypes.length; i++) {
+                mv.visitInsn(Opcodes.DUP);
+                AsmSupport.pushInt(mv, i);
+                slot = AsmSupport.load(mv, parameterTypes[i], slot);
+                AsmSupport.box(mv, parameterTypes[i]);
+                mv.visitInsn(Opcodes.AASTORE);
+            }
+        }
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, DISPATCHER_INTERNAL_NAME, "invoke", DISPATCH_DESCRIPTOR, false);
+        Class<?> returnType = method.getReturnType();
+        if (returnType == void.class) {
+            mv.visitInsn(Opcodes.POP);
+        } else {
+            AsmSupport.unbox(mv, returnType);
+        }
+        AsmSupport.returnValue(mv, returnType);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * Object 的方法直接委托给目标对象：return targetSource.getTarget().name(args);
+     */
+    private static void generateObjectMethod(ClassWriter cw, String className, String name, Class<?> returnType, Class<?>... parameterTypes) {
+        Type[] argumentTypes = new Type[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            argumentTypes[i] = Type.getType(parameterTypes[i]);
+        }
+        String descriptor = Type.getMethodDescriptor(Type.getType(returnType), argumentTypes);
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, name, descriptor, null, null);
+        mv.visitCode();
+        loadTarget(mv, className);
+        int slot = 1;
+        for (Class<?> parameterType : parameterTypes) {
+            slot = AsmSupport.load(mv, parameterType, slot);
+        }
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, OBJECT_INTERNAL_NAME, name, descriptor, false);
+        AsmSupport.returnValue(mv, returnType);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static MethodVisitor visitStub(ClassWriter cw, Method method) {
+        Class<?>[] exceptionTypes = method.getExceptionTypes();
+        String[] exceptions = new String[exceptionTypes.length];
+        for (int i = 0; i < exceptionTypes.length; i++) {
+            exceptions[i] = Type.getInternalName(exceptionTypes[i]);
+        }
+        return cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL, method.getName(), Type.getMethodDescriptor(method), null, exceptions);
+    }
+
+    private static void loadTarget(MethodVisitor mv, String className) {
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, className, "targetSource", Type.getDescriptor(TargetSource.class));
+        mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, TARGET_SOURCE_INTERNAL_NAME, "getTarget", GET_TARGET_DESCRIPTOR, true);
+    }
+
+    /**
+     * 代理类缓存的键：接口列表 + 被增强方法的签名列表（有序，决定分派下标）
+     */
+    private static final class ProxyClassKey {
+
+        private final List<Class<?>> interfaces;
+
+        private final List<String> advisedSignatures;
+
+        ProxyClassKey(Class<?>[] interfaces, List<String> advisedSignatures) {
+            this.interfaces = Arrays.asList(interfaces);
+            this.advisedSignatures = advisedSignatures;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ProxyClassKey)) return false;
+            ProxyClassKey that = (ProxyClassKey) o;
+            return interfaces.equals(that.interfaces) && advisedSignatures.equals(that.advisedSignatures);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(interfaces, advisedSignatures);
+        }
+    }
+
+    /**
+     * 某一代 Advisor 配置下方法的拦截器链，fusedChain 与 interceptors 二者只有一个不为 null
+     */
+    private static final class ChainState {
+
+        private final long generation;
+
+        private final FusedInterceptorChain fusedChain;
+
+        private final MethodInterceptor[] interceptors;
+
+        ChainState(long generation, FusedInterceptorChain fusedChain, MethodInterceptor[] interceptors) {
+            this.generation = generation;
+            this.fusedChain = fusedChain;
+            this.interceptors = interceptors;
+        }
+    }
+}
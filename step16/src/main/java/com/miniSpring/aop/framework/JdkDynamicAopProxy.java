@@ -1,21 +1,14 @@
 package com.miniSpring.aop.framework;
 
-import com.miniSpring.aop.*;
-import com.miniSpring.aop.adapter.MethodAfterAdviceInterceptor;
-import com.miniSpring.aop.adapter.MethodAroundAdviceInterceptor;
-import com.miniSpring.aop.adapter.MethodBeforeAdviceInterceptor;
-import com.miniSpring.aop.aspectj.AspectJExpressionPointcutAdvisor;
+import com.miniSpring.aop.AdvisedSupport;
+import com.miniSpring.aop.TargetSource;
 import com.miniSpring.beans.BeansException;
-import com.miniSpring.core.Ordered;
-import org.aopalliance.aop.Advice;
 import org.aopalliance.intercept.MethodInterceptor;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
 
 /**
  * 基于 JDK 动态代理的 AOP 代理实现类。
@@ -28,6 +21,12 @@ public class JdkDynamicAopProxy implements AopProxy, InvocationHandler {
      */
     private final AdvisedSupport advisedSupport;
 
+    /**
+     * 按线程复用的调用对象，稳定状态下一次代理调用不创建任何对象
+     */
+    private static final ThreadLocal<ReflectiveMethodInvocation> reusableInvocation =
+            ThreadLocal.withInitial(ReflectiveMethodInvocation::new);
+
     /**
      * 构造函数，传入被代理的配置信息
      * @param advised 代理相关的配置，包括目标对象、方法匹配器、拦截器等
@@ -83,65 +82,58 @@ public class JdkDynamicAopProxy implements AopProxy, InvocationHandler {
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        // 每次调用向 TargetSource 获取目标对象，非静态的目标（对象池等）在调用结束后归还
+        TargetSource targetSource = advisedSupport.getTargetSource();
+        Object target = targetSource.getTarget();
+        try {
+            return invokeTarget(target, method, args);
+        } finally {
+            if (!targetSource.isStatic()) {
+                targetSource.releaseTarget(target);
+            }
+        }
+    }
+
+    private Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
         // 1. 检查是否是Object类的方法（如toString、hashCode等），这些方法通常不需要增强
         if (Object.class.equals(method.getDeclaringClass())) {
-            return method.invoke(advisedSupport.getTargetSource().getTarget(), args);
+            return method.invoke(target, args);
         }
 
 
-        // 2. 获取匹配的Advisor
-        List<AspectJExpressionPointcutAdvisor> eligibleAdvisors = new ArrayList<>();
-        for (AspectJExpressionPointcutAdvisor advisor : advisedSupport.getAdvisors()) {
-            if (advisor.getPointcut().getMethodMatcher()
-                    .matches(method, advisedSupport.getTargetSource().getTarget().getClass())) {
-                eligibleAdvisors.add(advisor);
-            }
-        }
-
-        // 3. 对 Advisors 按 Order 排序
-        eligibleAdvisors.sort(Comparator.comparingInt(Ordered::getOrder));
+        // 2. 获取拦截器链（按方法缓存，稳定状态下不再做匹配、排序和适配）
+        MethodInterceptor[] interceptorChain = advisedSupport.getInterceptors(method);
 
+        MethodHandle targetHandle = advisedSupport.isMethodHandleInvocation() ? MethodHandleInvoker.forMethod(method) : null;
 
-        // 4. 转换 Advisors → MethodInterceptors（使用适配器注册中心）
-        List<MethodInterceptor> interceptorChain = new ArrayList<>();
-        for (Advisor advisor : eligibleAdvisors) {
-            interceptorChain.addAll(adaptAdviceToInterceptor(advisor.getAdvice()));
+        // 3. 没有匹配的拦截器，直接调用目标方法
+        if (interceptorChain.length == 0) {
+            if (null != targetHandle) {
+                return MethodHandleInvoker.invoke(targetHandle, target, args);
+            }
+            return method.invoke(target, args);
         }
 
-        // 4. 创建方法调用器，封装目标对象、方法、参数和拦截器链
-        ReflectiveMethodInvocation invocation = new ReflectiveMethodInvocation(
-                advisedSupport.getTargetSource().getTarget(),
-                method,
-                args,
-                interceptorChain
-        );
-
-        // 5. 执行拦截器链（责任链模式），最终调用目标方法
-        return invocation.proceed();
+        // 4. 开启了融合拦截器链时，直接执行为该方法生成的链
+        FusedInterceptorChain fusedChain = advisedSupport.getFusedInterceptorChain(method);
+        if (null != fusedChain) {
+            return fusedChain.invoke(target, args);
+        }
 
-    }
+        // 5. 取出本线程复用的方法调用器；拦截器或目标方法中再次调用代理时，调用器已被占用，新建一个
+        ReflectiveMethodInvocation invocation = reusableInvocation.get();
+        if (invocation.isInUse()) {
+            return new ReflectiveMethodInvocation(target, method, args, interceptorChain, targetHandle).proceed();
+        }
 
-    /**
-     * 把 Advice 转换成 MethodInterceptor 列表
-     * 模拟 Spring 的 AdvisorAdapterRegistry
-     */
-    private List<MethodInterceptor> adaptAdviceToInterceptor(Advice advice) {
-        List<MethodInterceptor> interceptors = new ArrayList<>();
-
-        if (advice instanceof MethodAroundAdvice) {
-            interceptors.add(new MethodAroundAdviceInterceptor((MethodAroundAdvice) advice));
-        } else if (advice instanceof MethodBeforeAdvice) {
-            interceptors.add(new MethodBeforeAdviceInterceptor((MethodBeforeAdvice) advice));
-        } else if (advice instanceof MethodAfterAdvice) {
-            interceptors.add(new MethodAfterAdviceInterceptor((MethodAfterAdvice) advice));
-        } else if (advice instanceof MethodInterceptor) {
-            // 仅对已经实现了 MethodInterceptor 的 Advice 支持直接加入
-            interceptors.add((MethodInterceptor) advice);
-        } else {
-            throw new IllegalArgumentException("Unsupported advice type: " + advice.getClass());
+        // 6. 填充目标对象、方法、参数、拦截器链和目标方法句柄，执行拦截器链（责任链模式），最终调用目标方法
+        invocation.init(target, method, args, interceptorChain, targetHandle);
+        try {
+            return invocation.proceed();
+        } finally {
+            invocation.release();
         }
 
-        return interceptors;
     }
 
 
@@ -0,0 +1,72 @@
+package com.miniSpring.aop.framework;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于 MethodHandle 的目标方法调用器，替代拦截器链末端的 Method.invoke。
+ *
+ * 每个方法只解析一次：unreflect 得到的句柄被展开为统一签名 (Object target, Object[] args) -> Object，
+ * 之后的调用只是一次 invokeExact，没有反射访问检查，目标方法抛出的异常也不会被包装成
+ * InvocationTargetException，而是原样抛出。
+ */
+public final class MethodHandleInvoker {
+
+    // 统一的调用签名 (Object target, Object[] args) -> Object
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    /**
+     * 声明类 -> (方法 -> 目标调用句柄)。
+     * 用 ClassValue 挂在方法的声明类上，不持有 Method 及其类的强引用，业务类加载器可以正常卸载。
+     */
+    private static final ClassValue<Map<Method, MethodHandle>> handleCache = new ClassValue<Map<Method, MethodHandle>>() {
+        @Override
+        protected Map<Method, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private MethodHandleInvoker() {
+    }
+
+    /**
+     * 获取方法的调用句柄，首次获取时解析并缓存
+     */
+    public static MethodHandle forMethod(Method method) {
+        Map<Method, MethodHandle> handles = handleCache.get(method.getDeclaringClass());
+        MethodHandle handle = handles.get(method);
+        if (null == handle) {
+            handle = handles.computeIfAbsent(method, MethodHandleInvoker::resolve);
+        }
+        return handle;
+    }
+
+    /**
+     * 通过句柄在 target 上调用方法，args 为 null 时视为无参调用
+     */
+    public static Object invoke(MethodHandle handle, Object target, Object[] args) throws Throwable {
+        return (Object) handle.invokeExact(target, args);
+    }
+
+    private static MethodHandle resolve(Method method) {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            // public 方法声明在非 public 类中时，需要先打开访问权限
+            method.setAccessible(true);
+            try {
+                handle = MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException("Cannot access method [" + method + "]", ex);
+            }
+        }
+        // (target, arg0, arg1, ...) -> (target, Object[]) -> Object
+        return handle.asSpreader(Object[].class, method.getParameterCount()).asType(INVOKE_TYPE);
+    }
+
+}
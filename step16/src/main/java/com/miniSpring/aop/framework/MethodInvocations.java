@@ -0,0 +1,63 @@
+package com.miniSpring.aop.framework;
+
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+
+/**
+ * MethodInvocation 工具方法
+ */
+public class MethodInvocations {
+
+    /**
+     * 返回一个可以在本次调用返回之后（例如在其他线程中）继续 proceed 的调用对象。
+     *
+     * 代理按线程复用 ReflectiveMethodInvocation，调用返回后会被清空并用于下一次调用，需要复制一份；
+     * FusedMethodInvocation 不可变，直接返回。复制后的调用对象可以多次 proceed，每次都从当前拦截器之后重新执行。
+     */
+    public static MethodInvocation invocableCopy(MethodInvocation invocation) {
+        if (invocation instanceof ReflectiveMethodInvocation) {
+            return new RepeatableInvocation(((ReflectiveMethodInvocation) invocation).invocableClone());
+        }
+        return invocation;
+    }
+
+    /**
+     * 每次 proceed 都从复制时的拦截器位置重新执行，可以并发 proceed
+     */
+    private static final class RepeatableInvocation implements MethodInvocation {
+
+        private final ReflectiveMethodInvocation prototype;
+
+        RepeatableInvocation(ReflectiveMethodInvocation prototype) {
+            this.prototype = prototype;
+        }
+
+        @Override
+        public Object proceed() throws Throwable {
+            return prototype.invocableClone().proceed();
+        }
+
+        @Override
+        public Method getMethod() {
+            return prototype.getMethod();
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return prototype.getArguments();
+        }
+
+        @Override
+        public Object getThis() {
+            return prototype.getThis();
+        }
+
+        @Override
+        public AccessibleObject getStaticPart() {
+            return prototype.getStaticPart();
+        }
+    }
+
+}
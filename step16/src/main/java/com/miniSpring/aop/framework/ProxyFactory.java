@@ -12,7 +12,8 @@ import com.miniSpring.aop.AdvisedSupport;
  *  - 根据 advisedSupport 中的配置决定使用哪种代理方式：
  *      * 如果设置为代理目标类（isProxyTargetClass() == true），
  *        则使用基于 CGLIB 的代理（Cglib2AopProxy），
- *      * 否则使用基于 JDK 动态代理（JdkDynamicAopProxy）。
+ *      * 否则基于接口代理：开启 generatedInterfaceProxy 时使用生成的代理类（GeneratedInterfaceAopProxy），
+ *        默认使用 JDK 动态代理（JdkDynamicAopProxy）。
  *  - 提供统一的 getProxy() 方法，返回代理后的对象。
  */
 public class ProxyFactory {
@@ -39,12 +40,16 @@ public class ProxyFactory {
     /**
      * 根据 advisedSupport 的配置决定代理实现类：
      *  - 代理目标类时返回 Cglib2AopProxy 实例
+     *  - 开启生成接口代理时返回 GeneratedInterfaceAopProxy 实例
      *  - 否则返回 JdkDynamicAopProxy 实例
      */
     private AopProxy createAopProxy() {
         if (advisedSupport.isProxyTargetClass()) {
             return new Cglib2AopProxy(advisedSupport);
         }
+        if (advisedSupport.isGeneratedInterfaceProxy()) {
+            return new GeneratedInterfaceAopProxy(advisedSupport);
+        }
         return new JdkDynamicAopProxy(advisedSupport);
     }
 
@@ -0,0 +1,100 @@
+package com.miniSpring.aop.framework;
+
+import com.miniSpring.aop.AdvisedSupport;
+import com.miniSpring.aop.PointcutAdvisor;
+import com.miniSpring.aop.TargetSource;
+import com.miniSpring.beans.BeansException;
+import com.miniSpring.beans.factory.BeanFactory;
+import com.miniSpring.beans.factory.BeanFactoryAware;
+import com.miniSpring.beans.factory.FactoryBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 在 XML 中显式声明代理的 FactoryBean，用于自定义 TargetSource（对象池、按线程隔离等）：
+ * <pre>
+ * &lt;bean id="formatter" class="com.miniSpring.aop.framework.ProxyFactoryBean"&gt;
+ *     &lt;property name="targetSource" ref="formatterPool"/&gt;
+ *     &lt;property name="interceptorNames" value="pointcutAdvisor1,pointcutAdvisor2"/&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ * interceptorNames 为 PointcutAdvisor 的 Bean 名称（逗号分隔，可省略）；
+ * 目标类没有实现接口或设置 proxyTargetClass 时使用 CGLIB 代理，否则使用接口代理。
+ */
+public class ProxyFactoryBean implements FactoryBean<Object>, BeanFactoryAware {
+
+    private TargetSource targetSource;
+
+    private String[] interceptorNames = new String[0];
+
+    private boolean proxyTargetClass;
+
+    private BeanFactory beanFactory;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    /**
+     * 创建代理对象；isSingleton 为 true，产物由容器缓存，只创建一次
+     */
+    @Override
+    public Object getObject() throws Exception {
+        if (null == targetSource) {
+            throw new BeansException("Property 'targetSource' is required for ProxyFactoryBean");
+        }
+        List<PointcutAdvisor> advisors = new ArrayList<>(interceptorNames.length);
+        for (String interceptorName : interceptorNames) {
+            String name = interceptorName.trim();
+            if (!name.isEmpty()) {
+                advisors.add(beanFactory.getBean(name, PointcutAdvisor.class));
+            }
+        }
+
+        AdvisedSupport advisedSupport = new AdvisedSupport();
+        advisedSupport.setTargetSource(targetSource);
+        advisedSupport.setProxyTargetClass(proxyTargetClass || targetSource.getTargetClass().getInterfaces().length == 0);
+        advisedSupport.setAdvisors(advisors);
+        return new ProxyFactory(advisedSupport).getProxy();
+    }
+
+    @Override
+    public Class<?> getObjectType() {
+        // 接口代理不是目标类的实例，创建之前无法确定代理类型
+        return null;
+    }
+
+    @Override
+    public boolean isSingleton() {
+        return true;
+    }
+
+    // ========== getter/setter ==========
+
+    public TargetSource getTargetSource() {
+        return targetSource;
+    }
+
+    public void setTargetSource(TargetSource targetSource) {
+        this.targetSource = targetSource;
+    }
+
+    public String[] getInterceptorNames() {
+        return interceptorNames;
+    }
+
+    public void setInterceptorNames(String[] interceptorNames) {
+        this.interceptorNames = interceptorNames;
+    }
+
+    public boolean isProxyTargetClass() {
+        return proxyTargetClass;
+    }
+
+    public void setProxyTargetClass(boolean proxyTargetClass) {
+        this.proxyTargetClass = proxyTargetClass;
+    }
+
+}
@@ -3,39 +3,141 @@ package com.miniSpring.aop.framework;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Method;
 import java.util.List;
 
-// 方法调用的具体实现，负责执行拦截器链和目标方法
+/**
+ * 方法调用的具体实现，负责执行拦截器链和目标方法。
+ *
+ * 调用路径上不创建任何集合：拦截器链是预先计算好的共享数组，用一个下标游标依次推进。
+ *
+ * 复用约定：代理会按线程复用调用对象（init → proceed → release），因此：
+ *  - 拦截器拿到的 MethodInvocation 只在本次调用期间有效，不能保存下来在调用返回后使用；
+ *  - 需要在调用返回后（例如在其他线程中）继续 proceed 的拦截器，必须在返回前通过 invocableClone()
+ *    （或 MethodInvocations.invocableCopy）复制一份，复制出的对象不参与复用；
+ *  - release 之后、下一次 init 之前调用 proceed 或 invocableClone 会抛出 IllegalStateException，
+ *    而不是静默地使用已清空的状态。
+ * 注意：release 之后该对象可能已经被同一线程的下一次调用重新 init，此时无法识别过期的引用，
+ * 因此上面的约定仍然需要拦截器自己遵守。
+ */
 public class ReflectiveMethodInvocation implements MethodInvocation {
-    protected final Object target; // 目标对象
-    protected final Method method; // 目标方法
-    protected final Object[] arguments; // 方法参数
-    protected final List<MethodInterceptor> methodInterceptorList; // 拦截器链
+    protected Object target; // 目标对象
+    protected Method method; // 目标方法
+    protected Object[] arguments; // 方法参数
+    protected MethodInterceptor[] interceptors; // 拦截器链（共享的缓存数组，只读）
+    protected MethodHandle targetHandle; // 目标方法的调用句柄，为 null 时使用 Method.invoke
     protected int currentInterceptorIndex = -1; // 当前执行到的拦截器索引
+    private boolean inUse; // 复用的调用对象当前是否正在被某次调用占用
+    private boolean released; // 已 release 且尚未重新 init，此时调用对象不可用
+
+    /**
+     * 供代理按线程复用的空调用对象，使用前需要 init
+     */
+    protected ReflectiveMethodInvocation() {
+    }
+
+    public ReflectiveMethodInvocation(Object target, Method method, Object[] arguments,
+                                      MethodInterceptor[] interceptors) {
+        this(target, method, arguments, interceptors, null);
+    }
+
+    public ReflectiveMethodInvocation(Object target, Method method, Object[] arguments,
+                                      MethodInterceptor[] interceptors, MethodHandle targetHandle) {
+        this.target = target;
+        this.method = method;
+        this.arguments = arguments;
+        this.interceptors = interceptors;
+        this.targetHandle = targetHandle;
+    }
 
     public ReflectiveMethodInvocation(Object target, Method method, Object[] arguments,
                                       List<MethodInterceptor> interceptors) {
+        this(target, method, arguments, interceptors.toArray(new MethodInterceptor[0]));
+    }
+
+    /**
+     * 填充一次调用的信息并把游标归位，复用的调用对象每次调用前执行
+     */
+    protected void init(Object target, Method method, Object[] arguments,
+                        MethodInterceptor[] interceptors, MethodHandle targetHandle) {
         this.target = target;
         this.method = method;
         this.arguments = arguments;
-        this.methodInterceptorList = interceptors;
+        this.interceptors = interceptors;
+        this.targetHandle = targetHandle;
+        this.currentInterceptorIndex = -1;
+        this.inUse = true;
+        this.released = false;
+    }
+
+    /**
+     * 调用结束，清空引用（避免线程持有目标对象和参数），允许下次调用复用
+     */
+    protected void release() {
+        this.target = null;
+        this.method = null;
+        this.arguments = null;
+        this.interceptors = null;
+        this.targetHandle = null;
+        this.inUse = false;
+        this.released = true;
+    }
+
+    /**
+     * 是否正在被某次调用占用；代理方法嵌套调用时，内层调用需要新建调用对象
+     */
+    protected boolean isInUse() {
+        return inUse;
+    }
+
+    /**
+     * 复制一份独立的调用对象（参数数组也会复制），当前拦截器位置保持不变。
+     * 拦截器需要在本次调用返回之后继续 proceed 时使用。
+     */
+    public ReflectiveMethodInvocation invocableClone() {
+        checkNotReleased();
+        ReflectiveMethodInvocation clone = new ReflectiveMethodInvocation(target, method,
+                null != arguments ? arguments.clone() : null, interceptors, targetHandle);
+        clone.currentInterceptorIndex = this.currentInterceptorIndex;
+        return clone;
+    }
+
+    /**
+     * 复用的调用对象在 release 之后不可再使用，见类注释中的复用约定
+     */
+    protected void checkNotReleased() {
+        if (released) {
+            throw new IllegalStateException("MethodInvocation has been released after the proxy call returned; "
+                    + "use invocableClone() before returning to proceed later");
+        }
     }
 
     @Override
     public Object proceed() throws Throwable {
+        checkNotReleased();
         // 如果所有拦截器都执行完了，则调用目标方法
-        if (currentInterceptorIndex == methodInterceptorList.size() - 1) {
-            return method.invoke(target, arguments);
+        if (currentInterceptorIndex == interceptors.length - 1) {
+            return invokeJoinpoint();
         }
 
         // 执行下一个拦截器
         currentInterceptorIndex++;
-        MethodInterceptor interceptor = methodInterceptorList.get(currentInterceptorIndex);
+        MethodInterceptor interceptor = interceptors[currentInterceptorIndex];
         return interceptor.invoke(this); // 将当前调用对象传递给拦截器
     }
 
+    /**
+     * 调用目标方法，子类可以替换调用方式（如 CGLIB 的 MethodProxy）
+     */
+    protected Object invokeJoinpoint() throws Throwable {
+        if (null != targetHandle) {
+            return MethodHandleInvoker.invoke(targetHandle, target, arguments);
+        }
+        return method.invoke(target, arguments);
+    }
+
     public Object getTarget() {
         return target;
     }
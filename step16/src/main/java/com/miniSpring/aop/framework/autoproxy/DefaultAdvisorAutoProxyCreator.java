@@ -3,9 +3,10 @@ package com.miniSpring.aop.framework.autoproxy;
 import com.miniSpring.aop.AdvisedSupport;
 import com.miniSpring.aop.Advisor;
 import com.miniSpring.aop.Pointcut;
+import com.miniSpring.aop.PointcutAdvisor;
 import com.miniSpring.aop.TargetSource;
-import com.miniSpring.aop.aspectj.AspectJExpressionPointcutAdvisor;
 import com.miniSpring.aop.framework.ProxyFactory;
+import com.miniSpring.aop.target.SingletonTargetSource;
 import com.miniSpring.beans.BeansException;
 import com.miniSpring.beans.PropertyValues;
 import com.miniSpring.beans.factory.BeanFactory;
@@ -17,10 +18,13 @@ import org.aopalliance.aop.Advice;
 import java.util.*;
 
 /**
- * 自动代理创建器，自动扫描容器中所有的 AspectJExpressionPointcutAdvisor，
+ * 自动代理创建器，自动扫描容器中所有的 PointcutAdvisor，
  * 根据切点匹配结果对目标Bean生成代理。
  *
  * 实现了 InstantiationAwareBeanPostProcessor，可以在 Bean 实例化前替换成代理对象。
+ *
+ * 容器中的 Advisor 只在第一次需要时查找并实例化，之后缓存复用（Advisor 定义变化时重新查找）；
+ * 每个 Bean 类与哪些 Advisor 的类过滤器匹配也按类缓存，原型 Bean 和大容器不再为每个 Bean 重复匹配。
  */
 public class DefaultAdvisorAutoProxyCreator implements InstantiationAwareBeanPostProcessor, BeanFactoryAware {
 
@@ -30,6 +34,9 @@ public class DefaultAdvisorAutoProxyCreator implements InstantiationAwareBeanPos
     private final Set<Object> earlyProxyReferences =
             Collections.synchronizedSet(new HashSet<>());
 
+    // 缓存的 Advisor 快照，类型索引变化且 Advisor 的 Bean 名称随之变化时重新查找
+    private volatile AdvisorCandidates advisorCandidates;
+
     @Override
     public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
         // 这里强转是为了方便后续调用 getBeansOfType 方法
@@ -55,7 +62,8 @@ public class DefaultAdvisorAutoProxyCreator implements InstantiationAwareBeanPos
     private boolean isInfrastructureClass(Class<?> beanClass) {
         return Advice.class.isAssignableFrom(beanClass) ||
                 Pointcut.class.isAssignableFrom(beanClass) ||
-                Advisor.class.isAssignableFrom(beanClass);
+                Advisor.class.isAssignableFrom(beanClass) ||
+                TargetSource.class.isAssignableFrom(beanClass);
     }
 
     @Override
@@ -95,36 +103,91 @@ public class DefaultAdvisorAutoProxyCreator implements InstantiationAwareBeanPos
             return bean; // 不代理，直接返回原对象
         }
 
-        // 获取所有切面通知组合对象
-        Collection<AspectJExpressionPointcutAdvisor> advisorCollection =
-                beanFactory.getBeansOfType(AspectJExpressionPointcutAdvisor.class).values();
-
-        List<AspectJExpressionPointcutAdvisor> advisors = new ArrayList<>(advisorCollection);
-
+        // 获取与该 Bean 类匹配的通知器（按类缓存）
+        PointcutAdvisor[] eligibleAdvisors = findEligibleAdvisors(bean.getClass());
+        if (eligibleAdvisors.length == 0) {
+            // 如果没有匹配的通知器，直接返回原始Bean对象
+            return bean;
+        }
 
         // 准备代理相关配置
         AdvisedSupport advisedSupport = new AdvisedSupport();
-        advisedSupport.setTargetSource(new TargetSource(bean));
+        advisedSupport.setTargetSource(new SingletonTargetSource(bean));
         advisedSupport.setProxyTargetClass(bean.getClass().getInterfaces().length == 0);
+        advisedSupport.setAdvisors(new ArrayList<>(Arrays.asList(eligibleAdvisors)));
 
+        // 使用代理工厂创建代理对象并返回
+        return new ProxyFactory(advisedSupport).getProxy();
+    }
 
-        // 遍历所有的切面通知器(Advisor)
-        for (AspectJExpressionPointcutAdvisor advisor : advisors) {
-            // 检查当前通知器的切入点是否匹配目标Bean的类
-            // getClassFilter()获取类过滤器，matches()判断目标类是否符合切入点表达式
-            if (advisor.getPointcut().getClassFilter().matches(bean.getClass())) {
-                // 如果匹配，则将该通知器添加到通知支持类中
-                advisedSupport.addAdvisor(advisor); // 存储匹配的通知器
-            }
+    /**
+     * 获取类过滤器与 beanClass 匹配的通知器，结果按类缓存
+     */
+    private PointcutAdvisor[] findEligibleAdvisors(Class<?> beanClass) {
+        return findCandidateAdvisors().eligibleAdvisorsByClass.get(beanClass);
+    }
+
+    /**
+     * 获取容器中所有的 PointcutAdvisor，实例化一次后缓存
+     */
+    private AdvisorCandidates findCandidateAdvisors() {
+        // 先读版本号再查找名称：查找期间有新的注册时，快照记录的是旧版本号，下次会再核对一次
+        long typeIndexVersion = beanFactory.getTypeIndexVersion();
+        AdvisorCandidates candidates = this.advisorCandidates;
+        if (null != candidates && candidates.typeIndexVersion == typeIndexVersion) {
+            return candidates;
+        }
+        String[] advisorNames = beanFactory.getBeanNamesForType(PointcutAdvisor.class);
+        if (null != candidates && Arrays.equals(candidates.beanNames, advisorNames)) {
+            // 注册的不是 Advisor，快照仍然有效，记下新版本号
+            candidates.typeIndexVersion = typeIndexVersion;
+            return candidates;
         }
 
-        // 检查是否有匹配的通知器
-        if (!advisedSupport.getAdvisors().isEmpty()) {
-            // 如果有匹配的通知器，使用代理工厂创建代理对象并返回
-            return new ProxyFactory(advisedSupport).getProxy();
+        List<PointcutAdvisor> advisors = new ArrayList<>(advisorNames.length);
+        for (String advisorName : advisorNames) {
+            advisors.add(beanFactory.getBean(advisorName, PointcutAdvisor.class));
+        }
+        // 新快照自带空的按类匹配缓存，旧快照的匹配结果随之失效
+        candidates = new AdvisorCandidates(advisorNames, advisors, typeIndexVersion);
+        this.advisorCandidates = candidates;
+        return candidates;
+    }
+
+    /**
+     * 一次查找得到的 Advisor 快照，以及基于该快照的按类匹配结果
+     */
+    private static final class AdvisorCandidates {
+
+        private final String[] beanNames;
+
+        private final List<PointcutAdvisor> advisors;
+
+        // 快照最近一次核对时的类型索引版本号
+        private volatile long typeIndexVersion;
+
+        // Bean 类 -> 类过滤器匹配的 Advisor；挂在 Bean 类自身上，随类卸载
+        private final ClassValue<PointcutAdvisor[]> eligibleAdvisorsByClass = new ClassValue<PointcutAdvisor[]>() {
+            @Override
+            protected PointcutAdvisor[] computeValue(Class<?> beanClass) {
+                List<PointcutAdvisor> matched = new ArrayList<>();
+                // 遍历所有的切面通知器(Advisor)
+                for (PointcutAdvisor advisor : advisors) {
+                    // 检查当前通知器的切入点是否匹配目标Bean的类
+                    // getClassFilter()获取类过滤器，matches()判断目标类是否符合切入点表达式
+                    if (advisor.getPointcut().getClassFilter().matches(beanClass)) {
+                        matched.add(advisor);
+                    }
+                }
+                return matched.toArray(new PointcutAdvisor[0]);
+            }
+        };
+
+        private AdvisorCandidates(String[] beanNames, List<PointcutAdvisor> advisors, long typeIndexVersion) {
+            this.beanNames = beanNames;
+            this.advisors = advisors;
+            this.typeIndexVersion = typeIndexVersion;
         }
-        // 如果没有匹配的通知器，直接返回原始Bean对象
-        return bean;
     }
 
 
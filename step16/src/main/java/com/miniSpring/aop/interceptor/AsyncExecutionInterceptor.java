@@ -0,0 +1,90 @@
+package com.miniSpring.aop.interceptor;
+
+import com.miniSpring.aop.DetachedInvocationInterceptor;
+import com.miniSpring.aop.framework.MethodInvocations;
+import com.miniSpring.beans.BeansException;
+import com.miniSpring.scheduling.AsyncTaskExecutor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * 异步执行拦截器：把拦截器链的剩余部分和目标方法提交到 AsyncTaskExecutor 执行，调用方立即返回。
+ *
+ * 代理按线程复用 MethodInvocation，调用返回后即被清空，因此提交前先复制一份独立的调用对象。
+ * 返回 Future 的方法，异常通过 Future 传给调用方；返回 void 的方法，异常交给 AsyncUncaughtExceptionHandler。
+ * 非静态的 TargetSource（对象池等）在代理调用返回时就归还了目标对象，异步执行时可能与其他调用共用同一个目标，
+ * 因此只支持静态目标：用于非静态 TargetSource 的代理时，计算拦截器链即抛出 BeansException（见 DetachedInvocationInterceptor）。
+ */
+public class AsyncExecutionInterceptor implements DetachedInvocationInterceptor {
+
+    private AsyncTaskExecutor executor;
+
+    private AsyncUncaughtExceptionHandler exceptionHandler = new SimpleAsyncUncaughtExceptionHandler();
+
+    public AsyncExecutionInterceptor() {
+    }
+
+    public AsyncExecutionInterceptor(AsyncTaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        Class<?> returnType = method.getReturnType();
+        boolean returnsVoid = void.class == returnType;
+        if (!returnsVoid && !returnType.isAssignableFrom(CompletableFuture.class)) {
+            throw new BeansException("@Async method " + method + " must return void or a Future, but returns " + returnType.getName());
+        }
+        if (null == executor) {
+            throw new BeansException("No AsyncTaskExecutor configured for @Async method " + method);
+        }
+
+        MethodInvocation asyncInvocation = MethodInvocations.invocableCopy(invocation);
+        CompletableFuture<Object> future = executor.submit(() -> {
+            try {
+                Object result = asyncInvocation.proceed();
+                return result instanceof Future ? ((Future<?>) result).get() : result;
+            } catch (ExecutionException e) {
+                throw InterceptorUtils.rethrow(e.getCause());
+            } catch (Throwable e) {
+                throw InterceptorUtils.rethrow(e);
+            }
+        });
+
+        if (returnsVoid) {
+            // 没有调用方等待结果，异常交给处理器
+            AsyncUncaughtExceptionHandler handler = this.exceptionHandler;
+            future.whenComplete((result, ex) -> {
+                if (null != ex) {
+                    handler.handleUncaughtException(ex instanceof CompletionException && null != ex.getCause() ? ex.getCause() : ex,
+                            method, asyncInvocation.getArguments());
+                }
+            });
+            return null;
+        }
+        return future;
+    }
+
+    public AsyncTaskExecutor getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(AsyncTaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    public AsyncUncaughtExceptionHandler getExceptionHandler() {
+        return exceptionHandler;
+    }
+
+    public void setExceptionHandler(AsyncUncaughtExceptionHandler exceptionHandler) {
+        this.exceptionHandler = exceptionHandler;
+    }
+
+}
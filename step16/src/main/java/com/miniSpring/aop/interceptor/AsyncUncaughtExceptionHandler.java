@@ -0,0 +1,21 @@
+package com.miniSpring.aop.interceptor;
+
+import java.lang.reflect.Method;
+
+/**
+ * 处理返回 void 的 @Async 方法抛出的异常。
+ *
+ * 返回 Future 的方法异常通过 Future 传给调用方；返回 void 的方法没有调用方等待结果，
+ * 异常交给该处理器，默认为 SimpleAsyncUncaughtExceptionHandler（记录日志）。
+ */
+@FunctionalInterface
+public interface AsyncUncaughtExceptionHandler {
+
+    /**
+     * @param ex     方法抛出的异常
+     * @param method 异步执行的方法
+     * @param params 调用参数
+     */
+    void handleUncaughtException(Throwable ex, Method method, Object... params);
+
+}
@@ -0,0 +1,299 @@
+package com.miniSpring.aop.interceptor;
+
+import com.miniSpring.aop.DetachedInvocationInterceptor;
+import com.miniSpring.aop.annotation.Hedged;
+import com.miniSpring.aop.framework.MethodInvocations;
+import com.miniSpring.core.annotation.AnnotationUtils;
+import com.miniSpring.scheduling.AsyncTaskExecutor;
+import com.miniSpring.scheduling.concurrent.ManagedTaskExecutor;
+import com.miniSpring.util.LatencyHistogram;
+import com.miniSpring.util.MethodAttributeCache;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对冲请求拦截器，按方法上的 @Hedged 执行：
+ *  1. 近期样本不足时直接执行并记录耗时
+ *  2. 否则把调用（拦截器链剩余部分和目标方法）提交到执行器，等待该方法近期耗时的分位数
+ *  3. 超时仍未返回且对冲额度允许时，再提交一次相同的调用，取先成功的结果，取消另一次
+ * 两次调用都失败时抛出后失败的那次异常；首次调用在对冲前失败时直接抛出，不对冲。
+ *
+ * 对冲额度是一个令牌桶：每次调用增加 maxHedgePercent/100 个令牌（最多累积 10 个），每次对冲消耗一个，
+ * 对冲占比长期不超过 maxHedgePercent%，同时允许少量突发。
+ * 直方图记录的是调用方实际等待的耗时（从提交首次调用到拿到结果），而不是先返回的那次调用自身的耗时：
+ * 否则被对冲掉的慢调用不会留下样本，分位数会逐渐偏向快的一侧，对冲越来越多，只剩额度在限制它。
+ *
+ * 调用对象先复制再提交，两次调用各自从当前拦截器之后执行；非静态的 TargetSource（对象池等）
+ * 在代理调用返回时就归还目标对象，被取消的那次调用可能仍在使用它。
+ * 因此本拦截器是 DetachedInvocationInterceptor，出现在非静态 TargetSource 的代理上时，计算拦截器链就会失败。
+ *
+ * 未设置执行器时使用内部创建的 ManagedTaskExecutor（默认虚拟线程），由 shutdown() 关闭。
+ */
+public class HedgingInterceptor implements DetachedInvocationInterceptor {
+
+    private static final long TOKEN = 1000;
+
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private AsyncTaskExecutor executor;
+
+    private ManagedTaskExecutor ownExecutor;
+
+    private long histogramWindowMillis = 10_000;
+
+    // （目标类, 方法）-> 对冲状态，没有 @Hedged 的方法为 null
+    private final MethodAttributeCache<HedgeState> stateCache = new MethodAttributeCache<>((method, targetClass) -> {
+        Hedged hedged = AnnotationUtils.findAnnotation(method, targetClass, Hedged.class);
+        return null != hedged ? new HedgeState(hedged, histogramWindowMillis) : null;
+    });
+
+    private final LongAdder callCount = new LongAdder();
+
+    private final LongAdder hedgeCount = new LongAdder();
+
+    private final LongAdder hedgeWinCount = new LongAdder();
+
+    private final LongAdder budgetExhaustedCount = new LongAdder();
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object target = invocation.getThis();
+        Method method = invocation.getMethod();
+        HedgeState state = stateCache.get(method, null != target ? target.getClass() : method.getDeclaringClass());
+        if (null == state) {
+            return invocation.proceed();
+        }
+        callCount.increment();
+        state.addTokens();
+
+        // 1. 样本不足，直接执行
+        if (state.histogram.getCount() < state.minSamples) {
+            long start = System.nanoTime();
+            Object result = invocation.proceed();
+            state.histogram.record(System.nanoTime() - start);
+            return result;
+        }
+
+        // 2. 提交首次调用，等待近期耗时的分位数
+        long start = System.nanoTime();
+        long delayNanos = state.hedgeDelayNanos();
+        MethodInvocation attempt = MethodInvocations.invocableCopy(invocation);
+        CompletableFuture<Object> primary = submit(attempt);
+        try {
+            Object result = primary.get(delayNanos, TimeUnit.NANOSECONDS);
+            state.histogram.record(System.nanoTime() - start);
+            return result;
+        } catch (TimeoutException e) {
+            // 超时未返回，尝试对冲
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            primary.cancel(true);
+            throw e;
+        }
+
+        // 3. 额度用完时继续等待首次调用
+        if (!state.tryAcquireToken()) {
+            budgetExhaustedCount.increment();
+            Object result = InterceptorUtils.await(primary);
+            state.histogram.record(System.nanoTime() - start);
+            return result;
+        }
+        hedgeCount.increment();
+        CompletableFuture<Object> hedge = submit(attempt);
+        CompletableFuture<Object> winner;
+        try {
+            winner = firstSuccessful(primary, hedge).get();
+        } catch (InterruptedException e) {
+            primary.cancel(true);
+            hedge.cancel(true);
+            throw e;
+        }
+        (winner == primary ? hedge : primary).cancel(true);
+        if (winner == hedge && !hedge.isCompletedExceptionally()) {
+            hedgeWinCount.increment();
+        }
+        Object result = InterceptorUtils.await(winner);
+        // 记录调用方等到的耗时：首次调用的等待时间也计入，慢调用即使被对冲掉也会留下样本
+        state.histogram.record(System.nanoTime() - start);
+        return result;
+    }
+
+    private CompletableFuture<Object> submit(MethodInvocation attempt) {
+        return getExecutor().submit(() -> {
+            try {
+                return attempt.proceed();
+            } catch (Throwable e) {
+                throw InterceptorUtils.rethrow(e);
+            }
+        });
+    }
+
+    /**
+     * 以先成功完成的调用完成；两次都失败时以后失败的调用完成
+     */
+    private static CompletableFuture<CompletableFuture<Object>> firstSuccessful(CompletableFuture<Object> primary,
+                                                                                 CompletableFuture<Object> hedge) {
+        CompletableFuture<CompletableFuture<Object>> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        completeOnSuccess(primary, first, failures);
+        completeOnSuccess(hedge, first, failures);
+        return first;
+    }
+
+    private static void completeOnSuccess(CompletableFuture<Object> attempt, CompletableFuture<CompletableFuture<Object>> first,
+                                          AtomicInteger failures) {
+        attempt.whenComplete((result, ex) -> {
+            if (null == ex || failures.incrementAndGet() == 2) {
+                first.complete(attempt);
+            }
+        });
+    }
+
+
+    private AsyncTaskExecutor getExecutor() {
+        AsyncTaskExecutor executor = this.executor;
+        if (null == executor) {
+            synchronized (this) {
+                if (null == this.executor) {
+                    ownExecutor = new ManagedTaskExecutor();
+                    ownExecutor.setThreadNamePrefix("hedge-");
+                    this.executor = ownExecutor;
+                }
+                executor = this.executor;
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 关闭内部创建的执行器；外部设置的执行器由其所有者管理
+     */
+    public synchronized void shutdown() {
+        if (null != ownExecutor) {
+            ownExecutor.shutdown();
+        }
+    }
+
+    // ========== 统计 ==========
+
+    /**
+     * 经过对冲处理的调用总数
+     */
+    public long getCallCount() {
+        return callCount.sum();
+    }
+
+    /**
+     * 发起对冲的次数
+     */
+    public long getHedgeCount() {
+        return hedgeCount.sum();
+    }
+
+    /**
+     * 对冲调用先于首次调用成功返回的次数
+     */
+    public long getHedgeWinCount() {
+        return hedgeWinCount.sum();
+    }
+
+    /**
+     * 需要对冲但额度已用完的次数
+     */
+    public long getBudgetExhaustedCount() {
+        return budgetExhaustedCount.sum();
+    }
+
+    /**
+     * 对冲率：发起对冲的调用占比
+     */
+    public double getHedgeRate() {
+        long calls = callCount.sum();
+        return calls == 0 ? 0 : (double) hedgeCount.sum() / calls;
+    }
+
+    /**
+     * 方法当前的对冲等待时间（纳秒），方法没有 @Hedged 时返回 -1
+     */
+    public long getHedgeDelayNanos(Method method, Class<?> targetClass) {
+        HedgeState state = stateCache.get(method, targetClass);
+        return null != state ? state.hedgeDelayNanos() : -1;
+    }
+
+    // ========== getter/setter ==========
+
+    public AsyncTaskExecutor getConfiguredExecutor() {
+        return executor;
+    }
+
+    public synchronized void setExecutor(AsyncTaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    public long getHistogramWindowMillis() {
+        return histogramWindowMillis;
+    }
+
+    /**
+     * 耗时直方图的时间窗口，只影响之后第一次调用的方法
+     */
+    public void setHistogramWindowMillis(long histogramWindowMillis) {
+        this.histogramWindowMillis = histogramWindowMillis;
+    }
+
+    /**
+     * 一个 @Hedged 方法的耗时直方图和对冲额度
+     */
+    private static final class HedgeState {
+
+        private final LatencyHistogram histogram;
+
+        private final double percentile;
+
+        private final long minDelayNanos;
+
+        private final int minSamples;
+
+        // 每次调用增加的令牌（千分之一个令牌为单位）
+        private final long tokensPerCall;
+
+        private final AtomicLong tokens = new AtomicLong();
+
+        HedgeState(Hedged hedged, long histogramWindowMillis) {
+            this.histogram = new LatencyHistogram(histogramWindowMillis);
+            this.percentile = hedged.percentile();
+            this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(hedged.minDelayMillis());
+            this.minSamples = hedged.minSamples();
+            this.tokensPerCall = Math.max(0, Math.min(100, hedged.maxHedgePercent())) * TOKEN / 100;
+        }
+
+        long hedgeDelayNanos() {
+            return Math.max(minDelayNanos, histogram.percentile(percentile));
+        }
+
+        void addTokens() {
+            if (tokensPerCall == 0) return;
+            long current;
+            do {
+                current = tokens.get();
+                if (current >= MAX_TOKENS) return;
+            } while (!tokens.compareAndSet(current, Math.min(MAX_TOKENS, current + tokensPerCall)));
+        }
+
+        boolean tryAcquireToken() {
+            long current;
+            do {
+                current = tokens.get();
+                if (current < TOKEN) return false;
+            } while (!tokens.compareAndSet(current, current - TOKEN));
+            return true;
+        }
+    }
+
+}
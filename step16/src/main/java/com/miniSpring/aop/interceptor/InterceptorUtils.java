@@ -0,0 +1,39 @@
+package com.miniSpring.aop.interceptor;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 把调用提交到其他线程（或等待其他调用方的结果）的拦截器共用的异常处理
+ */
+final class InterceptorUtils {
+
+    private InterceptorUtils() {
+    }
+
+    /**
+     * 等待结果，调用抛出的异常原样抛出
+     */
+    static Object await(CompletableFuture<Object> future) throws Throwable {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw null != e.getCause() ? e.getCause() : e;
+        }
+    }
+
+    /**
+     * Callable 只能抛出 Exception，Error 原样抛出，其他 Throwable 包装后抛出
+     */
+    static Exception rethrow(Throwable e) {
+        if (e instanceof Exception) {
+            return (Exception) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new UndeclaredThrowableException(e);
+    }
+
+}
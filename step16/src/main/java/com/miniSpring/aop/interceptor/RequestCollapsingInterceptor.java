@@ -0,0 +1,343 @@
+package com.miniSpring.aop.interceptor;
+
+import com.miniSpring.aop.annotation.Collapse;
+import com.miniSpring.beans.BeansException;
+import com.miniSpring.core.annotation.AnnotationUtils;
+import com.miniSpring.util.MethodAttributeCache;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 请求合并拦截器，按方法上的 @Collapse 合并并发调用。
+ *
+ * 合并后的执行都发生在某个调用方自己的线程中，不需要额外的线程：
+ *  - 单飞模式：第一个调用方继续执行拦截器链，执行结束后移除进行中的记录，期间到达的相同调用等待它的结果
+ *  - 批量模式：第一个调用方成为本批的发起者，等待 windowMillis（或批次被填满），然后以本批所有的键调用批量方法；
+ *    填满批次的调用方直接执行该批次。批量方法通过反射直接在目标对象上调用，不经过其他通知
+ * 只有目标对象相同的调用才会合并。
+ *
+ * 统计：调用总数、实际执行次数（单飞执行 + 批量方法调用）、被合并的调用数、批次数量。
+ */
+public class RequestCollapsingInterceptor implements MethodInterceptor {
+
+    // （目标类, 方法）-> 合并配置，没有 @Collapse 的方法为 null
+    private final MethodAttributeCache<CollapseSpec> specCache = new MethodAttributeCache<>(this::createSpec);
+
+    // 单飞模式下进行中的调用
+    private final ConcurrentHashMap<CallKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder callCount = new LongAdder();
+
+    private final LongAdder executionCount = new LongAdder();
+
+    private final LongAdder collapsedCount = new LongAdder();
+
+    private final LongAdder batchCount = new LongAdder();
+
+    private final LongAdder batchedKeyCount = new LongAdder();
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object target = invocation.getThis();
+        Method method = invocation.getMethod();
+        CollapseSpec spec = specCache.get(method, null != target ? target.getClass() : method.getDeclaringClass());
+        if (null == spec) {
+            return invocation.proceed();
+        }
+        callCount.increment();
+        if (null == spec.batcher) {
+            return singleFlight(invocation, target);
+        }
+        return spec.batcher.call(invocation, target);
+    }
+
+    // ========== 单飞 ==========
+
+    private Object singleFlight(MethodInvocation invocation, Object target) throws Throwable {
+        CallKey key = new CallKey(target, invocation.getMethod(), invocation.getArguments());
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (null != existing) {
+            collapsedCount.increment();
+            return InterceptorUtils.await(existing);
+        }
+
+        executionCount.increment();
+        try {
+            Object result = invocation.proceed();
+            inFlight.remove(key, future);
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // ========== 合并配置 ==========
+
+    private CollapseSpec createSpec(Method method, Class<?> targetClass) {
+        Collapse collapse = AnnotationUtils.findAnnotation(method, targetClass, Collapse.class);
+        if (null == collapse) {
+            return null;
+        }
+        if (collapse.batchMethod().isEmpty()) {
+            return new CollapseSpec(null);
+        }
+        if (method.getParameterCount() != 1) {
+            throw new BeansException("@Collapse method " + method + " must have exactly one parameter to be batched");
+        }
+        if (collapse.maxBatchSize() < 1) {
+            throw new BeansException("@Collapse maxBatchSize must be at least 1 on method " + method);
+        }
+        Method batchMethod = findBatchMethod(targetClass, collapse.batchMethod());
+        if (null == batchMethod) {
+            throw new BeansException("No batch method '" + collapse.batchMethod() + "(List)' returning Map or List found on "
+                    + targetClass.getName() + " for @Collapse method " + method.getName());
+        }
+        return new CollapseSpec(new Batcher(batchMethod, collapse));
+    }
+
+    private static Method findBatchMethod(Class<?> targetClass, String name) {
+        for (Method candidate : targetClass.getMethods()) {
+            if (candidate.getName().equals(name) && candidate.getParameterCount() == 1
+                    && candidate.getParameterTypes()[0].isAssignableFrom(ArrayList.class)
+                    && (Map.class.isAssignableFrom(candidate.getReturnType()) || List.class.isAssignableFrom(candidate.getReturnType()))) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    // ========== 统计 ==========
+
+    /**
+     * 经过合并处理的调用总数
+     */
+    public long getCallCount() {
+        return callCount.sum();
+    }
+
+    /**
+     * 实际执行次数：单飞模式下的方法执行次数加上批量方法的调用次数
+     */
+    public long getExecutionCount() {
+        return executionCount.sum();
+    }
+
+    /**
+     * 没有单独执行、而是共享了其他调用结果的调用数
+     */
+    public long getCollapsedCount() {
+        return collapsedCount.sum();
+    }
+
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * 平均每批的键数量（去重后）
+     */
+    public double getAverageBatchSize() {
+        long batches = batchCount.sum();
+        return batches == 0 ? 0 : (double) batchedKeyCount.sum() / batches;
+    }
+
+    /**
+     * 方法的合并配置；batcher 为 null 表示单飞模式
+     */
+    private static final class CollapseSpec {
+
+        private final Batcher batcher;
+
+        CollapseSpec(Batcher batcher) {
+            this.batcher = batcher;
+        }
+    }
+
+    /**
+     * 单飞模式的调用标识：目标对象（按引用）、方法、参数（按内容）
+     */
+    private static final class CallKey {
+
+        private final Object target;
+
+        private final Method method;
+
+        private final Object[] arguments;
+
+        private final int hashCode;
+
+        CallKey(Object target, Method method, Object[] arguments) {
+            this.target = target;
+            this.method = method;
+            this.arguments = null != arguments ? arguments : new Object[0];
+            this.hashCode = 31 * (31 * System.identityHashCode(target) + method.hashCode()) + Arrays.deepHashCode(this.arguments);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof CallKey)) return false;
+            CallKey that = (CallKey) other;
+            return hashCode == that.hashCode && target == that.target && method.equals(that.method)
+                    && Arrays.deepEquals(arguments, that.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * 一个 @Collapse 方法的批量合并器，同一时刻最多有一个正在收集键的批次
+     */
+    private final class Batcher {
+
+        private final Method batchMethod;
+
+        private final long windowNanos;
+
+        private final int maxBatchSize;
+
+        // 正在收集键的批次，只在持有本对象锁时读写
+        private Batch current;
+
+        Batcher(Method batchMethod, Collapse collapse) {
+            this.batchMethod = batchMethod;
+            this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, collapse.windowMillis()));
+            this.maxBatchSize = collapse.maxBatchSize();
+        }
+
+        Object call(MethodInvocation invocation, Object target) throws Throwable {
+            Object key = invocation.getArguments()[0];
+            Batch batch;
+            CompletableFuture<Object> future;
+            boolean leader = false;
+            boolean full = false;
+            synchronized (this) {
+                if (null == current) {
+                    current = new Batch(target);
+                    leader = true;
+                }
+                batch = current;
+                if (batch.target == target) {
+                    future = batch.futures.get(key);
+                    if (null == future) {
+                        future = new CompletableFuture<>();
+                        batch.futures.put(key, future);
+                        if (batch.futures.size() >= maxBatchSize) {
+                            current = null;
+                            full = true;
+                        }
+                    }
+                } else {
+                    // 正在收集的批次属于其他目标对象，不合并
+                    future = null;
+                }
+            }
+            if (null == future) {
+                executionCount.increment();
+                return invocation.proceed();
+            }
+
+            // 先全部计为被合并，真正执行批量方法的调用在 execute 中扣除
+            collapsedCount.increment();
+            if (full) {
+                batch.filled.countDown();
+                execute(batch);
+            } else if (leader) {
+                awaitWindow(batch);
+                synchronized (this) {
+                    if (current == batch) {
+                        current = null;
+                    }
+                }
+                execute(batch);
+            }
+            return InterceptorUtils.await(future);
+        }
+
+        private void awaitWindow(Batch batch) {
+            try {
+                batch.filled.await(windowNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                // 提前执行本批次，保留中断标记
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * 以批次中所有的键调用一次批量方法，并把结果分发给各个调用方；批次只会被执行一次
+         */
+        private void execute(Batch batch) {
+            if (!batch.executed.compareAndSet(false, true)) return;
+            List<Object> keys = new ArrayList<>(batch.futures.keySet());
+            executionCount.increment();
+            collapsedCount.decrement();
+            batchCount.increment();
+            batchedKeyCount.add(keys.size());
+            try {
+                Object result = batchMethod.invoke(batch.target, keys);
+                if (result instanceof Map) {
+                    Map<?, ?> results = (Map<?, ?>) result;
+                    for (Map.Entry<Object, CompletableFuture<Object>> entry : batch.futures.entrySet()) {
+                        entry.getValue().complete(results.get(entry.getKey()));
+                    }
+                } else if (result instanceof List && ((List<?>) result).size() == keys.size()) {
+                    List<?> results = (List<?>) result;
+                    for (int i = 0; i < keys.size(); i++) {
+                        batch.futures.get(keys.get(i)).complete(results.get(i));
+                    }
+                } else {
+                    failAll(batch, new BeansException("Batch method " + batchMethod + " returned " + (null == result ? "null"
+                            : result.getClass().getName() + " not matching " + keys.size() + " keys")));
+                }
+            } catch (InvocationTargetException e) {
+                failAll(batch, e.getTargetException());
+            } catch (Throwable e) {
+                failAll(batch, e);
+            }
+        }
+
+        private void failAll(Batch batch, Throwable e) {
+            for (CompletableFuture<Object> future : batch.futures.values()) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 一个批次：目标对象，以及去重后的键和对应的结果
+     */
+    private static final class Batch {
+
+        private final Object target;
+
+        // 只在持有 Batcher 锁时修改；批次从 current 移除后不再修改
+        private final Map<Object, CompletableFuture<Object>> futures = new LinkedHashMap<>();
+
+        // 批次被填满时通知发起者
+        private final CountDownLatch filled = new CountDownLatch(1);
+
+        private final AtomicBoolean executed = new AtomicBoolean();
+
+        Batch(Object target) {
+            this.target = target;
+        }
+    }
+
+}
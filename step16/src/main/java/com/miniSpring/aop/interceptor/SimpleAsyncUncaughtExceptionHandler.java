@@ -0,0 +1,19 @@
+package com.miniSpring.aop.interceptor;
+
+import java.lang.reflect.Method;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 默认的异常处理器：以 SEVERE 级别记录到 java.util.logging，日志去向由应用的日志配置决定
+ */
+public class SimpleAsyncUncaughtExceptionHandler implements AsyncUncaughtExceptionHandler {
+
+    private static final Logger logger = Logger.getLogger(SimpleAsyncUncaughtExceptionHandler.class.getName());
+
+    @Override
+    public void handleUncaughtException(Throwable ex, Method method, Object... params) {
+        logger.log(Level.SEVERE, ex, () -> "Unexpected exception occurred invoking async method: " + method);
+    }
+
+}
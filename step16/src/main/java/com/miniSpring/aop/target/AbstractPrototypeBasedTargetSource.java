@@ -0,0 +1,78 @@
+package com.miniSpring.aop.target;
+
+import com.miniSpring.aop.TargetSource;
+import com.miniSpring.beans.BeansException;
+import com.miniSpring.beans.factory.BeanFactory;
+import com.miniSpring.beans.factory.BeanFactoryAware;
+import com.miniSpring.beans.factory.ConfigurableListableBeanFactory;
+import com.miniSpring.beans.factory.config.BeanDefinition;
+import com.miniSpring.beans.factory.support.DisposableBeanAdapter;
+
+/**
+ * 从容器中的原型 Bean 创建目标对象的 TargetSource 基类。
+ *
+ * 目标 Bean 通过 targetBeanName 指定，必须是 prototype 作用域：每个新目标对象都经过完整的创建流程（依赖注入、初始化）；
+ * 子类决定如何复用这些目标对象，不再使用时通过 destroyPrototypeInstance 执行其销毁方法。
+ */
+public abstract class AbstractPrototypeBasedTargetSource implements TargetSource, BeanFactoryAware {
+
+    private String targetBeanName;
+
+    private ConfigurableListableBeanFactory beanFactory;
+
+    private BeanDefinition targetBeanDefinition;
+
+    public String getTargetBeanName() {
+        return targetBeanName;
+    }
+
+    public void setTargetBeanName(String targetBeanName) {
+        this.targetBeanName = targetBeanName;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        if (null == targetBeanName) {
+            throw new BeansException("Property 'targetBeanName' is required for " + getClass().getSimpleName());
+        }
+        if (!(beanFactory instanceof ConfigurableListableBeanFactory)) {
+            throw new BeansException(getClass().getSimpleName() + " requires a ConfigurableListableBeanFactory");
+        }
+        this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+        this.targetBeanDefinition = this.beanFactory.getBeanDefinition(targetBeanName);
+        // 单例目标会被所有调用共享，池化或按线程隔离都没有意义
+        if (!targetBeanDefinition.isPrototype()) {
+            throw new BeansException("Cannot use " + getClass().getSimpleName() + " against a singleton bean '" + targetBeanName
+                    + "': the target bean must have scope 'prototype'");
+        }
+    }
+
+    @Override
+    public Class<?> getTargetClass() {
+        return targetBeanDefinition.getBeanClass();
+    }
+
+    @Override
+    public boolean isStatic() {
+        return false;
+    }
+
+    /**
+     * 从容器中创建一个新的目标对象
+     */
+    protected Object newPrototypeInstance() throws BeansException {
+        return beanFactory.getBean(targetBeanName);
+    }
+
+    /**
+     * 销毁不再使用的目标对象：执行 DisposableBean.destroy 和配置的 destroy-method
+     */
+    protected void destroyPrototypeInstance(Object target) throws BeansException {
+        try {
+            new DisposableBeanAdapter(target, targetBeanName, targetBeanDefinition).destroy();
+        } catch (Exception e) {
+            throw new BeansException("Destroy method on bean with name '" + targetBeanName + "' threw an exception", e);
+        }
+    }
+
+}
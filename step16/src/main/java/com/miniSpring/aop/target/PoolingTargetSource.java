@@ -0,0 +1,297 @@
+package com.miniSpring.aop.target;
+
+import com.miniSpring.beans.BeansException;
+import com.miniSpring.beans.factory.DisposableBean;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 对象池 TargetSource：每次调用从池中借出一个目标对象，调用结束后归还，适用于非线程安全的 Bean。
+ *
+ * 配置项（均可在 XML 中通过 property 设置）：
+ *  - targetBeanName：目标 Bean 名称，必须是 prototype 作用域
+ *  - maxSize：池中最多同时存在的目标对象数量（借出的 + 空闲的），默认 8
+ *  - maxIdleMillis：空闲超过该时间的目标对象会被销毁，小于等于 0 表示不淘汰，默认 60 秒
+ *  - maxWaitMillis：池满时等待归还的最长时间，超时抛出异常，小于等于 0 表示一直等待，默认一直等待
+ *
+ * 空闲对象按后进先出复用，最近归还的对象最先被借出，长期不用的对象沉在队尾，
+ * 在每次借出/归还时顺带检查并淘汰（不需要额外的后台线程）。
+ * 统计：命中（复用空闲对象）、未命中（新建目标对象）、等待（池满时阻塞）次数。
+ */
+public class PoolingTargetSource extends AbstractPrototypeBasedTargetSource implements TargetSourceStatistics, DisposableBean {
+
+    private int maxSize = 8;
+
+    private long maxIdleMillis = 60_000;
+
+    private long maxWaitMillis = 0;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 有目标对象归还或名额释放时唤醒等待者
+    private final Condition available = lock.newCondition();
+
+    // 空闲对象，队头为最近归还的对象
+    private final Deque<IdleTarget> idleTargets = new ArrayDeque<>();
+
+    // 当前存在的目标对象数量（借出的 + 空闲的 + 正在创建的）
+    private int totalCount;
+
+    private boolean destroyed;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder waitCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    @Override
+    public Object getTarget() {
+        List<Object> evicted = new ArrayList<>();
+        boolean create = false;
+        Object target = null;
+        lock.lock();
+        try {
+            evictIdle(System.currentTimeMillis(), evicted);
+            boolean waited = false;
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+            while (null == target && !create) {
+                if (destroyed) {
+                    throw new BeansException("PoolingTargetSource for bean '" + getTargetBeanName() + "' has been destroyed");
+                }
+                if (!idleTargets.isEmpty()) {
+                    // 1. 有空闲对象，直接复用
+                    target = idleTargets.pollFirst().target;
+                    hitCount.increment();
+                } else if (totalCount < maxSize) {
+                    // 2. 池未满，占用一个名额，在锁外创建新对象
+                    totalCount++;
+                    create = true;
+                    missCount.increment();
+                } else {
+                    // 3. 池已满，等待其他调用归还
+                    if (!waited) {
+                        waitCount.increment();
+                        waited = true;
+                    }
+                    if (maxWaitMillis <= 0) {
+                        available.await();
+                    } else {
+                        if (remainingNanos <= 0) {
+                            throw new BeansException("Timed out after " + maxWaitMillis + "ms waiting for a pooled target of bean '"
+                                    + getTargetBeanName() + "' (maxSize=" + maxSize + ")");
+                        }
+                        remainingNanos = available.awaitNanos(remainingNanos);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BeansException("Interrupted while waiting for a pooled target of bean '" + getTargetBeanName() + "'", e);
+        } finally {
+            lock.unlock();
+            destroyAll(evicted);
+        }
+
+        if (create) {
+            try {
+                target = newPrototypeInstance();
+            } catch (RuntimeException | Error e) {
+                // 创建失败，归还名额
+                releaseSlot();
+                throw e;
+            }
+        }
+        return target;
+    }
+
+    @Override
+    public void releaseTarget(Object target) {
+        List<Object> evicted = new ArrayList<>();
+        lock.lock();
+        try {
+            if (destroyed) {
+                totalCount--;
+                evicted.add(target);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            idleTargets.offerFirst(new IdleTarget(target, now));
+            evictIdle(now, evicted);
+            available.signal();
+        } finally {
+            lock.unlock();
+            destroyAll(evicted);
+        }
+    }
+
+    /**
+     * 立即淘汰空闲超时的目标对象
+     */
+    public void evictIdle() {
+        List<Object> evicted = new ArrayList<>();
+        lock.lock();
+        try {
+            evictIdle(System.currentTimeMillis(), evicted);
+        } finally {
+            lock.unlock();
+            destroyAll(evicted);
+        }
+    }
+
+    /**
+     * 从队尾（最久未使用）开始移除空闲超时的对象，调用方持有锁，对象在锁外销毁
+     */
+    private void evictIdle(long now, List<Object> evicted) {
+        if (maxIdleMillis <= 0) return;
+        IdleTarget oldest;
+        while (null != (oldest = idleTargets.peekLast()) && now - oldest.idleSince >= maxIdleMillis) {
+            idleTargets.pollLast();
+            totalCount--;
+            evicted.add(oldest.target);
+            evictionCount.increment();
+        }
+        if (!evicted.isEmpty()) {
+            available.signalAll();
+        }
+    }
+
+    private void releaseSlot() {
+        lock.lock();
+        try {
+            totalCount--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void destroyAll(List<Object> targets) {
+        for (Object target : targets) {
+            destroyPrototypeInstance(target);
+        }
+    }
+
+    /**
+     * 容器关闭时销毁所有空闲对象，之后归还的对象直接销毁
+     */
+    @Override
+    public void destroy() throws Exception {
+        List<Object> idle = new ArrayList<>();
+        lock.lock();
+        try {
+            destroyed = true;
+            for (IdleTarget idleTarget : idleTargets) {
+                idle.add(idleTarget.target);
+            }
+            totalCount -= idleTargets.size();
+            idleTargets.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        destroyAll(idle);
+    }
+
+    // ========== 统计 ==========
+
+    @Override
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    @Override
+    public long getWaitCount() {
+        return waitCount.sum();
+    }
+
+    /**
+     * 因空闲超时被淘汰的目标对象数量
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 当前借出的目标对象数量
+     */
+    public int getActiveCount() {
+        lock.lock();
+        try {
+            return totalCount - idleTargets.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前空闲的目标对象数量
+     */
+    public int getIdleCount() {
+        lock.lock();
+        try {
+            return idleTargets.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ========== getter/setter ==========
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.maxSize = maxSize;
+    }
+
+    public long getMaxIdleMillis() {
+        return maxIdleMillis;
+    }
+
+    public void setMaxIdleMillis(long maxIdleMillis) {
+        this.maxIdleMillis = maxIdleMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * 空闲的目标对象及其归还时间
+     */
+    private static final class IdleTarget {
+
+        private final Object target;
+
+        private final long idleSince;
+
+        IdleTarget(Object target, long idleSince) {
+            this.target = target;
+            this.idleSince = idleSince;
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.miniSpring.aop.target;
+
+import com.miniSpring.aop.TargetSource;
+import com.miniSpring.util.ClassUtils;
+
+/**
+ * 封装单个固定的目标对象，每次调用都返回它
+ */
+public class SingletonTargetSource implements TargetSource {
+
+    private final Object target;
+
+    public SingletonTargetSource(Object target) {
+        this.target = target;
+    }
+
+    @Override
+    public Class<?> getTargetClass() {
+        Class<?> clazz = this.target.getClass();
+        clazz = ClassUtils.isCglibProxyClass(clazz) ? clazz.getSuperclass() : clazz;
+        return clazz;
+    }
+
+    @Override
+    public boolean isStatic() {
+        return true;
+    }
+
+    @Override
+    public Object getTarget() {
+        return this.target;
+    }
+
+    @Override
+    public void releaseTarget(Object target) {
+        // 固定的目标对象不需要归还
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.miniSpring.aop.target;
+
+/**
+ * 目标对象来源的运行统计
+ */
+public interface TargetSourceStatistics {
+
+    /**
+     * 直接复用已有目标对象的次数
+     */
+    long getHitCount();
+
+    /**
+     * 需要新建目标对象的次数
+     */
+    long getMissCount();
+
+    /**
+     * 因没有可用目标对象而等待的次数
+     */
+    long getWaitCount();
+
+}
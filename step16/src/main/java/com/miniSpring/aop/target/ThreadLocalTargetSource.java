@@ -0,0 +1,101 @@
+package com.miniSpring.aop.target;
+
+import com.miniSpring.beans.BeansException;
+import com.miniSpring.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按线程隔离的 TargetSource：每个线程第一次调用时创建自己的目标对象，之后一直复用，适用于非线程安全的 Bean。
+ *
+ * 目标对象不需要归还；容器关闭时销毁所有仍存活线程的目标对象，之后再调用会抛出异常。
+ * 目标对象按所属线程弱引用登记：线程结束后它的目标对象随之回收，不再执行销毁回调，
+ * 因此在每个任务一个线程的执行器（如虚拟线程）上使用时，登记的对象数量不会随任务数无限增长。
+ * 统计：命中（复用本线程已有对象）、未命中（为本线程新建对象）次数，不存在等待。
+ */
+public class ThreadLocalTargetSource extends AbstractPrototypeBasedTargetSource implements TargetSourceStatistics, DisposableBean {
+
+    private final ThreadLocal<Object> targetInThread = new ThreadLocal<>();
+
+    // 线程 -> 该线程的目标对象，用于容器关闭时统一销毁，由自身加锁保护
+    private final Map<Thread, Object> targets = new WeakHashMap<>();
+
+    private volatile boolean destroyed;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    @Override
+    public Object getTarget() {
+        if (destroyed) {
+            throw new BeansException("ThreadLocalTargetSource for bean '" + getTargetBeanName() + "' has been destroyed");
+        }
+        Object target = targetInThread.get();
+        if (null != target) {
+            hitCount.increment();
+            return target;
+        }
+        missCount.increment();
+        target = newPrototypeInstance();
+        synchronized (targets) {
+            if (!destroyed) {
+                targets.put(Thread.currentThread(), target);
+                targetInThread.set(target);
+                return target;
+            }
+        }
+        // 创建期间已被销毁，新对象不再登记，直接销毁
+        destroyPrototypeInstance(target);
+        throw new BeansException("ThreadLocalTargetSource for bean '" + getTargetBeanName() + "' has been destroyed");
+    }
+
+    @Override
+    public void releaseTarget(Object target) {
+        // 目标对象归本线程所有，不需要归还
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        List<Object> createdTargets;
+        synchronized (targets) {
+            destroyed = true;
+            createdTargets = new ArrayList<>(targets.values());
+            targets.clear();
+        }
+        for (Object target : createdTargets) {
+            destroyPrototypeInstance(target);
+        }
+        // 只能清除当前线程的引用，其他线程的引用随线程结束回收，之后的调用由 destroyed 标记拒绝
+        targetInThread.remove();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    @Override
+    public long getWaitCount() {
+        return 0;
+    }
+
+    /**
+     * 已登记的目标对象数量（即使用过该 TargetSource 且尚未结束的线程数）
+     */
+    public int getObjectCount() {
+        synchronized (targets) {
+            return targets.size();
+        }
+    }
+
+}
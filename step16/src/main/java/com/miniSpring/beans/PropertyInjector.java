@@ -0,0 +1,163 @@
+package com.miniSpring.beans;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.util.StrUtil;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 预编译的属性注入器，替代 BeanUtil.setFieldValue 每次按名称反射查找字段的做法。
+ *
+ * 每个 (类, 属性名) 只解析一次：优先使用 setter 方法，没有 setter 时直接写字段，
+ * 解析结果是一个 MethodHandle，之后的注入只需要一次类型转换和一次 invokeExact。
+ */
+public final class PropertyInjector {
+
+    /**
+     * 注入器缓存：Bean 类 -> (属性名 -> 注入器)。
+     * 用 ClassValue 把缓存挂在 Bean 类自身上，类卸载时缓存随之回收，不会钉住已关闭上下文的类加载器。
+     */
+    private static final ClassValue<Map<String, PropertyInjector>> injectorCache = new ClassValue<Map<String, PropertyInjector>>() {
+        @Override
+        protected Map<String, PropertyInjector> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    // 统一的调用签名 (Object bean, Object value) -> void，保证 invokeExact 可以直接调用
+    private static final MethodType INJECT_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final String propertyName;
+
+    // 属性的目标类型（setter 参数类型或字段类型），注入前按此类型转换
+    private final Class<?> propertyType;
+
+    private final MethodHandle setter;
+
+    private PropertyInjector(String propertyName, Class<?> propertyType, MethodHandle setter) {
+        this.propertyName = propertyName;
+        this.propertyType = propertyType;
+        this.setter = setter.asType(INJECT_TYPE);
+    }
+
+    /**
+     * 获取指定类、指定属性的注入器，首次获取时解析并缓存。
+     */
+    public static PropertyInjector forProperty(Class<?> beanClass, String propertyName) {
+        return injectorCache.get(beanClass).computeIfAbsent(propertyName, key -> resolve(beanClass, propertyName));
+    }
+
+    /**
+     * 直接写入指定字段的注入器，不按属性名查找 setter，也不受子类同名字段遮蔽的影响。
+     * 用于 @Autowired/@Value 等已经定位到具体字段的注入点，由调用方负责缓存。
+     */
+    public static PropertyInjector forField(Field field) throws BeansException {
+        try {
+            return new PropertyInjector(field.getName(), field.getType(), unreflectFieldSetter(field));
+        } catch (IllegalAccessException e) {
+            throw new BeansException("Cannot access field '" + field.getName() + "' of class [" + field.getDeclaringClass().getName() + "]", e);
+        }
+    }
+
+    /**
+     * 把 value 注入到 bean 的对应属性中，value 的类型不匹配时先做类型转换（如 "3" -> int）。
+     */
+    public void inject(Object bean, Object value) throws BeansException {
+        Object convertedValue = value;
+        if (null != value && !wrap(propertyType).isInstance(value)) {
+            convertedValue = Convert.convert(propertyType, value);
+        }
+        try {
+            setter.invokeExact(bean, convertedValue);
+        } catch (Error e) {
+            // OutOfMemoryError 等虚拟机错误原样抛出，不包装为 BeansException
+            throw e;
+        } catch (Throwable e) {
+            // setter 抛出的运行时异常和受检异常，以及 null 注入基本类型属性导致的异常
+            throw new BeansException("Failed to inject property '" + propertyName + "' of bean class [" + bean.getClass().getName() + "]", e);
+        }
+    }
+
+    public Class<?> getPropertyType() {
+        return propertyType;
+    }
+
+    private static PropertyInjector resolve(Class<?> beanClass, String propertyName) {
+        Field field = findField(beanClass, propertyName);
+
+        // 1. 优先使用 setter 方法，参数类型与字段类型一致的重载优先
+        Method setterMethod = findSetter(beanClass, propertyName, null != field ? field.getType() : null);
+        try {
+            if (null != setterMethod) {
+                return new PropertyInjector(propertyName, setterMethod.getParameterTypes()[0], unreflectSetterMethod(setterMethod));
+            }
+
+            // 2. 没有 setter，直接写字段
+            if (null != field) {
+                return new PropertyInjector(propertyName, field.getType(), unreflectFieldSetter(field));
+            }
+        } catch (IllegalAccessException e) {
+            throw new BeansException("Cannot access property '" + propertyName + "' of bean class [" + beanClass.getName() + "]", e);
+        }
+        throw new BeansException("No property named '" + propertyName + "' found on bean class [" + beanClass.getName() + "]");
+    }
+
+    private static MethodHandle unreflectSetterMethod(Method method) throws IllegalAccessException {
+        try {
+            return MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            // setter 声明在非 public 类中时，需要先打开访问权限
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        }
+    }
+
+    private static MethodHandle unreflectFieldSetter(Field field) throws IllegalAccessException {
+        try {
+            return MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup()).unreflectSetter(field);
+        } catch (IllegalAccessException e) {
+            // 模块边界等原因无法获取私有 Lookup 时，退回到 setAccessible
+            field.setAccessible(true);
+            return MethodHandles.lookup().unreflectSetter(field);
+        }
+    }
+
+    private static Method findSetter(Class<?> beanClass, String propertyName, Class<?> fieldType) {
+        String setterName = "set" + StrUtil.upperFirst(propertyName);
+        Method candidate = null;
+        for (Method method : beanClass.getMethods()) {
+            if (!method.getName().equals(setterName) || method.getParameterCount() != 1 || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            if (method.getParameterTypes()[0] == fieldType) {
+                return method;
+            }
+            if (null == candidate) {
+                candidate = method;
+            }
+        }
+        return candidate;
+    }
+
+    private static Field findField(Class<?> beanClass, String propertyName) {
+        for (Class<?> clazz = beanClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (field.getName().equals(propertyName) && !Modifier.isStatic(field.getModifiers())) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+}
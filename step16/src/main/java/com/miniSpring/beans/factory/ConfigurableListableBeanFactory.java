@@ -27,5 +27,16 @@ public interface ConfigurableListableBeanFactory
      */
     void preInstantiateSingletons() throws BeansException;
 
+    /**
+     * 设置预实例化单例时的并行度。
+     * 大于 1 时按依赖图把互不依赖的 Bean 子图并行创建，小于等于 1 时按注册顺序串行创建。
+     */
+    void setPreInstantiationParallelism(int preInstantiationParallelism);
+
+    /**
+     * 设置默认的懒加载开关，作用于没有显式声明 lazy-init / @Lazy 的单例 Bean。
+     */
+    void setDefaultLazyInit(boolean defaultLazyInit);
+
 
 }
@@ -25,4 +25,9 @@ public interface ListableBeanFactory extends BeanFactory {
      */
     String[] getBeanDefinitionNames();
 
+    /**
+     * 返回所有类型与给定类型兼容（自身、子类或实现类）的 Bean 名称，不会触发 Bean 的创建。
+     */
+    String[] getBeanNamesForType(Class<?> type);
+
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
 package com.miniSpring.beans.factory.annotation;
 
-import cn.hutool.core.bean.BeanUtil;
 import com.miniSpring.beans.BeansException;
 import com.miniSpring.beans.PropertyValues;
 import com.miniSpring.beans.factory.BeanFactory;
@@ -9,8 +8,6 @@ import com.miniSpring.beans.factory.ConfigurableListableBeanFactory;
 import com.miniSpring.beans.factory.config.InstantiationAwareBeanPostProcessor;
 import com.miniSpring.util.ClassUtils;
 
-import java.lang.reflect.Field;
-
 /**
  * 处理 @Value、@Autowired、@Qualifier 注解的 Bean 后置处理器。
  * <p>在 Bean 实例化后、属性赋值阶段，对字段进行依赖注入或配置值注入。
@@ -20,6 +17,14 @@ public class AutowiredAnnotationBeanPostProcessor implements InstantiationAwareB
     // Bean 工厂引用，用于获取 Bean 和解析嵌入值
     private ConfigurableListableBeanFactory beanFactory;
 
+    // 注入元数据缓存：Bean 类 -> 该类（含父类）的注解注入点，每个类只扫描一次；挂在 Bean 类自身上，随类卸载
+    private final ClassValue<InjectionMetadata> injectionMetadataCache = new ClassValue<InjectionMetadata>() {
+        @Override
+        protected InjectionMetadata computeValue(Class<?> type) {
+            return InjectionMetadata.forClass(type);
+        }
+    };
+
     @Override
     public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
         this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
@@ -31,42 +36,9 @@ public class AutowiredAnnotationBeanPostProcessor implements InstantiationAwareB
         Class<?> clazz = bean.getClass();
         clazz = ClassUtils.isCglibProxyClass(clazz) ? clazz.getSuperclass() : clazz;
 
-        Field[] declaredFields = clazz.getDeclaredFields();
-
-        // 2. 处理 @Value 注解：注入外部配置值
-        for (Field field : declaredFields) {
-            Value valueAnnotation = field.getAnnotation(Value.class);
-            if (null != valueAnnotation) {
-                // 获取注解中的值（可能包含占位符）
-                String value = valueAnnotation.value();
-                // 解析占位符或表达式，得到实际值
-                value = beanFactory.resolveEmbeddedValue(value);
-                // 通过反射设置字段值
-                BeanUtil.setFieldValue(bean, field.getName(), value);
-            }
-        }
-
-        // 3. 处理 @Autowired 注解：注入 Bean 对象
-        for (Field field : declaredFields) {
-            Autowired autowiredAnnotation = field.getAnnotation(Autowired.class);
-            if (null != autowiredAnnotation) {
-                Class<?> fieldType = field.getType();
-                String dependentBeanName = null;
-                Qualifier qualifierAnnotation = field.getAnnotation(Qualifier.class);
-                Object dependentBean;
-
-                if (null != qualifierAnnotation) {
-                    // 如果有 @Qualifier，则按指定 Bean 名称 + 类型注入
-                    dependentBeanName = qualifierAnnotation.value();
-                    dependentBean = beanFactory.getBean(dependentBeanName, fieldType);
-                } else {
-                    // 否则按类型注入
-                    dependentBean = beanFactory.getBean(fieldType);
-                }
-                // 通过反射设置字段值
-                BeanUtil.setFieldValue(bean, field.getName(), dependentBean);
-            }
-        }
+        // 2. 获取（首次则构建）该类的注入元数据，依次注入 @Value 配置值和 @Autowired 依赖
+        InjectionMetadata metadata = injectionMetadataCache.get(clazz);
+        metadata.inject(bean, beanFactory);
 
         // 返回原始属性值对象（本方法不修改 pvs）
         return pvs;
@@ -0,0 +1,232 @@
+package com.miniSpring.beans.factory.annotation;
+
+import com.miniSpring.beans.BeansException;
+import com.miniSpring.beans.PropertyInjector;
+import com.miniSpring.beans.factory.ConfigurableListableBeanFactory;
+import com.miniSpring.beans.factory.ObjectFactory;
+import com.miniSpring.util.ObjectInstantiator;
+import net.sf.cglib.proxy.Callback;
+import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.Factory;
+import net.sf.cglib.proxy.LazyLoader;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 某个 Bean 类的注解注入元数据。
+ *
+ * 在首次处理该类时沿继承层次扫描一次字段，把 @Value、@Autowired/@Qualifier 字段
+ * 预先整理成注入元素数组（父类字段在前，@Value 在 @Autowired 之前），
+ * 之后每次注入只需要顺序遍历这个数组，不再反射扫描字段和注解。
+ */
+public class InjectionMetadata {
+
+    private final Class<?> targetClass;
+
+    private final InjectedElement[] injectedElements;
+
+    public InjectionMetadata(Class<?> targetClass, InjectedElement[] injectedElements) {
+        this.targetClass = targetClass;
+        this.injectedElements = injectedElements;
+    }
+
+    /**
+     * 扫描 targetClass 及其所有父类，构建注入元数据。
+     */
+    public static InjectionMetadata forClass(Class<?> targetClass) {
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> clazz = targetClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            hierarchy.add(0, clazz);
+        }
+
+        List<InjectedElement> valueElements = new ArrayList<>();
+        List<InjectedElement> autowiredElements = new ArrayList<>();
+        for (Class<?> clazz : hierarchy) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) continue;
+
+                Value valueAnnotation = field.getAnnotation(Value.class);
+                if (null != valueAnnotation) {
+                    valueElements.add(new ValueElement(field, valueAnnotation.value()));
+                }
+
+                if (null != field.getAnnotation(Autowired.class)) {
+                    Qualifier qualifierAnnotation = field.getAnnotation(Qualifier.class);
+                    String qualifier = null != qualifierAnnotation ? qualifierAnnotation.value() : null;
+                    Lazy lazyAnnotation = field.getAnnotation(Lazy.class);
+                    boolean lazy = null != lazyAnnotation && lazyAnnotation.value();
+                    autowiredElements.add(new AutowiredElement(field, qualifier, lazy));
+                }
+            }
+        }
+
+        valueElements.addAll(autowiredElements);
+        return new InjectionMetadata(targetClass, valueElements.toArray(new InjectedElement[0]));
+    }
+
+    /**
+     * 依次执行所有注入元素
+     */
+    public void inject(Object bean, ConfigurableListableBeanFactory beanFactory) throws BeansException {
+        for (InjectedElement element : injectedElements) {
+            element.inject(bean, beanFactory);
+        }
+    }
+
+    public boolean isEmpty() {
+        return injectedElements.length == 0;
+    }
+
+    public Class<?> getTargetClass() {
+        return targetClass;
+    }
+
+    public InjectedElement[] getInjectedElements() {
+        return injectedElements.clone();
+    }
+
+    /**
+     * 单个注入点：持有字段以及预先解析好的属性注入器
+     */
+    public abstract static class InjectedElement {
+
+        protected final Field field;
+
+        protected final PropertyInjector injector;
+
+        protected InjectedElement(Field field) {
+            this.field = field;
+            // 按找到的 Field 本身构建注入器：同名 setter 不会抢走字段注入，父类被遮蔽的字段也能写到正确位置
+            this.injector = PropertyInjector.forField(field);
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        protected abstract void inject(Object bean, ConfigurableListableBeanFactory beanFactory) throws BeansException;
+    }
+
+    /**
+     * @Value 注入点，占位符只在第一次注入时解析，解析结果缓存复用
+     */
+    private static class ValueElement extends InjectedElement {
+
+        private final String expression;
+
+        private volatile String resolvedValue;
+
+        ValueElement(Field field, String expression) {
+            super(field);
+            this.expression = expression;
+        }
+
+        @Override
+        protected void inject(Object bean, ConfigurableListableBeanFactory beanFactory) throws BeansException {
+            String value = resolvedValue;
+            if (null == value) {
+                // 解析占位符或表达式，得到实际值
+                value = beanFactory.resolveEmbeddedValue(expression);
+                resolvedValue = value;
+            }
+            injector.inject(bean, value);
+        }
+    }
+
+    /**
+     * @Autowired 注入点，依赖描述（类型 + 可选的 @Qualifier 名称 + 是否 @Lazy）在构建时确定
+     */
+    private static class AutowiredElement extends InjectedElement {
+
+        private final Class<?> dependencyType;
+
+        private final String qualifier;
+
+        private final boolean lazy;
+
+        AutowiredElement(Field field, String qualifier, boolean lazy) {
+            super(field);
+            this.dependencyType = field.getType();
+            this.qualifier = qualifier;
+            this.lazy = lazy;
+        }
+
+        @Override
+        protected void inject(Object bean, ConfigurableListableBeanFactory beanFactory) throws BeansException {
+            Object dependentBean = lazy ? buildLazyResolutionProxy(beanFactory) : resolveDependency(beanFactory);
+            injector.inject(bean, dependentBean);
+        }
+
+        private Object resolveDependency(ConfigurableListableBeanFactory beanFactory) {
+            if (null != qualifier) {
+                // 如果有 @Qualifier，则按指定 Bean 名称 + 类型注入
+                return beanFactory.getBean(qualifier, dependencyType);
+            }
+            // 否则按类型注入
+            return beanFactory.getBean(dependencyType);
+        }
+
+        /**
+         * 构建延迟解析代理：注入时不创建依赖，第一次调用代理方法时才解析并缓存真正的依赖对象。
+         * 接口类型使用 JDK 动态代理，类类型使用 CGLIB 的 LazyLoader。
+         */
+        private Object buildLazyResolutionProxy(ConfigurableListableBeanFactory beanFactory) {
+            if (dependencyType.isInterface()) {
+                LazyTargetHolder holder = new LazyTargetHolder(() -> resolveDependency(beanFactory));
+                return Proxy.newProxyInstance(dependencyType.getClassLoader(), new Class<?>[]{dependencyType}, (proxy, method, args) -> {
+                    try {
+                        return method.invoke(holder.getTarget(), args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+            }
+            Enhancer enhancer = new Enhancer();
+            enhancer.setSuperclass(dependencyType);
+            LazyLoader lazyLoader = () -> resolveDependency(beanFactory);
+            if (ObjectInstantiator.isConstructorBypassAvailable()) {
+                // 代理实例跳过构造函数创建，依赖类不必有无参构造函数，也不会多执行一次构造逻辑
+                enhancer.setCallbackType(LazyLoader.class);
+                Class<?> proxyClass = enhancer.createClass();
+                Object proxy = ObjectInstantiator.newInstance(proxyClass);
+                ((Factory) proxy).setCallbacks(new Callback[]{lazyLoader});
+                return proxy;
+            }
+            enhancer.setCallback(lazyLoader);
+            return enhancer.create();
+        }
+    }
+
+    /**
+     * 延迟解析的目标对象持有者，目标只解析一次
+     */
+    private static class LazyTargetHolder {
+
+        private final ObjectFactory<?> targetFactory;
+
+        private volatile Object target;
+
+        LazyTargetHolder(ObjectFactory<?> targetFactory) {
+            this.targetFactory = targetFactory;
+        }
+
+        Object getTarget() {
+            Object result = target;
+            if (null == result) {
+                synchronized (this) {
+                    result = target;
+                    if (null == result) {
+                        result = targetFactory.getObject();
+                        target = result;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.miniSpring.beans.factory.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 懒加载注解。
+ *
+ * - 标注在类上：被扫描注册的单例 Bean 不在容器刷新时预先创建，而是在第一次 getBean 时创建；
+ * - 标注在 @Autowired 字段上：注入一个轻量的延迟解析代理，第一次调用代理方法时才真正获取依赖。
+ */
+@Target({ElementType.TYPE, ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Lazy {
+
+    /**
+     * 是否懒加载，默认 true。
+     */
+    boolean value() default true;
+}
@@ -1,7 +1,20 @@
 package com.miniSpring.beans.factory.config;
 
+import cn.hutool.core.util.StrUtil;
+import com.miniSpring.beans.BeansException;
 import com.miniSpring.beans.PropertyValues;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class BeanDefinition {
 
     private Class beanClass;
@@ -12,6 +25,14 @@ public class BeanDefinition {
 
     private String destroyMethodName;
 
+    // 生命周期方法的统一调用签名 (Object bean) -> void，方法返回值被丢弃
+    private static final MethodType LIFECYCLE_METHOD_TYPE = MethodType.methodType(void.class, Object.class);
+
+    // 解析好的 init-method / destroy-method 句柄，避免每次创建、销毁 Bean 都反射查找方法
+    private volatile MethodHandle initMethodHandle;
+
+    private volatile MethodHandle destroyMethodHandle;
+
     String SCOPE_SINGLETON = ConfigurableBeanFactory.SCOPE_SINGLETON;
 
     String SCOPE_PROTOTYPE = ConfigurableBeanFactory.SCOPE_PROTOTYPE;
@@ -21,6 +42,19 @@ public class BeanDefinition {
     private boolean singleton = true;
 
     private boolean prototype = false;
+
+    // 是否懒加载，null 表示未显式声明，由容器的默认懒加载开关决定
+    private Boolean lazyInit;
+
+    // 查找方法注入：方法名 -> 该方法返回的 Bean 名称，需要在 CGLIB 子类中重写这些方法
+    private final Map<String, String> lookupMethodOverrides = new LinkedHashMap<>();
+
+    // 缓存的构造函数列表，避免每次实例化都调用 getDeclaredConstructors()
+    private volatile Constructor<?>[] declaredConstructors;
+
+    // 构造函数解析缓存：实参类型签名 -> 匹配到的构造函数
+    private final Map<List<Class<?>>, Constructor<?>> resolvedConstructors = new ConcurrentHashMap<>();
+
     public BeanDefinition(Class beanClass) {
         this.beanClass = beanClass;
         this.propertyValues = new PropertyValues();
@@ -37,6 +71,36 @@ public class BeanDefinition {
 
     public void setBeanClass(Class beanClass) {
         this.beanClass = beanClass;
+        // Bean 类变化后，之前解析的构造函数全部失效
+        this.declaredConstructors = null;
+        this.resolvedConstructors.clear();
+        resetLifecycleMethods();
+    }
+
+    /**
+     * 获取 Bean 类声明的全部构造函数，首次调用时反射获取并缓存。
+     */
+    public Constructor<?>[] getDeclaredConstructors() {
+        Constructor<?>[] constructors = this.declaredConstructors;
+        if (null == constructors) {
+            constructors = beanClass.getDeclaredConstructors();
+            this.declaredConstructors = constructors;
+        }
+        return constructors;
+    }
+
+    /**
+     * 按实参类型签名获取已解析的构造函数，未解析过返回 null。
+     */
+    public Constructor<?> getResolvedConstructor(List<Class<?>> argumentTypes) {
+        return resolvedConstructors.get(argumentTypes);
+    }
+
+    /**
+     * 缓存某个实参类型签名解析出的构造函数。
+     */
+    public void setResolvedConstructor(List<Class<?>> argumentTypes, Constructor<?> constructor) {
+        resolvedConstructors.put(argumentTypes, constructor);
     }
 
     public PropertyValues getPropertyValues() {
@@ -53,6 +117,7 @@ public class BeanDefinition {
 
     public void setInitMethodName(String initMethodName) {
         this.initMethodName = initMethodName;
+        this.initMethodHandle = null;
     }
 
     public String getDestroyMethodName() {
@@ -61,6 +126,103 @@ public class BeanDefinition {
 
     public void setDestroyMethodName(String destroyMethodName) {
         this.destroyMethodName = destroyMethodName;
+        this.destroyMethodHandle = null;
+    }
+
+    /**
+     * 解析并校验 init-method、destroy-method，在注册 Bean 定义时调用，
+     * 方法不存在时立即抛出异常，而不是等到创建或销毁 Bean 时才发现。
+     */
+    public void resolveLifecycleMethods() throws BeansException {
+        getInitMethodHandle();
+        getDestroyMethodHandle();
+    }
+
+    /**
+     * 获取 init-method 的调用句柄，未配置时返回 null
+     */
+    public MethodHandle getInitMethodHandle() throws BeansException {
+        MethodHandle handle = this.initMethodHandle;
+        if (null == handle && StrUtil.isNotEmpty(initMethodName)) {
+            handle = resolveLifecycleMethod(initMethodName, "init");
+            this.initMethodHandle = handle;
+        }
+        return handle;
+    }
+
+    /**
+     * 获取 destroy-method 的调用句柄，未配置时返回 null
+     */
+    public MethodHandle getDestroyMethodHandle() throws BeansException {
+        MethodHandle handle = this.destroyMethodHandle;
+        if (null == handle && StrUtil.isNotEmpty(destroyMethodName)) {
+            handle = resolveLifecycleMethod(destroyMethodName, "destroy");
+            this.destroyMethodHandle = handle;
+        }
+        return handle;
+    }
+
+    private MethodHandle resolveLifecycleMethod(String methodName, String kind) throws BeansException {
+        Method method;
+        try {
+            method = beanClass.getMethod(methodName);
+        } catch (NoSuchMethodException e) {
+            throw new BeansException("Could not find an " + kind + " method named '" + methodName + "' on bean class [" + beanClass.getName() + "]", e);
+        }
+        try {
+            return unreflect(method).asType(LIFECYCLE_METHOD_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new BeansException("Cannot access " + kind + " method '" + methodName + "' on bean class [" + beanClass.getName() + "]", e);
+        }
+    }
+
+    private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+        try {
+            return MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            // public 方法声明在非 public 类中时，需要先打开访问权限
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        }
+    }
+
+    private void resetLifecycleMethods() {
+        this.initMethodHandle = null;
+        this.destroyMethodHandle = null;
+    }
+
+    public boolean isLazyInit() {
+        return Boolean.TRUE.equals(lazyInit);
+    }
+
+    /**
+     * 获取显式声明的懒加载配置，未声明时返回 null
+     */
+    public Boolean getLazyInit() {
+        return lazyInit;
+    }
+
+    public void setLazyInit(boolean lazyInit) {
+        this.lazyInit = lazyInit;
+    }
+
+    /**
+     * 声明查找方法注入（XML 中的 <lookup-method name="..." bean="..."/>）：
+     * 调用 methodName 方法时返回容器中名为 beanName 的 Bean，原型 Bean 每次调用都得到新实例。
+     */
+    public void addLookupMethodOverride(String methodName, String beanName) {
+        this.lookupMethodOverrides.put(methodName, beanName);
+    }
+
+    public Map<String, String> getLookupMethodOverrides() {
+        return Collections.unmodifiableMap(lookupMethodOverrides);
+    }
+
+    /**
+     * 只有声明了查找方法的定义才需要以 CGLIB 子类的方式实例化，其余 Bean 直接调用构造函数创建。
+     */
+    public boolean isSubclassRequired() {
+        return !lookupMethodOverrides.isEmpty();
     }
 
     //在xml注册Bean定义时，通过scope字段来判断是单例还是原型
@@ -1,19 +1,24 @@
 package com.miniSpring.beans.factory.support;
 
-import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.util.ClassUtil;
 import cn.hutool.core.util.StrUtil;
 import com.miniSpring.beans.BeansException;
+import com.miniSpring.beans.PropertyInjector;
 import com.miniSpring.beans.PropertyValue;
 import com.miniSpring.beans.PropertyValues;
 import com.miniSpring.beans.factory.*;
 import com.miniSpring.beans.factory.config.*;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 //Bean 实例化、属性注入、初始化、销毁等生命周期管理的核心实现类。
 public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFactory implements AutowireCapableBeanFactory {
     //定义了一个创建对象的实例化策略属性类 InstantiationStrategy instantiationStrategy，这里我们选择了 Cglib 的实现类
+    //它默认直接调用构造函数，只有声明了查找方法（lookup-method）的 Bean 才会生成 CGLIB 子类
     private InstantiationStrategy instantiationStrategy = new CglibSubclassingInstantiationStrategy();
 
     @Override
@@ -21,9 +26,13 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 
         Object bean = null;
 
+        // 整个创建过程使用同一份 BeanPostProcessor 快照：
+        // 创建期间新注册的处理器只作用于之后创建的 Bean，同一个 Bean 的各个阶段看到的处理器集合一致
+        BeanPostProcessorCache processors = getBeanPostProcessorCache();
+
         try {
             // 提前代理，提供一个机会来返回一个自定义的 bean 实例，从而跳过 Spring 默认的 bean 实例化、属性注入等流程。
-            bean = resolveBeforeInstantiation(beanName, beanDefinition);
+            bean = resolveBeforeInstantiation(beanName, beanDefinition, processors);
             if (null != bean) {
                 return bean;
             }
@@ -48,23 +57,31 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
          */
         if (beanDefinition.isSingleton()) {
             Object finalBean = bean;
-            addSingletonFactory(beanName, () -> getEarlyBeanReference(beanName, beanDefinition, finalBean));
+            // 没有重写 getEarlyBeanReference 的处理器时，早期引用就是原始对象本身
+            addSingletonFactory(beanName, processors.hasEarlyReferenceBeanPostProcessors()
+                    ? () -> getEarlyBeanReference(beanName, finalBean, processors)
+                    : () -> finalBean);
         }
 
         // -----------------------------
         // postProcessAfterInstantiation，可能阻止属性注入
         // -----------------------------
-        boolean continueWithPropertyPopulation = applyBeanPostProcessorsAfterInstantiation(beanName, bean);
+        // 没有 InstantiationAwareBeanPostProcessor 时，实例化后回调和属性处理阶段整体跳过
+        boolean hasInstantiationAware = processors.hasInstantiationAwareBeanPostProcessors();
+
+        boolean continueWithPropertyPopulation = !hasInstantiationAware || applyBeanPostProcessorsAfterInstantiation(beanName, bean, processors);
         if (!continueWithPropertyPopulation) {
             return bean; // 不再进行属性填充
         }
 
 
-        try {
-            // 在设置 Bean 属性之前，允许 AutowiredAnnotationBeanPostProcessor 修改属性值(@Autowired、@Value)
-            applyBeanPostProcessorsBeforeApplyingPropertyValues(beanName, bean, beanDefinition);
-        } catch (Exception e) {
-            throw new BeansException("Failed to process @Autowired/@Value annotations for bean: " + beanName, e);
+        if (hasInstantiationAware) {
+            try {
+                // 在设置 Bean 属性之前，允许 AutowiredAnnotationBeanPostProcessor 修改属性值(@Autowired、@Value)
+                applyBeanPostProcessorsBeforeApplyingPropertyValues(beanName, bean, beanDefinition, processors);
+            } catch (Exception e) {
+                throw new BeansException("Failed to process @Autowired/@Value annotations for bean: " + beanName, e);
+            }
         }
 
         try {
@@ -76,7 +93,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 
         try {
             // 执行 Bean 的初始化方法和 BeanPostProcessor 的前置和后置处理方法
-            bean = initializeBean(beanName, bean, beanDefinition);
+            bean = initializeBean(beanName, bean, beanDefinition, processors);
         } catch (Exception e) {
             throw new BeansException("Failed to initialize bean: " + beanName, e);
         }
@@ -99,23 +116,19 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
      * 获取Bean的早期引用，用于处理循环依赖
      * 会遍历所有BeanPostProcessor，执行其getEarlyBeanReference方法
      * @param beanName Bean名称
-     * @param beanDefinition Bean的定义信息
      * @param bean 原始Bean实例
+     * @param processors 创建该 Bean 时取得的处理器快照
      * @return 经过处理后的早期暴露引用（可能被增强，如AOP代理）
      */
-    protected Object getEarlyBeanReference(String beanName, BeanDefinition beanDefinition, Object bean) {
+    protected Object getEarlyBeanReference(String beanName, Object bean, BeanPostProcessorCache processors) {
         Object exposedObject = bean;
-        // 遍历所有Bean后置处理器
-        for (BeanPostProcessor bp : getBeanPostProcessors()) {
-            // 只处理InstantiationAwareBeanPostProcessor类型的处理器
-            if (bp instanceof InstantiationAwareBeanPostProcessor) {
-                // 调用处理器的早期引用方法进行处理
-                Object current = ((InstantiationAwareBeanPostProcessor) bp)
-                        .getEarlyBeanReference(exposedObject, beanName);
-                // 如果处理器返回了新的引用，则更新暴露的引用
-                if (current != null) {
-                    exposedObject = current;
-                }
+        // 只遍历重写了 getEarlyBeanReference 的处理器（默认实现原样返回，无需调用）
+        for (InstantiationAwareBeanPostProcessor bp : processors.earlyReference) {
+            // 调用处理器的早期引用方法进行处理
+            Object current = bp.getEarlyBeanReference(exposedObject, beanName);
+            // 如果处理器返回了新的引用，则更新暴露的引用
+            if (current != null) {
+                exposedObject = current;
             }
         }
         // 返回最终处理后的早期引用
@@ -130,7 +143,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
      * 3. 调用 Bean 自定义的初始化方法（如 afterPropertiesSet 或配置的 init-method）。
      * 4. 执行所有 BeanPostProcessor 的 postProcessAfterInitialization 方法。
      */
-    private Object initializeBean(String beanName, Object bean, BeanDefinition beanDefinition) {
+    private Object initializeBean(String beanName, Object bean, BeanDefinition beanDefinition, BeanPostProcessorCache processors) {
 
         // 1. 处理Aware接口回调（注入容器核心资源）
         // 让Bean能够感知到容器相关信息（如Bean名称、BeanFactory等）
@@ -148,7 +161,9 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 
         // 2. 执行初始化前置处理器（BeanPostProcessor）
         // 例如：@PostConstruct注解标注的方法会在此阶段执行
-        Object wrappedBean = applyBeanPostProcessorsBeforeInitialization(bean, beanName);
+        // 没有任何处理器时，初始化前后两个阶段都直接跳过
+        boolean hasBeanPostProcessors = processors.hasBeanPostProcessors();
+        Object wrappedBean = hasBeanPostProcessors ? applyBeanPostProcessorsBeforeInitialization(bean, beanName, processors) : bean;
 
         // 3. 执行Bean自身的初始化方法
         try {
@@ -163,7 +178,9 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
         // 4. 执行初始化后置处理器
         // 无循环依赖时：AOP代理在此阶段通过wrapIfNecessary创建
         // 有循环依赖时：因advisedBeans缓存直接返回原始对象（早期代理已创建）
-        wrappedBean = applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName);
+        if (hasBeanPostProcessors) {
+            wrappedBean = applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName, processors);
+        }
 
         // 5. 循环依赖场景：复用早期代理对象（核心逻辑）
         // 从二级缓存获取早期暴露的代理对象（若存在）
@@ -195,20 +212,27 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
         }
 
         // 2. 配置信息 init-method
-        String initMethodName = beanDefinition.getInitMethodName();
-        if (StrUtil.isNotEmpty(initMethodName)) {
-            Method initMethod = beanDefinition.getBeanClass().getMethod(initMethodName);
-            if (null == initMethod) {
-                throw new BeansException("Could not find an init method named '" + initMethodName + "' on bean with name '" + beanName + "'");
+        // 方法句柄在注册 Bean 定义时已解析并缓存，这里直接调用
+        MethodHandle initMethod = beanDefinition.getInitMethodHandle();
+        if (null != initMethod) {
+            try {
+                initMethod.invokeExact(wrappedBean);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new BeansException("Init method '" + beanDefinition.getInitMethodName() + "' of bean with name '" + beanName + "' failed", e);
             }
-            initMethod.invoke(wrappedBean);
         }
     }
 
     @Override
     public Object applyBeanPostProcessorsBeforeInitialization(Object existingBean, String beanName) throws BeansException {
+        return applyBeanPostProcessorsBeforeInitialization(existingBean, beanName, getBeanPostProcessorCache());
+    }
+
+    private Object applyBeanPostProcessorsBeforeInitialization(Object existingBean, String beanName, BeanPostProcessorCache processors) {
         Object result = existingBean;
-        for (BeanPostProcessor processor : getBeanPostProcessors()) {
+        for (BeanPostProcessor processor : processors.all) {
             Object current = processor.postProcessBeforeInitialization(result, beanName);
             if (null == current) return result;
             result = current;
@@ -223,22 +247,16 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
      * @param bean     当前 Bean 实例
      * @return 如果返回 true，则继续填充属性；返回 false，则跳过属性填充
      */
-    private boolean applyBeanPostProcessorsAfterInstantiation(String beanName, Object bean) {
+    private boolean applyBeanPostProcessorsAfterInstantiation(String beanName, Object bean, BeanPostProcessorCache processors) {
         // 默认继续执行属性填充
         boolean continueWithPropertyPopulation = true;
 
-        // 遍历所有注册的 BeanPostProcessor
-        for (BeanPostProcessor beanPostProcessor : getBeanPostProcessors()) {
-            // 只处理实现了 InstantiationAwareBeanPostProcessor 的处理器
-            if (beanPostProcessor instanceof InstantiationAwareBeanPostProcessor) {
-                InstantiationAwareBeanPostProcessor instantiationAwareBeanPostProcessor =
-                        (InstantiationAwareBeanPostProcessor) beanPostProcessor;
-
-                // 调用 postProcessAfterInstantiation 方法，如果返回 false，就不填充属性
-                if (!instantiationAwareBeanPostProcessor.postProcessAfterInstantiation(bean, beanName)) {
-                    continueWithPropertyPopulation = false;
-                    break; // 一旦有处理器返回 false，立即停止遍历
-                }
+        // 只遍历实现了 InstantiationAwareBeanPostProcessor 的处理器
+        for (InstantiationAwareBeanPostProcessor instantiationAwareBeanPostProcessor : processors.instantiationAware) {
+            // 调用 postProcessAfterInstantiation 方法，如果返回 false，就不填充属性
+            if (!instantiationAwareBeanPostProcessor.postProcessAfterInstantiation(bean, beanName)) {
+                continueWithPropertyPopulation = false;
+                break; // 一旦有处理器返回 false，立即停止遍历
             }
         }
 
@@ -253,8 +271,12 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
      */
     @Override
     public Object applyBeanPostProcessorsAfterInitialization(Object existingBean, String beanName) throws BeansException {
+        return applyBeanPostProcessorsAfterInitialization(existingBean, beanName, getBeanPostProcessorCache());
+    }
+
+    private Object applyBeanPostProcessorsAfterInitialization(Object existingBean, String beanName, BeanPostProcessorCache processors) {
         Object result = existingBean;
-        for (BeanPostProcessor processor : getBeanPostProcessors()) {
+        for (BeanPostProcessor processor : processors.all) {
             Object current = processor.postProcessAfterInitialization(result, beanName);
             if (null == current) return result;
             result = current;
@@ -263,25 +285,61 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
     }
 
 
-    /*
-     * 执行所有注册的 BeanPostProcessor 的 postProcessAfterInitialization 方法
-     * 用于在 Bean 初始化方法执行后，做一些扩展操作（比如 AOP 动态代理等）
+    /**
+     * 创建 Bean 实例：根据 args 选择构造函数，再交给实例化策略创建对象。
+     * 解析出的构造函数按实参类型签名缓存在 BeanDefinition 上，同一签名只解析一次；
+     * args 为 null 时使用无参构造函数，args 不为 null 但没有匹配的构造函数时抛出 BeansException。
      */
     protected Object createBeanInstance(BeanDefinition beanDefinition, String beanName, Object[] args) {
         Constructor constructorToUse = null;
-        Class beanClass = beanDefinition.getBeanClass();
-        //通过 beanClass.getDeclaredConstructors() 方式可以获取到你所有的构造函数，是一个集合
-        Constructor[] declaredConstructors = beanClass.getDeclaredConstructors();
-
-        //循环比对匹配构造函数与args，此处简化为数量对比，实际还需比对入参类型
-        for (Constructor ctor : declaredConstructors) {
-            if (null != args && ctor.getParameterTypes().length == args.length) {
-                constructorToUse = ctor;
-                break;
+        if (null != args) {
+            List<Class<?>> argumentTypes = new ArrayList<>(args.length);
+            for (Object arg : args) {
+                argumentTypes.add(null != arg ? arg.getClass() : null);
+            }
+            constructorToUse = beanDefinition.getResolvedConstructor(argumentTypes);
+            if (null == constructorToUse) {
+                constructorToUse = resolveConstructor(beanDefinition, argumentTypes);
+                // 显式传入了参数却没有匹配的构造函数时直接失败，不能退回无参构造函数而丢弃参数
+                if (null == constructorToUse) {
+                    throw new BeansException("No matching constructor for args " + argumentTypes
+                            + " on bean '" + beanName + "' of " + beanDefinition.getBeanClass());
+                }
+                beanDefinition.setResolvedConstructor(argumentTypes, constructorToUse);
             }
         }
 
-        return getInstantiationStrategy().instantiate(beanDefinition, beanName, constructorToUse, args);
+        return getInstantiationStrategy().instantiate(beanDefinition, beanName, this, constructorToUse, args);
+    }
+
+    /**
+     * 按参数数量和参数类型匹配构造函数；有多个候选时选择参数类型最具体的一个。
+     * null 实参可以匹配任意非基本类型的参数，基本类型参数可以接收对应的包装类型实参。
+     */
+    private Constructor<?> resolveConstructor(BeanDefinition beanDefinition, List<Class<?>> argumentTypes) {
+        Constructor<?> bestMatch = null;
+        for (Constructor<?> ctor : beanDefinition.getDeclaredConstructors()) {
+            Class<?>[] parameterTypes = ctor.getParameterTypes();
+            if (parameterTypes.length != argumentTypes.size() || !isAssignable(parameterTypes, argumentTypes)) {
+                continue;
+            }
+            if (null == bestMatch || isAssignable(bestMatch.getParameterTypes(), Arrays.asList(parameterTypes))) {
+                bestMatch = ctor;
+            }
+        }
+        return bestMatch;
+    }
+
+    private boolean isAssignable(Class<?>[] parameterTypes, List<Class<?>> argumentTypes) {
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Class<?> argumentType = argumentTypes.get(i);
+            if (null == argumentType) {
+                if (parameterTypes[i].isPrimitive()) return false;
+            } else if (!ClassUtil.isAssignable(parameterTypes[i], argumentType)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private void applyPropertyValues(Object bean, String beanName, BeanDefinition beanDefinition) {
@@ -302,8 +360,8 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
                     value = getBean(beanReference.getBeanName());
                 }
 
-                // 属性填充(BeanUtil是hutool的)
-                BeanUtil.setFieldValue(bean, name, value);
+                // 属性填充：使用按 (类, 属性) 缓存的预编译注入器
+                PropertyInjector.forProperty(bean.getClass(), name).inject(bean, value);
             }
         } catch (Exception e) {
             throw new BeansException("Error setting property values：" + beanName,e);
@@ -340,14 +398,18 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
      * 返回代理对象，若有则跳过默认实例化。
      * 返回非空对象时，还会执行后置初始化处理。
      */
-    protected Object resolveBeforeInstantiation(String beanName, BeanDefinition beanDefinition) {
+    protected Object resolveBeforeInstantiation(String beanName, BeanDefinition beanDefinition, BeanPostProcessorCache processors) {
+        // 没有 InstantiationAwareBeanPostProcessor 时整个阶段可以直接跳过
+        if (!processors.hasInstantiationAwareBeanPostProcessors()) {
+            return null;
+        }
         // 调用所有 InstantiationAwareBeanPostProcessor，尝试返回代理或替代对象
-        Object bean = applyBeanPostProcessorBeforeInstantiation(beanDefinition.getBeanClass(), beanName);
+        Object bean = applyBeanPostProcessorBeforeInstantiation(beanDefinition.getBeanClass(), beanName, processors);
 
         if (bean != null) {
             // 如果前置处理返回了代理对象，继续调用所有 BeanPostProcessor 的
             // postProcessAfterInitialization，保证代理对象完成生命周期的后置处理
-            bean = applyBeanPostProcessorsAfterInitialization(bean, beanName);
+            bean = applyBeanPostProcessorsAfterInitialization(bean, beanName, processors);
         }
 
         // 返回代理对象（非空）或 null（继续默认实例化）
@@ -359,15 +421,16 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
      * 的 postProcessBeforeInstantiation，返回第一个非空结果。
      */
     public Object applyBeanPostProcessorBeforeInstantiation(Class<?> beanClass, String beanName) throws BeansException {
-        // 遍历所有注册的 BeanPostProcessor
-        for (BeanPostProcessor processor : getBeanPostProcessors()) {
-            // 过滤出实现了 InstantiationAwareBeanPostProcessor 的处理器
-            if (processor instanceof InstantiationAwareBeanPostProcessor) {
-                // 调用 postProcessBeforeInstantiation 方法尝试返回代理对象或替代 Bean
-                Object result = ((InstantiationAwareBeanPostProcessor) processor).postProcessBeforeInstantiation(beanClass, beanName);
-                // 如果返回非空对象，表示已创建代理或替代对象，直接返回，跳过默认实例化
-                if (result != null) return result;
-            }
+        return applyBeanPostProcessorBeforeInstantiation(beanClass, beanName, getBeanPostProcessorCache());
+    }
+
+    private Object applyBeanPostProcessorBeforeInstantiation(Class<?> beanClass, String beanName, BeanPostProcessorCache processors) {
+        // 只遍历实现了 InstantiationAwareBeanPostProcessor 的处理器
+        for (InstantiationAwareBeanPostProcessor processor : processors.instantiationAware) {
+            // 调用 postProcessBeforeInstantiation 方法尝试返回代理对象或替代 Bean
+            Object result = processor.postProcessBeforeInstantiation(beanClass, beanName);
+            // 如果返回非空对象，表示已创建代理或替代对象，直接返回，跳过默认实例化
+            if (result != null) return result;
         }
         // 如果所有处理器都未返回代理，返回 null，继续默认实例化流程
         return null;
@@ -382,23 +445,20 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
      * @param beanName        当前 Bean 的名称
      * @param bean            已经实例化好的 Bean 对象（构造方法已调用，但属性还未注入）
      * @param beanDefinition  Bean 对应的定义信息（包含属性、构造参数等）
+     * @param processors      创建该 Bean 时取得的处理器快照
      */
-    protected void applyBeanPostProcessorsBeforeApplyingPropertyValues(String beanName, Object bean, BeanDefinition beanDefinition) {
-
-        // 遍历当前容器中注册的所有 BeanPostProcessor
-        for (BeanPostProcessor beanPostProcessor : getBeanPostProcessors()) {
-            // 只有 InstantiationAwareBeanPostProcessor 才能在属性设置前做处理
-            if (beanPostProcessor instanceof InstantiationAwareBeanPostProcessor) {
-                // 调用其 postProcessPropertyValues 方法，让它有机会修改 Bean 的属性值
-                // 例如 AutowiredAnnotationBeanPostProcessor 会在这里解析 @Autowired 并生成对应的依赖注入 PropertyValue
-                PropertyValues pvs = ((InstantiationAwareBeanPostProcessor) beanPostProcessor)
-                        .postProcessPropertyValues(beanDefinition.getPropertyValues(), bean, beanName);
-
-                // 如果处理器返回了新的属性值集合，则合并到 BeanDefinition 的属性列表中
-                if (null != pvs) {
-                    for (PropertyValue propertyValue : pvs.getPropertyValues()) {
-                        beanDefinition.getPropertyValues().addPropertyValue(propertyValue);
-                    }
+    protected void applyBeanPostProcessorsBeforeApplyingPropertyValues(String beanName, Object bean, BeanDefinition beanDefinition, BeanPostProcessorCache processors) {
+
+        // 只有 InstantiationAwareBeanPostProcessor 才能在属性设置前做处理
+        for (InstantiationAwareBeanPostProcessor beanPostProcessor : processors.instantiationAware) {
+            // 调用其 postProcessPropertyValues 方法，让它有机会修改 Bean 的属性值
+            // 例如 AutowiredAnnotationBeanPostProcessor 会在这里解析 @Autowired 并生成对应的依赖注入 PropertyValue
+            PropertyValues pvs = beanPostProcessor.postProcessPropertyValues(beanDefinition.getPropertyValues(), bean, beanName);
+
+            // 如果处理器返回了新的属性值集合，则合并到 BeanDefinition 的属性列表中
+            if (null != pvs && pvs != beanDefinition.getPropertyValues()) {
+                for (PropertyValue propertyValue : pvs.getPropertyValues()) {
+                    beanDefinition.getPropertyValues().addPropertyValue(propertyValue);
                 }
             }
         }
@@ -5,10 +5,13 @@ import com.miniSpring.beans.factory.FactoryBean;
 import com.miniSpring.beans.factory.config.BeanDefinition;
 import com.miniSpring.beans.factory.config.BeanPostProcessor;
 import com.miniSpring.beans.factory.config.ConfigurableBeanFactory;
+import com.miniSpring.beans.factory.config.InstantiationAwareBeanPostProcessor;
 import com.miniSpring.util.ClassUtils;
 import com.miniSpring.util.StringValueResolver;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -17,6 +20,12 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
     // 存储所有注册的 BeanPostProcessor，用于在 Bean 初始化前后进行扩展处理
     private final List<BeanPostProcessor> beanPostProcessors = new ArrayList<>();
 
+    /**
+     * 按能力分类的 BeanPostProcessor 快照，只在 addBeanPostProcessor 时重建。
+     * Bean 创建过程中直接遍历不可变数组，不再对每个处理器做 instanceof 判断。
+     */
+    private volatile BeanPostProcessorCache beanPostProcessorCache = new BeanPostProcessorCache(new BeanPostProcessor[0]);
+
     /*
     embeddedValueResolvers 集合存储 StringValueResolver 实例，
     用于解析占位符字符串（如 ${token}）以注入配置值或动态值到Bean的属性或注解中。
@@ -35,10 +44,14 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
      */
     @Override
     public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
-        // 避免重复注册同一个处理器
-        this.beanPostProcessors.remove(beanPostProcessor);
-        // 添加到列表末尾，确保调用顺序
-        this.beanPostProcessors.add(beanPostProcessor);
+        synchronized (this.beanPostProcessors) {
+            // 避免重复注册同一个处理器
+            this.beanPostProcessors.remove(beanPostProcessor);
+            // 添加到列表末尾，确保调用顺序
+            this.beanPostProcessors.add(beanPostProcessor);
+            // 重新分类，发布新的快照
+            this.beanPostProcessorCache = new BeanPostProcessorCache(this.beanPostProcessors.toArray(new BeanPostProcessor[0]));
+        }
     }
 
     @Override
@@ -56,10 +69,17 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
     }
 
     /**
-     *返回将在该工厂创建的 Bean 上应用的 BeanPostProcessor 列表。
+     *返回将在该工厂创建的 Bean 上应用的 BeanPostProcessor 列表（只读快照）。
      */
     public List<BeanPostProcessor> getBeanPostProcessors() {
-        return this.beanPostProcessors;
+        return Collections.unmodifiableList(Arrays.asList(this.beanPostProcessorCache.all));
+    }
+
+    /**
+     * 获取当前按能力分类的 BeanPostProcessor 快照
+     */
+    protected BeanPostProcessorCache getBeanPostProcessorCache() {
+        return this.beanPostProcessorCache;
     }
 
     @Override
@@ -85,7 +105,13 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
         }
 
         BeanDefinition beanDefinition = getBeanDefinition(name);
-        Object bean = createBean(name, beanDefinition, args);
+        Object bean;
+        if (beanDefinition.isSingleton()) {
+            // 单例在该 Bean 的创建锁保护下创建，保证并发 getBean 只会创建一次
+            bean = getSingleton(name, () -> createBean(name, beanDefinition, args));
+        } else {
+            bean = createBean(name, beanDefinition, args);
+        }
         return (T) getObjectForBeanInstance(bean, name);
     }
 
@@ -115,5 +141,61 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
     public ClassLoader getBeanClassLoader() {
         return this.beanClassLoader;
     }
-}
 
+    /**
+     * BeanPostProcessor 的分类快照。
+     *
+     * - all：全部处理器，用于初始化前后回调
+     * - instantiationAware：InstantiationAwareBeanPostProcessor，用于实例化前后和属性处理回调
+     * - earlyReference：重写了 getEarlyBeanReference 的处理器，只有它们需要参与早期引用的生成
+     */
+    protected static final class BeanPostProcessorCache {
+
+        final BeanPostProcessor[] all;
+
+        final InstantiationAwareBeanPostProcessor[] instantiationAware;
+
+        final InstantiationAwareBeanPostProcessor[] earlyReference;
+
+        BeanPostProcessorCache(BeanPostProcessor[] all) {
+            List<InstantiationAwareBeanPostProcessor> instantiationAware = new ArrayList<>();
+            List<InstantiationAwareBeanPostProcessor> earlyReference = new ArrayList<>();
+            for (BeanPostProcessor processor : all) {
+                if (processor instanceof InstantiationAwareBeanPostProcessor) {
+                    InstantiationAwareBeanPostProcessor iabpp = (InstantiationAwareBeanPostProcessor) processor;
+                    instantiationAware.add(iabpp);
+                    if (overridesEarlyBeanReference(iabpp.getClass())) {
+                        earlyReference.add(iabpp);
+                    }
+                }
+            }
+            this.all = all;
+            this.instantiationAware = instantiationAware.toArray(new InstantiationAwareBeanPostProcessor[0]);
+            this.earlyReference = earlyReference.toArray(new InstantiationAwareBeanPostProcessor[0]);
+        }
+
+        boolean hasBeanPostProcessors() {
+            return all.length > 0;
+        }
+
+        boolean hasInstantiationAwareBeanPostProcessors() {
+            return instantiationAware.length > 0;
+        }
+
+        boolean hasEarlyReferenceBeanPostProcessors() {
+            return earlyReference.length > 0;
+        }
+
+        /**
+         * getEarlyBeanReference 是接口的默认方法（原样返回 bean），没有重写的处理器可以跳过
+         */
+        private static boolean overridesEarlyBeanReference(Class<?> processorClass) {
+            try {
+                return processorClass.getMethod("getEarlyBeanReference", Object.class, String.class)
+                        .getDeclaringClass() != InstantiationAwareBeanPostProcessor.class;
+            } catch (NoSuchMethodException e) {
+                return true;
+            }
+        }
+    }
+}
@@ -1,37 +1,199 @@
 package com.miniSpring.beans.factory.support;
 
 import com.miniSpring.beans.BeansException;
+import com.miniSpring.beans.factory.BeanFactory;
 import com.miniSpring.beans.factory.config.BeanDefinition;
+import net.sf.cglib.proxy.Callback;
+import net.sf.cglib.proxy.CallbackFilter;
 import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.MethodInterceptor;
+import net.sf.cglib.proxy.MethodProxy;
 import net.sf.cglib.proxy.NoOp;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 自适应的实例化策略。
+ *
+ * 默认直接调用构造函数（继承自 SimpleInstantiationStrategy），
+ * 只有声明了查找方法（lookup-method）的 Bean 才用 CGLIB 生成子类，在子类中把查找方法重写为 getBean。
+ * 生成的子类按 (Bean 类, 查找方法名集合) 缓存，缓存中只有类本身及其构造函数句柄，不持有任何 Bean 实例；
+ * 每次实例化时通过 Enhancer.registerCallbacks 为新实例绑定回调，再通过缓存的 MethodHandle 调用子类的构造函数。
+ */
+public class CglibSubclassingInstantiationStrategy extends SimpleInstantiationStrategy {
+
+    // 回调下标：普通方法直接调用父类实现，查找方法从容器获取 Bean
+    private static final int PASSTHROUGH = 0;
+
+    private static final int LOOKUP_OVERRIDE = 1;
+
+    private static final Class<?>[] CALLBACK_TYPES = {NoOp.class, LookupOverrideMethodInterceptor.class};
+
+    // 子类缓存：[Bean 类, 查找方法名集合] -> 生成的 CGLIB 子类及其构造函数句柄
+    private final Map<List<Object>, LookupSubclass> subclassCache = new ConcurrentHashMap<>();
 
-public class CglibSubclassingInstantiationStrategy implements InstantiationStrategy {
     @Override
-    public Object instantiate(BeanDefinition beanDefinition, String beanName, Constructor ctor, Object[] args) throws BeansException {
-        //CGLIB 的核心类，用来生成子类对象的工具。
+    public Object instantiate(BeanDefinition beanDefinition, String beanName, BeanFactory owner, Constructor ctor, Object[] args) throws BeansException {
+        if (!beanDefinition.isSubclassRequired()) {
+            return super.instantiate(beanDefinition, beanName, owner, ctor, args);
+        }
+
+        Class<?> beanClass = beanDefinition.getBeanClass();
+        Map<String, String> lookupMethodOverrides = beanDefinition.getLookupMethodOverrides();
+        Set<String> lookupMethodNames = new HashSet<>(lookupMethodOverrides.keySet());
+        LookupSubclass lookupSubclass = subclassCache.computeIfAbsent(Arrays.asList(beanClass, lookupMethodNames),
+                key -> new LookupSubclass(createSubclass(beanClass, lookupMethodNames)));
+        Class<?> subclass = lookupSubclass.subclass;
+
+        Callback[] callbacks = {NoOp.INSTANCE, new LookupOverrideMethodInterceptor(lookupMethodOverrides, owner)};
+        // 回调以线程绑定的方式注册，构造函数中调用的方法同样会被正确路由
+        Enhancer.registerCallbacks(subclass, callbacks);
+        try {
+            if (null != ctor) {
+                return lookupSubclass.constructorHandle(ctor).invokeExact(args);
+            }
+            return lookupSubclass.defaultConstructorHandle().invokeExact();
+        } catch (BeansException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new BeansException("Failed to instantiate [" + beanClass.getName() + "]", e);
+        } finally {
+            Enhancer.registerCallbacks(subclass, null);
+        }
+    }
+
+    private static Class<?> createSubclass(Class<?> beanClass, Set<String> lookupMethodNames) {
+        for (String methodName : lookupMethodNames) {
+            if (!hasOverridableMethod(beanClass, methodName)) {
+                throw new BeansException("Lookup method '" + methodName + "' not found or not overridable on [" + beanClass.getName() + "]");
+            }
+        }
+        //CGLIB 的核心类，用来生成子类的工具，CGLIB 是通过继承（子类）的方式重写方法的
         Enhancer enhancer = new Enhancer();
+        enhancer.setSuperclass(beanClass);
+        enhancer.setCallbackFilter(new LookupOverrideCallbackFilter(lookupMethodNames));
+        enhancer.setCallbackTypes(CALLBACK_TYPES);
+        return enhancer.createClass();
+    }
+
+    /**
+     * 类层次中存在名为 methodName、可以被子类重写（非 private、非 final、非 static）的方法
+     */
+    private static boolean hasOverridableMethod(Class<?> beanClass, String methodName) {
+        for (Method method : beanClass.getMethods()) {
+            if (method.getName().equals(methodName) && isOverridable(method)) return true;
+        }
+        for (Class<?> clazz = beanClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (method.getName().equals(methodName) && isOverridable(method)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isOverridable(Method method) {
+        int modifiers = method.getModifiers();
+        return !Modifier.isPrivate(modifiers) && !Modifier.isFinal(modifiers) && !Modifier.isStatic(modifiers);
+    }
+
+    /**
+     * 生成的子类及其构造函数句柄，句柄在第一次使用时创建
+     */
+    private static final class LookupSubclass {
 
-        //设置“目标类”为被代理的父类（也就是你的 Bean 原始类）,CGLIB 是通过 继承（子类）方式代理的
-        enhancer.setSuperclass(beanDefinition.getBeanClass());
+        private final Class<?> subclass;
 
-        //设置回调对象（Callback），即当代理类的方法被调用时，如何进行“拦截”处理。
-        enhancer.setCallback(new NoOp() {
-            //NoOp 是 CGLIB 内置的一个回调实现，表示“不做任何增强”。这里只是在演示。可替换为动态代理、懒加载等...
-            @Override
-            public int hashCode() {
-                return super.hashCode();
+        // 无参构造函数句柄 ()Object
+        private volatile MethodHandle defaultConstructorHandle;
+
+        // Bean 类的构造函数 -> 子类中对应构造函数的句柄 (Object[])Object
+        private final Map<Constructor<?>, MethodHandle> constructorHandles = new ConcurrentHashMap<>();
+
+        LookupSubclass(Class<?> subclass) {
+            this.subclass = subclass;
+        }
+
+        MethodHandle defaultConstructorHandle() {
+            MethodHandle handle = defaultConstructorHandle;
+            if (null == handle) {
+                handle = unreflectConstructor(getDefaultConstructor(subclass)).asType(MethodType.methodType(Object.class));
+                defaultConstructorHandle = handle;
             }
-        });
-
-        /*
-        判断是否有构造器：
-            如果没有，调用默认构造方法 enhancer.create()
-            如果有参数构造方法，则通过 enhancer.create(ctor.getParameterTypes(), args) 创建对象
-         */
-        if (null == ctor) return enhancer.create();
-        return enhancer.create(ctor.getParameterTypes(), args);
+            return handle;
+        }
+
+        MethodHandle constructorHandle(Constructor<?> ctor) {
+            return constructorHandles.computeIfAbsent(ctor, key -> {
+                Constructor<?> subclassCtor;
+                try {
+                    subclassCtor = subclass.getDeclaredConstructor(key.getParameterTypes());
+                } catch (NoSuchMethodException e) {
+                    throw new BeansException("No matching constructor found on [" + subclass.getName() + "]", e);
+                }
+                return unreflectConstructor(subclassCtor)
+                        .asSpreader(Object[].class, key.getParameterCount())
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+            });
+        }
     }
-}
 
+    /**
+     * 按方法名把查找方法路由到 LookupOverrideMethodInterceptor，其余方法直接调用父类实现。
+     * CGLIB 按过滤器的 equals 复用生成的类，因此以方法名集合作为相等性依据。
+     */
+    private static final class LookupOverrideCallbackFilter implements CallbackFilter {
+
+        private final Set<String> lookupMethodNames;
+
+        LookupOverrideCallbackFilter(Set<String> lookupMethodNames) {
+            this.lookupMethodNames = lookupMethodNames;
+        }
+
+        @Override
+        public int accept(Method method) {
+            return lookupMethodNames.contains(method.getName()) ? LOOKUP_OVERRIDE : PASSTHROUGH;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof LookupOverrideCallbackFilter
+                    && lookupMethodNames.equals(((LookupOverrideCallbackFilter) other).lookupMethodNames);
+        }
+
+        @Override
+        public int hashCode() {
+            return lookupMethodNames.hashCode();
+        }
+    }
+
+    /**
+     * 查找方法的实现：每次调用都从容器获取对应的 Bean，有实参时作为构造参数传给 getBean
+     */
+    private static final class LookupOverrideMethodInterceptor implements MethodInterceptor {
+
+        private final Map<String, String> lookupMethodOverrides;
+
+        private final BeanFactory owner;
+
+        LookupOverrideMethodInterceptor(Map<String, String> lookupMethodOverrides, BeanFactory owner) {
+            this.lookupMethodOverrides = lookupMethodOverrides;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object intercept(Object obj, Method method, Object[] args, MethodProxy methodProxy) {
+            String beanName = lookupMethodOverrides.get(method.getName());
+            return 0 == args.length ? owner.getBean(beanName) : owner.getBean(beanName, args);
+        }
+    }
+}
@@ -1,19 +1,43 @@
 package com.miniSpring.beans.factory.support;
 
 import com.miniSpring.beans.BeansException;
+import com.miniSpring.beans.PropertyValue;
 import com.miniSpring.beans.factory.ConfigurableListableBeanFactory;
+import com.miniSpring.beans.factory.annotation.Autowired;
+import com.miniSpring.beans.factory.annotation.Lazy;
+import com.miniSpring.beans.factory.annotation.Qualifier;
 import com.miniSpring.beans.factory.config.BeanDefinition;
+import com.miniSpring.beans.factory.config.BeanReference;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFactory implements BeanDefinitionRegistry, ConfigurableListableBeanFactory {
     //bean注册表
     private Map<String, BeanDefinition> beanDefinitionMap =new ConcurrentHashMap<>();
 
+    /**
+     * 类型索引：Bean 类自身及其所有父类、接口 -> 对应的 beanName 集合。
+     * 在 registerBeanDefinition 时维护，按类型查找时无需再遍历全部 BeanDefinition。
+     */
+    private final Map<Class<?>, Set<String>> beanNamesByType = new ConcurrentHashMap<>();
+
+    // 按类型查找结果的缓存，BeanDefinition 发生变化时清空
+    private final Map<Class<?>, String[]> resolvedBeanNamesByType = new ConcurrentHashMap<>();
+
+    // 类型索引的版本号，每注册一个 BeanDefinition 递增一次
+    private volatile long typeIndexVersion;
+
+    // 默认懒加载开关，作用于没有显式声明懒加载配置的 Bean
+    private boolean defaultLazyInit = false;
+
+    // 预实例化单例时的并行度，小于等于 1 时按注册顺序串行创建
+    private int preInstantiationParallelism = 1;
+
     @Override
     public BeanDefinition getBeanDefinition(String beanName) {
         BeanDefinition beanDefinition = beanDefinitionMap.get(beanName);
@@ -25,17 +49,245 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 
     @Override
     public void preInstantiateSingletons() throws BeansException {
+        if (preInstantiationParallelism > 1) {
+            preInstantiateSingletonsInParallel();
+            return;
+        }
         for (String beanName : beanDefinitionMap.keySet()) {
-            getBean(beanName);
+            if (isEagerSingleton(beanName)) {
+                getBean(beanName);
+            }
+        }
+    }
+
+    /**
+     * 是否需要在容器刷新时预先创建：非懒加载的单例。
+     * 原型 Bean 每次 getBean 都会新建，预先创建没有意义。
+     */
+    private boolean isEagerSingleton(String beanName) {
+        BeanDefinition beanDefinition = beanDefinitionMap.get(beanName);
+        if (!beanDefinition.isSingleton()) {
+            return false;
+        }
+        Boolean lazyInit = beanDefinition.getLazyInit();
+        return !(null != lazyInit ? lazyInit : defaultLazyInit);
+    }
+
+    @Override
+    public void setDefaultLazyInit(boolean defaultLazyInit) {
+        this.defaultLazyInit = defaultLazyInit;
+    }
+
+    public boolean isDefaultLazyInit() {
+        return defaultLazyInit;
+    }
+
+    @Override
+    public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+        this.preInstantiationParallelism = preInstantiationParallelism;
+    }
+
+    public int getPreInstantiationParallelism() {
+        return preInstantiationParallelism;
+    }
+
+    /**
+     * 按依赖图并行预实例化 Bean。
+     *
+     * 1. 根据 PropertyValues 中的 BeanReference 和 @Autowired 字段构建依赖图；
+     * 2. 用 Tarjan 算法把循环依赖的 Bean 收缩为一个强连通分量，分量内部仍在同一线程中
+     *    依次 getBean，由三级缓存的早期引用解决循环依赖；
+     * 3. 每个分量在其依赖的分量全部创建完成后，提交到并行度受限的 ForkJoinPool 中执行，
+     *    互不依赖的子图因此可以同时创建，启动耗时由 “所有 init 耗时之和” 变为 “关键路径耗时”。
+     */
+    private void preInstantiateSingletonsInParallel() {
+        Map<String, Set<String>> dependencyGraph = buildDependencyGraph();
+        // Tarjan 输出的分量顺序保证依赖总是先于依赖者出现
+        List<List<String>> components = findStronglyConnectedComponents(dependencyGraph);
+
+        Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(preInstantiationParallelism);
+        try {
+            for (List<String> component : components) {
+                List<CompletableFuture<Void>> dependencyFutures = new ArrayList<>();
+                for (String beanName : component) {
+                    for (String dependency : dependencyGraph.get(beanName)) {
+                        CompletableFuture<Void> dependencyFuture = futures.get(dependency);
+                        // 同一分量内的依赖尚未登记，无需等待
+                        if (null != dependencyFuture) {
+                            dependencyFutures.add(dependencyFuture);
+                        }
+                    }
+                }
+                CompletableFuture<Void> future = CompletableFuture
+                        .allOf(dependencyFutures.toArray(new CompletableFuture<?>[0]))
+                        .thenRunAsync(() -> component.forEach(this::getBean), pool);
+                for (String beanName : component) {
+                    futures.put(beanName, future);
+                }
+            }
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BeansException) {
+                throw (BeansException) cause;
+            }
+            throw new BeansException("Failed to pre-instantiate singletons in parallel", cause);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 构建依赖图：beanName -> 它直接依赖的 beanName 集合。
+     * 只包含需要预先创建的单例，按类型注入时匹配到的所有候选都视为依赖；
+     * 懒加载的依赖和 @Lazy 注入点不参与调度，它们会在被用到时再创建。
+     */
+    private Map<String, Set<String>> buildDependencyGraph() {
+        Map<String, Set<String>> dependencyGraph = new LinkedHashMap<>();
+        Set<String> eagerSingletons = new HashSet<>();
+        for (String beanName : beanDefinitionMap.keySet()) {
+            if (isEagerSingleton(beanName)) {
+                eagerSingletons.add(beanName);
+            }
+        }
+        for (Map.Entry<String, BeanDefinition> entry : beanDefinitionMap.entrySet()) {
+            if (!eagerSingletons.contains(entry.getKey())) continue;
+            Set<String> dependencies = new LinkedHashSet<>();
+            BeanDefinition beanDefinition = entry.getValue();
+
+            // 1. XML 中 <property ref="..."/> 声明的依赖
+            for (PropertyValue propertyValue : beanDefinition.getPropertyValues().getPropertyValues()) {
+                if (propertyValue.getValue() instanceof BeanReference) {
+                    dependencies.add(((BeanReference) propertyValue.getValue()).getBeanName());
+                }
+            }
+
+            // 2. @Autowired 字段声明的依赖（包含父类字段）
+            for (Class<?> clazz = beanDefinition.getBeanClass(); clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (null == field.getAnnotation(Autowired.class)) continue;
+                    Lazy lazy = field.getAnnotation(Lazy.class);
+                    if (null != lazy && lazy.value()) continue;
+                    Qualifier qualifier = field.getAnnotation(Qualifier.class);
+                    if (null != qualifier) {
+                        dependencies.add(qualifier.value());
+                    } else {
+                        dependencies.addAll(Arrays.asList(doGetBeanNamesForType(field.getType())));
+                    }
+                }
+            }
+
+            dependencies.retainAll(eagerSingletons);
+            dependencies.remove(entry.getKey());
+            dependencyGraph.put(entry.getKey(), dependencies);
+        }
+        return dependencyGraph;
+    }
+
+    /**
+     * Tarjan 强连通分量算法（迭代实现，避免依赖链过深时栈溢出）。
+     * 返回的分量按 “被依赖者在前” 的拓扑顺序排列。
+     */
+    private List<List<String>> findStronglyConnectedComponents(Map<String, Set<String>> dependencyGraph) {
+        List<List<String>> components = new ArrayList<>();
+        Map<String, Integer> index = new HashMap<>();
+        Map<String, Integer> lowLink = new HashMap<>();
+        Set<String> onStack = new HashSet<>();
+        Deque<String> stack = new ArrayDeque<>();
+        int counter = 0;
+
+        for (String root : dependencyGraph.keySet()) {
+            if (index.containsKey(root)) continue;
+
+            Deque<Map.Entry<String, Iterator<String>>> callStack = new ArrayDeque<>();
+            index.put(root, counter);
+            lowLink.put(root, counter++);
+            stack.push(root);
+            onStack.add(root);
+            callStack.push(new AbstractMap.SimpleEntry<>(root, dependencyGraph.get(root).iterator()));
+
+            while (!callStack.isEmpty()) {
+                String node = callStack.peek().getKey();
+                Iterator<String> dependencies = callStack.peek().getValue();
+                if (dependencies.hasNext()) {
+                    String dependency = dependencies.next();
+                    if (!index.containsKey(dependency)) {
+                        index.put(dependency, counter);
+                        lowLink.put(dependency, counter++);
+                        stack.push(dependency);
+                        onStack.add(dependency);
+                        callStack.push(new AbstractMap.SimpleEntry<>(dependency, dependencyGraph.get(dependency).iterator()));
+                    } else if (onStack.contains(dependency)) {
+                        lowLink.put(node, Math.min(lowLink.get(node), index.get(dependency)));
+                    }
+                    continue;
+                }
+
+                callStack.pop();
+                if (!callStack.isEmpty()) {
+                    String parent = callStack.peek().getKey();
+                    lowLink.put(parent, Math.min(lowLink.get(parent), lowLink.get(node)));
+                }
+                if (lowLink.get(node).equals(index.get(node))) {
+                    List<String> component = new ArrayList<>();
+                    String member;
+                    do {
+                        member = stack.pop();
+                        onStack.remove(member);
+                        component.add(member);
+                    } while (!member.equals(node));
+                    components.add(component);
+                }
+            }
         }
+        return components;
     }
 
     @Override
-    public void registerBeanDefinition(String beanName, BeanDefinition beanDefinition) {
+    public synchronized void registerBeanDefinition(String beanName, BeanDefinition beanDefinition) {
         if (beanDefinitionMap.containsKey(beanName)){
             throw new BeansException(beanName + "already exists");
         }
+        // 注册时解析并校验生命周期方法，配置错误尽早暴露
+        try {
+            beanDefinition.resolveLifecycleMethods();
+        } catch (BeansException e) {
+            throw new BeansException("Invalid bean definition with name '" + beanName + "'", e);
+        }
         beanDefinitionMap.put(beanName,beanDefinition);
+        indexBeanType(beanName, beanDefinition.getBeanClass());
+        // 定义发生变化，按类型查找的缓存失效
+        resolvedBeanNamesByType.clear();
+        typeIndexVersion++;
+    }
+
+    /**
+     * 类型索引的版本号：版本号不变时，按类型查找的结果也不变。
+     * 调用方可以据此判断基于 getBeanNamesForType 结果建立的缓存是否仍然有效，而不必每次复制结果数组。
+     */
+    public long getTypeIndexVersion() {
+        return typeIndexVersion;
+    }
+
+    /**
+     * 把 beanName 登记到 Bean 类自身、所有父类以及所有（含继承的）接口下。
+     */
+    private void indexBeanType(String beanName, Class<?> beanClass) {
+        Deque<Class<?>> types = new ArrayDeque<>();
+        Set<Class<?>> visited = new HashSet<>();
+        types.push(beanClass);
+        while (!types.isEmpty()) {
+            Class<?> type = types.pop();
+            if (!visited.add(type)) continue;
+            beanNamesByType.computeIfAbsent(type, key -> ConcurrentHashMap.newKeySet()).add(beanName);
+            if (null != type.getSuperclass()) {
+                types.push(type.getSuperclass());
+            }
+            for (Class<?> anInterface : type.getInterfaces()) {
+                types.push(anInterface);
+            }
+        }
     }
 
     @Override
@@ -61,35 +313,52 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
         // 创建用于存储结果的Map
         Map<String, T> result = new HashMap<>();
 
-        // 遍历所有已注册的Bean定义
-        beanDefinitionMap.forEach((beanName, beanDefinition) -> {
-            // 获取当前Bean定义对应的Class对象
-            Class beanClass = beanDefinition.getBeanClass();
-
-            // 判断当前Bean的类型是否与目标类型兼容
-            // isAssignableFrom()方法用于判断当前Class对象所表示的类或接口是否与指定的Class参数表示的类或接口相同，或是否是其超类/超接口
-            // 即：type是否是beanClass的父类/父接口，或者两者是同一个类
-            if (type.isAssignableFrom(beanClass)) {
-                result.put(beanName, (T) getBean(beanName));
-            }
-        });
+        // 通过类型索引找到所有类型兼容的 Bean 名称，再逐个获取实例
+        for (String beanName : doGetBeanNamesForType(type)) {
+            result.put(beanName, (T) getBean(beanName));
+        }
 
         return result;
     }
 
+    /**
+     * 返回所有类型与 type 兼容的 Bean 名称（不会触发 Bean 的创建）。
+     * 结果来自注册时维护的类型索引，并按类型缓存，直到 BeanDefinition 发生变化。
+     */
     @Override
-    public <T> T getBean(Class<T> requiredType) throws BeansException {
-        List<String> beanNames = new ArrayList<>();
-        for (Map.Entry<String, BeanDefinition> entry : beanDefinitionMap.entrySet()) {
-            Class beanClass = entry.getValue().getBeanClass();
-            if (requiredType.isAssignableFrom(beanClass)) {
-                beanNames.add(entry.getKey());
+    public String[] getBeanNamesForType(Class<?> type) {
+        // 缓存的数组在内部共享，对外只返回副本
+        return doGetBeanNamesForType(type).clone();
+    }
+
+    /**
+     * 按类型查找的内部实现，返回共享的缓存数组，调用方不得修改。
+     *
+     * 未命中时在 registerBeanDefinition 的同一把锁下读取索引并写入缓存，
+     * 避免读取索引之后、写入缓存之前有新的定义注册并清空缓存，导致过期结果被永久缓存。
+     */
+    private String[] doGetBeanNamesForType(Class<?> type) {
+        String[] beanNames = resolvedBeanNamesByType.get(type);
+        if (null == beanNames) {
+            synchronized (this) {
+                beanNames = resolvedBeanNamesByType.get(type);
+                if (null == beanNames) {
+                    Set<String> indexed = beanNamesByType.get(type);
+                    beanNames = null != indexed ? indexed.toArray(new String[0]) : new String[0];
+                    resolvedBeanNamesByType.put(type, beanNames);
+                }
             }
         }
-        if (1 == beanNames.size()) {
-            return getBean(beanNames.get(0), requiredType);
+        return beanNames;
+    }
+
+    @Override
+    public <T> T getBean(Class<T> requiredType) throws BeansException {
+        String[] beanNames = doGetBeanNamesForType(requiredType);
+        if (1 == beanNames.length) {
+            return getBean(beanNames[0], requiredType);
         }
 
-        throw new BeansException(requiredType + "expected single bean but found " + beanNames.size() + ": " + beanNames);
+        throw new BeansException(requiredType + "expected single bean but found " + beanNames.length + ": " + Arrays.toString(beanNames));
     }
 }
@@ -5,21 +5,37 @@ import com.miniSpring.beans.factory.DisposableBean;
 import com.miniSpring.beans.factory.ObjectFactory;
 import com.miniSpring.beans.factory.config.SingletonBeanRegistry;
 
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
     // 一级缓存，普通对象
     protected Map<String, Object> singletonObjects = new ConcurrentHashMap<>();
 
     // 二级缓存，提前暴漏对象，没有完全实例化的对象
-    protected final Map<String, Object> earlySingletonObjects = new HashMap<String, Object>();
+    protected final Map<String, Object> earlySingletonObjects = new ConcurrentHashMap<>();
 
     // 三级缓存，存放代理对象
-    protected final Map<String, ObjectFactory<?>> singletonFactories = new HashMap<String, ObjectFactory<?>>();
+    protected final Map<String, ObjectFactory<?>> singletonFactories = new ConcurrentHashMap<>();
+
+    /**
+     * 每个单例 Bean 独立的创建锁，保证同一个 Bean 只被一个线程创建。
+     * 使用 ReentrantLock 而不是 synchronized，避免虚拟线程在等待期间被钉住（pinned）。
+     */
+    private final Map<String, ReentrantLock> singletonCreationLocks = new ConcurrentHashMap<>();
+
+    // 正在创建中的单例：beanName -> 负责创建它的线程
+    private final Map<String, Thread> singletonsCurrentlyInCreation = new ConcurrentHashMap<>();
+
+    // 正在等待某个单例创建锁的线程：线程 -> 它等待的 beanName，用于识别跨线程的循环依赖
+    private final Map<Thread, String> threadsAwaitingSingleton = new ConcurrentHashMap<>();
+
+    /** 等待创建锁时的轮询间隔（毫秒），每轮都会检查一次是否形成了跨线程循环等待 */
+    private static final long CREATION_LOCK_POLL_MILLIS = 10;
 
     //注册了销毁回调的 Bean 对象的容器
     private final Map<String, DisposableBean> disposableBeans = new LinkedHashMap<>();
@@ -39,13 +55,19 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
      * 销毁过程中如果发生异常，会包装成 BeansException 并抛出，确保调用者能感知销毁失败。
      */
     public void destroySingletons() {
-        Set<String> keySet = this.disposableBeans.keySet();
-        Object[] disposableBeanNames = keySet.toArray();
+        Object[] disposableBeanNames;
+        synchronized (this.disposableBeans) {
+            Set<String> keySet = this.disposableBeans.keySet();
+            disposableBeanNames = keySet.toArray();
+        }
 
         //i倒序遍历：逆序销毁时因为被加入容器的顺序就暗含了依赖顺序
         for (int i = disposableBeanNames.length - 1; i >= 0; i--) {
             Object beanName = disposableBeanNames[i];
-            DisposableBean disposableBean = disposableBeans.remove(beanName);
+            DisposableBean disposableBean;
+            synchronized (this.disposableBeans) {
+                disposableBean = disposableBeans.remove(beanName);
+            }
             try {
                 disposableBean.destroy();
             } catch (Exception e) {
@@ -55,36 +77,135 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
     }
 
 
+    /**
+     * 获取单例对象。
+     *
+     * 一级缓存的读取是无锁的，完全初始化的单例直接返回；
+     * 只有当前线程自己正在创建该 Bean（同线程循环依赖）时，才会去读取二、三级缓存中的早期引用，
+     * 避免其他线程拿到一个尚未初始化完成的半成品对象。
+     */
     @Override
     public Object getSingleton(String beanName) {
-        // 1. 优先从一级缓存获取（完全初始化的单例对象）
+        // 1. 优先从一级缓存获取（完全初始化的单例对象），无锁快速路径
         Object singletonObject = singletonObjects.get(beanName);
+        if (null == singletonObject && singletonsCurrentlyInCreation.get(beanName) == Thread.currentThread()) {
+            singletonObject = getEarlySingleton(beanName);
+        }
+        return singletonObject;
+    }
+
+    /**
+     * 从二、三级缓存中获取早期引用。
+     * 三级缓存到二级缓存的转移以对象工厂本身作为锁，保证同一个工厂只会被执行一次。
+     */
+    private Object getEarlySingleton(String beanName) {
+        // 2. 从二级缓存获取（半成品对象/代理对象）
+        Object singletonObject = earlySingletonObjects.get(beanName);
         if (null == singletonObject) {
-            // 2. 一级缓存没有，则从二级缓存获取（半成品对象/代理对象）
-            singletonObject = earlySingletonObjects.get(beanName);
-            if (null == singletonObject) {
-                // 3. 二级缓存也没有，则从三级缓存获取（ObjectFactory 提前暴露的对象工厂）
-                ObjectFactory<?> singletonFactory = singletonFactories.get(beanName);
-                if (singletonFactory != null) {
-                    // 通过工厂创建对象（可能是代理对象）
-                    singletonObject = singletonFactory.getObject();
-                    // 放入二级缓存，并移除三级缓存
-                    earlySingletonObjects.put(beanName, singletonObject);
-                    singletonFactories.remove(beanName);
+            // 3. 二级缓存也没有，则从三级缓存获取（ObjectFactory 提前暴露的对象工厂）
+            ObjectFactory<?> singletonFactory = singletonFactories.get(beanName);
+            if (singletonFactory != null) {
+                synchronized (singletonFactory) {
+                    singletonObject = earlySingletonObjects.get(beanName);
+                    if (null == singletonObject) {
+                        // 通过工厂创建对象（可能是代理对象）
+                        singletonObject = singletonFactory.getObject();
+                        // 先放入二级缓存，再移除三级缓存，保证并发读取时至少能命中其中一级
+                        earlySingletonObjects.put(beanName, singletonObject);
+                        singletonFactories.remove(beanName, singletonFactory);
+                    }
                 }
             }
         }
         return singletonObject;
     }
 
+    /**
+     * 获取单例对象，不存在时在该 Bean 独立的创建锁保护下调用 singletonFactory 创建。
+     *
+     * 并发协议：
+     * 1. 一级缓存命中直接返回，不加锁；
+     * 2. 未命中则获取该 beanName 的创建锁，拿到锁后再次检查一级缓存（双重检查）；
+     * 3. 等待锁期间若发现持锁线程正（间接）等待当前线程创建的 Bean，即形成了跨线程循环依赖，
+     *    则和单线程循环依赖一样，直接使用对方提前暴露的早期引用，打破死锁。
+     */
+    public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
+        Object singletonObject = singletonObjects.get(beanName);
+        if (null != singletonObject) {
+            return singletonObject;
+        }
+
+        ReentrantLock lock = singletonCreationLocks.computeIfAbsent(beanName, name -> new ReentrantLock());
+        Thread currentThread = Thread.currentThread();
+        threadsAwaitingSingleton.put(currentThread, beanName);
+        try {
+            while (!lock.tryLock(CREATION_LOCK_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (isCreationDeadlock(beanName, currentThread)) {
+                    Object earlySingletonReference = getEarlySingleton(beanName);
+                    if (null != earlySingletonReference) {
+                        return earlySingletonReference;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BeansException("Interrupted while waiting for singleton bean '" + beanName + "' to be created", e);
+        } finally {
+            threadsAwaitingSingleton.remove(currentThread);
+        }
+
+        try {
+            // 双重检查：等待期间其他线程可能已经创建完成
+            singletonObject = singletonObjects.get(beanName);
+            if (null != singletonObject) {
+                return singletonObject;
+            }
+            singletonsCurrentlyInCreation.put(beanName, currentThread);
+            try {
+                return singletonFactory.getObject();
+            } finally {
+                singletonsCurrentlyInCreation.remove(beanName);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 沿着 “创建线程 -> 等待的 Bean -> 该 Bean 的创建线程” 的等待链查找，
+     * 若最终回到当前线程，说明当前线程和持锁线程互相等待，形成了循环依赖。
+     */
+    private boolean isCreationDeadlock(String beanName, Thread currentThread) {
+        String waitingBeanName = beanName;
+        // 等待链的长度不会超过正在创建的单例数量，以此为上限防止链条在并发变化时无限循环
+        for (int i = 0, max = singletonsCurrentlyInCreation.size(); i <= max; i++) {
+            Thread creatingThread = singletonsCurrentlyInCreation.get(waitingBeanName);
+            if (null == creatingThread) {
+                return false;
+            }
+            if (creatingThread == currentThread) {
+                return true;
+            }
+            waitingBeanName = threadsAwaitingSingleton.get(creatingThread);
+            if (null == waitingBeanName) {
+                return false;
+            }
+        }
+        return false;
+    }
+
     /**
      * 缓存转移
-     * 注册单例对象到一级缓存，同时清理二、三级缓存
+     * 注册单例对象到一级缓存，同时清理二、三级缓存。
+     *
+     * 注册完成后该 Bean 的创建锁不再需要：之后的调用都会命中一级缓存；
+     * 仍持有旧锁或在移除后新建锁的等待线程，拿到锁后的双重检查同样会命中一级缓存。
      */
     public void registerSingleton(String beanName, Object singletonObject) {
         singletonObjects.put(beanName, singletonObject);
         earlySingletonObjects.remove(beanName);
         singletonFactories.remove(beanName);
+        singletonCreationLocks.remove(beanName);
     }
 
     /**
@@ -105,7 +226,10 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
      * 注册需要销毁的 Bean（容器关闭时调用 destroy）
      */
     public void registerDisposableBean(String beanName, DisposableBean bean) {
-        disposableBeans.put(beanName, bean);
+        // 并行预实例化时会有多个线程同时注册，LinkedHashMap 需要加锁以保留注册顺序
+        synchronized (this.disposableBeans) {
+            disposableBeans.put(beanName, bean);
+        }
     }
 
 }
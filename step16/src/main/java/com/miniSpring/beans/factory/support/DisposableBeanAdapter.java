@@ -1,22 +1,24 @@
 package com.miniSpring.beans.factory.support;
 
-import cn.hutool.core.util.StrUtil;
 import com.miniSpring.beans.BeansException;
 import com.miniSpring.beans.factory.DisposableBean;
 import com.miniSpring.beans.factory.config.BeanDefinition;
 
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
 
 public class DisposableBeanAdapter implements DisposableBean {
 
     private final Object bean;
     private final String beanName;
     private String destroyMethodName;
+    // 注册 Bean 定义时已解析好的 destroy-method 句柄
+    private final MethodHandle destroyMethod;
 
     public DisposableBeanAdapter(Object bean, String beanName, BeanDefinition beanDefinition) {
         this.bean = bean;
         this.beanName = beanName;
         this.destroyMethodName = beanDefinition.getDestroyMethodName();
+        this.destroyMethod = beanDefinition.getDestroyMethodHandle();
     }
 
     @Override
@@ -27,15 +29,16 @@ public class DisposableBeanAdapter implements DisposableBean {
         }
 
         // 2. 配置信息 destroy-method {判断是为了避免同一个销毁方法被调用两次，但是spring允许执行两个不同的销毁动作}
-        if (StrUtil.isNotEmpty(destroyMethodName) && !(bean instanceof DisposableBean && "destroy".equals(this.destroyMethodName))) {
-            Method destroyMethod = bean.getClass().getMethod(destroyMethodName);
-            if (null == destroyMethod) {
-                throw new BeansException("Couldn't find a destroy method named '" + destroyMethodName + "' on bean with name '" + beanName + "'");
+        if (null != destroyMethod && !(bean instanceof DisposableBean && "destroy".equals(this.destroyMethodName))) {
+            try {
+                destroyMethod.invokeExact(bean);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new BeansException("Destroy method '" + destroyMethodName + "' of bean with name '" + beanName + "' failed", e);
             }
-            destroyMethod.invoke(bean);
         }
 
     }
 
 }
-
@@ -1,10 +1,14 @@
 package com.miniSpring.beans.factory.support;
 
 import com.miniSpring.beans.BeansException;
+import com.miniSpring.beans.factory.BeanFactory;
 import com.miniSpring.beans.factory.config.BeanDefinition;
 
 import java.lang.reflect.Constructor;
 
 public interface InstantiationStrategy {
-    Object instantiate(BeanDefinition beanDefinition, String beanName, Constructor ctor, Object[] args) throws BeansException;
+    /**
+     * @param owner 创建该 Bean 的工厂，查找方法注入时从中获取目标 Bean
+     */
+    Object instantiate(BeanDefinition beanDefinition, String beanName, BeanFactory owner, Constructor ctor, Object[] args) throws BeansException;
 }
@@ -1,24 +1,70 @@
 package com.miniSpring.beans.factory.support;
 
 import com.miniSpring.beans.BeansException;
+import com.miniSpring.beans.factory.BeanFactory;
 import com.miniSpring.beans.factory.config.BeanDefinition;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * 直接调用构造函数的实例化策略，不生成任何子类。
+ *
+ * 构造函数在第一次使用时转换为 MethodHandle 并缓存，
+ * 之后的实例化只需要一次 invokeExact，没有反射查找和访问检查的开销。
+ */
 public class SimpleInstantiationStrategy implements InstantiationStrategy {
+
+    // 无参构造函数句柄缓存：Bean 类 -> ()Object
+    private final Map<Class<?>, MethodHandle> defaultConstructorHandles = new ConcurrentHashMap<>();
+
+    // 有参构造函数句柄缓存：构造函数 -> (Object[])Object
+    private final Map<Constructor<?>, MethodHandle> constructorHandles = new ConcurrentHashMap<>();
+
     @Override
-    public Object instantiate(BeanDefinition beanDefinition, String beanName, Constructor ctor, Object[] args) throws BeansException {
-        Class clazz = beanDefinition.getBeanClass();
+    public Object instantiate(BeanDefinition beanDefinition, String beanName, BeanFactory owner, Constructor ctor, Object[] args) throws BeansException {
+        Class<?> clazz = beanDefinition.getBeanClass();
         try {
             if (null != ctor) {
-                return ctor.newInstance(args);
+                MethodHandle handle = constructorHandles.computeIfAbsent(ctor, key -> unreflectConstructor(key)
+                        .asSpreader(Object[].class, key.getParameterCount())
+                        .asType(MethodType.methodType(Object.class, Object[].class)));
+                return handle.invokeExact(args);
             } else {
-                return clazz.getDeclaredConstructor().newInstance();
+                MethodHandle handle = defaultConstructorHandles.computeIfAbsent(clazz, key -> unreflectConstructor(getDefaultConstructor(key))
+                        .asType(MethodType.methodType(Object.class)));
+                return handle.invokeExact();
             }
-        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
+        } catch (BeansException e) {
+            throw e;
+        } catch (Throwable e) {
             throw new BeansException("Failed to instantiate [" + clazz.getName() + "]", e);
         }
     }
-}
 
+    static Constructor<?> getDefaultConstructor(Class<?> clazz) {
+        try {
+            return clazz.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new BeansException("No default constructor found on [" + clazz.getName() + "]", e);
+        }
+    }
+
+    static MethodHandle unreflectConstructor(Constructor<?> ctor) {
+        try {
+            return MethodHandles.lookup().unreflectConstructor(ctor);
+        } catch (IllegalAccessException e) {
+            // 非 public 的构造函数，打开访问权限后再转换
+            try {
+                ctor.setAccessible(true);
+                return MethodHandles.lookup().unreflectConstructor(ctor);
+            } catch (RuntimeException | IllegalAccessException ex) {
+                throw new BeansException("Cannot access constructor " + ctor, ex);
+            }
+        }
+    }
+}
@@ -135,13 +135,14 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
         // ---------------------------
         List<Element> beanList = root.elements("bean");
         for (Element bean : beanList) {
-            // 9. 获取 bean 标签的基本属性：id、name、class、init-method、destroy-method、scope
+            // 9. 获取 bean 标签的基本属性：id、name、class、init-method、destroy-method、scope、lazy-init
             String id = bean.attributeValue("id");
             String name = bean.attributeValue("name");
             String className = bean.attributeValue("class");
             String initMethod = bean.attributeValue("init-method");
             String destroyMethodName = bean.attributeValue("destroy-method");
             String beanScope = bean.attributeValue("scope");
+            String lazyInit = bean.attributeValue("lazy-init");
 
             // 10. 根据 class 属性获取 Class 对象
             Class<?> clazz = Class.forName(className);
@@ -159,6 +160,10 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
             if (StrUtil.isNotEmpty(beanScope)) {
                 beanDefinition.setScope(beanScope);
             }
+            // 如果声明了 lazy-init（true/false），设置到 BeanDefinition，"default" 表示沿用容器默认值
+            if (StrUtil.isNotEmpty(lazyInit) && !"default".equals(lazyInit)) {
+                beanDefinition.setLazyInit(Boolean.parseBoolean(lazyInit));
+            }
 
             // ---------------------------
             // 14. 解析 <property> 子标签
@@ -178,6 +183,16 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
                 beanDefinition.getPropertyValues().addPropertyValue(propertyValue);
             }
 
+            // 解析 <lookup-method> 子标签：name 为被重写的方法，bean 为该方法返回的 Bean
+            for (Element lookupMethod : bean.elements("lookup-method")) {
+                String methodName = lookupMethod.attributeValue("name");
+                String lookupBeanName = lookupMethod.attributeValue("bean");
+                if (StrUtil.isEmpty(methodName) || StrUtil.isEmpty(lookupBeanName)) {
+                    throw new BeansException("<lookup-method> of bean '" + beanName + "' requires both 'name' and 'bean' attributes");
+                }
+                beanDefinition.addLookupMethodOverride(methodName, lookupBeanName);
+            }
+
             // 19. 检查容器中是否已有同名 Bean，防止重复注册
             if (getRegistry().containsBeanDefinition(beanName)) {
                 throw new BeansException("Duplicate beanName[" + beanName + "] is not allowed");
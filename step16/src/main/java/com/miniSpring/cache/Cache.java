@@ -0,0 +1,48 @@
+package com.miniSpring.cache;
+
+/**
+ * 缓存接口，方法缓存通知通过它读写方法的返回值。
+ *
+ * 实现类需要保证线程安全；缓存的值允许为 null，用 ValueWrapper 区分"未命中"和"缓存了 null"。
+ */
+public interface Cache {
+
+    /**
+     * 缓存名称，对应 @Cacheable / @CacheEvict 中声明的名称
+     */
+    String getName();
+
+    /**
+     * 查询缓存
+     * @param key 缓存键
+     * @return 命中时返回值的包装（值本身可能为 null），未命中返回 null
+     */
+    ValueWrapper get(Object key);
+
+    /**
+     * 写入缓存，已存在的键会被覆盖
+     */
+    void put(Object key, Object value);
+
+    /**
+     * 移除指定键
+     */
+    void evict(Object key);
+
+    /**
+     * 清空缓存
+     */
+    void clear();
+
+    /**
+     * 缓存值的包装
+     */
+    interface ValueWrapper {
+
+        /**
+         * 缓存的值，可能为 null
+         */
+        Object get();
+    }
+
+}
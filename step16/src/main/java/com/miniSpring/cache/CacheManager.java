@@ -0,0 +1,22 @@
+package com.miniSpring.cache;
+
+import java.util.Collection;
+
+/**
+ * 缓存管理器，按名称提供 Cache，可替换为不同的缓存实现。
+ */
+public interface CacheManager {
+
+    /**
+     * 按名称获取缓存
+     * @param name 缓存名称
+     * @return 缓存，不存在且无法创建时返回 null
+     */
+    Cache getCache(String name);
+
+    /**
+     * 当前管理的所有缓存名称
+     */
+    Collection<String> getCacheNames();
+
+}
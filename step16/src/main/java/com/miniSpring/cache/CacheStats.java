@@ -0,0 +1,72 @@
+package com.miniSpring.cache;
+
+/**
+ * 缓存统计信息的快照，数值在创建时确定，不随缓存继续变化。
+ */
+public final class CacheStats {
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long evictionCount;
+
+    private final long expirationCount;
+
+    public CacheStats(long hitCount, long missCount, long evictionCount, long expirationCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.expirationCount = expirationCount;
+    }
+
+    /**
+     * 命中次数
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * 未命中次数（包括已过期的条目）
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * 因容量限制被淘汰的条目数量
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 因写入后超时被移除的条目数量
+     */
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * 查询总次数
+     */
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * 命中率，没有查询时为 1.0
+     */
+    public double getHitRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hitCount=" + hitCount + ", missCount=" + missCount
+                + ", evictionCount=" + evictionCount + ", expirationCount=" + expirationCount + "}";
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.miniSpring.cache.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 缓存移除注解。
+ *
+ * 被标注的方法执行成功后，以方法参数生成的键移除缓存条目；
+ * 因此移除方法与 @Cacheable 方法的参数需要一致，才能定位到同一个条目。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CacheEvict {
+
+    /**
+     * 缓存名称
+     */
+    String[] value();
+
+    /**
+     * 是否清空整个缓存，而不是只移除参数对应的条目，默认 false
+     */
+    boolean allEntries() default false;
+
+    /**
+     * 是否在方法执行前移除，默认 false（方法抛出异常时不移除）
+     */
+    boolean beforeInvocation() default false;
+}
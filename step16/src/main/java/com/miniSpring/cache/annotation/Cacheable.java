@@ -0,0 +1,21 @@
+package com.miniSpring.cache.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 方法结果缓存注解。
+ *
+ * 调用被标注的方法前，先以方法参数生成的键查询缓存，命中时直接返回缓存值，不再执行方法；
+ * 未命中时执行方法，并把返回值（包括 null）写入缓存。
+ * 可以标注在实现类的方法上，也可以标注在接口方法上。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Cacheable {
+
+    /**
+     * 缓存名称，可以同时写入多个缓存，按顺序查询
+     */
+    String[] value();
+}
@@ -0,0 +1,96 @@
+package com.miniSpring.cache.interceptor;
+
+import com.miniSpring.aop.ClassFilter;
+import com.miniSpring.aop.MethodMatcher;
+import com.miniSpring.aop.Pointcut;
+import com.miniSpring.aop.PointcutAdvisor;
+import com.miniSpring.cache.CacheManager;
+import com.miniSpring.core.Ordered;
+import org.aopalliance.aop.Advice;
+
+import java.lang.reflect.Method;
+
+/**
+ * 匹配 @Cacheable / @CacheEvict 方法的通知器，声明为 Bean 后由 DefaultAdvisorAutoProxyCreator 自动应用：
+ * <pre>
+ * &lt;bean id="cacheManager" class="com.miniSpring.cache.support.TinyLfuCacheManager"&gt;
+ *     &lt;property name="maximumSize" value="10000"/&gt;
+ * &lt;/bean&gt;
+ * &lt;bean class="com.miniSpring.cache.interceptor.CacheAnnotationAdvisor"&gt;
+ *     &lt;property name="cacheManager" ref="cacheManager"/&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ * 类过滤器只匹配声明了缓存注解的类，其他 Bean 不会因为该通知器被代理。
+ */
+public class CacheAnnotationAdvisor implements PointcutAdvisor, Ordered {
+
+    private final CacheOperationSource cacheOperationSource = new CacheOperationSource();
+
+    private final CacheInterceptor cacheInterceptor = new CacheInterceptor(cacheOperationSource);
+
+    private final Pointcut pointcut = new CacheOperationSourcePointcut();
+
+    private int order = Integer.MAX_VALUE; // 默认优先级最低
+
+    @Override
+    public Pointcut getPointcut() {
+        return pointcut;
+    }
+
+    @Override
+    public Advice getAdvice() {
+        return cacheInterceptor;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    public void setOrder(int order) {
+        this.order = order;
+    }
+
+    public CacheManager getCacheManager() {
+        return cacheInterceptor.getCacheManager();
+    }
+
+    public void setCacheManager(CacheManager cacheManager) {
+        cacheInterceptor.setCacheManager(cacheManager);
+    }
+
+    public KeyGenerator getKeyGenerator() {
+        return cacheInterceptor.getKeyGenerator();
+    }
+
+    public void setKeyGenerator(KeyGenerator keyGenerator) {
+        cacheInterceptor.setKeyGenerator(keyGenerator);
+    }
+
+    /**
+     * 根据 CacheOperationSource 的解析结果匹配类和方法
+     */
+    private final class CacheOperationSourcePointcut implements Pointcut, ClassFilter, MethodMatcher {
+
+        @Override
+        public ClassFilter getClassFilter() {
+            return this;
+        }
+
+        @Override
+        public MethodMatcher getMethodMatcher() {
+            return this;
+        }
+
+        @Override
+        public boolean matches(Class<?> clazz) {
+            return cacheOperationSource.hasCacheOperations(clazz);
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return cacheOperationSource.getCacheOperations(method, targetClass).length > 0;
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.miniSpring.cache.interceptor;
+
+import com.miniSpring.beans.BeansException;
+import com.miniSpring.cache.Cache;
+import com.miniSpring.cache.CacheManager;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+
+/**
+ * 方法缓存拦截器，执行方法上声明的缓存操作：
+ *  1. beforeInvocation 的 @CacheEvict 在方法执行前移除条目
+ *  2. @Cacheable 按顺序查询缓存，命中时不执行方法直接返回；未命中时执行方法并写入所有缓存
+ *  3. 其余 @CacheEvict 在方法正常返回后移除条目
+ *
+ * 缓存键在一次调用中只生成一次；默认键生成策略下无参和单参数方法查询缓存不创建对象。
+ */
+public class CacheInterceptor implements MethodInterceptor {
+
+    // 无参调用共用的空参数数组，查询缓存时不为每次调用分配
+    private static final Object[] EMPTY_ARGUMENTS = new Object[0];
+
+    private final CacheOperationSource cacheOperationSource;
+
+    private CacheManager cacheManager;
+
+    private KeyGenerator keyGenerator = new SimpleKeyGenerator();
+
+    public CacheInterceptor(CacheOperationSource cacheOperationSource) {
+        this.cacheOperationSource = cacheOperationSource;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        Object target = invocation.getThis();
+        Class<?> targetClass = null != target ? target.getClass() : method.getDeclaringClass();
+        CacheOperation[] operations = cacheOperationSource.getCacheOperations(method, targetClass);
+        if (operations.length == 0) {
+            return invocation.proceed();
+        }
+
+        Object key = keyGenerator.generate(target, method, argumentsOf(invocation));
+
+        // 1. 方法执行前移除
+        CacheOperation cacheable = null;
+        for (CacheOperation operation : operations) {
+            if (operation.getKind() == CacheOperation.Kind.CACHEABLE) {
+                cacheable = operation;
+            } else if (operation.isBeforeInvocation()) {
+                evict(operation, key);
+            }
+        }
+
+        // 2. 查询缓存，未命中时执行方法并写入
+        Object result;
+        if (null != cacheable) {
+            Cache.ValueWrapper cached = findCachedValue(cacheable, key);
+            if (null != cached) {
+                result = cached.get();
+            } else {
+                result = invocation.proceed();
+                for (String cacheName : cacheable.getCacheNames()) {
+                    getCache(cacheName).put(key, result);
+                }
+            }
+        } else {
+            result = invocation.proceed();
+        }
+
+        // 3. 方法正常返回后移除
+        for (CacheOperation operation : operations) {
+            if (operation.getKind() == CacheOperation.Kind.EVICT && !operation.isBeforeInvocation()) {
+                evict(operation, key);
+            }
+        }
+        return result;
+    }
+
+    private Cache.ValueWrapper findCachedValue(CacheOperation cacheable, Object key) {
+        for (String cacheName : cacheable.getCacheNames()) {
+            Cache.ValueWrapper cached = getCache(cacheName).get(key);
+            if (null != cached) {
+                return cached;
+            }
+        }
+        return null;
+    }
+
+    private void evict(CacheOperation operation, Object key) {
+        for (String cacheName : operation.getCacheNames()) {
+            Cache cache = getCache(cacheName);
+            if (operation.isAllEntries()) {
+                cache.clear();
+            } else {
+                cache.evict(key);
+            }
+        }
+    }
+
+    private Cache getCache(String cacheName) {
+        if (null == cacheManager) {
+            throw new BeansException("No CacheManager configured for cache '" + cacheName + "'");
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (null == cache) {
+            throw new BeansException("Cannot find cache named '" + cacheName + "'");
+        }
+        return cache;
+    }
+
+    private static Object[] argumentsOf(MethodInvocation invocation) {
+        Object[] arguments = invocation.getArguments();
+        return null != arguments ? arguments : EMPTY_ARGUMENTS;
+    }
+
+    // ========== getter/setter ==========
+
+    public CacheOperationSource getCacheOperationSource() {
+        return cacheOperationSource;
+    }
+
+    public CacheManager getCacheManager() {
+        return cacheManager;
+    }
+
+    public void setCacheManager(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public KeyGenerator getKeyGenerator() {
+        return keyGenerator;
+    }
+
+    public void setKeyGenerator(KeyGenerator keyGenerator) {
+        this.keyGenerator = keyGenerator;
+    }
+
+}
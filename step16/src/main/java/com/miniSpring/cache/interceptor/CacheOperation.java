@@ -0,0 +1,44 @@
+package com.miniSpring.cache.interceptor;
+
+/**
+ * 解析后的缓存操作，对应方法上的一个 @Cacheable 或 @CacheEvict 注解
+ */
+public final class CacheOperation {
+
+    public enum Kind {
+        CACHEABLE,
+        EVICT
+    }
+
+    private final Kind kind;
+
+    private final String[] cacheNames;
+
+    private final boolean allEntries;
+
+    private final boolean beforeInvocation;
+
+    public CacheOperation(Kind kind, String[] cacheNames, boolean allEntries, boolean beforeInvocation) {
+        this.kind = kind;
+        this.cacheNames = cacheNames;
+        this.allEntries = allEntries;
+        this.beforeInvocation = beforeInvocation;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String[] getCacheNames() {
+        return cacheNames;
+    }
+
+    public boolean isAllEntries() {
+        return allEntries;
+    }
+
+    public boolean isBeforeInvocation() {
+        return beforeInvocation;
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.miniSpring.cache.interceptor;
+
+import com.miniSpring.cache.annotation.CacheEvict;
+import com.miniSpring.cache.annotation.Cacheable;
+import com.miniSpring.core.annotation.AnnotationUtils;
+import com.miniSpring.util.MethodAttributeCache;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 解析方法上的 @Cacheable / @CacheEvict 注解，结果按（目标类, 方法）缓存。
+ *
+ * 注解的查找规则与其他注解驱动的通知一致（见 AnnotationUtils.findAnnotation），实现类上的注解优先于接口上的注解。
+ */
+public class CacheOperationSource {
+
+    private static final CacheOperation[] NO_OPERATIONS = new CacheOperation[0];
+
+    private final MethodAttributeCache<CacheOperation[]> operationCache = new MethodAttributeCache<>(CacheOperationSource::findCacheOperations);
+
+    /**
+     * 获取方法在目标类上的缓存操作
+     * @return 缓存操作，没有时返回空数组
+     */
+    public CacheOperation[] getCacheOperations(Method method, Class<?> targetClass) {
+        return operationCache.get(method, targetClass);
+    }
+
+    /**
+     * 目标类是否有任何声明了缓存操作的公有方法
+     */
+    public boolean hasCacheOperations(Class<?> targetClass) {
+        return AnnotationUtils.hasAnnotatedMethod(targetClass, Cacheable.class)
+                || AnnotationUtils.hasAnnotatedMethod(targetClass, CacheEvict.class);
+    }
+
+    private static CacheOperation[] findCacheOperations(Method method, Class<?> targetClass) {
+        List<CacheOperation> operations = new ArrayList<>(2);
+        Cacheable cacheable = AnnotationUtils.findAnnotation(method, targetClass, Cacheable.class);
+        if (null != cacheable) {
+            operations.add(new CacheOperation(CacheOperation.Kind.CACHEABLE, cacheable.value(), false, false));
+        }
+        CacheEvict cacheEvict = AnnotationUtils.findAnnotation(method, targetClass, CacheEvict.class);
+        if (null != cacheEvict) {
+            operations.add(new CacheOperation(CacheOperation.Kind.EVICT, cacheEvict.value(),
+                    cacheEvict.allEntries(), cacheEvict.beforeInvocation()));
+        }
+        return operations.isEmpty() ? NO_OPERATIONS : operations.toArray(NO_OPERATIONS);
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.miniSpring.cache.interceptor;
+
+import java.lang.reflect.Method;
+
+/**
+ * 缓存键生成策略
+ */
+public interface KeyGenerator {
+
+    /**
+     * 根据目标对象、方法和参数生成缓存键
+     * @param target 目标对象
+     * @param method 被调用的方法
+     * @param params 方法参数（不会为 null）
+     * @return 缓存键，需要正确实现 equals/hashCode
+     */
+    Object generate(Object target, Method method, Object... params);
+
+}
@@ -0,0 +1,44 @@
+package com.miniSpring.cache.interceptor;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * 由多个参数组成的缓存键，哈希值在创建时计算一次，数组参数按内容比较。
+ * 参数均可序列化时键也可以序列化，可写入堆外缓存。
+ */
+public final class SimpleKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+
+    public static final SimpleKey EMPTY = new SimpleKey();
+
+    private final Object[] params;
+
+    private final int hashCode;
+
+    public SimpleKey(Object... params) {
+        // 复制参数数组，调用结束后参数数组被修改不影响已缓存的键
+        this.params = params.clone();
+        this.hashCode = Arrays.deepHashCode(this.params);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof SimpleKey
+                && hashCode == ((SimpleKey) other).hashCode
+                && Arrays.deepEquals(params, ((SimpleKey) other).params));
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "SimpleKey " + Arrays.deepToString(params);
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.miniSpring.cache.interceptor;
+
+import java.lang.reflect.Method;
+
+/**
+ * 默认的缓存键生成策略，只根据参数生成键，尽量不创建对象：
+ *  - 没有参数：使用共享的 SimpleKey.EMPTY
+ *  - 只有一个非 null、非数组的参数：直接使用该参数作为键
+ *  - 其他情况：使用 SimpleKey 包装参数
+ *
+ * 键中不包含方法，这样参数相同的 @CacheEvict 方法才能移除 @Cacheable 方法写入的条目；
+ * 同一个缓存中的不同方法需要自行保证参数不会冲突（或使用不同的缓存名称）。
+ */
+public class SimpleKeyGenerator implements KeyGenerator {
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        return generateKey(params);
+    }
+
+    public static Object generateKey(Object... params) {
+        if (params.length == 0) {
+            return SimpleKey.EMPTY;
+        }
+        if (params.length == 1) {
+            Object param = params[0];
+            if (null != param && !param.getClass().isArray()) {
+                return param;
+            }
+        }
+        return new SimpleKey(params);
+    }
+
+}
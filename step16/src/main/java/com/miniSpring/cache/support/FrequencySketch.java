@@ -0,0 +1,112 @@
+package com.miniSpring.cache.support;
+
+/**
+ * TinyLFU 使用的 Count-Min Sketch，以很小的固定内存估算每个键最近的访问频率。
+ *
+ * 每个 long 存放 16 个 4 位计数器（最大计数 15），一个键在 4 个不同的 long 中各占一个计数器，
+ * 估算频率取 4 个计数器的最小值。累计增加次数达到 sampleSize（容量的 10 倍）时所有计数器减半，
+ * 让频率反映最近的访问情况，旧的热点逐渐冷却。
+ *
+ * 非线程安全，由 TinyLfuCache 在持有淘汰锁时调用。
+ */
+final class FrequencySketch {
+
+    private static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    // 每个 4 位计数器的低 3 位，减半时清除移入相邻计数器的位
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    // 每个 4 位计数器的最低位，用于统计减半时被截断的奇数计数
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private final long[] table;
+
+    private final int tableMask;
+
+    private final int sampleSize;
+
+    private int size;
+
+    FrequencySketch(int maximumSize) {
+        int capacity = Math.max(1, Math.min(maximumSize, 1 << 30));
+        this.table = new long[ceilingPowerOfTwo(capacity)];
+        this.tableMask = table.length - 1;
+        this.sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 估算键的访问频率，范围 0~15
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 记录一次访问，计数器已达上限时不再增加
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 所有计数器减半
+     */
+    private void reset() {
+        int oddCount = 0;
+        for (int i = 0; i < table.length; i++) {
+            oddCount += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (oddCount >>> 2);
+    }
+
+    /**
+     * 第 i 个计数器所在的 long 下标，每个种子得到一个相对独立的哈希
+     */
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEED[i]) * SEED[i];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+
+    /**
+     * 打散 hashCode，避免质量差的 hashCode 集中在少数计数器上
+     */
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        return 1 << -Integer.numberOfLeadingZeros(x - 1);
+    }
+
+}
@@ -0,0 +1,585 @@
+package com.miniSpring.cache.support;
+
+import com.miniSpring.cache.Cache;
+import com.miniSpring.cache.CacheStats;
+import com.miniSpring.util.ClassUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 把键和值序列化后存放在堆外的缓存，大对象不再占用堆内存，也不参与 GC 扫描。
+ *
+ * 存储由 segmentCount 个大小为 segmentSize 的段组成，按环形顺序追加写入：
+ *  - 当前段写满后切换到下一个段，下一个段原有的条目整体淘汰（只需从索引中删除，不移动任何数据）
+ *  - 覆盖写入和移除不修改旧记录，旧记录占用的空间随所在段被回收
+ * 堆上只保留键到记录位置的索引。
+ *
+ * 未指定 file 时各段为直接内存（ByteBuffer.allocateDirect）；指定 file 时各段映射到该文件，
+ * 移除操作追加删除标记，重新打开同一文件时按段的写入顺序回放记录重建索引，缓存内容在重启后仍然可用。
+ *
+ * 值必须可序列化（null 也可以缓存），键必须可序列化且 equals/hashCode 基于内容；
+ * 无法序列化或超过单个段大小的条目不会被缓存（offer 返回 false）。
+ * 映射文件可能在进程外被篡改，反序列化前总会安装白名单过滤器（ObjectInputFilter）：默认只允许常见的 JDK 值类型和 SimpleKey，
+ * 缓存业务对象时通过 createDeserializationFilter 追加允许的类；被拒绝的记录按未命中处理，回放时跳过。
+ * 线程安全：读取在读锁内复制记录字节，写入、段切换在写锁内执行，反序列化在锁外进行。
+ */
+public class OffHeapCache implements Cache, Closeable {
+
+    private static final int SEGMENT_MAGIC = 0x4d534f48;
+
+    // 段头：魔数 int + 段的写入代数 long
+    private static final int SEGMENT_HEADER_SIZE = 12;
+
+    // 记录头：键长度 int + 值长度 int + 写入时间 long；键长度为 0 表示段内后续没有记录
+    private static final int RECORD_HEADER_SIZE = 16;
+
+    private static final int NULL_VALUE = -1;
+
+    private static final int TOMBSTONE = -2;
+
+    // 默认允许反序列化的类：JDK 中常见的值类型、集合和默认的缓存键，其余一律拒绝
+    private static final String DEFAULT_ALLOWED_CLASSES = "java.lang.*;java.util.*;java.time.*;java.math.*;"
+            + "com.miniSpring.cache.interceptor.SimpleKey";
+
+    private static final String DESERIALIZATION_LIMITS = "maxdepth=64;maxrefs=100000;maxarray=16777216";
+
+    private final String name;
+
+    private final int segmentSize;
+
+    private final long expireAfterWriteMillis;
+
+    private final File file;
+
+    private final ObjectInputFilter deserializationFilter;
+
+    private final ByteBuffer[] segments;
+
+    // 每个段中写入过的记录位置，段被回收时据此从索引中删除
+    private final List<List<Slot>> segmentSlots;
+
+    private final ConcurrentHashMap<Object, Slot> index = new ConcurrentHashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileChannel channel;
+
+    private int currentSegment;
+
+    private int writeOffset;
+
+    private long nextGeneration;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private final LongAdder expirationCount = new LongAdder();
+
+    private final LongAdder recycledSegmentCount = new LongAdder();
+
+    public OffHeapCache(String name, int segmentSize, int segmentCount) {
+        this(name, segmentSize, segmentCount, 0, null);
+    }
+
+    /**
+     * @param name                   缓存名称
+     * @param segmentSize            每个段的字节数
+     * @param segmentCount           段的数量，至少 2 个（当前写入段之外至少保留一个段的数据）
+     * @param expireAfterWriteMillis 写入后的存活时间，小于等于 0 表示不过期
+     * @param file                   映射文件，为 null 时使用直接内存
+     */
+    public OffHeapCache(String name, int segmentSize, int segmentCount, long expireAfterWriteMillis, File file) {
+        this(name, segmentSize, segmentCount, expireAfterWriteMillis, file, createDeserializationFilter(null));
+    }
+
+    /**
+     * @param deserializationFilter 读取键和值时使用的反序列化过滤器，通常由 createDeserializationFilter 创建
+     */
+    public OffHeapCache(String name, int segmentSize, int segmentCount, long expireAfterWriteMillis, File file,
+                        ObjectInputFilter deserializationFilter) {
+        if (null == deserializationFilter) {
+            throw new IllegalArgumentException("deserializationFilter must not be null");
+        }
+        if (segmentCount < 2) {
+            throw new IllegalArgumentException("segmentCount must be at least 2");
+        }
+        if (segmentSize < SEGMENT_HEADER_SIZE + RECORD_HEADER_SIZE + 1) {
+            throw new IllegalArgumentException("segmentSize is too small: " + segmentSize);
+        }
+        this.name = name;
+        this.segmentSize = segmentSize;
+        this.expireAfterWriteMillis = expireAfterWriteMillis;
+        this.file = file;
+        this.deserializationFilter = deserializationFilter;
+        this.segments = new ByteBuffer[segmentCount];
+        this.segmentSlots = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segmentSlots.add(new ArrayList<>());
+        }
+        if (null != file) {
+            mapFile();
+            recover();
+        } else {
+            startSegment(0);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Slot slot = index.get(key);
+        if (null == slot) {
+            missCount.increment();
+            return null;
+        }
+        if (isExpired(slot, System.currentTimeMillis())) {
+            missCount.increment();
+            if (index.remove(key, slot)) {
+                expirationCount.increment();
+            }
+            return null;
+        }
+
+        boolean valid;
+        byte[] valueBytes = null;
+        lock.readLock().lock();
+        try {
+            // 加锁后确认记录仍然有效，所在段可能刚被回收
+            valid = index.get(key) == slot;
+            if (valid && slot.valueLength >= 0) {
+                valueBytes = new byte[slot.valueLength];
+                ByteBuffer buffer = segments[slot.segment].duplicate();
+                buffer.position(slot.offset + RECORD_HEADER_SIZE + slot.keyLength);
+                buffer.get(valueBytes);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!valid) {
+            missCount.increment();
+            return null;
+        }
+
+        Object value = null;
+        if (null != valueBytes) {
+            try {
+                value = deserialize(valueBytes);
+            } catch (IOException | ClassNotFoundException e) {
+                // 值的类已不兼容（例如重启后类结构变化）或不在反序列化白名单中，按未命中处理
+                index.remove(key, slot);
+                missCount.increment();
+                return null;
+            }
+        }
+        hitCount.increment();
+        return new OffHeapValue(value, ++slot.accessCount, slot.writeTimeMillis);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        offer(key, value, System.currentTimeMillis());
+    }
+
+    /**
+     * 写入缓存
+     * @param writeTimeMillis 写入时间，用于计算过期；从其他缓存降级的条目传入原始写入时间
+     * @return 键或值无法序列化、或条目超过单个段大小时返回 false
+     */
+    public boolean offer(Object key, Object value, long writeTimeMillis) {
+        byte[] keyBytes = serialize(key);
+        byte[] valueBytes = null == value ? null : serialize(value);
+        if (null == keyBytes || (null != value && null == valueBytes)) {
+            return false;
+        }
+        int valueLength = null == valueBytes ? NULL_VALUE : valueBytes.length;
+        if (recordSize(keyBytes.length, valueLength) > segmentSize - SEGMENT_HEADER_SIZE) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            Slot slot = append(key, keyBytes, valueBytes, valueLength, writeTimeMillis);
+            index.put(key, slot);
+            segmentSlots.get(slot.segment).add(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    /**
+     * 是否存在未过期的条目，不计入统计
+     */
+    public boolean containsKey(Object key) {
+        Slot slot = index.get(key);
+        return null != slot && !isExpired(slot, System.currentTimeMillis());
+    }
+
+    @Override
+    public void evict(Object key) {
+        if (!index.containsKey(key)) return;
+        // 映射文件需要追加删除标记，重启回放时才不会恢复已移除的条目
+        byte[] keyBytes = null != file ? serialize(key) : null;
+        lock.writeLock().lock();
+        try {
+            if (null != index.remove(key) && null != keyBytes) {
+                append(key, keyBytes, null, TOMBSTONE, System.currentTimeMillis());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            for (int i = 0; i < segments.length; i++) {
+                segmentSlots.get(i).clear();
+                if (null != segments[i]) {
+                    segments[i].putInt(0, 0);
+                }
+            }
+            startSegment(0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 映射文件时把数据刷到磁盘并关闭文件，之后不能再使用该缓存
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (null != channel) {
+                for (ByteBuffer segment : segments) {
+                    ((MappedByteBuffer) segment).force();
+                }
+                channel.close();
+                channel = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========== 段的写入与回收（调用方持有写锁） ==========
+
+    private Slot append(Object key, byte[] keyBytes, byte[] valueBytes, int valueLength, long writeTimeMillis) {
+        int recordSize = recordSize(keyBytes.length, valueLength);
+        if (writeOffset + recordSize > segmentSize) {
+            startSegment((currentSegment + 1) % segments.length);
+        }
+        ByteBuffer buffer = segments[currentSegment].duplicate();
+        buffer.position(writeOffset);
+        buffer.putInt(keyBytes.length).putInt(valueLength).putLong(writeTimeMillis).put(keyBytes);
+        if (null != valueBytes) {
+            buffer.put(valueBytes);
+        }
+        Slot slot = new Slot(key, currentSegment, writeOffset, keyBytes.length, valueLength, writeTimeMillis);
+        writeOffset += recordSize;
+        writeEndMarker();
+        return slot;
+    }
+
+    /**
+     * 切换到指定段：段中原有的条目整体淘汰，写入新的段头
+     */
+    private void startSegment(int segment) {
+        long evicted = 0;
+        for (Slot slot : segmentSlots.get(segment)) {
+            if (index.remove(slot.key, slot)) {
+                evicted++;
+            }
+        }
+        segmentSlots.get(segment).clear();
+        if (evicted > 0) {
+            evictionCount.add(evicted);
+            recycledSegmentCount.increment();
+        }
+
+        if (null == segments[segment]) {
+            segments[segment] = ByteBuffer.allocateDirect(segmentSize);
+        }
+        ByteBuffer buffer = segments[segment];
+        buffer.putInt(0, SEGMENT_MAGIC);
+        buffer.putLong(4, nextGeneration++);
+        currentSegment = segment;
+        writeOffset = SEGMENT_HEADER_SIZE;
+        writeEndMarker();
+    }
+
+    private void writeEndMarker() {
+        if (writeOffset + 4 <= segmentSize) {
+            segments[currentSegment].putInt(writeOffset, 0);
+        }
+    }
+
+    private static int recordSize(int keyLength, int valueLength) {
+        return RECORD_HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+    }
+
+    private boolean isExpired(Slot slot, long nowMillis) {
+        return expireAfterWriteMillis > 0 && nowMillis - slot.writeTimeMillis >= expireAfterWriteMillis;
+    }
+
+    // ========== 映射文件 ==========
+
+    private void mapFile() {
+        try {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (null != parent && !parent.exists() && !parent.mkdirs()) {
+                throw new IOException("Cannot create directory " + parent);
+            }
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            randomAccessFile.setLength((long) segmentSize * segments.length);
+            channel = randomAccessFile.getChannel();
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * segmentSize, segmentSize);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to map off-heap cache file " + file, e);
+        }
+    }
+
+    /**
+     * 按段的写入代数从旧到新回放记录，重建索引，并从最新的段继续写入
+     */
+    private void recover() {
+        List<Integer> validSegments = new ArrayList<>();
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i].getInt(0) == SEGMENT_MAGIC) {
+                validSegments.add(i);
+            }
+        }
+        if (validSegments.isEmpty()) {
+            startSegment(0);
+            return;
+        }
+        validSegments.sort(Comparator.comparingLong(i -> segments[i].getLong(4)));
+
+        long nowMillis = System.currentTimeMillis();
+        int endOffset = SEGMENT_HEADER_SIZE;
+        for (int segment : validSegments) {
+            endOffset = replaySegment(segment, nowMillis);
+        }
+        int newest = validSegments.get(validSegments.size() - 1);
+        nextGeneration = segments[newest].getLong(4) + 1;
+        currentSegment = newest;
+        writeOffset = endOffset;
+    }
+
+    /**
+     * @return 段内最后一条记录之后的偏移量
+     */
+    private int replaySegment(int segment, long nowMillis) {
+        ByteBuffer buffer = segments[segment].duplicate();
+        int offset = SEGMENT_HEADER_SIZE;
+        while (offset + RECORD_HEADER_SIZE <= segmentSize) {
+            int keyLength = buffer.getInt(offset);
+            int valueLength = buffer.getInt(offset + 4);
+            long writeTimeMillis = buffer.getLong(offset + 8);
+            if (keyLength <= 0 || valueLength < TOMBSTONE || offset + recordSize(keyLength, valueLength) > segmentSize) {
+                break;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            buffer.position(offset + RECORD_HEADER_SIZE);
+            buffer.get(keyBytes);
+            Object key;
+            try {
+                key = deserialize(keyBytes);
+            } catch (IOException | ClassNotFoundException e) {
+                // 键的类已不存在或不在反序列化白名单中，跳过该记录
+                offset += recordSize(keyLength, valueLength);
+                continue;
+            }
+            if (valueLength == TOMBSTONE) {
+                index.remove(key);
+            } else {
+                Slot slot = new Slot(key, segment, offset, keyLength, valueLength, writeTimeMillis);
+                segmentSlots.get(segment).add(slot);
+                if (isExpired(slot, nowMillis)) {
+                    index.remove(key);
+                } else {
+                    index.put(key, slot);
+                }
+            }
+            offset += recordSize(keyLength, valueLength);
+        }
+        return offset;
+    }
+
+    // ========== 序列化 ==========
+
+    /**
+     * @return 无法序列化时返回 null
+     */
+    private static byte[] serialize(Object object) {
+        if (!(object instanceof Serializable)) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        } catch (IOException e) {
+            // 对象图中包含不可序列化的对象
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 创建反序列化白名单过滤器：允许默认的 JDK 值类型和 SimpleKey，以及 allowedClasses 中追加的类，其余全部拒绝。
+     * @param allowedClasses 追加允许的类，ObjectInputFilter 的模式语法，多个模式用 ';' 分隔（如 "com.example.dto.*"），可以为 null
+     */
+    public static ObjectInputFilter createDeserializationFilter(String allowedClasses) {
+        StringBuilder pattern = new StringBuilder(DESERIALIZATION_LIMITS).append(';').append(DEFAULT_ALLOWED_CLASSES);
+        if (null != allowedClasses && !allowedClasses.trim().isEmpty()) {
+            pattern.append(';').append(allowedClasses.trim());
+        }
+        return ObjectInputFilter.Config.createFilter(pattern.append(";!*").toString());
+    }
+
+    /**
+     * 被过滤器拒绝时抛出 InvalidClassException，调用方按无法读取的记录处理
+     */
+    private Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                try {
+                    return Class.forName(desc.getName(), false, ClassUtils.getDefaultClassLoader());
+                } catch (ClassNotFoundException e) {
+                    return super.resolveClass(desc);
+                }
+            }
+        }) {
+            in.setObjectInputFilter(deserializationFilter);
+            return in.readObject();
+        }
+    }
+
+    // ========== 统计 ==========
+
+    /**
+     * 统计信息快照；淘汰次数为段回收时淘汰的有效条目数量
+     */
+    public CacheStats getStats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), expirationCount.sum());
+    }
+
+    /**
+     * 回收过的段数量（只统计回收时仍有有效条目的段）
+     */
+    public long getRecycledSegmentCount() {
+        return recycledSegmentCount.sum();
+    }
+
+    /**
+     * 当前条目数量（包括尚未移除的过期条目）
+     */
+    public int estimatedSize() {
+        return index.size();
+    }
+
+    public long getCapacityBytes() {
+        return (long) segmentSize * segments.length;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapCache{name='" + name + "', segments=" + segments.length + "x" + segmentSize
+                + (null != file ? ", file=" + file : "") + ", entries=" + index.size() + "}";
+    }
+
+    /**
+     * 记录在段中的位置，同时用于段回收时从索引中按对象删除
+     */
+    private static final class Slot {
+
+        private final Object key;
+
+        private final int segment;
+
+        private final int offset;
+
+        private final int keyLength;
+
+        private final int valueLength;
+
+        private final long writeTimeMillis;
+
+        // 在堆外层被命中的次数，TieredCache 据此决定是否晋升，并发下计数可能略少
+        private volatile int accessCount;
+
+        Slot(Object key, int segment, int offset, int keyLength, int valueLength, long writeTimeMillis) {
+            this.key = key;
+            this.segment = segment;
+            this.offset = offset;
+            this.keyLength = keyLength;
+            this.valueLength = valueLength;
+            this.writeTimeMillis = writeTimeMillis;
+        }
+    }
+
+    /**
+     * 反序列化后的值及其在堆外层的命中次数
+     */
+    public static final class OffHeapValue implements ValueWrapper {
+
+        private final Object value;
+
+        private final int accessCount;
+
+        private final long writeTimeMillis;
+
+        OffHeapValue(Object value, int accessCount, long writeTimeMillis) {
+            this.value = value;
+            this.accessCount = accessCount;
+            this.writeTimeMillis = writeTimeMillis;
+        }
+
+        @Override
+        public Object get() {
+            return value;
+        }
+
+        /**
+         * 包括本次在内，条目写入堆外层后被命中的次数
+         */
+        public int getAccessCount() {
+            return accessCount;
+        }
+
+        /**
+         * 条目的原始写入时间（系统时间毫秒），从其他缓存降级的条目保留降级前的写入时间
+         */
+        public long getWriteTimeMillis() {
+            return writeTimeMillis;
+        }
+    }
+
+}
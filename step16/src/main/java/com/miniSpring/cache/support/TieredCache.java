@@ -0,0 +1,191 @@
+package com.miniSpring.cache.support;
+
+import com.miniSpring.cache.Cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 两级缓存：一级为堆内的 TinyLfuCache，二级为堆外的 OffHeapCache。
+ *
+ *  - 降级：一级缓存因容量限制淘汰的条目（W-TinyLFU 判定访问频率低）写入二级缓存，保留原始写入时间
+ *  - 晋升：二级缓存中的条目被命中 promotionThreshold 次后移回一级缓存，同样保留原始写入时间，过期时间不会因来回迁移而延长
+ *  - 写入只进入一级缓存，并移除二级缓存中的旧值
+ * 同一个键只在一级存在一份；无法序列化的值被一级淘汰后直接丢弃。
+ *
+ * 并发：一级淘汰的通知在释放一级的锁之后才送达，期间同一个键可能已被写入或移除，迟到的降级会复活已移除的值
+ * 或留下过期的二级副本。为此每个键（按哈希分段）有一个版本号，写入、移除、晋升都会递增版本号，
+ * 降级在分段锁内比较淘汰时记录的版本号，不一致就丢弃；对二级缓存的写入和移除都在分段锁内进行。
+ * 同一分段中其他键的写入也会让进行中的降级放弃，代价只是少一次降级（之后读取未命中），不会读到过期的值。
+ * 分段锁内不执行一级写入（写入可能触发其他键的降级），因此不会出现嵌套加锁。
+ */
+public class TieredCache implements Cache {
+
+    private static final int STRIPES = 64;
+
+    private static final int STRIPE_MASK = STRIPES - 1;
+
+    private final TinyLfuCache heapCache;
+
+    private final OffHeapCache offHeapCache;
+
+    private final int promotionThreshold;
+
+    private final LongAdder promotionCount = new LongAdder();
+
+    private final LongAdder demotionCount = new LongAdder();
+
+    // 分段锁，保护分段内键的版本检查与二级缓存的读改写
+    private final Object[] locks = new Object[STRIPES];
+
+    // 分段内键的版本号
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+    /**
+     * @param promotionThreshold 二级缓存中的条目被命中多少次后晋升到一级缓存，至少为 1
+     */
+    public TieredCache(TinyLfuCache heapCache, OffHeapCache offHeapCache, int promotionThreshold) {
+        if (promotionThreshold < 1) {
+            throw new IllegalArgumentException("promotionThreshold must be at least 1");
+        }
+        this.heapCache = heapCache;
+        this.offHeapCache = offHeapCache;
+        this.promotionThreshold = promotionThreshold;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        heapCache.setEvictionListener(new DemotingListener());
+    }
+
+    @Override
+    public String getName() {
+        return heapCache.getName();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper cached = heapCache.get(key);
+        if (null != cached) {
+            return cached;
+        }
+        int stripe = stripe(key);
+        long version = versions.get(stripe);
+        OffHeapCache.OffHeapValue offHeapValue = (OffHeapCache.OffHeapValue) offHeapCache.get(key);
+        if (null != offHeapValue && offHeapValue.getAccessCount() >= promotionThreshold) {
+            promote(key, offHeapValue.get(), offHeapValue.getWriteTimeMillis(), stripe, version);
+        }
+        return offHeapValue;
+    }
+
+    /**
+     * 晋升：一级中没有该键时写入一级，再在分段锁内确认期间没有写入或移除，成功后从二级移除；
+     * 期间有写入或移除时撤回写入一级的值（只撤回自己写入的那个对象）。
+     * 写入一级时被立即淘汰的，已经重新降级到二级，保留二级中的值
+     */
+    private void promote(Object key, Object value, long writeTimeMillis, int stripe, long version) {
+        if (!heapCache.putIfAbsent(key, value, writeTimeMillis)) {
+            return;
+        }
+        synchronized (locks[stripe]) {
+            if (versions.get(stripe) != version) {
+                heapCache.evict(key, value);
+            } else if (heapCache.containsKey(key)) {
+                versions.incrementAndGet(stripe);
+                offHeapCache.evict(key);
+                promotionCount.increment();
+            }
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        int stripe = stripe(key);
+        // 写入一级前后各递增一次版本号：之前递增让并发的晋升放弃，之后递增让写入前被淘汰的旧值不再降级
+        versions.incrementAndGet(stripe);
+        heapCache.put(key, value);
+        synchronized (locks[stripe]) {
+            versions.incrementAndGet(stripe);
+            offHeapCache.evict(key);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        int stripe = stripe(key);
+        // 一级移除不会触发淘汰通知，可以放在分段锁内，与并发的晋升串行
+        synchronized (locks[stripe]) {
+            versions.incrementAndGet(stripe);
+            heapCache.evict(key);
+            offHeapCache.evict(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        clear(0);
+    }
+
+    /**
+     * 按顺序持有所有分段锁后清空两级缓存，等待进行中的降级完成，并让之后送达的降级全部失效
+     */
+    private void clear(int stripe) {
+        if (stripe == STRIPES) {
+            heapCache.clear();
+            offHeapCache.clear();
+            return;
+        }
+        synchronized (locks[stripe]) {
+            versions.incrementAndGet(stripe);
+            clear(stripe + 1);
+        }
+    }
+
+    private static int stripe(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & STRIPE_MASK;
+    }
+
+    public TinyLfuCache getHeapCache() {
+        return heapCache;
+    }
+
+    public OffHeapCache getOffHeapCache() {
+        return offHeapCache;
+    }
+
+    /**
+     * 从二级晋升到一级的次数
+     */
+    public long getPromotionCount() {
+        return promotionCount.sum();
+    }
+
+    /**
+     * 从一级降级到二级的次数
+     */
+    public long getDemotionCount() {
+        return demotionCount.sum();
+    }
+
+    /**
+     * 一级淘汰时记录键的版本号，降级时版本号未变才写入二级
+     */
+    private final class DemotingListener implements TinyLfuCache.VersionedEvictionListener {
+
+        @Override
+        public long currentVersion(Object key) {
+            return versions.get(stripe(key));
+        }
+
+        @Override
+        public void onEviction(Object key, Object value, long writeTimeMillis, long version) {
+            int stripe = stripe(key);
+            synchronized (locks[stripe]) {
+                if (versions.get(stripe) == version && offHeapCache.offer(key, value, writeTimeMillis)) {
+                    demotionCount.increment();
+                }
+            }
+        }
+    }
+
+}
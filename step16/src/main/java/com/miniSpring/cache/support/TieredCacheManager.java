@@ -0,0 +1,136 @@
+package com.miniSpring.cache.support;
+
+import com.miniSpring.beans.factory.DisposableBean;
+import com.miniSpring.cache.Cache;
+import com.miniSpring.cache.CacheManager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 两级缓存管理器，第一次按名称获取时创建 TieredCache，配置项（均可在 XML 中通过 property 设置）：
+ *  - heapMaximumSize：一级（堆内）缓存最多的条目数量，默认 10000
+ *  - offHeapSegmentSize：二级（堆外）缓存每个段的字节数，默认 1MB
+ *  - offHeapSegmentCount：二级缓存段的数量，默认 16
+ *  - directory：设置后二级缓存映射到该目录下的 "缓存名称.cache" 文件，重启后可恢复；不设置时使用直接内存
+ *  - expireAfterWriteMillis：写入后的存活时间，两级共用，小于等于 0 表示不过期，默认不过期
+ *  - promotionThreshold：二级缓存条目被命中多少次后晋升到一级，默认 2
+ *  - allowedDeserializationClasses：二级缓存反序列化时在默认白名单之外允许的类（ObjectInputFilter 模式，';' 分隔），
+ *    缓存业务对象时必须设置，见 OffHeapCache.createDeserializationFilter
+ *
+ * 容器关闭时把映射文件刷到磁盘并关闭。
+ */
+public class TieredCacheManager implements CacheManager, DisposableBean {
+
+    private final ConcurrentMap<String, TieredCache> caches = new ConcurrentHashMap<>();
+
+    private int heapMaximumSize = 10_000;
+
+    private int offHeapSegmentSize = 1024 * 1024;
+
+    private int offHeapSegmentCount = 16;
+
+    private String directory;
+
+    private long expireAfterWriteMillis = 0;
+
+    private int promotionThreshold = 2;
+
+    private String allowedDeserializationClasses;
+
+    @Override
+    public Cache getCache(String name) {
+        TieredCache cache = caches.get(name);
+        if (null == cache) {
+            cache = caches.computeIfAbsent(name, this::createCache);
+        }
+        return cache;
+    }
+
+    private TieredCache createCache(String name) {
+        TinyLfuCache heapCache = new TinyLfuCache(name, heapMaximumSize, expireAfterWriteMillis);
+        File file = null != directory ? new File(directory, name + ".cache") : null;
+        OffHeapCache offHeapCache = new OffHeapCache(name, offHeapSegmentSize, offHeapSegmentCount, expireAfterWriteMillis, file,
+                OffHeapCache.createDeserializationFilter(allowedDeserializationClasses));
+        return new TieredCache(heapCache, offHeapCache, promotionThreshold);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableCollection(new ArrayList<>(caches.keySet()));
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (TieredCache cache : caches.values()) {
+            cache.getOffHeapCache().close();
+        }
+        caches.clear();
+    }
+
+    // ========== getter/setter ==========
+
+    public int getHeapMaximumSize() {
+        return heapMaximumSize;
+    }
+
+    public void setHeapMaximumSize(int heapMaximumSize) {
+        if (heapMaximumSize < 1) {
+            throw new IllegalArgumentException("heapMaximumSize must be at least 1");
+        }
+        this.heapMaximumSize = heapMaximumSize;
+    }
+
+    public int getOffHeapSegmentSize() {
+        return offHeapSegmentSize;
+    }
+
+    public void setOffHeapSegmentSize(int offHeapSegmentSize) {
+        this.offHeapSegmentSize = offHeapSegmentSize;
+    }
+
+    public int getOffHeapSegmentCount() {
+        return offHeapSegmentCount;
+    }
+
+    public void setOffHeapSegmentCount(int offHeapSegmentCount) {
+        this.offHeapSegmentCount = offHeapSegmentCount;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public long getExpireAfterWriteMillis() {
+        return expireAfterWriteMillis;
+    }
+
+    public void setExpireAfterWriteMillis(long expireAfterWriteMillis) {
+        this.expireAfterWriteMillis = expireAfterWriteMillis;
+    }
+
+    public int getPromotionThreshold() {
+        return promotionThreshold;
+    }
+
+    public void setPromotionThreshold(int promotionThreshold) {
+        this.promotionThreshold = promotionThreshold;
+    }
+
+    public String getAllowedDeserializationClasses() {
+        return allowedDeserializationClasses;
+    }
+
+    public void setAllowedDeserializationClasses(String allowedDeserializationClasses) {
+        this.allowedDeserializationClasses = allowedDeserializationClasses;
+    }
+
+}
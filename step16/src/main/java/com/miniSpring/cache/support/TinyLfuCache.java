@@ -0,0 +1,608 @@
+package com.miniSpring.cache.support;
+
+import com.miniSpring.cache.Cache;
+import com.miniSpring.cache.CacheStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于 W-TinyLFU 淘汰策略的有界内存缓存。
+ *
+ * 条目分布在三个按访问顺序排列的队列中：
+ *  - 窗口区（容量的 1%）：新条目先进入窗口区，吸收突发的新访问
+ *  - 试用区：从窗口区移出的条目，等待再次被访问
+ *  - 保护区（主区的 80%）：在试用区被再次访问的条目，保护区满时最久未访问的条目降级回试用区
+ * 超出容量时，从窗口区移出的候选条目与试用区队头的受害者比较 FrequencySketch 估算的访问频率，
+ * 频率低的一方被淘汰，一次性扫描的数据不会挤掉真正的热点。
+ *
+ * 并发：读操作只访问 ConcurrentHashMap，命中记录写入一个有损的环形缓冲区，缓冲区写满一轮时
+ * 尝试获取锁批量回放，锁被占用就跳过（丢弃少量访问记录只影响淘汰精度，不影响正确性）；
+ * 写入、移除和淘汰在锁内执行。命中时返回条目节点本身作为 ValueWrapper，读路径不创建对象。
+ *
+ * expireAfterWrite 大于 0 时，条目写入超过该时间后视为不存在，在读取时移除，也可调用 cleanUp 批量移除。
+ * 设置 EvictionListener 后，因容量限制被淘汰的条目会在释放锁之后通知给监听器（TieredCache 据此降级到二级缓存）；
+ * 监听器实现 VersionedEvictionListener 时，淘汰时（持有锁）记录键的版本号并随通知一起传递，
+ * 监听器据此识别在通知送达之前又被写入或移除过的键。
+ */
+public class TinyLfuCache implements Cache {
+
+    private static final int WINDOW = 0;
+
+    private static final int PROBATION = 1;
+
+    private static final int PROTECTED = 2;
+
+    private static final int REMOVED = 3;
+
+    private static final int READ_BUFFER_SIZE = 64;
+
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+
+    private final String name;
+
+    private final int maximumSize;
+
+    private final long expireAfterWriteNanos;
+
+    private final int windowMaximum;
+
+    private final int protectedMaximum;
+
+    private final ConcurrentHashMap<Object, Node> data = new ConcurrentHashMap<>();
+
+    private final FrequencySketch sketch;
+
+    // 保护队列、访问频率和容量计数，读路径只 tryLock
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final AccessOrderDeque window = new AccessOrderDeque();
+
+    private final AccessOrderDeque probation = new AccessOrderDeque();
+
+    private final AccessOrderDeque protectedQueue = new AccessOrderDeque();
+
+    private int windowSize;
+
+    private int probationSize;
+
+    private int protectedSize;
+
+    private final AtomicReferenceArray<Node> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+
+    private final AtomicLong readCounter = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private final LongAdder expirationCount = new LongAdder();
+
+    private volatile EvictionListener evictionListener;
+
+    // 本次写入淘汰的条目，锁内收集，释放锁后通知监听器
+    private final List<Node> evictedNodes = new ArrayList<>();
+
+    public TinyLfuCache(String name, int maximumSize) {
+        this(name, maximumSize, 0);
+    }
+
+    /**
+     * @param name                   缓存名称
+     * @param maximumSize            最多缓存的条目数量
+     * @param expireAfterWriteMillis 写入后的存活时间，小于等于 0 表示不过期
+     */
+    public TinyLfuCache(String name, int maximumSize, long expireAfterWriteMillis) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1");
+        }
+        this.name = name;
+        this.maximumSize = maximumSize;
+        this.expireAfterWriteNanos = expireAfterWriteMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(expireAfterWriteMillis) : 0;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = (int) ((maximumSize - windowMaximum) * 80L / 100);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Node node = data.get(key);
+        if (null == node) {
+            missCount.increment();
+            return null;
+        }
+        if (expireAfterWriteNanos > 0 && isExpired(node, System.nanoTime())) {
+            missCount.increment();
+            removeExpired(node);
+            return null;
+        }
+        hitCount.increment();
+        afterRead(node);
+        return node;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        doPut(key, value, false, -1);
+    }
+
+    /**
+     * 键不存在（或已过期）时才写入，返回是否写入
+     */
+    boolean putIfAbsent(Object key, Object value) {
+        return doPut(key, value, true, -1);
+    }
+
+    /**
+     * 同 putIfAbsent，但保留条目原始的写入时间（系统时间毫秒），从其他缓存晋升的条目不会因此重新计算过期时间
+     */
+    boolean putIfAbsent(Object key, Object value, long writeTimeMillis) {
+        return doPut(key, value, true, writeTimeMillis);
+    }
+
+    /**
+     * @param writeTimeMillis 条目的写入时间，小于 0 表示现在写入
+     */
+    private boolean doPut(Object key, Object value, boolean onlyIfAbsent, long writeTimeMillis) {
+        long now = expireAfterWriteNanos > 0 ? System.nanoTime() : 0;
+        long writeTime = now;
+        if (expireAfterWriteNanos > 0 && writeTimeMillis >= 0) {
+            long ageMillis = Math.max(0, System.currentTimeMillis() - writeTimeMillis);
+            writeTime = now - TimeUnit.MILLISECONDS.toNanos(ageMillis);
+        }
+        Node[] evicted = null;
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            Node node = data.get(key);
+            if (null != node && onlyIfAbsent && !(expireAfterWriteNanos > 0 && isExpired(node, now))) {
+                return false;
+            }
+            if (null != node) {
+                // 覆盖已有条目，视为一次访问
+                node.value = value;
+                node.writeTime = writeTime;
+                onAccess(node);
+                return true;
+            }
+            node = new Node(key, value, writeTime);
+            data.put(key, node);
+            sketch.increment(key);
+            window.addLast(node);
+            windowSize++;
+            evictEntries();
+            if (!evictedNodes.isEmpty()) {
+                evicted = evictedNodes.toArray(new Node[0]);
+                evictedNodes.clear();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        if (null != evicted) {
+            notifyEvicted(evicted);
+        }
+        return true;
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictionLock.lock();
+        try {
+            Node node = data.remove(key);
+            if (null != node) {
+                unlink(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 是否包含该键（包括尚未移除的过期条目），不计入命中统计，也不记录访问
+     */
+    boolean containsKey(Object key) {
+        return data.containsKey(key);
+    }
+
+    /**
+     * 键当前的值仍是 value（同一个对象）时才移除
+     */
+    void evict(Object key, Object value) {
+        evictionLock.lock();
+        try {
+            Node node = data.get(key);
+            if (null != node && node.value == value && data.remove(key, node)) {
+                unlink(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        evictionLock.lock();
+        try {
+            for (Node node : data.values()) {
+                node.queue = REMOVED;
+            }
+            data.clear();
+            window.clear();
+            probation.clear();
+            protectedQueue.clear();
+            windowSize = 0;
+            probationSize = 0;
+            protectedSize = 0;
+            for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                readBuffer.lazySet(i, null);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 立即移除所有已过期的条目，并回放缓冲的访问记录
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            if (expireAfterWriteNanos <= 0) return;
+            long now = System.nanoTime();
+            for (Node node : data.values()) {
+                if (isExpired(node, now) && data.remove(node.key, node)) {
+                    unlink(node);
+                    expirationCount.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 当前条目数量（包括尚未移除的过期条目）
+     */
+    public int estimatedSize() {
+        return data.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public EvictionListener getEvictionListener() {
+        return evictionListener;
+    }
+
+    public void setEvictionListener(EvictionListener evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * 统计信息快照
+     */
+    public CacheStats getStats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), expirationCount.sum());
+    }
+
+    // ========== 读缓冲 ==========
+
+    /**
+     * 记录一次命中；缓冲区写满一轮时尝试回放，锁被占用则跳过，未回放的记录可能被后续写入覆盖
+     */
+    private void afterRead(Node node) {
+        int index = (int) (readCounter.getAndIncrement() & READ_BUFFER_MASK);
+        readBuffer.lazySet(index, node);
+        if (index == READ_BUFFER_MASK && evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 回放缓冲的命中记录，调用方持有锁
+     */
+    private void drainReadBuffer() {
+        for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+            Node node = readBuffer.get(i);
+            if (null != node) {
+                readBuffer.lazySet(i, null);
+                onAccess(node);
+            }
+        }
+    }
+
+    // ========== 淘汰策略（调用方持有锁） ==========
+
+    private void onAccess(Node node) {
+        switch (node.queue) {
+            case WINDOW:
+                sketch.increment(node.key);
+                window.moveToBack(node);
+                break;
+            case PROBATION:
+                // 试用区的条目再次被访问，晋升到保护区
+                sketch.increment(node.key);
+                probation.remove(node);
+                probationSize--;
+                node.queue = PROTECTED;
+                protectedQueue.addLast(node);
+                protectedSize++;
+                demoteFromProtected();
+                break;
+            case PROTECTED:
+                sketch.increment(node.key);
+                protectedQueue.moveToBack(node);
+                break;
+            default:
+                // 已移除的条目，忽略迟到的访问记录
+        }
+    }
+
+    /**
+     * 保护区超出容量时，最久未访问的条目降级到试用区队尾
+     */
+    private void demoteFromProtected() {
+        while (protectedSize > protectedMaximum) {
+            Node node = protectedQueue.pollFirst();
+            protectedSize--;
+            node.queue = PROBATION;
+            probation.addLast(node);
+            probationSize++;
+        }
+    }
+
+    private void evictEntries() {
+        // 1. 窗口区溢出的条目移到试用区队尾，成为准入候选
+        int candidates = 0;
+        while (windowSize > windowMaximum) {
+            Node node = window.pollFirst();
+            windowSize--;
+            node.queue = PROBATION;
+            probation.addLast(node);
+            probationSize++;
+            candidates++;
+        }
+
+        // 2. 超出容量时，候选（试用区队尾）与受害者（试用区队头）比较访问频率，淘汰频率低的一方
+        while (windowSize + probationSize + protectedSize > maximumSize) {
+            Node victim = probation.peekFirst();
+            Node candidate = candidates > 0 ? probation.peekLast() : null;
+            if (null == victim) {
+                // 试用区为空，依次淘汰保护区、窗口区中最久未访问的条目
+                Node oldest = protectedQueue.peekFirst();
+                evictNode(null != oldest ? oldest : window.peekFirst());
+            } else if (null == candidate || candidate == victim || admit(candidate.key, victim.key)) {
+                evictNode(victim);
+            } else {
+                evictNode(candidate);
+                candidates--;
+            }
+            // 候选位于试用区队尾，从队头淘汰也可能淘汰到候选
+            candidates = Math.min(candidates, probationSize);
+        }
+    }
+
+    /**
+     * 候选的访问频率高于受害者时才准入
+     */
+    private boolean admit(Object candidateKey, Object victimKey) {
+        return sketch.frequency(candidateKey) > sketch.frequency(victimKey);
+    }
+
+    private void evictNode(Node node) {
+        data.remove(node.key, node);
+        unlink(node);
+        evictionCount.increment();
+        EvictionListener listener = this.evictionListener;
+        if (null != listener) {
+            if (listener instanceof VersionedEvictionListener) {
+                node.evictionVersion = ((VersionedEvictionListener) listener).currentVersion(node.key);
+            }
+            evictedNodes.add(node);
+        }
+    }
+
+    private void notifyEvicted(Node[] evicted) {
+        EvictionListener listener = this.evictionListener;
+        if (null == listener) return;
+        long nowMillis = System.currentTimeMillis();
+        long nowNanos = expireAfterWriteNanos > 0 ? System.nanoTime() : 0;
+        for (Node node : evicted) {
+            // 换算为写入时的系统时间，二级缓存据此继续计算过期时间
+            long writeTimeMillis = expireAfterWriteNanos > 0
+                    ? nowMillis - TimeUnit.NANOSECONDS.toMillis(nowNanos - node.writeTime) : nowMillis;
+            if (listener instanceof VersionedEvictionListener) {
+                ((VersionedEvictionListener) listener).onEviction(node.key, node.value, writeTimeMillis, node.evictionVersion);
+            } else {
+                listener.onEviction(node.key, node.value, writeTimeMillis);
+            }
+        }
+    }
+
+    private void unlink(Node node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.remove(node);
+                windowSize--;
+                break;
+            case PROBATION:
+                probation.remove(node);
+                probationSize--;
+                break;
+            case PROTECTED:
+                protectedQueue.remove(node);
+                protectedSize--;
+                break;
+            default:
+        }
+        node.queue = REMOVED;
+    }
+
+    // ========== 过期 ==========
+
+    private boolean isExpired(Node node, long now) {
+        return now - node.writeTime >= expireAfterWriteNanos;
+    }
+
+    private void removeExpired(Node node) {
+        evictionLock.lock();
+        try {
+            // 加锁后重新检查，期间可能已被覆盖写入或移除
+            if (node.queue != REMOVED && isExpired(node, System.nanoTime()) && data.remove(node.key, node)) {
+                unlink(node);
+                expirationCount.increment();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 条目因容量限制被淘汰时的回调，在写入线程释放锁之后调用
+     */
+    public interface EvictionListener {
+
+        /**
+         * @param key             被淘汰的键
+         * @param value           被淘汰的值，可能为 null
+         * @param writeTimeMillis 条目写入时的系统时间
+         */
+        void onEviction(Object key, Object value, long writeTimeMillis);
+    }
+
+    /**
+     * 带版本号的淘汰回调：通知在释放锁之后送达，期间同一个键可能已被重新写入或移除，
+     * 淘汰时（持有锁）记录的版本号让监听器可以丢弃这种迟到的通知
+     */
+    interface VersionedEvictionListener extends EvictionListener {
+
+        /**
+         * 淘汰时在锁内调用，返回键当前的版本号，必须足够轻量
+         */
+        long currentVersion(Object key);
+
+        void onEviction(Object key, Object value, long writeTimeMillis, long version);
+
+        @Override
+        default void onEviction(Object key, Object value, long writeTimeMillis) {
+            onEviction(key, value, writeTimeMillis, currentVersion(key));
+        }
+    }
+
+    /**
+     * 缓存条目，同时是访问顺序队列的节点和命中时返回的 ValueWrapper
+     */
+    private static final class Node implements ValueWrapper {
+
+        private final Object key;
+
+        private volatile Object value;
+
+        private volatile long writeTime;
+
+        // 所在队列，只在持有锁时读写
+        private int queue = WINDOW;
+
+        // 被淘汰时记录的键版本号，锁内写入，由同一线程释放锁后读取
+        private long evictionVersion;
+
+        private Node prev;
+
+        private Node next;
+
+        Node(Object key, Object value, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+
+        @Override
+        public Object get() {
+            return value;
+        }
+    }
+
+    /**
+     * 以 Node 自身的 prev/next 串联的双向链表，队头为最久未访问的条目，所有操作 O(1) 且不创建对象
+     */
+    private static final class AccessOrderDeque {
+
+        private Node head;
+
+        private Node tail;
+
+        void addLast(Node node) {
+            node.prev = tail;
+            node.next = null;
+            if (null == tail) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        void remove(Node node) {
+            if (null == node.prev) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (null == node.next) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToBack(Node node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        Node pollFirst() {
+            Node node = head;
+            if (null != node) {
+                remove(node);
+            }
+            return node;
+        }
+
+        Node peekFirst() {
+            return head;
+        }
+
+        Node peekLast() {
+            return tail;
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.miniSpring.cache.support;
+
+import com.miniSpring.cache.Cache;
+import com.miniSpring.cache.CacheManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 默认的缓存管理器，第一次按名称获取时创建 TinyLfuCache，所有缓存使用相同的容量和过期配置：
+ *  - maximumSize：每个缓存最多的条目数量，默认 10000
+ *  - expireAfterWriteMillis：写入后的存活时间，小于等于 0 表示不过期，默认不过期
+ */
+public class TinyLfuCacheManager implements CacheManager {
+
+    private final ConcurrentMap<String, TinyLfuCache> caches = new ConcurrentHashMap<>();
+
+    private int maximumSize = 10_000;
+
+    private long expireAfterWriteMillis = 0;
+
+    @Override
+    public Cache getCache(String name) {
+        TinyLfuCache cache = caches.get(name);
+        if (null == cache) {
+            cache = caches.computeIfAbsent(name, key -> new TinyLfuCache(key, maximumSize, expireAfterWriteMillis));
+        }
+        return cache;
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableCollection(new ArrayList<>(caches.keySet()));
+    }
+
+    // ========== getter/setter ==========
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1");
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    public long getExpireAfterWriteMillis() {
+        return expireAfterWriteMillis;
+    }
+
+    public void setExpireAfterWriteMillis(long expireAfterWriteMillis) {
+        this.expireAfterWriteMillis = expireAfterWriteMillis;
+    }
+
+}
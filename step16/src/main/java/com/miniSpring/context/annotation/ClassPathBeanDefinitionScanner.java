@@ -2,6 +2,7 @@ package com.miniSpring.context.annotation;
 
 import cn.hutool.core.util.StrUtil;
 import com.miniSpring.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import com.miniSpring.beans.factory.annotation.Lazy;
 import com.miniSpring.beans.factory.config.BeanDefinition;
 import com.miniSpring.beans.factory.support.BeanDefinitionRegistry;
 
@@ -36,6 +37,13 @@ public class ClassPathBeanDefinitionScanner extends ClassPathScanningCandidateCo
                     beanDefinition.setScope(beanScope);
                 }
 
+                // 解析 @Lazy 注解，声明是否懒加载
+                Class<?> beanClass = beanDefinition.getBeanClass();
+                Lazy lazy = beanClass.getAnnotation(Lazy.class);
+                if (null != lazy) {
+                    beanDefinition.setLazyInit(lazy.value());
+                }
+
                 // 注册 BeanDefinition 到容器
                 // determineBeanName() 用于解析 Bean 名称（@Component value 或类名首字母小写）
                 registry.registerBeanDefinition(determineBeanName(beanDefinition), beanDefinition);
@@ -33,6 +33,16 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
      */
     private ApplicationEventMulticaster applicationEventMulticaster;
 
+    /**
+     * 刷新时预实例化单例 Bean 的并行度，默认 1 表示串行创建。
+     */
+    private int preInstantiationParallelism = 1;
+
+    /**
+     * 默认懒加载开关，开启后没有显式声明 lazy-init / @Lazy 的单例也不在刷新时创建。
+     */
+    private boolean defaultLazyInit = false;
+
 
     @Override
     public void refresh() throws BeansException {
@@ -64,12 +74,39 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
         registerListeners();
 
         // 8. 提前实例化所有非懒加载的单例 Bean（触发完整的 Bean 创建流程）
+        beanFactory.setPreInstantiationParallelism(preInstantiationParallelism);
+        beanFactory.setDefaultLazyInit(defaultLazyInit);
         beanFactory.preInstantiateSingletons();
 
         // 9. 发布容器刷新完成事件
         finishRefresh();
     }
 
+    /**
+     * 开启并行启动：refresh 时按依赖图并行创建互不依赖的单例 Bean。
+     *
+     * @param preInstantiationParallelism 最大并行线程数，小于等于 1 时关闭并行启动
+     */
+    public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+        this.preInstantiationParallelism = preInstantiationParallelism;
+    }
+
+    public int getPreInstantiationParallelism() {
+        return preInstantiationParallelism;
+    }
+
+    /**
+     * 设置默认懒加载：开启后单例 Bean 默认在第一次 getBean 时才创建，
+     * 适合大部分 Bean 用不到的命令行、批处理场景。显式的 lazy-init / @Lazy 配置优先。
+     */
+    public void setDefaultLazyInit(boolean defaultLazyInit) {
+        this.defaultLazyInit = defaultLazyInit;
+    }
+
+    public boolean isDefaultLazyInit() {
+        return defaultLazyInit;
+    }
+
     /**
      * 刷新 BeanFactory 的抽象方法，由子类实现，负责创建 BeanFactory 和加载 BeanDefinition。
      */
@@ -121,6 +158,11 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
         return getBeanFactory().getBeanDefinitionNames();
     }
 
+    @Override
+    public String[] getBeanNamesForType(Class<?> type) {
+        return getBeanFactory().getBeanNamesForType(type);
+    }
+
     @Override
     public Object getBean(String name) throws BeansException {
         return getBeanFactory().getBean(name);
@@ -42,6 +42,15 @@ public class ClassPathXmlApplicationContext extends AbstractXmlApplicationContex
         refresh();
     }
 
+    /**
+     * 设置配置文件路径，配合无参构造使用：先完成配置（如开启并行启动），再手动调用 refresh()
+     *
+     * @param configLocations XML 配置文件路径数组
+     */
+    public void setConfigLocations(String... configLocations) {
+        this.configLocations = configLocations;
+    }
+
     /**
      * 提供配置文件路径给抽象父类用于加载 BeanDefinition
      *
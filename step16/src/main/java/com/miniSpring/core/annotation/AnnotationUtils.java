@@ -0,0 +1,69 @@
+package com.miniSpring.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+
+/**
+ * 注解查找工具类，用于代理场景下的方法注解匹配。
+ *
+ * 代理调用时拿到的可能是接口方法，注解却可能声明在实现类上（反之亦然），
+ * 因此依次查找：目标类上的同签名方法、方法本身、目标类及其父类实现的接口上的同签名方法。
+ */
+public class AnnotationUtils {
+
+    /**
+     * 查找方法上的注解，实现类上的注解优先于接口上的注解
+     * @param method         被调用的方法（可能是接口方法）
+     * @param targetClass    目标类，可以为 null
+     * @param annotationType 注解类型
+     * @return 找到的注解，没有时返回 null
+     */
+    public static <A extends Annotation> A findAnnotation(Method method, Class<?> targetClass, Class<A> annotationType) {
+        if (null == targetClass) {
+            return method.getAnnotation(annotationType);
+        }
+        // 1. 目标类上的同签名方法
+        Method specificMethod = findMethod(targetClass, method);
+        if (null != specificMethod) {
+            A annotation = specificMethod.getAnnotation(annotationType);
+            if (null != annotation) return annotation;
+        }
+
+        // 2. 方法本身
+        A annotation = method.getAnnotation(annotationType);
+        if (null != annotation) return annotation;
+
+        // 3. 目标类及其父类实现的接口
+        for (Class<?> clazz = targetClass; null != clazz && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Class<?> ifc : clazz.getInterfaces()) {
+                Method ifcMethod = findMethod(ifc, method);
+                if (null != ifcMethod) {
+                    annotation = ifcMethod.getAnnotation(annotationType);
+                    if (null != annotation) return annotation;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 类的公有方法（包括接口上声明的）中是否有标注了指定注解的方法，用作切点的类过滤条件
+     */
+    public static boolean hasAnnotatedMethod(Class<?> clazz, Class<? extends Annotation> annotationType) {
+        for (Method method : clazz.getMethods()) {
+            if (method.getDeclaringClass() != Object.class && null != findAnnotation(method, clazz, annotationType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Method findMethod(Class<?> clazz, Method method) {
+        try {
+            return clazz.getMethod(method.getName(), method.getParameterTypes());
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.miniSpring.scheduling;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 异步任务执行器
+ */
+public interface AsyncTaskExecutor extends Executor {
+
+    /**
+     * 提交任务
+     * @return 任务结果；对其 cancel(true) 会中断正在执行任务的线程
+     * @throws java.util.concurrent.RejectedExecutionException 执行器已关闭或队列已满
+     */
+    <T> CompletableFuture<T> submit(Callable<T> task);
+
+}
@@ -0,0 +1,18 @@
+package com.miniSpring.scheduling.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 异步执行注解。
+ *
+ * 被标注的方法通过代理调用时，调用被提交到异步执行器，调用方立即返回：
+ *  - 返回 void：调用方得不到结果，方法抛出的异常只记录到执行器的失败统计并打印
+ *  - 返回 Future / CompletionStage / CompletableFuture：调用方得到一个 CompletableFuture，
+ *    方法本身返回的 Future 完成后以其结果完成（方法体中通常 return CompletableFuture.completedFuture(value)）
+ * 其他返回类型不能异步执行，调用时抛出异常。可以标注在实现类的方法上，也可以标注在接口方法上。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Async {
+}
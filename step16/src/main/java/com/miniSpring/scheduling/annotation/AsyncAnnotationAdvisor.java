@@ -0,0 +1,98 @@
+package com.miniSpring.scheduling.annotation;
+
+import com.miniSpring.aop.ClassFilter;
+import com.miniSpring.aop.MethodMatcher;
+import com.miniSpring.aop.Pointcut;
+import com.miniSpring.aop.PointcutAdvisor;
+import com.miniSpring.aop.interceptor.AsyncExecutionInterceptor;
+import com.miniSpring.aop.interceptor.AsyncUncaughtExceptionHandler;
+import com.miniSpring.core.Ordered;
+import com.miniSpring.core.annotation.AnnotationUtils;
+import com.miniSpring.scheduling.AsyncTaskExecutor;
+import org.aopalliance.aop.Advice;
+
+import java.lang.reflect.Method;
+
+/**
+ * 匹配 @Async 方法的通知器，声明为 Bean 后由 DefaultAdvisorAutoProxyCreator 自动应用：
+ * <pre>
+ * &lt;bean id="asyncExecutor" class="com.miniSpring.scheduling.concurrent.ManagedTaskExecutor"/&gt;
+ * &lt;bean class="com.miniSpring.scheduling.annotation.AsyncAnnotationAdvisor"&gt;
+ *     &lt;property name="executor" ref="asyncExecutor"/&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ * 默认优先级最高，其他通知在异步线程中执行。
+ */
+public class AsyncAnnotationAdvisor implements PointcutAdvisor, Ordered {
+
+    private final AsyncExecutionInterceptor interceptor = new AsyncExecutionInterceptor();
+
+    private final Pointcut pointcut = new AsyncAnnotationPointcut();
+
+    private int order = Integer.MIN_VALUE;
+
+    @Override
+    public Pointcut getPointcut() {
+        return pointcut;
+    }
+
+    @Override
+    public Advice getAdvice() {
+        return interceptor;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    public void setOrder(int order) {
+        this.order = order;
+    }
+
+    public AsyncTaskExecutor getExecutor() {
+        return interceptor.getExecutor();
+    }
+
+    public void setExecutor(AsyncTaskExecutor executor) {
+        interceptor.setExecutor(executor);
+    }
+
+    public AsyncUncaughtExceptionHandler getExceptionHandler() {
+        return interceptor.getExceptionHandler();
+    }
+
+    /**
+     * 返回 void 的 @Async 方法抛出异常时的处理器，默认记录日志
+     */
+    public void setExceptionHandler(AsyncUncaughtExceptionHandler exceptionHandler) {
+        interceptor.setExceptionHandler(exceptionHandler);
+    }
+
+    /**
+     * 匹配声明了 @Async 的方法，以及有这类方法的类
+     */
+    private static final class AsyncAnnotationPointcut implements Pointcut, ClassFilter, MethodMatcher {
+
+        @Override
+        public ClassFilter getClassFilter() {
+            return this;
+        }
+
+        @Override
+        public MethodMatcher getMethodMatcher() {
+            return this;
+        }
+
+        @Override
+        public boolean matches(Class<?> clazz) {
+            return AnnotationUtils.hasAnnotatedMethod(clazz, Async.class);
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return null != AnnotationUtils.findAnnotation(method, targetClass, Async.class);
+        }
+    }
+
+}
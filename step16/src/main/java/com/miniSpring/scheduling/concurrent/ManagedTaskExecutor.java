@@ -0,0 +1,345 @@
+package com.miniSpring.scheduling.concurrent;
+
+import com.miniSpring.context.ApplicationListener;
+import com.miniSpring.context.event.ContextClosedEvent;
+import com.miniSpring.scheduling.AsyncTaskExecutor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 由容器管理生命周期的异步执行器，容器关闭（ContextClosedEvent）时停止接收任务并等待已提交的任务完成。
+ *
+ * 配置项（均可在 XML 中通过 property 设置）：
+ *  - poolSize：小于等于 0 时每个任务一个虚拟线程（运行环境不支持虚拟线程时退化为每个任务一个平台线程，
+ *    适合 I/O 密集的任务）；大于 0 时使用固定大小的线程池，默认 0
+ *  - queueCapacity：线程池的等待队列容量，队列满时提交失败，默认 1000（poolSize 大于 0 时有效）
+ *  - threadNamePrefix：线程名前缀，默认 "async-"
+ *  - awaitTerminationMillis：关闭时等待已提交任务完成的最长时间，超时后中断仍在执行的任务，默认 10 秒
+ *
+ * 统计：提交、完成、失败、拒绝次数，排队中/执行中的任务数量，排队等待时间和执行时间。
+ * 排队中指已提交但还没有线程开始执行，虚拟线程模式下也会短暂出现。
+ */
+public class ManagedTaskExecutor implements ApplicationListener<ContextClosedEvent>, AsyncTaskExecutor {
+
+    private int poolSize = 0;
+
+    private int queueCapacity = 1000;
+
+    private String threadNamePrefix = "async-";
+
+    private long awaitTerminationMillis = 10_000;
+
+    private volatile ExecutorService executor;
+
+    private volatile boolean virtualThreads;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    private final LongAccumulator maxQueueDepth = new LongAccumulator(Long::max, 0);
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private final LongAdder submittedCount = new LongAdder();
+
+    private final LongAdder completedCount = new LongAdder();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private final LongAdder totalQueueNanos = new LongAdder();
+
+    private final LongAdder totalExecutionNanos = new LongAdder();
+
+    private final LongAccumulator maxExecutionNanos = new LongAccumulator(Long::max, 0);
+
+    @Override
+    public void execute(Runnable task) {
+        ExecutorService executor = getExecutor();
+        long submitTime = System.nanoTime();
+        maxQueueDepth.accumulate(queueDepth.incrementAndGet());
+        try {
+            executor.execute(() -> runTask(task, submitTime));
+            submittedCount.increment();
+        } catch (RejectedExecutionException e) {
+            queueDepth.decrementAndGet();
+            rejectedCount.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        TaskFuture<T> future = new TaskFuture<>(task);
+        execute(future);
+        return future;
+    }
+
+    private void runTask(Runnable task, long submitTime) {
+        long startTime = System.nanoTime();
+        queueDepth.decrementAndGet();
+        totalQueueNanos.add(startTime - submitTime);
+        activeCount.incrementAndGet();
+        try {
+            task.run();
+        } catch (RuntimeException | Error e) {
+            failedCount.increment();
+            throw e;
+        } finally {
+            long executionNanos = System.nanoTime() - startTime;
+            totalExecutionNanos.add(executionNanos);
+            maxExecutionNanos.accumulate(executionNanos);
+            activeCount.decrementAndGet();
+            completedCount.increment();
+        }
+    }
+
+    /**
+     * 容器关闭时停止执行器
+     */
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        shutdown();
+    }
+
+    /**
+     * 停止接收新任务，等待已提交的任务完成，超时后中断仍在执行的任务
+     */
+    public void shutdown() {
+        ExecutorService executor = this.executor;
+        if (null == executor || executor.isShutdown()) return;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(awaitTerminationMillis, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isShutdown() {
+        ExecutorService executor = this.executor;
+        return null != executor && executor.isShutdown();
+    }
+
+    private ExecutorService getExecutor() {
+        ExecutorService executor = this.executor;
+        if (null == executor) {
+            synchronized (this) {
+                executor = this.executor;
+                if (null == executor) {
+                    executor = createExecutor();
+                    this.executor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private ExecutorService createExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        if (poolSize > 0) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), task -> newPlatformThread(task, threadNumber));
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+        ExecutorService virtualExecutor = newVirtualThreadPerTaskExecutor();
+        if (null != virtualExecutor) {
+            virtualThreads = true;
+            return virtualExecutor;
+        }
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), task -> newPlatformThread(task, threadNumber));
+    }
+
+    private Thread newPlatformThread(Runnable task, AtomicInteger threadNumber) {
+        Thread thread = new Thread(task, threadNamePrefix + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器，编译目标为 Java 11，运行在 Java 21 及以上时才可用
+     * @return 不支持虚拟线程时返回 null
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // ========== 统计 ==========
+
+    /**
+     * 是否使用虚拟线程执行任务（执行器在第一次提交任务时创建）
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * 已提交但还没有开始执行的任务数量
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * 正在执行的任务数量
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.sum();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.sum();
+    }
+
+    /**
+     * 执行失败（抛出异常）的任务数量
+     */
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * 因执行器关闭或队列已满被拒绝的任务数量
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * 已开始执行的任务的平均排队时间（毫秒）
+     */
+    public double getAverageQueueMillis() {
+        long started = completedCount.sum() + activeCount.get();
+        return started == 0 ? 0 : totalQueueNanos.sum() / 1_000_000.0 / started;
+    }
+
+    /**
+     * 已完成任务的平均执行时间（毫秒）
+     */
+    public double getAverageExecutionMillis() {
+        long completed = completedCount.sum();
+        return completed == 0 ? 0 : totalExecutionNanos.sum() / 1_000_000.0 / completed;
+    }
+
+    public double getMaxExecutionMillis() {
+        return maxExecutionNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return "ManagedTaskExecutor{" + (poolSize > 0 ? "poolSize=" + poolSize : virtualThreads ? "virtual" : "thread-per-task")
+                + ", submitted=" + getSubmittedCount() + ", completed=" + getCompletedCount()
+                + ", failed=" + getFailedCount() + ", rejected=" + getRejectedCount()
+                + ", queueDepth=" + getQueueDepth() + ", maxQueueDepth=" + getMaxQueueDepth()
+                + String.format(", avgQueue=%.3fms, avgExecution=%.3fms, maxExecution=%.3fms}",
+                getAverageQueueMillis(), getAverageExecutionMillis(), getMaxExecutionMillis());
+    }
+
+    // ========== getter/setter ==========
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be at least 1");
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    public String getThreadNamePrefix() {
+        return threadNamePrefix;
+    }
+
+    public void setThreadNamePrefix(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+    }
+
+    public long getAwaitTerminationMillis() {
+        return awaitTerminationMillis;
+    }
+
+    public void setAwaitTerminationMillis(long awaitTerminationMillis) {
+        this.awaitTerminationMillis = awaitTerminationMillis;
+    }
+
+    /**
+     * 提交给执行器的任务及其结果；取消时中断正在执行该任务的线程
+     */
+    private final class TaskFuture<T> extends CompletableFuture<T> implements Runnable {
+
+        private final Callable<T> task;
+
+        // 正在执行任务的线程，只在持有本对象锁时读写
+        private Thread runner;
+
+        TaskFuture(Callable<T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (isDone()) return;
+                runner = Thread.currentThread();
+            }
+            try {
+                complete(task.call());
+            } catch (Throwable e) {
+                failedCount.increment();
+                completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                }
+                // 清除取消时可能留下的中断标记，线程池中的线程还会执行其他任务
+                Thread.interrupted();
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && mayInterruptIfRunning) {
+                synchronized (this) {
+                    if (null != runner) {
+                        runner.interrupt();
+                    }
+                }
+            }
+            return cancelled;
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.miniSpring.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 记录最近一段时间耗时分布的直方图，用于在线估算 p95 等分位数。
+ *
+ * 桶按 2 的幂分段，每段再均分为 8 个子桶，相对误差不超过 12.5%，覆盖 0 ~ 2^40 纳秒（约 18 分钟），
+ * 更大的值计入最后一个桶。记录只需要一次原子自增，不加锁。
+ * 只保留最近两个时间窗口的数据：当前窗口写满 windowMillis 后成为上一个窗口，更早的数据被丢弃，
+ * 因此分位数反映的是最近的耗时情况。
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_EXPONENT = 40;
+
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final long windowNanos;
+
+    private volatile Window current;
+
+    private volatile Window previous;
+
+    public LatencyHistogram(long windowMillis) {
+        this.windowNanos = windowMillis * 1_000_000L;
+        long now = System.nanoTime();
+        this.current = new Window(now);
+        this.previous = new Window(now - windowNanos);
+    }
+
+    /**
+     * 记录一次耗时
+     */
+    public void record(long nanos) {
+        Window window = currentWindow(System.nanoTime());
+        window.counts.incrementAndGet(bucketIndex(Math.max(0, nanos)));
+        window.total.increment();
+    }
+
+    /**
+     * 最近两个窗口内的样本数量
+     */
+    public long getCount() {
+        long now = System.nanoTime();
+        Window window = currentWindow(now);
+        Window last = previous;
+        return window.total.sum() + (isLive(last, now) ? last.total.sum() : 0);
+    }
+
+    /**
+     * 估算分位数
+     * @param percentile 0 ~ 100
+     * @return 分位数所在桶的上界（纳秒），没有样本时返回 0
+     */
+    public long percentile(double percentile) {
+        long now = System.nanoTime();
+        Window window = currentWindow(now);
+        Window last = isLive(previous, now) ? previous : null;
+        long total = window.total.sum() + (null != last ? last.total.sum() : 0);
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += window.counts.get(i) + (null != last ? last.counts.get(i) : 0);
+            if (seen >= rank) {
+                return bucketUpperBound(i);
+            }
+        }
+        return bucketUpperBound(BUCKET_COUNT - 1);
+    }
+
+    private Window currentWindow(long now) {
+        Window window = current;
+        if (now - window.startNanos < windowNanos) {
+            return window;
+        }
+        synchronized (this) {
+            window = current;
+            if (now - window.startNanos >= windowNanos) {
+                previous = window;
+                window = new Window(now);
+                current = window;
+            }
+            return window;
+        }
+    }
+
+    private boolean isLive(Window window, long now) {
+        return now - window.startNanos < 2 * windowNanos;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * 一个时间窗口内各个桶的样本数量
+     */
+    private static final class Window {
+
+        private final long startNanos;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+        private final LongAdder total = new LongAdder();
+
+        Window(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.miniSpring.util;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * 按（目标类, 方法）缓存从注解解析出的方法配置，供各个注解驱动的通知共用。
+ *
+ * 两级查找（目标类 -> 方法 -> 值），调用路径上不需要为每次调用创建组合键；
+ * 第一级是 ClassValue，缓存挂在目标类自身上，不会阻止目标类及其类加载器卸载。
+ * 解析结果为 null（方法没有对应的注解）同样被缓存。
+ *
+ * @param <V> 缓存的配置类型
+ */
+public class MethodAttributeCache<V> {
+
+    // 解析结果为 null 时缓存的占位对象
+    private static final Object NONE = new Object();
+
+    private final ClassValue<Map<Method, Object>> cache = new ClassValue<Map<Method, Object>>() {
+        @Override
+        protected Map<Method, Object> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final BiFunction<Method, Class<?>, V> resolver;
+
+    /**
+     * @param resolver 缓存未命中时解析方法配置，没有配置时返回 null；抛出的异常不会被缓存
+     */
+    public MethodAttributeCache(BiFunction<Method, Class<?>, V> resolver) {
+        this.resolver = resolver;
+    }
+
+    /**
+     * 获取方法在目标类上的配置，没有时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Method method, Class<?> targetClass) {
+        Map<Method, Object> valuesByMethod = cache.get(targetClass);
+        Object value = valuesByMethod.get(method);
+        if (null == value) {
+            value = valuesByMethod.computeIfAbsent(method, key -> {
+                V resolved = resolver.apply(method, targetClass);
+                return null != resolved ? resolved : NONE;
+            });
+        }
+        return value == NONE ? null : (V) value;
+    }
+
+}
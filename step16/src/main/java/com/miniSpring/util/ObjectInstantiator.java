@@ -0,0 +1,88 @@
+package com.miniSpring.util;
+
+import com.miniSpring.beans.BeansException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * 不执行构造函数的实例化工具（Objenesis 的思路），用于创建代理类实例。
+ *
+ * 代理实例只负责把调用转发给已经创建好的目标对象，不需要、也不应该再执行一遍目标类的构造逻辑。
+ * 通过 sun.reflect.ReflectionFactory 为类生成一个只调用 Object() 的“序列化构造函数”，
+ * 用它创建的实例不会执行类自身及其父类（Object 除外）的任何构造函数和字段初始化。
+ *
+ * ReflectionFactory 通过反射查找，当前 JVM 不提供时 newInstance 返回 null，
+ * 由调用方退回正常执行构造函数的创建方式；JVM 支持但某个类实例化失败时抛出带原始原因的 BeansException。
+ */
+public final class ObjectInstantiator {
+
+    // sun.reflect.ReflectionFactory 实例及其 newConstructorForSerialization 方法，不可用时为 null
+    private static final Object reflectionFactory;
+
+    private static final Method newConstructorForSerialization;
+
+    /**
+     * 类 -> 跳过构造函数的实例化构造器。
+     * 用 ClassValue 挂在类自身上，代理类及其类加载器不会因为缓存而无法卸载；生成失败时不缓存，异常抛给调用方。
+     */
+    private static final ClassValue<Constructor<?>> constructorCache = new ClassValue<Constructor<?>>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> type) {
+            try {
+                Constructor<?> constructor = (Constructor<?>) newConstructorForSerialization.invoke(reflectionFactory, type, Object.class.getDeclaredConstructor());
+                constructor.setAccessible(true);
+                return constructor;
+            } catch (InvocationTargetException ex) {
+                throw new BeansException("Cannot create constructor-bypassing instantiator for [" + type.getName() + "]", ex.getTargetException());
+            } catch (ReflectiveOperationException | RuntimeException | LinkageError ex) {
+                throw new BeansException("Cannot create constructor-bypassing instantiator for [" + type.getName() + "]", ex);
+            }
+        }
+    };
+
+    static {
+        Object factory = null;
+        Method method = null;
+        try {
+            Class<?> factoryClass = Class.forName("sun.reflect.ReflectionFactory");
+            factory = factoryClass.getMethod("getReflectionFactory").invoke(null);
+            method = factoryClass.getMethod("newConstructorForSerialization", Class.class, Constructor.class);
+        } catch (Throwable ex) {
+            // 非 HotSpot/OpenJDK 或模块不可用，退回执行构造函数的方式
+            factory = null;
+            method = null;
+        }
+        reflectionFactory = factory;
+        newConstructorForSerialization = method;
+    }
+
+    private ObjectInstantiator() {
+    }
+
+    /**
+     * 当前 JVM 是否支持跳过构造函数创建实例
+     */
+    public static boolean isConstructorBypassAvailable() {
+        return null != newConstructorForSerialization;
+    }
+
+    /**
+     * 不执行构造函数创建 clazz 的实例；当前 JVM 不支持时返回 null，支持但实例化失败时抛出 BeansException
+     */
+    public static <T> T newInstance(Class<T> clazz) throws BeansException {
+        if (!isConstructorBypassAvailable()) {
+            return null;
+        }
+        Constructor<?> constructor = constructorCache.get(clazz);
+        try {
+            return clazz.cast(constructor.newInstance());
+        } catch (InvocationTargetException ex) {
+            throw new BeansException("Failed to instantiate [" + clazz.getName() + "] without invoking its constructor", ex.getTargetException());
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError ex) {
+            throw new BeansException("Failed to instantiate [" + clazz.getName() + "] without invoking its constructor", ex);
+        }
+    }
+
+}
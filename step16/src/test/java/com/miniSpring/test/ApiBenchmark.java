@@ -0,0 +1,140 @@
+package com.miniSpring.test;
+
+import com.miniSpring.aop.framework.MethodHandleInvoker;
+import com.miniSpring.beans.factory.config.BeanDefinition;
+import com.miniSpring.beans.factory.support.DefaultListableBeanFactory;
+import com.miniSpring.test.bean.UserDao;
+import com.miniSpring.test.bean.UserService;
+import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.MethodProxy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 吞吐对比的微基准，不属于单元测试（surefire 不会执行），需要时通过 main 方法手动运行。
+ * 每项基准跑多轮并逐轮输出，前几轮包含 JIT 预热，结果只作为相对比较的参考。
+ */
+public class ApiBenchmark {
+
+    public static void main(String[] args) throws Throwable {
+        getBeanFastPath();
+        joinpointInvocation();
+        generatedInterfaceProxy();
+    }
+
+    /**
+     * 单例已创建后 getBean 快速路径（一级缓存命中）在不同线程数下的吞吐
+     */
+    static void getBeanFastPath() throws Exception {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("userDao", new BeanDefinition(UserDao.class));
+        beanFactory.getBean("userDao");
+
+        int threads = 32;
+        int callsPerThread = 1_000_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int n = 1; n <= threads; n *= 2) {
+            int parallelism = n;
+            CountDownLatch done = new CountDownLatch(parallelism);
+            long begin = System.nanoTime();
+            for (int i = 0; i < parallelism; i++) {
+                executor.execute(() -> {
+                    for (int j = 0; j < callsPerThread; j++) {
+                        beanFactory.getBean("userDao");
+                    }
+                    done.countDown();
+                });
+            }
+            done.await();
+            long elapsed = System.nanoTime() - begin;
+            System.out.println("getBean 快速路径: " + parallelism + " 线程, "
+                    + (long) (parallelism * (double) callsPerThread * 1_000_000_000L / elapsed) + " ops/s");
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * 拦截器链末端调用目标方法的三种方式：Method.invoke、MethodHandle、CGLIB MethodProxy
+     */
+    static void joinpointInvocation() throws Throwable {
+        UserService target = new UserService();
+        target.setToken("token");
+        Method getToken = UserService.class.getMethod("getToken");
+        MethodHandle handle = MethodHandleInvoker.forMethod(getToken);
+
+        AtomicReference<MethodProxy> methodProxyRef = new AtomicReference<>();
+        Enhancer enhancer = new Enhancer();
+        enhancer.setSuperclass(UserService.class);
+        enhancer.setCallback((net.sf.cglib.proxy.MethodInterceptor) (obj, method, args, methodProxy) -> {
+            methodProxyRef.set(methodProxy);
+            return methodProxy.invoke(target, args);
+        });
+        ((UserService) enhancer.create()).getToken();
+        MethodProxy methodProxy = methodProxyRef.get();
+
+        // sink 累加返回值，防止 JIT 把调用当作死代码消除
+        int calls = 20_000_000;
+        long sink = 0;
+        for (int round = 0; round < 5; round++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                sink += ((String) getToken.invoke(target)).length();
+            }
+            long reflective = System.nanoTime() - begin;
+
+            begin = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                sink += ((String) MethodHandleInvoker.invoke(handle, target, null)).length();
+            }
+            long methodHandle = System.nanoTime() - begin;
+
+            begin = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                sink += ((String) methodProxy.invoke(target, null)).length();
+            }
+            long cglib = System.nanoTime() - begin;
+
+            System.out.println("目标方法调用 第" + (round + 1) + "轮: Method.invoke " + calls * 1_000_000_000L / reflective
+                    + " ops/s, MethodHandle " + calls * 1_000_000_000L / methodHandle
+                    + " ops/s, MethodProxy " + calls * 1_000_000_000L / cglib + " ops/s");
+        }
+        System.out.println("sink=" + sink);
+    }
+
+    /**
+     * 基本类型签名下 JDK 动态代理与生成的接口代理类的吞吐对比
+     */
+    static void generatedInterfaceProxy() {
+        AtomicInteger adviceCount = new AtomicInteger();
+        ApiTest.PrimitiveCalculator jdkProxy = ApiTest.primitiveCalculatorProxy(adviceCount, false);
+        ApiTest.PrimitiveCalculator generatedProxy = ApiTest.primitiveCalculatorProxy(adviceCount, true);
+
+        // sink 防止调用被当作死代码消除
+        int calls = 10_000_000;
+        double sink = 0;
+        for (int round = 0; round < 5; round++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                sink += jdkProxy.add(i, 1) + jdkProxy.scale(i, 0.5f);
+            }
+            long jdk = System.nanoTime() - begin;
+
+            begin = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                sink += generatedProxy.add(i, 1) + generatedProxy.scale(i, 0.5f);
+            }
+            long generated = System.nanoTime() - begin;
+
+            System.out.println("接口代理调用 第" + (round + 1) + "轮: JDK Proxy " + calls * 1_000_000_000L / jdk
+                    + " ops/s, 生成的代理类 " + calls * 1_000_000_000L / generated + " ops/s");
+        }
+        System.out.println("sink=" + sink);
+    }
+
+}
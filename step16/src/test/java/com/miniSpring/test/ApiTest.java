@@ -1,10 +1,107 @@
 package com.miniSpring.test;
 
+import com.miniSpring.aop.AdvisedSupport;
+import com.miniSpring.aop.MethodAfterAdvice;
+import com.miniSpring.aop.MethodAroundAdvice;
+import com.miniSpring.aop.MethodBeforeAdvice;
+import com.miniSpring.aop.PointcutAdvisor;
+import com.miniSpring.aop.TargetSource;
+import com.miniSpring.aop.annotation.CollapseAnnotationAdvisor;
+import com.miniSpring.aop.annotation.Hedged;
+import com.miniSpring.aop.annotation.HedgedAnnotationAdvisor;
+import com.miniSpring.aop.interceptor.AsyncUncaughtExceptionHandler;
+import com.miniSpring.aop.interceptor.HedgingInterceptor;
+import com.miniSpring.aop.interceptor.RequestCollapsingInterceptor;
+import com.miniSpring.aop.target.PoolingTargetSource;
+import com.miniSpring.aop.target.SingletonTargetSource;
+import com.miniSpring.aop.target.ThreadLocalTargetSource;
+import com.miniSpring.aop.aspectj.AspectJExpressionPointcut;
+import com.miniSpring.aop.aspectj.AspectJExpressionPointcutAdvisor;
+import com.miniSpring.aop.framework.FusedInterceptorChain;
+import com.miniSpring.aop.framework.MethodHandleInvoker;
+import com.miniSpring.aop.framework.MethodInvocations;
+import com.miniSpring.aop.framework.ProxyFactory;
+import com.miniSpring.aop.framework.autoproxy.DefaultAdvisorAutoProxyCreator;
+import com.miniSpring.beans.BeansException;
+import com.miniSpring.beans.PropertyInjector;
+import com.miniSpring.beans.PropertyValues;
+import com.miniSpring.beans.factory.annotation.Autowired;
+import com.miniSpring.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import com.miniSpring.beans.factory.annotation.InjectionMetadata;
+import com.miniSpring.beans.factory.annotation.Lazy;
+import com.miniSpring.beans.factory.annotation.Qualifier;
+import com.miniSpring.beans.factory.annotation.Value;
+import com.miniSpring.beans.factory.config.BeanDefinition;
+import com.miniSpring.beans.factory.config.BeanPostProcessor;
+import com.miniSpring.beans.factory.support.DefaultListableBeanFactory;
+import com.miniSpring.cache.Cache;
+import com.miniSpring.cache.CacheStats;
+import com.miniSpring.cache.support.OffHeapCache;
+import com.miniSpring.cache.support.TieredCache;
+import com.miniSpring.cache.support.TinyLfuCache;
+import com.miniSpring.cache.support.TinyLfuCacheManager;
 import com.miniSpring.context.support.ClassPathXmlApplicationContext;
+import com.miniSpring.scheduling.annotation.Async;
+import com.miniSpring.scheduling.annotation.AsyncAnnotationAdvisor;
+import com.miniSpring.scheduling.concurrent.ManagedTaskExecutor;
+import com.miniSpring.test.bean.Buffer;
+import com.miniSpring.test.bean.Command;
+import com.miniSpring.test.bean.CommandManager;
+import com.miniSpring.test.bean.CountingPriceCatalog;
+import com.miniSpring.test.bean.CountingUserLookup;
+import com.miniSpring.test.bean.FlakyQuoteService;
 import com.miniSpring.test.bean.IUserService;
+import com.miniSpring.test.bean.LogBeforeAdvice;
+import com.miniSpring.test.bean.PriceCatalog;
+import com.miniSpring.test.bean.QuoteService;
+import com.miniSpring.test.bean.RecordingAsyncExceptionHandler;
+import com.miniSpring.test.bean.ReportRenderer;
+import com.miniSpring.test.bean.SequenceBuffer;
+import com.miniSpring.test.bean.SlowReportRenderer;
 import com.miniSpring.test.bean.TempService;
+import com.miniSpring.test.bean.UserDao;
+import com.miniSpring.test.bean.UserLookup;
+import com.miniSpring.test.bean.UserService;
+import com.miniSpring.util.ObjectInstantiator;
+import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.MethodProxy;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.aspectj.weaver.tools.PointcutExpression;
+import org.aspectj.weaver.tools.PointcutParser;
+import org.aspectj.weaver.tools.PointcutPrimitive;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.ref.WeakReference;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
 
 
 public class ApiTest {
@@ -18,4 +115,1848 @@ public class ApiTest {
         userService.useTempService();
     }
 
+    @Test
+    public void test_parallelPreInstantiation() throws Exception {
+        ClassPathXmlApplicationContext applicationContext = new ClassPathXmlApplicationContext();
+        applicationContext.setConfigLocations("classpath:spring.xml");
+        applicationContext.setPreInstantiationParallelism(4);
+        applicationContext.refresh();
+
+        // 并行预实例化后单例仍唯一，且循环依赖两端都注入了容器中的同一实例
+        IUserService userService = applicationContext.getBean("userService", IUserService.class);
+        TempService tempService = (TempService) applicationContext.getBean("tempService");
+        Assertions.assertSame(userService, applicationContext.getBean("userService"));
+        Assertions.assertSame(tempService, applicationContext.getBean("tempService"));
+        Assertions.assertSame(userService, readField(tempService, "userService"));
+        Assertions.assertNotNull(userService.queryUserInfo());
+        // userService 经过代理，通过调用确认其 tempService 已注入
+        userService.useTempService();
+
+        // 互不依赖的 Bean 必须真正在多个线程上创建：前两个 Bean 互相等待，串行创建时会超时
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        for (int i = 0; i < 4; i++) {
+            beanFactory.registerBeanDefinition("userDao" + i, new BeanDefinition(UserDao.class));
+        }
+        CountDownLatch overlap = new CountDownLatch(2);
+        Set<Thread> creationThreads = ConcurrentHashMap.newKeySet();
+        beanFactory.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+                creationThreads.add(Thread.currentThread());
+                overlap.countDown();
+                try {
+                    overlap.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                return bean;
+            }
+        });
+        beanFactory.setPreInstantiationParallelism(4);
+        beanFactory.preInstantiateSingletons();
+
+        Assertions.assertEquals(0, overlap.getCount());
+        Assertions.assertTrue(creationThreads.size() > 1);
+        Assertions.assertFalse(creationThreads.contains(Thread.currentThread()));
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertSame(beanFactory.getBean("userDao" + i), beanFactory.getBean("userDao" + i));
+        }
+    }
+
+    private static Object readField(Object target, String fieldName) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+
+    @Test
+    public void test_lazyInit() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        BeanDefinition lazyDefinition = new BeanDefinition(UserDao.class);
+        lazyDefinition.setLazyInit(true);
+        beanFactory.registerBeanDefinition("lazyUserDao", lazyDefinition);
+        beanFactory.registerBeanDefinition("userDao", new BeanDefinition(UserDao.class));
+
+        List<String> createdBeans = new ArrayList<>();
+        beanFactory.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+                createdBeans.add(beanName);
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                return bean;
+            }
+        });
+
+        // 懒加载的单例不参与预实例化，第一次 getBean 时才创建
+        beanFactory.preInstantiateSingletons();
+        Assertions.assertEquals(List.of("userDao"), createdBeans);
+        beanFactory.getBean("lazyUserDao");
+        Assertions.assertEquals(List.of("userDao", "lazyUserDao"), createdBeans);
+    }
+
+    @Test
+    public void test_beanPostProcessorSnapshot() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("first", new BeanDefinition(UserDao.class));
+        beanFactory.registerBeanDefinition("second", new BeanDefinition(UserDao.class));
+
+        List<String> lateProcessed = new ArrayList<>();
+        BeanPostProcessor lateProcessor = new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+                lateProcessed.add("before:" + beanName);
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                lateProcessed.add("after:" + beanName);
+                return bean;
+            }
+        };
+        // 第一个 Bean 初始化时才注册 lateProcessor
+        beanFactory.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+                beanFactory.addBeanPostProcessor(lateProcessor);
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                return bean;
+            }
+        });
+        List<BeanPostProcessor> snapshot = beanFactory.getBeanPostProcessors();
+
+        // 创建中途注册的处理器不作用于正在创建的 Bean（包括其初始化后阶段），只作用于之后创建的 Bean
+        beanFactory.getBean("first");
+        Assertions.assertEquals(Collections.emptyList(), lateProcessed);
+        beanFactory.getBean("second");
+        Assertions.assertEquals(List.of("before:second", "after:second"), lateProcessed);
+
+        // getBeanPostProcessors 返回的是只读快照
+        Assertions.assertEquals(1, snapshot.size());
+        Assertions.assertEquals(2, beanFactory.getBeanPostProcessors().size());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.add(lateProcessor));
+    }
+
+    @Test
+    public void test_lifecycleMethodValidation() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        BeanDefinition beanDefinition = new BeanDefinition(UserDao.class);
+        beanDefinition.setInitMethodName("noSuchInitMethod");
+
+        // 生命周期方法不存在时，注册 Bean 定义就应失败，而不是等到创建 Bean
+        Assertions.assertThrows(BeansException.class, () -> beanFactory.registerBeanDefinition("userDao", beanDefinition));
+        Assertions.assertFalse(beanFactory.containsBeanDefinition("userDao"));
+    }
+
+    @Test
+    public void test_interceptorChainCache() throws Exception {
+        AspectJExpressionPointcutAdvisor advisor = new AspectJExpressionPointcutAdvisor();
+        advisor.setExpression("execution(* com.miniSpring.test.bean.IUserService.queryUserInfo(..))");
+        advisor.setAdvice(new LogBeforeAdvice());
+
+        AdvisedSupport advisedSupport = new AdvisedSupport();
+        advisedSupport.setTargetSource(new SingletonTargetSource(new UserService()));
+        advisedSupport.addAdvisor(advisor);
+
+        // 同一方法的拦截器链只计算一次，之后直接复用
+        Method queryUserInfo = IUserService.class.getMethod("queryUserInfo");
+        MethodInterceptor[] chain = advisedSupport.getInterceptors(queryUserInfo);
+        Assertions.assertEquals(1, chain.length);
+        Assertions.assertSame(chain, advisedSupport.getInterceptors(queryUserInfo));
+        Assertions.assertEquals(0, advisedSupport.getInterceptors(IUserService.class.getMethod("useTempService")).length);
+
+        // Advisor 变化后缓存失效
+        advisedSupport.addAdvisor(advisor);
+        Assertions.assertEquals(2, advisedSupport.getInterceptors(queryUserInfo).length);
+
+        // Advisor 列表只能经由 addAdvisor/setAdvisors 修改，绕过它们的修改不会留下过期的拦截器链
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> advisedSupport.getAdvisors().add(advisor));
+        List<PointcutAdvisor> source = new ArrayList<>(Collections.nCopies(2, advisor));
+        advisedSupport.setAdvisors(source);
+        source.add(advisor);
+        Assertions.assertEquals(2, advisedSupport.getAdvisors().size());
+        Assertions.assertEquals(2, advisedSupport.getInterceptors(queryUserInfo).length);
+
+        // 与 Advisor 变更并发的查询不能把旧的拦截器链重新写回缓存
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        CountDownLatch changed = new CountDownLatch(1);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            readers.add(executor.submit(() -> {
+                while (changed.getCount() > 0) {
+                    advisedSupport.getInterceptors(queryUserInfo);
+                }
+            }));
+        }
+        for (int i = 0; i < 200; i++) {
+            advisedSupport.setAdvisors(new ArrayList<>(Collections.nCopies(i % 3, advisor)));
+        }
+        advisedSupport.setAdvisors(new ArrayList<>(Collections.nCopies(3, advisor)));
+        changed.countDown();
+        for (Future<?> reader : readers) {
+            reader.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        Assertions.assertEquals(3, advisedSupport.getInterceptors(queryUserInfo).length);
+    }
+
+    @Test
+    public void test_aspectJExpressionCache() throws Exception {
+        String expression = "execution(* com.miniSpring.test.bean.UserService.*(..))";
+        AspectJExpressionPointcut first = new AspectJExpressionPointcut(expression);
+        AspectJExpressionPointcut second = new AspectJExpressionPointcut(expression);
+
+        // 相同 (表达式, 类加载器) 只解析一次，多个切点实例共享解析结果
+        Field parsedExpression = AspectJExpressionPointcut.class.getDeclaredField("parsedExpression");
+        parsedExpression.setAccessible(true);
+        Assertions.assertSame(parsedExpression.get(first), parsedExpression.get(second));
+        Assertions.assertNotSame(parsedExpression.get(first),
+                parsedExpression.get(new AspectJExpressionPointcut("execution(* com.miniSpring.test.bean.UserDao.*(..))")));
+
+        // 类过滤
+        Assertions.assertTrue(first.matches(UserService.class));
+        Assertions.assertFalse(first.matches(UserDao.class));
+
+        // 按声明类快速排除不能改变匹配结论：与直接用 AspectJ 计算 ShadowMatch 的结果逐个比较
+        PointcutExpression raw = PointcutParser
+                .getPointcutParserSupportingSpecifiedPrimitivesAndUsingSpecifiedClassLoaderForResolution(
+                        Collections.singleton(PointcutPrimitive.EXECUTION), getClass().getClassLoader())
+                .parsePointcutExpression(expression);
+        int matched = 0;
+        for (Class<?> clazz : new Class<?>[]{UserService.class, IUserService.class, UserDao.class, Object.class}) {
+            for (Method method : clazz.getMethods()) {
+                boolean expected = raw.matchesMethodExecution(method).alwaysMatches();
+                Assertions.assertEquals(expected, first.matches(method, clazz), method.toString());
+                // 第二次命中缓存，结论不变
+                Assertions.assertEquals(expected, second.matches(method, clazz), method.toString());
+                if (expected) matched++;
+            }
+        }
+        Assertions.assertTrue(matched > 0);
+    }
+
+    @Test
+    public void test_cglibProxyRouting() {
+        AspectJExpressionPointcutAdvisor advisor = new AspectJExpressionPointcutAdvisor();
+        advisor.setExpression("execution(* com.miniSpring.test.bean.UserService.getToken(..))");
+        AtomicInteger adviceCount = new AtomicInteger();
+        advisor.setAdvice((MethodBeforeAdvice) (method, args, target) -> adviceCount.incrementAndGet());
+
+        UserService target = new UserService();
+        target.setToken("token-1");
+        AdvisedSupport advisedSupport = new AdvisedSupport();
+        advisedSupport.setTargetSource(new SingletonTargetSource(target));
+        advisedSupport.setProxyTargetClass(true);
+        advisedSupport.addAdvisor(advisor);
+
+        UserService first = (UserService) new ProxyFactory(advisedSupport).getProxy();
+        UserService second = (UserService) new ProxyFactory(advisedSupport).getProxy();
+
+        // 相同结构的代理复用同一个代理类
+        Assertions.assertSame(first.getClass(), second.getClass());
+        // 被增强的方法经过拦截器链，未增强的方法直接调用目标对象
+        Assertions.assertEquals("token-1", first.getToken());
+        Assertions.assertEquals(1, adviceCount.get());
+        first.setToken("token-2");
+        Assertions.assertEquals("token-2", target.getToken());
+        Assertions.assertEquals(1, adviceCount.get());
+    }
+
+    /**
+     * 泛型接口，实现类中会生成参数类型被擦除的桥接方法 put(Object)
+     */
+    public interface Box<T> {
+
+        T get();
+
+        void put(T value);
+    }
+
+    public static class StringBox implements Box<String> {
+
+        private String value;
+
+        @Override
+        public String get() {
+            return value;
+        }
+
+        @Override
+        public void put(String value) {
+            this.value = value;
+        }
+    }
+
+    @Test
+    public void test_cglibProxyBridgeAndAdvisorChange() throws Exception {
+        Assertions.assertTrue(StringBox.class.getDeclaredMethod("put", Object.class).isBridge());
+
+        List<Method> advisedMethods = Collections.synchronizedList(new ArrayList<>());
+        AspectJExpressionPointcutAdvisor putAdvisor = new AspectJExpressionPointcutAdvisor();
+        putAdvisor.setExpression("execution(* *..*.put(String))");
+        putAdvisor.setAdvice((MethodInterceptor) invocation -> {
+            advisedMethods.add(invocation.getMethod());
+            return invocation.proceed();
+        });
+
+        StringBox target = new StringBox();
+        AdvisedSupport advised = new AdvisedSupport();
+        advised.setTargetSource(new SingletonTargetSource(target));
+        advised.setProxyTargetClass(true);
+        advised.addAdvisor(putAdvisor);
+        StringBox proxy = (StringBox) new ProxyFactory(advised).getProxy();
+
+        // 直接调用和通过泛型接口（桥接方法）调用都经过拦截器链，拦截器看到的是实际方法 put(String)
+        proxy.put("direct");
+        @SuppressWarnings("unchecked")
+        Box<Object> raw = (Box<Object>) (Box<?>) proxy;
+        raw.put("bridged");
+        Assertions.assertEquals("bridged", target.get());
+        Assertions.assertEquals(2, advisedMethods.size());
+        for (Method method : advisedMethods) {
+            Assertions.assertArrayEquals(new Class<?>[]{String.class}, method.getParameterTypes());
+        }
+
+        // 创建代理后修改 Advisor：已增强的方法下一次调用时使用新的拦截器链
+        AspectJExpressionPointcutAdvisor upperCaseAdvisor = new AspectJExpressionPointcutAdvisor();
+        upperCaseAdvisor.setExpression("execution(* *..*.put(String))");
+        upperCaseAdvisor.setAdvice((MethodInterceptor) invocation -> {
+            invocation.getArguments()[0] = ((String) invocation.getArguments()[0]).toUpperCase();
+            return invocation.proceed();
+        });
+        advised.setAdvisors(new ArrayList<>(Collections.singletonList(upperCaseAdvisor)));
+        proxy.put("changed");
+        Assertions.assertEquals("CHANGED", target.get());
+        raw.put("bridged");
+        Assertions.assertEquals("BRIDGED", target.get());
+        Assertions.assertEquals(2, advisedMethods.size());
+    }
+
+    @Test
+    public void test_joinpointInvocation() throws Throwable {
+        UserService target = new UserService();
+        target.setToken("token");
+        Method getToken = UserService.class.getMethod("getToken");
+        MethodHandle handle = MethodHandleInvoker.forMethod(getToken);
+
+        // 取得 CGLIB 为 getToken 生成的 MethodProxy
+        AtomicReference<MethodProxy> methodProxyRef = new AtomicReference<>();
+        Enhancer enhancer = new Enhancer();
+        enhancer.setSuperclass(UserService.class);
+        enhancer.setCallback((net.sf.cglib.proxy.MethodInterceptor) (obj, method, args, methodProxy) -> {
+            methodProxyRef.set(methodProxy);
+            return methodProxy.invoke(target, args);
+        });
+        ((UserService) enhancer.create()).getToken();
+        MethodProxy methodProxy = methodProxyRef.get();
+
+        Assertions.assertEquals("token", MethodHandleInvoker.invoke(handle, target, null));
+
+        // 三种调用方式结果一致
+        Assertions.assertEquals(getToken.invoke(target), MethodHandleInvoker.invoke(handle, target, null));
+        Assertions.assertEquals(getToken.invoke(target), methodProxy.invoke(target, null));
+
+        // 句柄按方法缓存；带参数的调用由句柄展开参数数组
+        Assertions.assertSame(handle, MethodHandleInvoker.forMethod(getToken));
+        MethodHandle setToken = MethodHandleInvoker.forMethod(UserService.class.getMethod("setToken", String.class));
+        MethodHandleInvoker.invoke(setToken, target, new Object[]{"changed"});
+        Assertions.assertEquals("changed", target.getToken());
+
+        // 目标方法抛出的异常原样抛出，不包装为 InvocationTargetException
+        MethodHandle substring = MethodHandleInvoker.forMethod(String.class.getMethod("substring", int.class));
+        Assertions.assertEquals("ken", MethodHandleInvoker.invoke(substring, "token", new Object[]{2}));
+        Assertions.assertThrows(StringIndexOutOfBoundsException.class, () -> MethodHandleInvoker.invoke(substring, "token", new Object[]{10}));
+    }
+
+
+
+    @Test
+    public void test_pooledAndThreadLocalTargetSource() throws Exception {
+        ClassPathXmlApplicationContext applicationContext = new ClassPathXmlApplicationContext("classpath:spring-target-source.xml");
+        SequenceBuffer pooledBuffer = applicationContext.getBean("pooledBuffer", SequenceBuffer.class);
+        Buffer threadLocalBuffer = applicationContext.getBean("threadLocalBuffer", Buffer.class);
+        PoolingTargetSource pool = applicationContext.getBean("bufferPool", PoolingTargetSource.class);
+        ThreadLocalTargetSource threadLocal = applicationContext.getBean("threadLocalBuffers", ThreadLocalTargetSource.class);
+
+        // 4 个线程并发调用，目标对象不会被同时使用
+        int threads = 4;
+        int callsPerThread = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < callsPerThread; i++) {
+                    Assertions.assertEquals("[p" + i + "]", pooledBuffer.append("p" + i));
+                    Assertions.assertEquals("[t" + i + "]", threadLocalBuffer.append("t" + i));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        // 对象池最多创建 maxSize 个目标对象，其余调用复用或等待；所有目标对象调用后都已归还
+        int calls = threads * callsPerThread;
+        Assertions.assertTrue(pool.getMissCount() <= 2);
+        Assertions.assertEquals(calls, pool.getHitCount() + pool.getMissCount());
+        Assertions.assertTrue(pool.getWaitCount() > 0);
+        Assertions.assertEquals(0, pool.getActiveCount());
+        Assertions.assertEquals(pool.getMissCount(), pool.getIdleCount());
+        // 未增强的方法（toString）同样从池中借出并归还
+        Assertions.assertNotNull(pooledBuffer.toString());
+        Assertions.assertEquals(0, pool.getActiveCount());
+
+        // 每个线程一个目标对象
+        Assertions.assertEquals(threads, threadLocal.getMissCount());
+        Assertions.assertEquals(calls - threads, threadLocal.getHitCount());
+        Assertions.assertEquals(threads, threadLocal.getObjectCount());
+
+        // 线程结束后它的目标对象不再被登记
+        Thread shortLived = new Thread(() -> threadLocalBuffer.append("once"));
+        shortLived.start();
+        shortLived.join();
+        Assertions.assertEquals(threads + 1, threadLocal.getMissCount());
+        shortLived = null;
+        for (int i = 0; i < 50 && threadLocal.getObjectCount() > threads; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assertions.assertEquals(threads, threadLocal.getObjectCount());
+
+        applicationContext.close();
+        Assertions.assertEquals(0, pool.getIdleCount());
+        Assertions.assertEquals(0, threadLocal.getObjectCount());
+
+        // 销毁后其他线程不会再拿到已销毁的目标对象
+        Future<?> afterClose = executor.submit(() -> threadLocalBuffer.append("late"));
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, afterClose::get);
+        Assertions.assertTrue(e.getCause() instanceof BeansException);
+        executor.shutdown();
+    }
+
+
+
+    @Test
+    public void test_cacheableAdvice() {
+        ClassPathXmlApplicationContext applicationContext = new ClassPathXmlApplicationContext("classpath:spring-cache.xml");
+        PriceCatalog catalog = applicationContext.getBean("priceCatalog", PriceCatalog.class);
+        TinyLfuCacheManager cacheManager = applicationContext.getBean("cacheManager", TinyLfuCacheManager.class);
+        CountingPriceCatalog.getComputeCount();
+
+        // 1. 命中时不再执行方法，null 返回值同样被缓存
+        Assertions.assertEquals(40, catalog.price("book"));
+        Assertions.assertEquals(40, catalog.price("book"));
+        Assertions.assertNull(catalog.price("free-sample"));
+        Assertions.assertNull(catalog.price("free-sample"));
+        Assertions.assertEquals(2, CountingPriceCatalog.getComputeCount());
+        TinyLfuCache prices = (TinyLfuCache) cacheManager.getCache("prices");
+        CacheStats stats = prices.getStats();
+        Assertions.assertEquals(2, stats.getHitCount());
+        Assertions.assertEquals(2, stats.getMissCount());
+
+        // 2. 按参数移除单个条目，allEntries 清空整个缓存
+        catalog.update("book");
+        catalog.price("book");
+        catalog.price("free-sample");
+        Assertions.assertEquals(1, CountingPriceCatalog.getComputeCount());
+        catalog.reload();
+        catalog.price("book");
+        Assertions.assertEquals(1, CountingPriceCatalog.getComputeCount());
+
+        // 3. 热点条目反复访问后，一次性扫描大量新键不会把它们挤出缓存
+        TinyLfuCache cache = new TinyLfuCache("scan", 100);
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 50; i++) {
+                if (null == cache.get("hot" + i)) {
+                    cache.put("hot" + i, i);
+                }
+            }
+        }
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("scan" + i, i);
+        }
+        int retained = 0;
+        for (int i = 0; i < 50; i++) {
+            if (null != cache.get("hot" + i)) retained++;
+        }
+        stats = cache.getStats();
+        Assertions.assertTrue(cache.estimatedSize() <= 100);
+        Assertions.assertTrue(stats.getEvictionCount() >= 10_000 + 50 - 100);
+        Assertions.assertTrue(retained >= 45);
+
+        // 4. 写入超时的条目读取时视为不存在
+        TinyLfuCache expiring = new TinyLfuCache("expiring", 10, 1);
+        expiring.put("k", "v");
+        long deadline = System.nanoTime() + 5_000_000;
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        Assertions.assertNull(expiring.get("k"));
+        Assertions.assertEquals(1, expiring.getStats().getExpirationCount());
+
+        applicationContext.close();
+    }
+
+    /**
+     * 序列化时等待放行的值，用来让降级停在写入二级缓存的过程中
+     */
+    public static class SlowSerializable implements java.io.Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        static volatile CountDownLatch serializing;
+
+        static volatile CountDownLatch proceed;
+
+        private void writeObject(java.io.ObjectOutputStream out) throws IOException {
+            serializing.countDown();
+            try {
+                proceed.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            out.defaultWriteObject();
+        }
+    }
+
+    @Test
+    public void test_tieredCacheLateDemotion() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (boolean rewrite : new boolean[]{false, true}) {
+                // 一级容量为 1，写入第二个键时第一个键被淘汰并降级
+                TieredCache cache = new TieredCache(new TinyLfuCache("late", 1), new OffHeapCache("late", 64 * 1024, 2), 1);
+                SlowSerializable.serializing = new CountDownLatch(1);
+                SlowSerializable.proceed = new CountDownLatch(1);
+                cache.put("k", new SlowSerializable());
+                Future<?> demoting = executor.submit(() -> cache.put("filler", "filler"));
+                Assertions.assertTrue(SlowSerializable.serializing.await(5, TimeUnit.SECONDS));
+
+                // 降级进行中移除或重新写入同一个键，降级完成后不能复活旧值或留下过期的二级副本
+                Future<?> writing = executor.submit(() -> {
+                    if (rewrite) {
+                        cache.put("k", "fresh");
+                    } else {
+                        cache.evict("k");
+                    }
+                });
+                Thread.sleep(50);
+                SlowSerializable.proceed.countDown();
+                demoting.get(5, TimeUnit.SECONDS);
+                writing.get(5, TimeUnit.SECONDS);
+
+                Assertions.assertFalse(cache.getOffHeapCache().containsKey("k"));
+                Cache.ValueWrapper value = cache.get("k");
+                if (rewrite) {
+                    Assertions.assertEquals("fresh", null != value ? value.get() : null);
+                } else {
+                    Assertions.assertNull(value);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void test_tieredCacheKeepsWriteTime() throws Exception {
+        // 两级都是写入后 500ms 过期；一级容量为 1，写入第二个键时第一个键降级
+        TieredCache cache = new TieredCache(new TinyLfuCache("ttl", 1, 500),
+                new OffHeapCache("ttl", 64 * 1024, 2, 500, null), 1);
+        cache.put("k", "v");
+        cache.put("filler", "filler");
+        Assertions.assertTrue(cache.getOffHeapCache().containsKey("k"));
+
+        // 200ms 后从二级命中并晋升（或晋升后立即再次降级），两级之间迁移都保留原始写入时间
+        Thread.sleep(200);
+        Assertions.assertEquals("v", cache.get("k").get());
+        Assertions.assertEquals(1, cache.getPromotionCount());
+
+        // 距写入超过 500ms 后过期，不会因晋升重新计时
+        Thread.sleep(400);
+        Assertions.assertNull(cache.get("k"));
+    }
+
+    @Test
+    public void test_tieredOffHeapCache() throws Exception {
+        // 1. 一级容量 10，溢出的条目降级到堆外；二级中命中两次的条目晋升回一级
+        TieredCache cache = new TieredCache(new TinyLfuCache("reports", 10),
+                new OffHeapCache("reports", 64 * 1024, 4), 2);
+        for (int i = 0; i < 40; i++) {
+            cache.put("report" + i, new byte[1024]);
+        }
+        Assertions.assertTrue(cache.getHeapCache().estimatedSize() <= 10);
+        Assertions.assertEquals(40 - cache.getHeapCache().estimatedSize(), cache.getDemotionCount());
+        String demotedKey = null;
+        for (int i = 0; i < 40 && null == demotedKey; i++) {
+            if (cache.getOffHeapCache().containsKey("report" + i)) demotedKey = "report" + i;
+        }
+        Assertions.assertNotNull(demotedKey);
+        Assertions.assertEquals(1024, ((byte[]) cache.get(demotedKey).get()).length);
+        Assertions.assertEquals(0, cache.getPromotionCount());
+        Assertions.assertEquals(1024, ((byte[]) cache.get(demotedKey).get()).length);
+        Assertions.assertEquals(1, cache.getPromotionCount());
+        Assertions.assertFalse(cache.getOffHeapCache().containsKey(demotedKey));
+
+        // 2. 堆外容量用完后整段回收，条目数量有上限
+        OffHeapCache offHeap = cache.getOffHeapCache();
+        for (int i = 0; i < 1000; i++) {
+            offHeap.put("bulk" + i, new byte[1024]);
+        }
+        Assertions.assertTrue(offHeap.getRecycledSegmentCount() > 0);
+        Assertions.assertTrue((long) offHeap.estimatedSize() * 1024 < offHeap.getCapacityBytes());
+        Assertions.assertNotNull(offHeap.get("bulk999"));
+        Assertions.assertNull(offHeap.get("bulk0"));
+
+        // 3. 映射文件中的条目（包括 null 值和移除操作）在重新打开后恢复
+        File file = File.createTempFile("mini-spring-cache", ".cache");
+        try {
+            OffHeapCache mapped = new OffHeapCache("mapped", 4096, 4, 0, file);
+            for (int i = 0; i < 100; i++) {
+                mapped.put(i, "value" + i);
+            }
+            mapped.put("nothing", null);
+            mapped.evict(99);
+            int entries = mapped.estimatedSize();
+            mapped.close();
+
+            OffHeapCache reopened = new OffHeapCache("mapped", 4096, 4, 0, file);
+            Assertions.assertEquals(entries, reopened.estimatedSize());
+            Assertions.assertEquals("value98", reopened.get(98).get());
+            Assertions.assertNull(reopened.get(99));
+            Assertions.assertNotNull(reopened.get("nothing"));
+            Assertions.assertNull(reopened.get("nothing").get());
+            reopened.put(100, "value100");
+            Assertions.assertEquals("value100", reopened.get(100).get());
+            reopened.close();
+        } finally {
+            Assertions.assertTrue(file.delete());
+        }
+    }
+
+    public static class CachedReport implements java.io.Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final String title;
+
+        CachedReport(String title) {
+            this.title = title;
+        }
+    }
+
+    @Test
+    public void test_offHeapCacheDeserializationFilter() throws Exception {
+        File file = File.createTempFile("mini-spring-cache", ".cache");
+        try {
+            OffHeapCache writer = new OffHeapCache("filtered", 4096, 4, 0, file);
+            writer.put("report", new CachedReport("q1"));
+            writer.put(new CachedReport("key"), "value");
+            writer.put("plain", "value");
+            writer.close();
+
+            // 默认白名单之外的类（可能来自被篡改的文件）不会被反序列化：值按未命中处理，键所在记录回放时跳过
+            OffHeapCache rejecting = new OffHeapCache("filtered", 4096, 4, 0, file);
+            Assertions.assertEquals(2, rejecting.estimatedSize());
+            Assertions.assertNull(rejecting.get("report"));
+            Assertions.assertEquals("value", rejecting.get("plain").get());
+            rejecting.close();
+
+            // 按缓存配置追加允许的类后可以正常读取
+            OffHeapCache allowing = new OffHeapCache("filtered", 4096, 4, 0, file,
+                    OffHeapCache.createDeserializationFilter(CachedReport.class.getName()));
+            Assertions.assertEquals(3, allowing.estimatedSize());
+            Assertions.assertEquals("q1", ((CachedReport) allowing.get("report").get()).title);
+            allowing.close();
+        } finally {
+            Assertions.assertTrue(file.delete());
+        }
+    }
+
+
+
+
+    @Test
+    public void test_asyncExecution() throws Exception {
+        ClassPathXmlApplicationContext applicationContext = new ClassPathXmlApplicationContext("classpath:spring-async.xml");
+        ReportRenderer renderer = applicationContext.getBean("reportRenderer", ReportRenderer.class);
+        ManagedTaskExecutor executor = applicationContext.getBean("asyncExecutor", ManagedTaskExecutor.class);
+
+        // 1. 8 个调用并发执行：每个渲染都要等到 8 个渲染同时在执行才会返回，串行执行会超时失败
+        SlowReportRenderer.setRendezvous(new CountDownLatch(8));
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(renderer.render("r" + i));
+        }
+        for (int i = 0; i < 8; i++) {
+            String result = futures.get(i).get(10, TimeUnit.SECONDS);
+            Assertions.assertTrue(result.startsWith("r" + i + "@"));
+            Assertions.assertNotEquals(Thread.currentThread().getName(), result.substring(result.indexOf('@') + 1));
+        }
+        SlowReportRenderer.setRendezvous(null);
+
+        // 2. void 方法异步执行；未标注 @Async 的方法同步执行
+        CountDownLatch latch = new CountDownLatch(1);
+        renderer.touch(latch);
+        Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals("sync@" + Thread.currentThread().getName(), renderer.describe());
+
+        // 3. 方法抛出的异常通过 Future 传给调用方
+        CompletableFuture<String> failed = renderer.render("");
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+                () -> failed.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(e.getCause() instanceof IllegalArgumentException);
+
+        // 4. void 方法抛出的异常交给配置的 AsyncUncaughtExceptionHandler
+        RecordingAsyncExceptionHandler.reset();
+        renderer.fail("boom");
+        Assertions.assertTrue(RecordingAsyncExceptionHandler.awaitHandled(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(Collections.singletonList("fail([boom]): java.lang.IllegalStateException: boom"),
+                RecordingAsyncExceptionHandler.getFailures());
+        Assertions.assertEquals(11, executor.getSubmittedCount());
+        Assertions.assertEquals(2, executor.getFailedCount());
+
+        // 5. 容器关闭时执行器停止，之后的调用被拒绝
+        applicationContext.close();
+        Assertions.assertTrue(executor.isShutdown());
+        Assertions.assertThrows(RejectedExecutionException.class, () -> renderer.render("late"));
+
+        // 6. 有界线程池：1 个线程、队列容量 1，第 3 个任务被拒绝
+        ManagedTaskExecutor bounded = new ManagedTaskExecutor();
+        bounded.setPoolSize(1);
+        bounded.setQueueCapacity(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> first = bounded.submit(() -> release.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Object> second = bounded.submit(() -> "queued");
+        Assertions.assertThrows(RejectedExecutionException.class, () -> bounded.submit(() -> "rejected"));
+        Assertions.assertEquals(1, bounded.getRejectedCount());
+        release.countDown();
+        Assertions.assertEquals("queued", second.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(true, first.get());
+        Assertions.assertTrue(bounded.getMaxQueueDepth() >= 1);
+        bounded.shutdown();
+    }
+
+    /**
+     * 每次调用创建新目标对象的非静态 TargetSource，用于验证需要静态目标的拦截器
+     */
+    private static TargetSource prototypeTargetSource(Class<?> targetClass, Supplier<Object> targetFactory) {
+        return new TargetSource() {
+            @Override
+            public Class<?> getTargetClass() {
+                return targetClass;
+            }
+
+            @Override
+            public boolean isStatic() {
+                return false;
+            }
+
+            @Override
+            public Object getTarget() {
+                return targetFactory.get();
+            }
+
+            @Override
+            public void releaseTarget(Object target) {
+            }
+        };
+    }
+
+    @Test
+    public void test_asyncRequiresStaticTarget() throws Exception {
+        ManagedTaskExecutor executor = new ManagedTaskExecutor();
+        try {
+            AsyncAnnotationAdvisor asyncAdvisor = new AsyncAnnotationAdvisor();
+            asyncAdvisor.setExecutor(executor);
+            for (boolean proxyTargetClass : new boolean[]{false, true}) {
+                AdvisedSupport advised = new AdvisedSupport();
+                advised.setTargetSource(prototypeTargetSource(SlowReportRenderer.class, SlowReportRenderer::new));
+                advised.setProxyTargetClass(proxyTargetClass);
+                advised.addAdvisor(asyncAdvisor);
+
+                // 非静态目标在代理调用返回时就被归还，异步方法不能在其上执行：JDK 代理首次调用、CGLIB 代理创建时即失败
+                BeansException e = Assertions.assertThrows(BeansException.class,
+                        () -> ((ReportRenderer) new ProxyFactory(advised).getProxy()).render("pooled"));
+                Assertions.assertTrue(e.getMessage().contains("requires a static TargetSource"));
+            }
+            Assertions.assertEquals(0, executor.getSubmittedCount());
+
+            // 换成静态目标后可以正常异步执行
+            AdvisedSupport advised = new AdvisedSupport();
+            advised.setTargetSource(new SingletonTargetSource(new SlowReportRenderer()));
+            advised.addAdvisor(asyncAdvisor);
+            ReportRenderer renderer = (ReportRenderer) new ProxyFactory(advised).getProxy();
+            Assertions.assertTrue(renderer.render("single").get(5, TimeUnit.SECONDS).startsWith("single@"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+
+
+    @Test
+    public void test_requestCollapsing() throws Exception {
+        ClassPathXmlApplicationContext applicationContext = new ClassPathXmlApplicationContext("classpath:spring-collapse.xml");
+        UserLookup userLookup = applicationContext.getBean("userLookup", UserLookup.class);
+        RequestCollapsingInterceptor interceptor = applicationContext.getBean("collapseAdvisor", CollapseAnnotationAdvisor.class).getInterceptor();
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // 1. 单飞：16 个线程同时查询同一个用户，只执行一次
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return userLookup.find("42");
+            }));
+        }
+        start.countDown();
+        for (Future<String> future : futures) {
+            Assertions.assertEquals("user-42", future.get(5, TimeUnit.SECONDS));
+        }
+        Assertions.assertTrue(CountingUserLookup.getFindCount() <= 2, "find executed " + CountingUserLookup.getFindCount() + " times");
+        // 执行结束后不再共享，新的调用重新执行
+        int executed = CountingUserLookup.getFindCount();
+        userLookup.find("42");
+        Assertions.assertEquals(executed + 1, CountingUserLookup.getFindCount());
+
+        // 2. 批量：16 个线程查询 16 个不同的用户（其中 2 个重复），按每批最多 8 个键合并调用 findAll
+        CountDownLatch batchStart = new CountDownLatch(1);
+        futures.clear();
+        for (int t = 0; t < threads; t++) {
+            String id = "u" + (t % 14);
+            futures.add(executor.submit(() -> {
+                batchStart.await();
+                return userLookup.lookup(id);
+            }));
+        }
+        batchStart.countDown();
+        for (int t = 0; t < threads; t++) {
+            Assertions.assertEquals("user-u" + (t % 14), futures.get(t).get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        // 同一批次内的重复键只查询一次；重复键到达时前一批已执行的，会进入下一批
+        Set<String> batchedKeys = new HashSet<>();
+        for (List<String> batch : CountingUserLookup.getBatches()) {
+            Assertions.assertTrue(batch.size() <= 8);
+            Assertions.assertEquals(batch.size(), new HashSet<>(batch).size());
+            batchedKeys.addAll(batch);
+        }
+        Assertions.assertEquals(14, batchedKeys.size());
+        Assertions.assertTrue(CountingUserLookup.getBatches().size() <= 4, "batches: " + CountingUserLookup.getBatches());
+        Assertions.assertEquals(interceptor.getCallCount(), interceptor.getExecutionCount() + interceptor.getCollapsedCount());
+
+        applicationContext.close();
+    }
+
+
+
+    @Test
+    public void test_hedgedRequests() throws Exception {
+        ClassPathXmlApplicationContext applicationContext = new ClassPathXmlApplicationContext("classpath:spring-hedged.xml");
+        QuoteService quoteService = applicationContext.getBean("quoteService", QuoteService.class);
+        HedgingInterceptor interceptor = applicationContext.getBean("hedgedAdvisor", HedgedAnnotationAdvisor.class).getInterceptor();
+
+        // 1. 前 20 次调用收集耗时样本，不对冲
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertEquals("quote-" + i, quoteService.quote(i));
+        }
+        Assertions.assertEquals(0, interceptor.getHedgeCount());
+
+        // 2. 之后慢调用超过 p90 时发起对冲，由快的一次返回，慢的一次被中断
+        for (int i = 20; i < 100; i++) {
+            Assertions.assertEquals("quote-" + i, quoteService.quote(i));
+        }
+        Assertions.assertEquals(100, interceptor.getCallCount());
+        Assertions.assertTrue(interceptor.getHedgeWinCount() >= 1);
+        Assertions.assertTrue(interceptor.getHedgeWinCount() <= interceptor.getHedgeCount());
+        // 对冲次数不超过调用次数的 50%（加上令牌桶允许的少量突发）
+        Assertions.assertTrue(interceptor.getHedgeCount() <= interceptor.getCallCount() / 2 + 10);
+
+        // 3. 对冲胜出时另一次调用被取消：至少有一次被中断，且每次对冲最多取消一次调用（中断在执行线程中异步发生）
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (FlakyQuoteService.getInterruptedCount() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(FlakyQuoteService.getInterruptedCount() >= 1);
+        Assertions.assertTrue(FlakyQuoteService.getInterruptedCount() <= interceptor.getHedgeCount());
+
+        applicationContext.close();
+    }
+
+    public interface PriceService {
+
+        @Hedged(percentile = 90, maxHedgePercent = 100, minSamples = 20)
+        String price(int i);
+    }
+
+    /**
+     * 双峰耗时的报价服务：每 20 次调用中有两次 80ms、一次 50ms，其余 1ms；同一参数再次调用（对冲）总是很快
+     */
+    public static class BimodalPriceService implements PriceService {
+
+        private final Set<Integer> seen = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public String price(int i) {
+            long millis = 1;
+            if (seen.add(i)) {
+                millis = i % 20 == 0 || i % 20 == 7 ? 80 : i % 20 == 14 ? 50 : 1;
+            }
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException("cancelled", e);
+            }
+            return "price-" + i;
+        }
+    }
+
+    @Test
+    public void test_hedgeDelayUnderBimodalLatency() throws Exception {
+        HedgedAnnotationAdvisor hedgedAdvisor = new HedgedAnnotationAdvisor();
+        try {
+            AdvisedSupport advised = new AdvisedSupport();
+            advised.setTargetSource(new SingletonTargetSource(new BimodalPriceService()));
+            advised.addAdvisor(hedgedAdvisor);
+            PriceService priceService = (PriceService) new ProxyFactory(advised).getProxy();
+            HedgingInterceptor interceptor = hedgedAdvisor.getInterceptor();
+            Method price = PriceService.class.getMethod("price", int.class);
+
+            // 1. 样本中 15% 是慢调用，p90 落在 50ms 附近
+            for (int i = 0; i < 20; i++) {
+                Assertions.assertEquals("price-" + i, priceService.price(i));
+            }
+            Assertions.assertTrue(interceptor.getHedgeDelayNanos(price, BimodalPriceService.class) >= TimeUnit.MILLISECONDS.toNanos(40));
+
+            // 2. 80ms 的调用总会被对冲掉；直方图记录调用方等到的耗时，慢调用的样本不会丢失，p90 不会跌到快的一侧
+            for (int i = 20; i < 220; i++) {
+                Assertions.assertEquals("price-" + i, priceService.price(i));
+            }
+            Assertions.assertTrue(interceptor.getHedgeWinCount() >= 1);
+            Assertions.assertTrue(interceptor.getHedgeDelayNanos(price, BimodalPriceService.class) >= TimeUnit.MILLISECONDS.toNanos(40));
+            Assertions.assertEquals(-1, interceptor.getHedgeDelayNanos(Object.class.getMethod("toString"), BimodalPriceService.class));
+        } finally {
+            hedgedAdvisor.destroy();
+        }
+    }
+
+    @Test
+    public void test_hedgingRequiresStaticTarget() throws Exception {
+        HedgedAnnotationAdvisor hedgedAdvisor = new HedgedAnnotationAdvisor();
+        try {
+            AdvisedSupport advised = new AdvisedSupport();
+            advised.setTargetSource(prototypeTargetSource(BimodalPriceService.class, BimodalPriceService::new));
+            advised.addAdvisor(hedgedAdvisor);
+
+            // 被对冲掉的调用可能在代理调用返回后仍在使用目标对象，非静态目标直接拒绝
+            BeansException e = Assertions.assertThrows(BeansException.class,
+                    () -> ((PriceService) new ProxyFactory(advised).getProxy()).price(1));
+            Assertions.assertTrue(e.getMessage().contains("requires a static TargetSource"));
+            Assertions.assertEquals(0, hedgedAdvisor.getInterceptor().getCallCount());
+        } finally {
+            hedgedAdvisor.destroy();
+        }
+    }
+
+    /**
+     * 只有带参构造函数、并统计构造次数的类，用于验证 CGLIB 代理实例不会再次执行构造函数
+     */
+    public static class CountingGreeter {
+
+        static final AtomicInteger constructions = new AtomicInteger();
+
+        private final String greeting;
+
+        public CountingGreeter(String greeting) {
+            constructions.incrementAndGet();
+            this.greeting = greeting;
+        }
+
+        public String greet(String name) {
+            return greeting + ", " + name;
+        }
+    }
+
+    @Test
+    public void test_cglibProxyWithoutConstructor() {
+        Assertions.assertTrue(ObjectInstantiator.isConstructorBypassAvailable());
+        CountingGreeter.constructions.set(0);
+        CountingGreeter target = new CountingGreeter("hello");
+
+        AspectJExpressionPointcutAdvisor advisor = new AspectJExpressionPointcutAdvisor();
+        advisor.setExpression("execution(* *..*.greet(String))");
+        advisor.setAdvice((MethodInterceptor) invocation -> invocation.proceed() + "!");
+        AdvisedSupport advised = new AdvisedSupport();
+        advised.setTargetSource(new SingletonTargetSource(target));
+        advised.setProxyTargetClass(true);
+        advised.addAdvisor(advisor);
+
+        // 目标类没有无参构造函数；两个代理实例都不执行构造函数，只有目标对象构造过一次
+        CountingGreeter first = (CountingGreeter) new ProxyFactory(advised).getProxy();
+        CountingGreeter second = (CountingGreeter) new ProxyFactory(advised).getProxy();
+        Assertions.assertEquals("hello, world!", first.greet("world"));
+        Assertions.assertEquals("hello, world!", second.greet("world"));
+        Assertions.assertEquals(1, CountingGreeter.constructions.get());
+
+        // 支持跳过构造函数但实例化失败时抛出带原因的异常，而不是返回 null
+        BeansException failure = Assertions.assertThrows(BeansException.class, () -> ObjectInstantiator.newInstance(CommandManager.class));
+        Assertions.assertInstanceOf(InstantiationError.class, failure.getCause());
+    }
+
+    /**
+     * 基本类型参数和返回值的接口，用于对比接口代理的实现方式
+     */
+    public interface PrimitiveCalculator {
+
+        long add(long a, int b);
+
+        double scale(double value, float factor);
+    }
+
+    @Test
+    public void test_generatedInterfaceProxy() {
+        AtomicInteger adviceCount = new AtomicInteger();
+        PrimitiveCalculator jdkProxy = primitiveCalculatorProxy(adviceCount, false);
+        PrimitiveCalculator generatedProxy = primitiveCalculatorProxy(adviceCount, true);
+
+        Assertions.assertFalse(java.lang.reflect.Proxy.isProxyClass(generatedProxy.getClass()));
+        Assertions.assertTrue(java.lang.reflect.Proxy.isProxyClass(jdkProxy.getClass()));
+        // 被增强的 scale 经过拦截器链，add 直接调用目标对象；Object 的方法委托给目标对象
+        Assertions.assertEquals(jdkProxy.add(1L, 2), generatedProxy.add(1L, 2));
+        Assertions.assertEquals(0, adviceCount.get());
+        Assertions.assertEquals(jdkProxy.scale(1.5, 2f), generatedProxy.scale(1.5, 2f));
+        Assertions.assertEquals(2, adviceCount.get());
+        Assertions.assertEquals("calculator", generatedProxy.toString());
+
+        // 基本类型参数和返回值在两种代理间的装箱/拆箱结果一致，包括边界值
+        long[] longs = {0L, -1L, Long.MAX_VALUE, Long.MIN_VALUE};
+        int[] ints = {0, 1, Integer.MIN_VALUE};
+        for (long a : longs) {
+            for (int b : ints) {
+                Assertions.assertEquals(a + b, generatedProxy.add(a, b));
+            }
+        }
+        double[] doubles = {0.0, -2.5, Double.MAX_VALUE, Double.NaN};
+        float[] floats = {1f, -0.5f, Float.MIN_VALUE};
+        for (double value : doubles) {
+            for (float factor : floats) {
+                Assertions.assertEquals(jdkProxy.scale(value, factor), generatedProxy.scale(value, factor));
+            }
+        }
+        Assertions.assertEquals(2 + 2 * doubles.length * floats.length, adviceCount.get());
+    }
+
+    @Test
+    public void test_generatedInterfaceProxyAdvisorChange() {
+        for (boolean fuse : new boolean[]{false, true}) {
+            AtomicInteger first = new AtomicInteger();
+            AtomicInteger second = new AtomicInteger();
+            AdvisedSupport advised = new AdvisedSupport();
+            advised.setTargetSource(new SingletonTargetSource(new PrimitiveCalculator() {
+                @Override
+                public long add(long a, int b) {
+                    return a + b;
+                }
+
+                @Override
+                public double scale(double value, float factor) {
+                    return value * factor;
+                }
+            }));
+            advised.setGeneratedInterfaceProxy(true);
+            advised.setFuseInterceptorChains(fuse);
+            advised.addAdvisor(countingAdvisor("execution(* *..*.scale(double, float))", first));
+            PrimitiveCalculator proxy = (PrimitiveCalculator) new ProxyFactory(advised).getProxy();
+            Assertions.assertFalse(java.lang.reflect.Proxy.isProxyClass(proxy.getClass()));
+
+            Assertions.assertEquals(3.0, proxy.scale(1.5, 2f));
+            Assertions.assertEquals(1, first.get());
+
+            // 创建代理后追加的 Advisor 在下一次调用时生效
+            advised.addAdvisor(countingAdvisor("execution(* *..*.scale(double, float))", second));
+            Assertions.assertEquals(3.0, proxy.scale(1.5, 2f));
+            Assertions.assertEquals(2, first.get());
+            Assertions.assertEquals(1, second.get());
+
+            // 替换全部 Advisor 后，被移除的通知不再执行
+            advised.setAdvisors(Collections.singletonList(countingAdvisor("execution(* *..*.scale(double, float))", second)));
+            Assertions.assertEquals(3.0, proxy.scale(1.5, 2f));
+            Assertions.assertEquals(2, first.get());
+            Assertions.assertEquals(2, second.get());
+        }
+    }
+
+    /**
+     * 创建 PrimitiveCalculator 的接口代理，只有 scale 方法被增强
+     */
+    static PrimitiveCalculator primitiveCalculatorProxy(AtomicInteger adviceCount, boolean generated) {
+        AspectJExpressionPointcutAdvisor advisor = new AspectJExpressionPointcutAdvisor();
+        advisor.setExpression("execution(* *..*.scale(double, float))");
+        advisor.setAdvice((MethodInterceptor) invocation -> {
+            adviceCount.incrementAndGet();
+            return invocation.proceed();
+        });
+        AdvisedSupport advised = new AdvisedSupport();
+        advised.setTargetSource(new SingletonTargetSource(new PrimitiveCalculator() {
+            @Override
+            public long add(long a, int b) {
+                return a + b;
+            }
+
+            @Override
+            public double scale(double value, float factor) {
+                return value * factor;
+            }
+
+            @Override
+            public String toString() {
+                return "calculator";
+            }
+        }));
+        advised.addAdvisor(advisor);
+        advised.setGeneratedInterfaceProxy(generated);
+        return (PrimitiveCalculator) new ProxyFactory(advised).getProxy();
+    }
+
+    @Test
+    public void test_generatedClassLoaderUnloading() throws Exception {
+        // 生成代理类所用的子加载器不应让业务类加载器无法卸载
+        awaitCollected(generateProxyInDisposableClassLoader());
+    }
+
+    /**
+     * 在一个只加载 PrimitiveCalculator 接口的临时类加载器中生成接口代理并调用，返回该类加载器的弱引用
+     */
+    private WeakReference<ClassLoader> generateProxyInDisposableClassLoader() throws Exception {
+        ClassLoader disposable = newDisposableClassLoader(PrimitiveCalculator.class);
+        Class<?> calculatorInterface = disposable.loadClass(PrimitiveCalculator.class.getName());
+        Assertions.assertNotSame(PrimitiveCalculator.class, calculatorInterface);
+        Object target = java.lang.reflect.Proxy.newProxyInstance(disposable, new Class<?>[]{calculatorInterface},
+                (proxy, method, args) -> "add".equals(method.getName())
+                        ? (Object) ((Long) args[0] + (Integer) args[1])
+                        : (Object) ((Double) args[0] * (Float) args[1]));
+
+        AtomicInteger adviceCount = new AtomicInteger();
+        AdvisedSupport advised = new AdvisedSupport();
+        advised.setTargetSource(new SingletonTargetSource(target));
+        advised.setGeneratedInterfaceProxy(true);
+        advised.addAdvisor(countingAdvisor("execution(* *..PrimitiveCalculator.scale(..))", adviceCount));
+        Object proxy = new ProxyFactory(advised).getProxy();
+
+        // 代理类由临时类加载器对应的子加载器生成
+        Assertions.assertSame(disposable, proxy.getClass().getClassLoader().getParent());
+        Assertions.assertEquals(5L, calculatorInterface.getMethod("add", long.class, int.class).invoke(proxy, 2L, 3));
+        Assertions.assertEquals(3.0, calculatorInterface.getMethod("scale", double.class, float.class).invoke(proxy, 6.0, 0.5f));
+        Assertions.assertEquals(1, adviceCount.get());
+        return new WeakReference<>(disposable);
+    }
+
+    /**
+     * 创建一个临时类加载器：给定的类由它重新定义，其余类委托给测试类加载器
+     */
+    private static ClassLoader newDisposableClassLoader(Class<?>... redefinedClasses) throws IOException {
+        Map<String, byte[]> bytecodes = new HashMap<>();
+        for (Class<?> redefinedClass : redefinedClasses) {
+            String name = redefinedClass.getName();
+            try (java.io.InputStream in = ApiTest.class.getResourceAsStream("/" + name.replace('.', '/') + ".class")) {
+                bytecodes.put(name, in.readAllBytes());
+            }
+        }
+        return new ClassLoader(ApiTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                byte[] bytecode = bytecodes.get(name);
+                if (null == bytecode) {
+                    return super.loadClass(name, resolve);
+                }
+                synchronized (getClassLoadingLock(name)) {
+                    Class<?> loaded = findLoadedClass(name);
+                    return null != loaded ? loaded : defineClass(name, bytecode, 0, bytecode.length);
+                }
+            }
+        };
+    }
+
+    /**
+     * 反复触发 GC，直到弱引用被回收或超时
+     */
+    private static void awaitCollected(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 50 && null != reference.get(); i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assertions.assertNull(reference.get());
+    }
+
+    @Test
+    public void test_cglibProxyClassUnloading() throws Exception {
+        // 代理类缓存不应钉住目标类、代理类及其类加载器
+        awaitCollected(createCglibProxyInDisposableClassLoader());
+    }
+
+    private WeakReference<ClassLoader> createCglibProxyInDisposableClassLoader() throws Exception {
+        ClassLoader disposable = newDisposableClassLoader(CountingGreeter.class);
+        Class<?> greeterClass = disposable.loadClass(CountingGreeter.class.getName());
+        Object target = greeterClass.getConstructor(String.class).newInstance("hello");
+
+        AtomicInteger adviceCount = new AtomicInteger();
+        AdvisedSupport advised = new AdvisedSupport();
+        advised.setTargetSource(new SingletonTargetSource(target));
+        advised.setProxyTargetClass(true);
+        advised.addAdvisor(countingAdvisor("execution(* *..CountingGreeter.greet(..))", adviceCount));
+        Object proxy = new ProxyFactory(advised).getProxy();
+
+        Assertions.assertSame(greeterClass, proxy.getClass().getSuperclass());
+        Assertions.assertEquals("hello, world", greeterClass.getMethod("greet", String.class).invoke(proxy, "world"));
+        Assertions.assertEquals(1, adviceCount.get());
+        return new WeakReference<>(disposable);
+    }
+
+    /**
+     * 用 AspectJ 表达式切点增强匹配的方法，每次调用计数
+     */
+    private static AspectJExpressionPointcutAdvisor countingAdvisor(String expression, AtomicInteger adviceCount) {
+        AspectJExpressionPointcutAdvisor advisor = new AspectJExpressionPointcutAdvisor();
+        advisor.setExpression(expression);
+        advisor.setAdvice((MethodInterceptor) invocation -> {
+            adviceCount.incrementAndGet();
+            return invocation.proceed();
+        });
+        return advisor;
+    }
+
+    @Test
+    public void test_proxyInvocationAllocation() {
+        // 依赖 HotSpot 的线程分配计数，不支持或未开启时跳过
+        java.lang.management.ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(mxBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) mxBean).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) mxBean).isThreadAllocatedMemoryEnabled());
+
+        AspectJExpressionPointcutAdvisor jdkAdvisor = new AspectJExpressionPointcutAdvisor();
+        jdkAdvisor.setExpression("execution(* java.util.function.Supplier.get(..))");
+        jdkAdvisor.setAdvice((MethodInterceptor) MethodInvocation::proceed);
+        AdvisedSupport jdkAdvised = new AdvisedSupport();
+        // 使用匿名类而非 lambda：lambda 类名中的 "$$" 会被当作 CGLIB 代理类
+        Supplier<String> supplier = new Supplier<String>() {
+            @Override
+            public String get() {
+                return "token";
+            }
+        };
+        jdkAdvised.setTargetSource(new SingletonTargetSource(supplier));
+        jdkAdvised.addAdvisor(jdkAdvisor);
+        @SuppressWarnings("unchecked")
+        Supplier<String> jdkProxy = (Supplier<String>) new ProxyFactory(jdkAdvised).getProxy();
+
+        AspectJExpressionPointcutAdvisor cglibAdvisor = new AspectJExpressionPointcutAdvisor();
+        cglibAdvisor.setExpression("execution(* com.miniSpring.test.bean.UserService.getToken(..))");
+        cglibAdvisor.setAdvice((MethodInterceptor) MethodInvocation::proceed);
+        UserService target = new UserService();
+        target.setToken("token");
+        AdvisedSupport cglibAdvised = new AdvisedSupport();
+        cglibAdvised.setTargetSource(new SingletonTargetSource(target));
+        cglibAdvised.setProxyTargetClass(true);
+        cglibAdvised.addAdvisor(cglibAdvisor);
+        UserService cglibProxy = (UserService) new ProxyFactory(cglibAdvised).getProxy();
+
+        // 无参方法的参数数组为 null，稳定状态下一次代理调用不应分配任何内存
+        Assertions.assertEquals(0, minAllocatedBytesPerCall(() -> jdkProxy.get()));
+        Assertions.assertEquals(0, minAllocatedBytesPerCall(() -> cglibProxy.getToken()));
+    }
+
+    @Test
+    public void test_releasedInvocationFailsFast() throws Throwable {
+        AtomicReference<MethodInvocation> leaked = new AtomicReference<>();
+        AtomicReference<MethodInvocation> copied = new AtomicReference<>();
+        MethodInterceptor leakingInterceptor = invocation -> {
+            leaked.set(invocation);
+            copied.set(MethodInvocations.invocableCopy(invocation));
+            return invocation.proceed();
+        };
+
+        AspectJExpressionPointcutAdvisor jdkAdvisor = new AspectJExpressionPointcutAdvisor();
+        jdkAdvisor.setExpression("execution(* java.util.function.Supplier.get(..))");
+        jdkAdvisor.setAdvice(leakingInterceptor);
+        AdvisedSupport jdkAdvised = new AdvisedSupport();
+        jdkAdvised.setTargetSource(new SingletonTargetSource(new Supplier<String>() {
+            @Override
+            public String get() {
+                return "token";
+            }
+        }));
+        jdkAdvised.addAdvisor(jdkAdvisor);
+        @SuppressWarnings("unchecked")
+        Supplier<String> jdkProxy = (Supplier<String>) new ProxyFactory(jdkAdvised).getProxy();
+
+        AspectJExpressionPointcutAdvisor cglibAdvisor = new AspectJExpressionPointcutAdvisor();
+        cglibAdvisor.setExpression("execution(* com.miniSpring.test.bean.UserService.getToken(..))");
+        cglibAdvisor.setAdvice(leakingInterceptor);
+        UserService target = new UserService();
+        target.setToken("token");
+        AdvisedSupport cglibAdvised = new AdvisedSupport();
+        cglibAdvised.setTargetSource(new SingletonTargetSource(target));
+        cglibAdvised.setProxyTargetClass(true);
+        cglibAdvised.addAdvisor(cglibAdvisor);
+        UserService cglibProxy = (UserService) new ProxyFactory(cglibAdvised).getProxy();
+
+        for (Supplier<String> call : Arrays.<Supplier<String>>asList(jdkProxy::get, cglibProxy::getToken)) {
+            Assertions.assertEquals("token", call.get());
+            // 调用返回后复用的调用对象已被回收：直接使用会立即失败，调用返回前复制的对象仍然可用
+            Assertions.assertThrows(IllegalStateException.class, () -> leaked.get().proceed());
+            Assertions.assertEquals("token", copied.get().proceed());
+        }
+    }
+
+    /**
+     * 多轮调用 call，返回各轮中平均每次调用分配字节数的最小值（前几轮用于 JIT 预热）
+     */
+    private long minAllocatedBytesPerCall(Supplier<String> call) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int calls = 200_000;
+        long sink = 0;
+        long min = Long.MAX_VALUE;
+        for (int round = 0; round < 10; round++) {
+            long before = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < calls; i++) {
+                sink += call.get().length();
+            }
+            long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+            min = Math.min(min, allocated / calls);
+        }
+        Assertions.assertEquals(10L * calls * "token".length(), sink);
+        return min;
+    }
+
+    @Test
+    public void test_fusedInterceptorChain() {
+        List<String> fusedTrace = new ArrayList<>();
+        List<String> genericTrace = new ArrayList<>();
+        IntUnaryOperator fusedProxy = tracedIncrementProxy(fusedTrace, true);
+        IntUnaryOperator genericProxy = tracedIncrementProxy(genericTrace, false);
+
+        // 融合链与通用拦截器链的执行顺序、参数修改和返回值一致
+        Assertions.assertEquals(genericProxy.applyAsInt(1), fusedProxy.applyAsInt(1));
+        Assertions.assertEquals(genericTrace, fusedTrace);
+        Assertions.assertEquals(Arrays.asList("before", "around-start", "interceptor", "before-inner", "after", "around-end"), fusedTrace);
+        Assertions.assertEquals(22, fusedProxy.applyAsInt(1));
+    }
+
+    /**
+     * 创建 IntUnaryOperator(x -> x + 1) 的 JDK 代理，链为 [前置, 环绕, 普通拦截器, 前置, 后置]，
+     * 环绕通知把参数乘以 10，每个通知把自己的名字记录到 trace 中
+     */
+    private IntUnaryOperator tracedIncrementProxy(List<String> trace, boolean fuse) {
+        MethodBeforeAdvice before = (method, args, target) -> {
+            // 开启融合时前置通知应由生成的融合链类直接调用
+            boolean calledFromFusedChain = Arrays.stream(new Throwable().getStackTrace())
+                    .anyMatch(frame -> frame.getClassName().startsWith(FusedInterceptorChain.class.getName() + "$$Generated"));
+            Assertions.assertEquals(fuse, calledFromFusedChain);
+            trace.add("before");
+        };
+        MethodAroundAdvice around = (method, args, target, invocation) -> {
+            trace.add("around-start");
+            args[0] = (Integer) args[0] * 10;
+            Object result = invocation.proceed();
+            trace.add("around-end");
+            return (Integer) result * 2;
+        };
+        MethodInterceptor interceptor = invocation -> {
+            trace.add("interceptor");
+            return invocation.proceed();
+        };
+        MethodBeforeAdvice innerBefore = (method, args, target) -> trace.add("before-inner");
+        MethodAfterAdvice after = (method, args, target, returnValue) -> trace.add("after");
+
+        AdvisedSupport advised = new AdvisedSupport();
+        // 使用匿名类而非 lambda：lambda 类名中的 "$$" 会被当作 CGLIB 代理类
+        advised.setTargetSource(new SingletonTargetSource(new IntUnaryOperator() {
+            @Override
+            public int applyAsInt(int operand) {
+                return operand + 1;
+            }
+        }));
+        for (org.aopalliance.aop.Advice advice : Arrays.asList(before, around, interceptor, innerBefore, after)) {
+            AspectJExpressionPointcutAdvisor advisor = new AspectJExpressionPointcutAdvisor();
+            advisor.setExpression("execution(* java.util.function.IntUnaryOperator.applyAsInt(..))");
+            advisor.setAdvice(advice);
+            advised.addAdvisor(advisor);
+        }
+        advised.setFuseInterceptorChains(fuse);
+        return (IntUnaryOperator) new ProxyFactory(advised).getProxy();
+    }
+
+    /**
+     * 属性注入目标：name 同时有字段和 setter，count 只有字段，fail 的 setter 抛出异常
+     */
+    public static class InjectionTarget {
+
+        private String name;
+
+        private int count;
+
+        private boolean enabled;
+
+        private String fail;
+
+        public void setName(String name) {
+            this.name = "setter:" + name;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public void setFail(String fail) throws Exception {
+            if ("error".equals(fail)) {
+                throw new AssertionError(fail);
+            }
+            throw new Exception(fail);
+        }
+    }
+
+    @Test
+    public void test_propertyInjector() {
+        InjectionTarget target = new InjectionTarget();
+
+        // 有 setter 时优先走 setter，没有 setter 时直接写字段
+        PropertyInjector.forProperty(InjectionTarget.class, "name").inject(target, "miniSpring");
+        Assertions.assertEquals("setter:miniSpring", target.name);
+        PropertyInjector.forProperty(InjectionTarget.class, "count").inject(target, 7);
+        Assertions.assertEquals(7, target.count);
+
+        // 值类型与属性类型不一致时先转换
+        PropertyInjector.forProperty(InjectionTarget.class, "count").inject(target, "42");
+        Assertions.assertEquals(42, target.count);
+        PropertyInjector.forProperty(InjectionTarget.class, "enabled").inject(target, "true");
+        Assertions.assertTrue(target.enabled);
+        Assertions.assertEquals(int.class, PropertyInjector.forProperty(InjectionTarget.class, "count").getPropertyType());
+
+        // 同一 (类, 属性) 的注入器只解析一次
+        Assertions.assertSame(PropertyInjector.forProperty(InjectionTarget.class, "name"),
+                PropertyInjector.forProperty(InjectionTarget.class, "name"));
+
+        // 不存在的属性、null 注入基本类型、setter 抛出的异常都包装为 BeansException，Error 原样抛出
+        Assertions.assertThrows(BeansException.class, () -> PropertyInjector.forProperty(InjectionTarget.class, "missing"));
+        Assertions.assertThrows(BeansException.class, () -> PropertyInjector.forProperty(InjectionTarget.class, "count").inject(target, null));
+        PropertyInjector fail = PropertyInjector.forProperty(InjectionTarget.class, "fail");
+        Assertions.assertThrows(BeansException.class, () -> fail.inject(target, "checked"));
+        Assertions.assertThrows(AssertionError.class, () -> fail.inject(target, "error"));
+    }
+
+    @Test
+    public void test_propertyInjectorClassUnloading() throws Exception {
+        // 注入器缓存不应钉住已关闭上下文中的 Bean 类及其类加载器
+        awaitCollected(injectInDisposableClassLoader());
+    }
+
+    private WeakReference<ClassLoader> injectInDisposableClassLoader() throws Exception {
+        ClassLoader disposable = newDisposableClassLoader(InjectionTarget.class);
+        Class<?> targetClass = disposable.loadClass(InjectionTarget.class.getName());
+        Assertions.assertNotSame(InjectionTarget.class, targetClass);
+        Object target = targetClass.getConstructor().newInstance();
+        PropertyInjector.forProperty(targetClass, "name").inject(target, "miniSpring");
+        PropertyInjector.forProperty(targetClass, "count").inject(target, 3);
+        Field count = targetClass.getDeclaredField("count");
+        count.setAccessible(true);
+        Assertions.assertEquals(3, count.get(target));
+        return new WeakReference<>(disposable);
+    }
+
+    /**
+     * 只有一个 @Autowired 字段的 Bean，用于验证注入元数据缓存不会钉住 Bean 类
+     */
+    public static class AutowiredHolder {
+
+        @Autowired
+        private UserDao userDao;
+    }
+
+    @Test
+    public void test_injectionMetadataClassUnloading() throws Exception {
+        // 后置处理器仍然存活时，它的注入元数据缓存不应钉住 Bean 类及其类加载器
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("userDao", new BeanDefinition(UserDao.class));
+        AutowiredAnnotationBeanPostProcessor processor = new AutowiredAnnotationBeanPostProcessor();
+        processor.setBeanFactory(beanFactory);
+        awaitCollected(autowireInDisposableClassLoader(processor));
+        Assertions.assertNotNull(processor);
+    }
+
+    private WeakReference<ClassLoader> autowireInDisposableClassLoader(AutowiredAnnotationBeanPostProcessor processor) throws Exception {
+        ClassLoader disposable = newDisposableClassLoader(AutowiredHolder.class);
+        Class<?> holderClass = disposable.loadClass(AutowiredHolder.class.getName());
+        Assertions.assertNotSame(AutowiredHolder.class, holderClass);
+        Object holder = holderClass.getConstructor().newInstance();
+        processor.postProcessPropertyValues(new PropertyValues(), holder, "holder");
+        Field userDao = holderClass.getDeclaredField("userDao");
+        userDao.setAccessible(true);
+        Assertions.assertNotNull(userDao.get(holder));
+        return new WeakReference<>(disposable);
+    }
+
+    public interface Greeting {
+
+        String greet();
+    }
+
+    public static class SimpleGreeting implements Greeting {
+
+        private static final AtomicInteger created = new AtomicInteger();
+
+        public SimpleGreeting() {
+            created.incrementAndGet();
+        }
+
+        @Override
+        public String greet() {
+            return "hello";
+        }
+    }
+
+    /**
+     * 增强所有 greet() 方法的 Advisor，统计增强次数
+     */
+    public static class GreetingAdvisor extends AspectJExpressionPointcutAdvisor {
+
+        private static final AtomicInteger advised = new AtomicInteger();
+
+        public GreetingAdvisor() {
+            setExpression("execution(* *..*.greet())");
+            setAdvice((MethodInterceptor) invocation -> {
+                advised.incrementAndGet();
+                return invocation.proceed();
+            });
+        }
+    }
+
+    @Test
+    public void test_advisorSnapshotInvalidation() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        DefaultAdvisorAutoProxyCreator autoProxyCreator = new DefaultAdvisorAutoProxyCreator();
+        autoProxyCreator.setBeanFactory(beanFactory);
+        beanFactory.addBeanPostProcessor(autoProxyCreator);
+        BeanDefinition greetingDefinition = new BeanDefinition(SimpleGreeting.class);
+        greetingDefinition.setScope("prototype");
+        beanFactory.registerBeanDefinition("greeting", greetingDefinition);
+
+        // 还没有 Advisor 时不创建代理
+        Assertions.assertEquals(SimpleGreeting.class, beanFactory.getBean("greeting").getClass());
+
+        // Advisor 的 Bean 名称变化后快照失效，之后创建的 Bean 会被代理
+        GreetingAdvisor.advised.set(0);
+        beanFactory.registerBeanDefinition("greetingAdvisor", new BeanDefinition(GreetingAdvisor.class));
+        Greeting greeting = (Greeting) beanFactory.getBean("greeting");
+        Assertions.assertTrue(java.lang.reflect.Proxy.isProxyClass(greeting.getClass()));
+        Assertions.assertEquals("hello", greeting.greet());
+        Assertions.assertEquals(1, GreetingAdvisor.advised.get());
+
+        // 再注册一个 Advisor，新创建的 Bean 同时应用两个 Advisor，已创建的代理不受影响
+        beanFactory.registerBeanDefinition("anotherGreetingAdvisor", new BeanDefinition(GreetingAdvisor.class));
+        ((Greeting) beanFactory.getBean("greeting")).greet();
+        Assertions.assertEquals(3, GreetingAdvisor.advised.get());
+        greeting.greet();
+        Assertions.assertEquals(4, GreetingAdvisor.advised.get());
+
+        // 注册非 Advisor 的 Bean 只让类型索引版本号递增，Advisor 快照保持不变
+        long typeIndexVersion = beanFactory.getTypeIndexVersion();
+        beanFactory.registerBeanDefinition("plainGreeting", new BeanDefinition(SimpleGreeting.class));
+        Assertions.assertEquals(typeIndexVersion + 1, beanFactory.getTypeIndexVersion());
+        ((Greeting) beanFactory.getBean("greeting")).greet();
+        Assertions.assertEquals(6, GreetingAdvisor.advised.get());
+    }
+
+    public static class BaseInjected {
+
+        @Autowired
+        private UserDao baseDao;
+
+        @Value("${base}")
+        private String base;
+    }
+
+    public static class Injected extends BaseInjected {
+
+        @Value("${ignored}")
+        private static String ignored;
+
+        @Autowired
+        @Qualifier("userDao")
+        private UserDao userDao;
+
+        @Autowired
+        @Lazy
+        private Greeting greeting;
+
+        @Value("${name}")
+        private String name;
+    }
+
+    @Test
+    public void test_injectionMetadata() {
+        InjectionMetadata metadata = InjectionMetadata.forClass(Injected.class);
+        // 父类字段在前，@Value 在 @Autowired 之前，静态字段不参与注入
+        List<String> fieldNames = new ArrayList<>();
+        for (InjectionMetadata.InjectedElement element : metadata.getInjectedElements()) {
+            fieldNames.add(element.getField().getName());
+        }
+        Assertions.assertEquals(List.of("base", "name", "baseDao", "userDao", "greeting"), fieldNames);
+        Assertions.assertTrue(InjectionMetadata.forClass(UserDao.class).isEmpty());
+
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("userDao", new BeanDefinition(UserDao.class));
+        beanFactory.registerBeanDefinition("greeting", new BeanDefinition(SimpleGreeting.class));
+        AtomicInteger resolveCount = new AtomicInteger();
+        beanFactory.addEmbeddedValueResolver(strVal -> {
+            resolveCount.incrementAndGet();
+            return strVal.substring(2, strVal.length() - 1) + "-value";
+        });
+
+        SimpleGreeting.created.set(0);
+        Injected first = new Injected();
+        metadata.inject(first, beanFactory);
+        Assertions.assertEquals("base-value", ((BaseInjected) first).base);
+        Assertions.assertEquals("name-value", first.name);
+        Assertions.assertSame(beanFactory.getBean("userDao"), first.userDao);
+        Assertions.assertSame(first.userDao, ((BaseInjected) first).baseDao);
+
+        // @Lazy 依赖注入的是代理，第一次调用时才创建目标 Bean
+        Assertions.assertEquals(0, SimpleGreeting.created.get());
+        Assertions.assertEquals("hello", first.greeting.greet());
+        Assertions.assertEquals(1, SimpleGreeting.created.get());
+
+        // 占位符只在第一次注入时解析，之后复用解析结果
+        Injected second = new Injected();
+        metadata.inject(second, beanFactory);
+        Assertions.assertEquals("name-value", second.name);
+        Assertions.assertEquals(2, resolveCount.get());
+    }
+
+    public static class ShadowedBase {
+
+        @Value("${label}")
+        private String label;
+    }
+
+    public static class Shadowing extends ShadowedBase {
+
+        @Value("${own}")
+        private String label;
+
+        private boolean setterCalled;
+
+        @Value("${token}")
+        private String token;
+
+        public void setToken(String token) {
+            this.setterCalled = true;
+            this.token = "setter:" + token;
+        }
+    }
+
+    @Test
+    public void test_injectionMetadataWritesFoundField() throws Exception {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.addEmbeddedValueResolver(strVal -> strVal.substring(2, strVal.length() - 1) + "-value");
+
+        Shadowing bean = new Shadowing();
+        InjectionMetadata.forClass(Shadowing.class).inject(bean, beanFactory);
+
+        // 注解字段直接写字段本身，不经过同名 setter
+        Assertions.assertEquals("token-value", bean.token);
+        Assertions.assertFalse(bean.setterCalled);
+
+        // 父类被遮蔽的同名字段写入父类字段，子类字段写入子类字段
+        Field baseLabel = ShadowedBase.class.getDeclaredField("label");
+        baseLabel.setAccessible(true);
+        Assertions.assertEquals("label-value", baseLabel.get(bean));
+        Assertions.assertEquals("own-value", bean.label);
+    }
+
+
+
+    @Test
+    public void test_lookupMethodInjection() {
+        ClassPathXmlApplicationContext applicationContext = new ClassPathXmlApplicationContext("classpath:spring-lookup.xml");
+        CommandManager manager = applicationContext.getBean("commandManager", CommandManager.class);
+
+        // 单例中的查找方法每次调用都从容器获取新的原型 Bean
+        Command first = manager.process();
+        Command second = manager.createCommand();
+        Assertions.assertNotNull(first);
+        Assertions.assertNotSame(first, second);
+
+        // 只有声明了查找方法的 Bean 才生成子类；同一 (类, 查找方法) 的子类只生成一次
+        Assertions.assertNotEquals(CommandManager.class, manager.getClass());
+        Assertions.assertEquals(Command.class, first.getClass());
+        CommandManager prototype = applicationContext.getBean("prototypeManager", CommandManager.class);
+        Assertions.assertNotSame(prototype, applicationContext.getBean("prototypeManager"));
+        Assertions.assertSame(manager.getClass(), prototype.getClass());
+        Assertions.assertNotSame(prototype.createCommand(), prototype.createCommand());
+        applicationContext.close();
+
+        // 查找方法不存在时创建失败
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        BeanDefinition beanDefinition = new BeanDefinition(CommandManager.class);
+        beanDefinition.addLookupMethodOverride("noSuchMethod", "command");
+        beanFactory.registerBeanDefinition("commandManager", beanDefinition);
+        Assertions.assertThrows(BeansException.class, () -> beanFactory.getBean("commandManager"));
+    }
+
+    /**
+     * 构造函数重载：记录被调用的构造函数签名
+     */
+    public static class OverloadedBean {
+
+        private final String signature;
+
+        public OverloadedBean() {
+            this.signature = "()";
+        }
+
+        public OverloadedBean(Object value) {
+            this.signature = "(Object)";
+        }
+
+        public OverloadedBean(String value) {
+            this.signature = "(String)";
+        }
+
+        public OverloadedBean(int value) {
+            this.signature = "(int)";
+        }
+
+        public OverloadedBean(String name, Integer count) {
+            this.signature = "(String, Integer)";
+        }
+
+        public String getSignature() {
+            return signature;
+        }
+    }
+
+    @Test
+    public void test_constructorResolution() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        BeanDefinition beanDefinition = new BeanDefinition(OverloadedBean.class);
+        beanDefinition.setScope("prototype");
+        beanFactory.registerBeanDefinition("overloaded", beanDefinition);
+
+        Assertions.assertEquals("()", ((OverloadedBean) beanFactory.getBean("overloaded")).getSignature());
+        // 多个候选时选择参数类型最具体的构造函数
+        Assertions.assertEquals("(String)", ((OverloadedBean) beanFactory.getBean("overloaded", "a")).getSignature());
+        Assertions.assertEquals("(Object)", ((OverloadedBean) beanFactory.getBean("overloaded", 1L)).getSignature());
+        // 包装类型实参匹配基本类型参数
+        Assertions.assertEquals("(int)", ((OverloadedBean) beanFactory.getBean("overloaded", 1)).getSignature());
+        Assertions.assertEquals("(String, Integer)", ((OverloadedBean) beanFactory.getBean("overloaded", "a", 1)).getSignature());
+        // null 实参匹配任意引用类型参数，但不能匹配基本类型参数
+        Assertions.assertEquals("(String)", ((OverloadedBean) beanFactory.getBean("overloaded", (Object) null)).getSignature());
+        Assertions.assertEquals("(String, Integer)", ((OverloadedBean) beanFactory.getBean("overloaded", null, null)).getSignature());
+
+        // 没有匹配的构造函数时失败，而不是退回无参构造函数
+        Assertions.assertThrows(BeansException.class, () -> beanFactory.getBean("overloaded", "a", "b"));
+        Assertions.assertThrows(BeansException.class, () -> beanFactory.getBean("overloaded", 1, 2, 3));
+    }
+
+    @Test
+    public void test_beanNamesForTypeCache() throws Exception {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("userDao", new BeanDefinition(UserDao.class));
+
+        // 返回的是副本，修改它不会污染缓存
+        String[] beanNames = beanFactory.getBeanNamesForType(UserDao.class);
+        beanNames[0] = "modified";
+        Assertions.assertArrayEquals(new String[]{"userDao"}, beanFactory.getBeanNamesForType(UserDao.class));
+
+        // 注册与按类型查找并发进行，注册结束后的查找结果必须包含全部定义，不能缓存住过期结果
+        int definitions = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch registered = new CountDownLatch(1);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            readers.add(executor.submit(() -> {
+                while (registered.getCount() > 0) {
+                    beanFactory.getBeanNamesForType(UserDao.class);
+                }
+            }));
+        }
+        for (int i = 0; i < definitions; i++) {
+            beanFactory.registerBeanDefinition("userDao" + i, new BeanDefinition(UserDao.class));
+        }
+        registered.countDown();
+        for (Future<?> reader : readers) {
+            reader.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        Assertions.assertEquals(definitions + 1, beanFactory.getBeanNamesForType(UserDao.class).length);
+        Assertions.assertEquals(definitions + 1, beanFactory.getBeansOfType(UserDao.class).size());
+    }
+
+    @Test
+    public void test_concurrentSingletonCreation() throws Exception {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("userDao", new BeanDefinition(UserDao.class));
+
+        // 统计初始化次数，并放慢初始化过程，扩大并发创建的时间窗口
+        AtomicInteger initCount = new AtomicInteger();
+        beanFactory.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+                initCount.incrementAndGet();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                return bean;
+            }
+        });
+
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return beanFactory.getBean("userDao");
+            }));
+        }
+        start.countDown();
+
+        Object first = futures.get(0).get();
+        for (Future<Object> future : futures) {
+            Assertions.assertSame(first, future.get());
+        }
+        Assertions.assertEquals(1, initCount.get());
+
+        executor.shutdown();
+    }
+
 }
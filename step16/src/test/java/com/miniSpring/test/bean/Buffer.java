@@ -0,0 +1,6 @@
+package com.miniSpring.test.bean;
+
+public interface Buffer {
+
+    String append(String value);
+}
@@ -0,0 +1,4 @@
+package com.miniSpring.test.bean;
+
+public class Command {
+}
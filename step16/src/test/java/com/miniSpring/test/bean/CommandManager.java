@@ -0,0 +1,13 @@
+package com.miniSpring.test.bean;
+
+/**
+ * 查找方法注入：createCommand 由容器在 CGLIB 子类中实现
+ */
+public abstract class CommandManager {
+
+    public Command process() {
+        return createCommand();
+    }
+
+    public abstract Command createCommand();
+}
@@ -0,0 +1,29 @@
+package com.miniSpring.test.bean;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 统计实际计算次数的价格目录，缓存注解声明在接口上
+ */
+public class CountingPriceCatalog implements PriceCatalog {
+
+    private static final AtomicInteger computeCount = new AtomicInteger();
+
+    @Override
+    public Integer price(String sku) {
+        computeCount.incrementAndGet();
+        return sku.startsWith("free") ? null : sku.length() * 10;
+    }
+
+    @Override
+    public void update(String sku) {
+    }
+
+    @Override
+    public void reload() {
+    }
+
+    public static int getComputeCount() {
+        return computeCount.getAndSet(0);
+    }
+}
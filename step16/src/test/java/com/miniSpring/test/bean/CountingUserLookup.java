@@ -0,0 +1,57 @@
+package com.miniSpring.test.bean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 统计后端调用次数的用户查询服务，每次调用耗时 50ms
+ */
+public class CountingUserLookup implements UserLookup {
+
+    private static final AtomicInteger findCount = new AtomicInteger();
+
+    private static final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public String find(String id) {
+        findCount.incrementAndGet();
+        sleep();
+        return "user-" + id;
+    }
+
+    @Override
+    public String lookup(String id) {
+        throw new UnsupportedOperationException("lookup is served by findAll");
+    }
+
+    @Override
+    public Map<String, String> findAll(List<String> ids) {
+        batches.add(ids);
+        sleep();
+        Map<String, String> users = new HashMap<>();
+        for (String id : ids) {
+            users.put(id, "user-" + id);
+        }
+        return users;
+    }
+
+    public static int getFindCount() {
+        return findCount.get();
+    }
+
+    public static List<List<String>> getBatches() {
+        return batches;
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
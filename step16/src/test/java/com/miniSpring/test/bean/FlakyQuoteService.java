@@ -0,0 +1,29 @@
+package com.miniSpring.test.bean;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 报价服务：每 20 次调用中有一次耗时 200ms，其余 2ms；统计被中断（取消）的调用次数
+ */
+public class FlakyQuoteService implements QuoteService {
+
+    private static final AtomicInteger attempts = new AtomicInteger();
+
+    private static final AtomicInteger interrupted = new AtomicInteger();
+
+    @Override
+    public String quote(int i) {
+        boolean slow = attempts.incrementAndGet() % 20 == 0;
+        try {
+            Thread.sleep(slow ? 200 : 2);
+        } catch (InterruptedException e) {
+            interrupted.incrementAndGet();
+            throw new IllegalStateException("cancelled", e);
+        }
+        return "quote-" + i;
+    }
+
+    public static int getInterruptedCount() {
+        return interrupted.get();
+    }
+}
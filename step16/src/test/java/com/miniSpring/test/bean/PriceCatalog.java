@@ -0,0 +1,16 @@
+package com.miniSpring.test.bean;
+
+import com.miniSpring.cache.annotation.CacheEvict;
+import com.miniSpring.cache.annotation.Cacheable;
+
+public interface PriceCatalog {
+
+    @Cacheable("prices")
+    Integer price(String sku);
+
+    @CacheEvict("prices")
+    void update(String sku);
+
+    @CacheEvict(value = "prices", allEntries = true)
+    void reload();
+}
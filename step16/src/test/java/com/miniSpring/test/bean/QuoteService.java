@@ -0,0 +1,9 @@
+package com.miniSpring.test.bean;
+
+import com.miniSpring.aop.annotation.Hedged;
+
+public interface QuoteService {
+
+    @Hedged(percentile = 90, maxHedgePercent = 50, minSamples = 20)
+    String quote(int i);
+}
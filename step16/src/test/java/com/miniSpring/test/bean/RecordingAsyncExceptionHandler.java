@@ -0,0 +1,43 @@
+package com.miniSpring.test.bean;
+
+import com.miniSpring.aop.interceptor.AsyncUncaughtExceptionHandler;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录返回 void 的 @Async 方法抛出的异常
+ */
+public class RecordingAsyncExceptionHandler implements AsyncUncaughtExceptionHandler {
+
+    private static final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+    private static volatile CountDownLatch handled = new CountDownLatch(1);
+
+    @Override
+    public void handleUncaughtException(Throwable ex, Method method, Object... params) {
+        failures.add(method.getName() + "(" + Arrays.toString(params) + "): " + ex);
+        handled.countDown();
+    }
+
+    /**
+     * 清空已记录的异常，之后等待下一次异常
+     */
+    public static void reset() {
+        failures.clear();
+        handled = new CountDownLatch(1);
+    }
+
+    public static boolean awaitHandled(long timeout, TimeUnit unit) throws InterruptedException {
+        return handled.await(timeout, unit);
+    }
+
+    public static List<String> getFailures() {
+        return failures;
+    }
+}
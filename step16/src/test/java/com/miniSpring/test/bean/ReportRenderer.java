@@ -0,0 +1,20 @@
+package com.miniSpring.test.bean;
+
+import com.miniSpring.scheduling.annotation.Async;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+public interface ReportRenderer {
+
+    @Async
+    CompletableFuture<String> render(String name);
+
+    @Async
+    void touch(CountDownLatch latch);
+
+    @Async
+    void fail(String message);
+
+    String describe();
+}
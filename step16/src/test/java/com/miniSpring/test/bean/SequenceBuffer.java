@@ -0,0 +1,29 @@
+package com.miniSpring.test.bean;
+
+/**
+ * 非线程安全的缓冲区：同一实例被并发使用时抛出异常，用于验证 TargetSource 的隔离
+ */
+public class SequenceBuffer implements Buffer {
+
+    private final StringBuilder builder = new StringBuilder();
+
+    private boolean inUse;
+
+    @Override
+    public String append(String value) {
+        if (inUse) {
+            throw new IllegalStateException("SequenceBuffer is used concurrently");
+        }
+        inUse = true;
+        try {
+            builder.setLength(0);
+            builder.append('[').append(value);
+            Thread.sleep(1);
+            return builder.append(']').toString();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            inUse = false;
+        }
+    }
+}
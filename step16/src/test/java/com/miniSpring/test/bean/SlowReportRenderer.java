@@ -0,0 +1,55 @@
+package com.miniSpring.test.bean;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 报表服务，返回执行线程名用于验证异步执行。
+ * 设置 rendezvous 后，每次渲染都要等到 rendezvous 个渲染同时在执行才返回，用来验证调用是并发执行的
+ */
+public class SlowReportRenderer implements ReportRenderer {
+
+    private static volatile CountDownLatch rendezvous;
+
+    @Override
+    public CompletableFuture<String> render(String name) {
+        CountDownLatch rendezvous = SlowReportRenderer.rendezvous;
+        if (null != rendezvous) {
+            rendezvous.countDown();
+            try {
+                if (!rendezvous.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("renders did not run concurrently");
+                }
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("empty report name");
+        }
+        return CompletableFuture.completedFuture(name + "@" + Thread.currentThread().getName());
+    }
+
+    @Override
+    public void touch(CountDownLatch latch) {
+        latch.countDown();
+    }
+
+    @Override
+    public void fail(String message) {
+        throw new IllegalStateException(message);
+    }
+
+    @Override
+    public String describe() {
+        return "sync@" + Thread.currentThread().getName();
+    }
+
+    /**
+     * 设置为 null 时不等待
+     */
+    public static void setRendezvous(CountDownLatch rendezvous) {
+        SlowReportRenderer.rendezvous = rendezvous;
+    }
+}
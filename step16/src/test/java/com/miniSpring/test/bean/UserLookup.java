@@ -0,0 +1,17 @@
+package com.miniSpring.test.bean;
+
+import com.miniSpring.aop.annotation.Collapse;
+
+import java.util.List;
+import java.util.Map;
+
+public interface UserLookup {
+
+    @Collapse
+    String find(String id);
+
+    @Collapse(batchMethod = "findAll", windowMillis = 50, maxBatchSize = 8)
+    String lookup(String id);
+
+    Map<String, String> findAll(List<String> ids);
+}